@@ -0,0 +1,169 @@
+package com.example.mysqlcrudapp.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.CookieManager;
+import java.net.CookiePolicy;
+import java.net.HttpCookie;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpRequest.BodyPublishers;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+
+/**
+ * One logged-in session of the application, safe to use from several threads at once.
+ * <p>
+ * Logs in through the form login like a browser: the CSRF token comes from the {@code XSRF-TOKEN} cookie that
+ * {@code CookieCsrfTokenRepository} sets, goes into the login form as {@code _csrf}, and into an
+ * {@code X-XSRF-TOKEN} header on every later write. Every request is timed into {@link LatencyStats} under a
+ * name with the ids left out, such as {@code GET /api/items/{id}}.
+ */
+final class AppClient {
+    static final String JSON = "application/json";
+    static final String JSON_PATCH_JSON = "application/json-patch+json";
+    static final String MERGE_PATCH_JSON = "application/merge-patch+json";
+    private static final String HTML = "text/html";
+    private static final String CSRF_COOKIE = "XSRF-TOKEN";
+    private static final String CSRF_HEADER = "X-XSRF-TOKEN";
+
+    private final URI baseUri;
+    private final Duration timeout;
+    private final LatencyStats stats;
+    private final ObjectMapper objectMapper;
+    private final CookieManager cookies = new CookieManager(null, CookiePolicy.ACCEPT_ALL);
+    private final HttpClient http;
+
+    AppClient(URI baseUri, Duration timeout, LatencyStats stats, ObjectMapper objectMapper) {
+        this.baseUri = baseUri;
+        this.timeout = timeout;
+        this.stats = stats;
+        this.objectMapper = objectMapper;
+        this.http = HttpClient.newBuilder()
+                .cookieHandler(cookies)
+                .connectTimeout(timeout)
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .build();
+    }
+
+    /**
+     * @throws RequestFailedException if the login is refused
+     */
+    void login(String user, String password) throws IOException, InterruptedException {
+        // The login page passes the CSRF filter, which issues the token cookie
+        send("GET /login", request("/login").header("Accept", HTML).GET(), 200);
+        String form = "username=" + encode(user) + "&password=" + encode(password) + "&_csrf=" + encode(csrfToken());
+        HttpResponse<String> response = send("POST /login", request("/login")
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(BodyPublishers.ofString(form)), 302);
+        String location = response.headers().firstValue("Location").orElse("");
+        if (location.contains("error")) {
+            throw new RequestFailedException("Login as '" + user + "' was refused");
+        }
+        // Logging in replaces the token; the next request issues the new one
+        send("GET /", request("/").header("Accept", HTML).GET(), 200);
+    }
+
+    JsonNode getJson(String name, String path) throws IOException, InterruptedException {
+        return readJson(send(name, request(path).header("Accept", JSON).GET(), 200));
+    }
+
+    HttpResponse<String> getJsonResponse(String name, String path) throws IOException, InterruptedException {
+        return send(name, request(path).header("Accept", JSON).GET(), 200);
+    }
+
+    void getPage(String name, String path) throws IOException, InterruptedException {
+        send(name, request(path).header("Accept", HTML).GET(), 200);
+    }
+
+    JsonNode postJson(String name, String path, Object body) throws IOException, InterruptedException {
+        HttpRequest.Builder request = write(path, JSON).POST(BodyPublishers.ofString(objectMapper.writeValueAsString(body)));
+        return readJson(send(name, request, 200, 201));
+    }
+
+    /**
+     * Sends a JSON Patch conditional on {@code eTag}
+     *
+     * @return the response, 200 or 412 if the item changed since the ETag was read
+     */
+    HttpResponse<String> patchJson(String name, String path, Object patch, String eTag) throws IOException, InterruptedException {
+        HttpRequest.Builder request = write(path, JSON_PATCH_JSON)
+                .header("If-Match", eTag)
+                .method("PATCH", BodyPublishers.ofString(objectMapper.writeValueAsString(patch)));
+        return send(name, request, 200, 412);
+    }
+
+    /**
+     * Sends an unconditional merge patch
+     */
+    JsonNode mergePatchJson(String name, String path, Object patch) throws IOException, InterruptedException {
+        HttpRequest.Builder request = write(path, MERGE_PATCH_JSON)
+                .method("PATCH", BodyPublishers.ofString(objectMapper.writeValueAsString(patch)));
+        return readJson(send(name, request, 200));
+    }
+
+    JsonNode readJson(HttpResponse<String> response) throws IOException {
+        return objectMapper.readTree(response.body());
+    }
+
+    ObjectMapper objectMapper() {
+        return objectMapper;
+    }
+
+    private HttpRequest.Builder request(String path) {
+        return HttpRequest.newBuilder(baseUri.resolve(path)).timeout(timeout);
+    }
+
+    private HttpRequest.Builder write(String path, String contentType) {
+        return request(path)
+                .header("Accept", JSON)
+                .header("Content-Type", contentType)
+                .header(CSRF_HEADER, csrfToken());
+    }
+
+    /**
+     * Sends a request and times it under {@code name}
+     *
+     * @throws RequestFailedException if the status is not one of {@code expected}
+     */
+    private HttpResponse<String> send(String name, HttpRequest.Builder request, int... expected)
+            throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        HttpResponse<String> response;
+        try {
+            response = http.send(request.build(), BodyHandlers.ofString());
+        } catch (IOException e) {
+            stats.record(name, System.nanoTime() - start, false);
+            throw e;
+        }
+        boolean ok = Arrays.stream(expected).anyMatch(status -> status == response.statusCode());
+        stats.record(name, System.nanoTime() - start, ok);
+        if (!ok) {
+            throw new RequestFailedException(name + " answered " + response.statusCode() + ": " + abbreviate(response.body()));
+        }
+        return response;
+    }
+
+    private String csrfToken() {
+        return cookies.getCookieStore().get(baseUri).stream()
+                .filter(cookie -> cookie.getName().equals(CSRF_COOKIE))
+                .map(HttpCookie::getValue)
+                .findFirst()
+                .orElseThrow(() -> new RequestFailedException("No " + CSRF_COOKIE + " cookie was issued"));
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+
+    private static String abbreviate(String body) {
+        return body.length() <= 200 ? body : body.substring(0, 200) + "...";
+    }
+}
@@ -0,0 +1,149 @@
+package com.example.mysqlcrudapp.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * The data the scenarios work on, shared by all sessions.
+ * <p>
+ * Items are written to a blueprint of their own, "Load test", whose version has no fields, so that any item
+ * data is valid and other blueprints are only read. Links between them use the field "loadtest_related". Both
+ * are created on the first run and reused afterwards, and the blueprint is filled up to the requested number
+ * of items, each linked to an earlier one.
+ */
+final class Fixture {
+    static final String BLUEPRINT_NAME = "Load test";
+    static final String LINK_FIELD_KEY = "loadtest_related";
+
+    private final List<Long> blueprintIds = new ArrayList<>();
+    /** Guarded by itself; grows as the create scenario adds items */
+    private final List<Long> itemIds = new ArrayList<>();
+    private long blueprintId;
+    private long versionId;
+    private long linkFieldId;
+
+    private Fixture() {
+    }
+
+    static Fixture prepare(AppClient client, int seedItems, Random random) throws IOException, InterruptedException {
+        Fixture fixture = new Fixture();
+        fixture.findOrCreateBlueprint(client);
+        fixture.findOrCreateLinkField(client);
+        fixture.loadItems(client);
+        while (fixture.itemCount() < seedItems) {
+            fixture.createItem(client, random);
+        }
+        return fixture;
+    }
+
+    private void findOrCreateBlueprint(AppClient client) throws IOException, InterruptedException {
+        Long existing = null;
+        for (JsonNode blueprint : client.getJson("GET /api/blueprints", "/api/blueprints")) {
+            blueprintIds.add(blueprint.get("id").asLong());
+            if (BLUEPRINT_NAME.equals(blueprint.path("name").asText())) {
+                existing = blueprint.get("id").asLong();
+            }
+        }
+        if (existing != null) {
+            blueprintId = existing;
+            versionId = client.getJson("GET /api/blueprints/{id}/active-version",
+                    "/api/blueprints/" + blueprintId + "/active-version").get("id").asLong();
+            return;
+        }
+        Map<String, Object> blueprint = new LinkedHashMap<>();
+        blueprint.put("name", BLUEPRINT_NAME);
+        blueprint.put("description", "Items written by the load-test harness");
+        blueprintId = client.postJson("POST /api/blueprints", "/api/blueprints", blueprint).get("id").asLong();
+        blueprintIds.add(blueprintId);
+
+        Map<String, Object> version = new LinkedHashMap<>();
+        version.put("blueprintId", blueprintId);
+        version.put("versionNumber", 1);
+        version.put("name", "Version 1");
+        version.put("active", true);
+        versionId = client.postJson("POST /api/blueprint-versions", "/api/blueprint-versions", version).get("id").asLong();
+    }
+
+    private void findOrCreateLinkField(AppClient client) throws IOException, InterruptedException {
+        for (JsonNode field : client.getJson("GET /api/fields", "/api/fields?all=true")) {
+            if (LINK_FIELD_KEY.equals(field.path("key").asText())) {
+                linkFieldId = field.get("id").asLong();
+                return;
+            }
+        }
+        Map<String, Object> field = new LinkedHashMap<>();
+        field.put("key", LINK_FIELD_KEY);
+        field.put("label", "Related (load test)");
+        field.put("type", "text");
+        linkFieldId = client.postJson("POST /api/fields", "/api/fields", field).get("id").asLong();
+    }
+
+    private void loadItems(AppClient client) throws IOException, InterruptedException {
+        Long after = null;
+        do {
+            JsonNode page = client.getJson("GET /api/items/blueprint/{id}", "/api/items/blueprint/" + blueprintId
+                    + "?size=500" + (after != null ? "&after=" + after : ""));
+            for (JsonNode item : page.get("items")) {
+                itemIds.add(item.get("id").asLong());
+            }
+            after = page.hasNonNull("next") ? page.get("next").asLong() : null;
+        } while (after != null);
+    }
+
+    /**
+     * Creates an item linked to a random earlier one, and makes it available to the scenarios
+     */
+    long createItem(AppClient client, Random random) throws IOException, InterruptedException {
+        Long linkTo = itemCount() > 0 ? randomItem(random) : null;
+
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("title", "Load test item " + random.nextInt(1_000_000));
+        data.put("quantity", random.nextInt(1000));
+        data.put("tags", new String[]{"load", random.nextBoolean() ? "even" : "odd"});
+        Map<String, Object> item = new LinkedHashMap<>();
+        item.put("blueprintId", blueprintId);
+        item.put("versionId", versionId);
+        item.put("currentState", "active");
+        item.put("dataJson", client.objectMapper().writeValueAsString(data));
+        long id = client.postJson("POST /api/items", "/api/items", item).get("id").asLong();
+
+        if (linkTo != null) {
+            Map<String, Object> link = new LinkedHashMap<>();
+            link.put("fromItemId", id);
+            link.put("toItemId", linkTo);
+            link.put("fieldId", linkFieldId);
+            link.put("type", "related");
+            client.postJson("POST /api/item-links", "/api/item-links", link);
+        }
+        synchronized (itemIds) {
+            itemIds.add(id);
+        }
+        return id;
+    }
+
+    long randomItem(Random random) {
+        synchronized (itemIds) {
+            return itemIds.get(random.nextInt(itemIds.size()));
+        }
+    }
+
+    long randomBlueprint(Random random) {
+        return blueprintIds.get(random.nextInt(blueprintIds.size()));
+    }
+
+    int itemCount() {
+        synchronized (itemIds) {
+            return itemIds.size();
+        }
+    }
+
+    long getBlueprintId() {
+        return blueprintId;
+    }
+}
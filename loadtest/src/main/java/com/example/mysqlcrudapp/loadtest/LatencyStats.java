@@ -0,0 +1,121 @@
+package com.example.mysqlcrudapp.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramLogWriter;
+import org.HdrHistogram.Recorder;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histograms by name, in microseconds, recorded from any thread.
+ * <p>
+ * Each name has a {@link Recorder} that is drained into a total histogram at every progress report, so
+ * recording never waits for reporting.
+ */
+final class LatencyStats {
+    private static final int SIGNIFICANT_DIGITS = 3;
+
+    private final Map<String, Entry> entries = new ConcurrentSkipListMap<>();
+
+    void record(String name, long nanos, boolean ok) {
+        Entry entry = entries.computeIfAbsent(name, key -> new Entry());
+        entry.recorder.recordValue(Math.max(1, nanos / 1_000));
+        if (!ok) {
+            entry.errors.increment();
+        }
+    }
+
+    /**
+     * Forgets everything recorded so far, such as the logins and warmup before a measurement
+     */
+    synchronized void reset() {
+        entries.clear();
+    }
+
+    /**
+     * Prints the count and percentiles of each name since the last report, and adds them to the totals
+     */
+    synchronized void printInterval(PrintStream out, double seconds) {
+        out.printf("%n-- last %.0f s%n", seconds);
+        printHeader(out);
+        entries.forEach((name, entry) -> {
+            Histogram interval = entry.recorder.getIntervalHistogram(entry.interval);
+            entry.interval = interval;
+            entry.total.add(interval);
+            long errors = entry.errors.sum();
+            if (interval.getTotalCount() > 0) {
+                printRow(out, name, interval, errors - entry.reportedErrors, seconds);
+            }
+            entry.reportedErrors = errors;
+        });
+    }
+
+    synchronized void printSummary(PrintStream out, double seconds) {
+        entries.values().forEach(entry -> {
+            entry.interval = entry.recorder.getIntervalHistogram(entry.interval);
+            entry.total.add(entry.interval);
+        });
+        out.printf("%n== %.0f s in total; scenario times include waiting for a free slot, request times do not%n", seconds);
+        printHeader(out);
+        entries.forEach((name, entry) -> printRow(out, name, entry.total, entry.errors.sum(), seconds));
+    }
+
+    /**
+     * Writes each total histogram to {@code <name>.hgrm}, the percentile distribution format that the
+     * HdrHistogram plotter reads, and all of them to {@code histograms.hlog}
+     */
+    synchronized void writeHistograms(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        try (PrintStream log = new PrintStream(directory.resolve("histograms.hlog").toFile())) {
+            HistogramLogWriter writer = new HistogramLogWriter(log);
+            writer.outputLogFormatVersion();
+            writer.outputLegend();
+            for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+                Histogram total = entry.getValue().total;
+                total.setTag(fileName(entry.getKey()));
+                writer.outputIntervalHistogram(total);
+                try (PrintStream hgrm = new PrintStream(directory.resolve(fileName(entry.getKey()) + ".hgrm").toFile())) {
+                    total.outputPercentileDistribution(hgrm, 1000.0);
+                }
+            }
+        } catch (FileNotFoundException e) {
+            throw new IOException("Could not write histograms to " + directory, e);
+        }
+    }
+
+    private static void printHeader(PrintStream out) {
+        out.printf("%-40s %8s %7s %8s %9s %9s %9s %9s %9s%n",
+                "", "count", "errors", "per s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+    }
+
+    private static void printRow(PrintStream out, String name, Histogram histogram, long errors, double seconds) {
+        out.printf("%-40s %8d %7d %8.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+                name, histogram.getTotalCount(), errors, histogram.getTotalCount() / seconds,
+                millis(histogram.getValueAtPercentile(50)), millis(histogram.getValueAtPercentile(90)),
+                millis(histogram.getValueAtPercentile(99)), millis(histogram.getValueAtPercentile(99.9)),
+                millis(histogram.getMaxValue()));
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+
+    private static String fileName(String name) {
+        return name.replaceAll("[^A-Za-z0-9]+", "_").replaceAll("^_|_$", "");
+    }
+
+    private static final class Entry {
+        private final Recorder recorder = new Recorder(SIGNIFICANT_DIGITS);
+        private final Histogram total = new Histogram(SIGNIFICANT_DIGITS);
+        private final LongAdder errors = new LongAdder();
+        private Histogram interval;
+        private long reportedErrors;
+    }
+}
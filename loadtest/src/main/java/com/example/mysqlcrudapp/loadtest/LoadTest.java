@@ -0,0 +1,151 @@
+package com.example.mysqlcrudapp.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Runs weighted scenarios against a running instance of the application at a fixed rate and reports latency
+ * percentiles.
+ * <p>
+ * Scenarios are started on a fixed schedule, whether or not earlier ones have finished, and at most
+ * {@code concurrency} run at once. A scenario's time is measured from when it was due to start, not from
+ * when a slot became free, so an overloaded application shows up as latency rather than as a lower rate
+ * (no coordinated omission). Each request is also timed on its own.
+ */
+public final class LoadTest {
+    private final LoadTestOptions options;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Scenario[] schedule;
+
+    private LoadTest(LoadTestOptions options) {
+        this.options = options;
+        this.schedule = weightedSchedule(options.mix);
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 1 && args[0].equals("help")) {
+            System.out.println(LoadTestOptions.USAGE);
+            return;
+        }
+        LoadTestOptions options;
+        try {
+            options = LoadTestOptions.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(LoadTestOptions.USAGE);
+            System.exit(2);
+            return;
+        }
+        new LoadTest(options).run();
+    }
+
+    private void run() throws IOException, InterruptedException {
+        LatencyStats stats = new LatencyStats();
+        AppClient setupClient = new AppClient(options.url, options.timeout, stats, objectMapper);
+        setupClient.login(options.user, options.password);
+        System.out.printf("Preparing up to %d items in blueprint '%s' at %s%n", options.seedItems, Fixture.BLUEPRINT_NAME, options.url);
+        Fixture fixture = Fixture.prepare(setupClient, options.seedItems, new Random());
+
+        List<AppClient> sessions = new ArrayList<>(options.sessions);
+        for (int i = 0; i < options.sessions; i++) {
+            AppClient session = new AppClient(options.url, options.timeout, stats, objectMapper);
+            session.login(options.user, options.password);
+            sessions.add(session);
+        }
+
+        if (!options.warmup.isZero()) {
+            System.out.printf("Warming up for %d s%n", options.warmup.getSeconds());
+            runPhase(sessions, fixture, stats, options.warmup.toNanos(), false);
+        }
+        stats.reset();
+        System.out.printf("Running %s at %.1f scenarios/s for %d s over %d sessions, %d at once%n",
+                options.mix, options.rate, options.duration.getSeconds(), options.sessions, options.concurrency);
+        double seconds = runPhase(sessions, fixture, stats, options.duration.toNanos(), true);
+        stats.printSummary(System.out, seconds);
+        if (options.hgrmDir != null) {
+            stats.writeHistograms(options.hgrmDir);
+            System.out.println("Histograms written to " + options.hgrmDir.toAbsolutePath());
+        }
+    }
+
+    /**
+     * @return the seconds the phase took until its last scenario finished
+     */
+    private double runPhase(List<AppClient> sessions, Fixture fixture, LatencyStats stats, long durationNanos,
+                            boolean report) throws InterruptedException {
+        ExecutorService workers = Executors.newFixedThreadPool(options.concurrency);
+        ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor();
+        AtomicLong failures = new AtomicLong();
+        long intervalNanos = (long) (1_000_000_000L / options.rate);
+        long start = System.nanoTime();
+        if (report) {
+            long reportMillis = options.reportInterval.toMillis();
+            reporter.scheduleAtFixedRate(() -> stats.printInterval(System.out, reportMillis / 1000.0),
+                    reportMillis, reportMillis, TimeUnit.MILLISECONDS);
+        }
+        try {
+            for (long i = 0; ; i++) {
+                long due = start + i * intervalNanos;
+                if (due - start >= durationNanos) {
+                    break;
+                }
+                for (long wait = due - System.nanoTime(); wait > 0; wait = due - System.nanoTime()) {
+                    LockSupport.parkNanos(wait);
+                }
+                Scenario scenario = schedule[ThreadLocalRandom.current().nextInt(schedule.length)];
+                AppClient session = sessions.get((int) (i % sessions.size()));
+                workers.execute(() -> runScenario(scenario, session, fixture, stats, due, failures));
+            }
+        } finally {
+            workers.shutdown();
+            workers.awaitTermination(options.timeout.toMillis() * 10, TimeUnit.MILLISECONDS);
+            reporter.shutdownNow();
+        }
+        if (failures.get() > 0) {
+            System.out.printf("%d scenarios failed; see the errors column%n", failures.get());
+        }
+        return (System.nanoTime() - start) / 1e9;
+    }
+
+    private static void runScenario(Scenario scenario, AppClient session, Fixture fixture, LatencyStats stats,
+                                    long due, AtomicLong failures) {
+        boolean ok = false;
+        try {
+            scenario.run(session, fixture, ThreadLocalRandom.current());
+            ok = true;
+        } catch (RequestFailedException | IOException e) {
+            if (failures.getAndIncrement() < 10) {
+                System.err.println(scenario.label() + " failed: " + e.getMessage());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            stats.record(scenario.label(), System.nanoTime() - due, ok);
+        }
+    }
+
+    /**
+     * Each scenario repeated as often as its weight, so that picking uniformly from it follows the weights
+     */
+    private static Scenario[] weightedSchedule(Map<Scenario, Integer> mix) {
+        List<Scenario> schedule = new ArrayList<>();
+        mix.forEach((scenario, weight) -> {
+            for (int i = 0; i < weight; i++) {
+                schedule.add(scenario);
+            }
+        });
+        return schedule.toArray(new Scenario[0]);
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.mysqlcrudapp.loadtest;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Command line options, each given as {@code name=value}
+ */
+final class LoadTestOptions {
+    static final String USAGE = String.join("\n",
+            "Options, each as name=value:",
+            "  url=http://localhost:8083   application to load",
+            "  user=admin password=admin   login used by every session",
+            "  sessions=8                  logged-in sessions the scenarios are spread over",
+            "  concurrency=32              scenarios running at once; later ones wait, and the wait counts",
+            "  rate=50                     scenarios started per second",
+            "  warmup=10 duration=60       seconds of unrecorded warmup, then of measurement",
+            "  mix=browse:40,pages:10,create:15,patch:20,traverse:15",
+            "                              relative weights of the scenarios; merge-patch, which needs",
+            "                              MySQL, can be added, e.g. ...,merge-patch:20",
+            "  seed-items=200              items the load-test blueprint is filled up to before the run",
+            "  report-interval=10          seconds between progress lines",
+            "  timeout=10                  seconds before a request fails",
+            "  hgrm-dir=                   directory to write each histogram to as .hgrm, for plotting");
+
+    final URI url;
+    final String user;
+    final String password;
+    final int sessions;
+    final int concurrency;
+    final double rate;
+    final Duration warmup;
+    final Duration duration;
+    final Map<Scenario, Integer> mix;
+    final int seedItems;
+    final Duration reportInterval;
+    final Duration timeout;
+    final Path hgrmDir;
+
+    private LoadTestOptions(Map<String, String> values) {
+        url = URI.create(stripTrailingSlash(take(values, "url", "http://localhost:8083")));
+        user = take(values, "user", "admin");
+        password = take(values, "password", "admin");
+        sessions = positive(values, "sessions", 8);
+        concurrency = positive(values, "concurrency", 32);
+        rate = Double.parseDouble(take(values, "rate", "50"));
+        warmup = Duration.ofSeconds(Long.parseLong(take(values, "warmup", "10")));
+        duration = Duration.ofSeconds(positive(values, "duration", 60));
+        mix = parseMix(take(values, "mix", "browse:40,pages:10,create:15,patch:20,traverse:15"));
+        seedItems = Integer.parseInt(take(values, "seed-items", "200"));
+        reportInterval = Duration.ofSeconds(positive(values, "report-interval", 10));
+        timeout = Duration.ofSeconds(positive(values, "timeout", 10));
+        String dir = take(values, "hgrm-dir", "");
+        hgrmDir = dir.isEmpty() ? null : Paths.get(dir);
+        if (rate <= 0) {
+            throw new IllegalArgumentException("rate must be positive");
+        }
+        if (!values.isEmpty()) {
+            throw new IllegalArgumentException("Unknown options " + values.keySet());
+        }
+    }
+
+    /**
+     * @throws IllegalArgumentException for malformed or unknown options
+     */
+    static LoadTestOptions parse(String[] args) {
+        Map<String, String> values = new LinkedHashMap<>();
+        for (String arg : args) {
+            int equals = arg.indexOf('=');
+            if (equals <= 0) {
+                throw new IllegalArgumentException("Options are given as name=value, not '" + arg + "'");
+            }
+            values.put(arg.substring(0, equals), arg.substring(equals + 1));
+        }
+        return new LoadTestOptions(values);
+    }
+
+    private static Map<Scenario, Integer> parseMix(String mix) {
+        Map<Scenario, Integer> weights = new LinkedHashMap<>();
+        for (String part : mix.split(",")) {
+            String[] nameAndWeight = part.trim().split(":");
+            if (nameAndWeight.length != 2) {
+                throw new IllegalArgumentException("mix is a list of scenario:weight, not '" + part + "'");
+            }
+            int weight = Integer.parseInt(nameAndWeight[1].trim());
+            if (weight > 0) {
+                weights.put(Scenario.of(nameAndWeight[0].trim()), weight);
+            }
+        }
+        if (weights.isEmpty()) {
+            throw new IllegalArgumentException("mix must give at least one scenario a positive weight");
+        }
+        return weights;
+    }
+
+    private static String take(Map<String, String> values, String name, String defaultValue) {
+        String value = values.remove(name);
+        return value != null ? value : defaultValue;
+    }
+
+    private static int positive(Map<String, String> values, String name, int defaultValue) {
+        int value = Integer.parseInt(take(values, name, String.valueOf(defaultValue)));
+        if (value <= 0) {
+            throw new IllegalArgumentException(name + " must be positive");
+        }
+        return value;
+    }
+
+    private static String stripTrailingSlash(String url) {
+        return url.endsWith("/") ? url.substring(0, url.length() - 1) : url;
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.mysqlcrudapp.loadtest;
+
+/**
+ * A request answered with an unexpected status; ends the scenario it was part of
+ */
+class RequestFailedException extends RuntimeException {
+
+    RequestFailedException(String message) {
+        super(message);
+    }
+}
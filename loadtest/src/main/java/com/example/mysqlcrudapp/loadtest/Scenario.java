@@ -0,0 +1,117 @@
+package com.example.mysqlcrudapp.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.io.IOException;
+import java.net.http.HttpResponse;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * A sequence of requests that one user would make in a row, timed as a whole besides each request
+ */
+enum Scenario {
+    /** Lists blueprints, opens one and pages through its items */
+    BROWSE("browse") {
+        @Override
+        void run(AppClient client, Fixture fixture, Random random) throws IOException, InterruptedException {
+            client.getJson("GET /api/blueprints", "/api/blueprints");
+            long blueprintId = fixture.randomBlueprint(random);
+            client.getJson("GET /api/blueprints/{id}", "/api/blueprints/" + blueprintId);
+            client.getJson("GET /api/items/blueprint/{id}", "/api/items/blueprint/" + blueprintId + "?size=20");
+        }
+    },
+    /** The Thymeleaf pages a user clicks through */
+    PAGES("pages") {
+        @Override
+        void run(AppClient client, Fixture fixture, Random random) throws IOException, InterruptedException {
+            client.getPage("GET /blueprints (page)", "/blueprints");
+            client.getPage("GET /blueprints/{id} (page)", "/blueprints/" + fixture.getBlueprintId());
+            client.getPage("GET /items (page)", "/items");
+        }
+    },
+    /** Creates an item linked to an existing one */
+    CREATE("create") {
+        @Override
+        void run(AppClient client, Fixture fixture, Random random) throws IOException, InterruptedException {
+            fixture.createItem(client, random);
+        }
+    },
+    /**
+     * Reads an item and increments a value in its data with a JSON Patch that tests the value read first,
+     * conditional on the ETag just read too. The test makes the application apply it in memory rather than in
+     * SQL, which works on every database, including the embedded one.
+     */
+    PATCH("patch") {
+        @Override
+        void run(AppClient client, Fixture fixture, Random random) throws IOException, InterruptedException {
+            long itemId = fixture.randomItem(random);
+            HttpResponse<String> item = client.getJsonResponse("GET /api/items/{id}", "/api/items/" + itemId);
+            String eTag = item.headers().firstValue("ETag")
+                    .orElseThrow(() -> new RequestFailedException("GET /api/items/{id} sent no ETag"));
+            String data = client.readJson(item).path("dataJson").asText("{}");
+            JsonNode quantity = client.objectMapper().readTree(data).path("quantity");
+            List<Map<String, Object>> patch = Arrays.asList(
+                    operation("test", "/quantity", quantity),
+                    operation("replace", "/quantity", quantity.asInt() + 1));
+            // A 412 means another session patched the item in between, which a real client would retry
+            client.patchJson("PATCH /api/items/{id}", "/api/items/" + itemId, patch, eTag);
+        }
+    },
+    /**
+     * Overwrites a value in an item's data with a merge patch, applied in SQL with JSON_MERGE_PATCH. The
+     * embedded H2 database has no such function, so this scenario needs a MySQL server and is not in the
+     * default mix.
+     */
+    MERGE_PATCH("merge-patch") {
+        @Override
+        void run(AppClient client, Fixture fixture, Random random) throws IOException, InterruptedException {
+            long itemId = fixture.randomItem(random);
+            client.mergePatchJson("PATCH /api/items/{id} (merge)", "/api/items/" + itemId,
+                    Collections.singletonMap("quantity", random.nextInt(1000)));
+        }
+    },
+    /** Follows an item's links in both directions and loads its neighbourhood */
+    TRAVERSE("traverse") {
+        @Override
+        void run(AppClient client, Fixture fixture, Random random) throws IOException, InterruptedException {
+            long itemId = fixture.randomItem(random);
+            client.getJson("GET /api/item-links/from/{id}", "/api/item-links/from/" + itemId);
+            client.getJson("GET /api/item-links/to/{id}", "/api/item-links/to/" + itemId);
+            client.getJson("GET /api/items/{id}/graph", "/api/items/" + itemId + "/graph?depth=2&direction=both");
+        }
+    };
+
+    private final String name;
+
+    Scenario(String name) {
+        this.name = name;
+    }
+
+    abstract void run(AppClient client, Fixture fixture, Random random) throws IOException, InterruptedException;
+
+    private static Map<String, Object> operation(String op, String path, Object value) {
+        Map<String, Object> operation = new LinkedHashMap<>();
+        operation.put("op", op);
+        operation.put("path", path);
+        operation.put("value", value);
+        return operation;
+    }
+
+    String label() {
+        return "scenario " + name;
+    }
+
+    static Scenario of(String name) {
+        for (Scenario scenario : values()) {
+            if (scenario.name.equals(name)) {
+                return scenario;
+            }
+        }
+        throw new IllegalArgumentException("Unknown scenario '" + name + "'");
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.mysqlcrudapp.config;
+
+import com.example.mysqlcrudapp.dto.BlueprintDto;
+import com.example.mysqlcrudapp.entity.Blueprint;
+import com.example.mysqlcrudapp.entity.BlueprintVersion;
+import org.modelmapper.ModelMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mapping a {@link Blueprint} with its versions to a {@link BlueprintDto} through the application's ModelMapper
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BlueprintMappingBenchmark {
+
+    @Param({"1", "10", "100"})
+    private int versionCount;
+
+    private ModelMapper modelMapper;
+    private Blueprint blueprint;
+
+    @Setup
+    public void setUp() {
+        modelMapper = new ModelMapperConfig().modelMapper();
+
+        LocalDateTime now = LocalDateTime.now();
+        blueprint = new Blueprint();
+        blueprint.setId(1L);
+        blueprint.setName("Benchmark blueprint");
+        blueprint.setDescription("Blueprint with " + versionCount + " versions");
+        blueprint.setCreatedById(1L);
+        blueprint.setCreatedAt(now);
+        blueprint.setUpdatedAt(now);
+        blueprint.setVersions(new ArrayList<>());
+        for (int i = 1; i <= versionCount; i++) {
+            BlueprintVersion version = new BlueprintVersion();
+            version.setId((long) i);
+            version.setBlueprint(blueprint);
+            version.setVersionNumber(i);
+            version.setName("Version " + i);
+            version.setDescription("Description of version " + i);
+            version.setActive(i == versionCount);
+            version.setCreatedById(1L);
+            version.setCreatedAt(now);
+            version.setUpdatedAt(now);
+            blueprint.getVersions().add(version);
+        }
+    }
+
+    @Benchmark
+    public BlueprintDto mapBlueprint() {
+        return modelMapper.map(blueprint, BlueprintDto.class);
+    }
+}
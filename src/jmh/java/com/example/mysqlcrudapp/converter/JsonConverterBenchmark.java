@@ -0,0 +1,57 @@
+package com.example.mysqlcrudapp.converter;
+
+import com.example.mysqlcrudapp.util.JsonPayloads;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reading and writing a JSON column through {@link JsonConverter}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonConverterBenchmark {
+
+    @Param({"settings", "item", "large"})
+    private String payload;
+
+    private JsonConverter converter;
+    private String column;
+    private Object attribute;
+
+    @Setup
+    public void setUp() {
+        converter = new JsonConverter(JsonPayloads.objectMapper());
+        column = JsonPayloads.of(payload);
+        attribute = converter.convertToEntityAttribute(column);
+    }
+
+    @Benchmark
+    public Object read() {
+        return converter.convertToEntityAttribute(column);
+    }
+
+    @Benchmark
+    public String write() {
+        return converter.convertToDatabaseColumn(attribute);
+    }
+
+    @Benchmark
+    public String roundTrip() {
+        return converter.convertToDatabaseColumn(converter.convertToEntityAttribute(column));
+    }
+}
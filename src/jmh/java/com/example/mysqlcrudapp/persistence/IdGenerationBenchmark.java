@@ -0,0 +1,142 @@
+package com.example.mysqlcrudapp.persistence;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.boot.MetadataSources;
+import org.hibernate.boot.registry.StandardServiceRegistry;
+import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
+import org.hibernate.cfg.AvailableSettings;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Compares insert throughput of IDENTITY ids against {@link PooledIdGenerator}, in rows per second.
+ * <p>
+ * Runs against an in-memory H2 database by default, which understates the gap because each statement
+ * costs no network round trip. Point it at MySQL to measure the real difference:
+ * <pre>
+ * mvn -P jmh verify -Djmh.includes=IdGenerationBenchmark \
+ *     -Djmh.args="-jvmArgsAppend -Dbench.url=jdbc:mysql://localhost:3306/bench?createDatabaseIfNotExist=true&amp;rewriteBatchedStatements=true"
+ * </pre>
+ * with {@code bench.user} and {@code bench.password} passed the same way.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IdGenerationBenchmark {
+    private static final int ROWS_PER_TRANSACTION = 500;
+
+    @Entity
+    @Table(name = "bench_identity_row")
+    public static class IdentityRow {
+        @Id
+        @GeneratedValue(strategy = GenerationType.IDENTITY)
+        private Long id;
+
+        @Column(name = "payload")
+        private String payload;
+
+        protected IdentityRow() {
+        }
+
+        IdentityRow(String payload) {
+            this.payload = payload;
+        }
+    }
+
+    @Entity
+    @Table(name = "bench_pooled_row")
+    public static class PooledRow {
+        @Id
+        @GeneratedValue(generator = "bench_pooled_row_id")
+        @GenericGenerator(name = "bench_pooled_row_id", strategy = "com.example.mysqlcrudapp.persistence.PooledIdGenerator",
+                parameters = @Parameter(name = "block_size", value = "1000"))
+        private Long id;
+
+        @Column(name = "payload")
+        private String payload;
+
+        protected PooledRow() {
+        }
+
+        PooledRow(String payload) {
+            this.payload = payload;
+        }
+    }
+
+    private HikariDataSource dataSource;
+    private SessionFactory sessionFactory;
+
+    @Setup
+    public void setUp() {
+        dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl(System.getProperty("bench.url", "jdbc:h2:mem:bench;MODE=MySQL;DB_CLOSE_DELAY=-1"));
+        dataSource.setUsername(System.getProperty("bench.user", "sa"));
+        dataSource.setPassword(System.getProperty("bench.password", ""));
+
+        StandardServiceRegistry registry = new StandardServiceRegistryBuilder()
+                .applySetting(AvailableSettings.DATASOURCE, dataSource)
+                .applySetting(AvailableSettings.HBM2DDL_AUTO, "create-drop")
+                .applySetting(AvailableSettings.STATEMENT_BATCH_SIZE, 100)
+                .applySetting(AvailableSettings.ORDER_INSERTS, true)
+                .build();
+        sessionFactory = new MetadataSources(registry)
+                .addAnnotatedClass(IdentityRow.class)
+                .addAnnotatedClass(PooledRow.class)
+                .buildMetadata()
+                .buildSessionFactory();
+    }
+
+    @TearDown
+    public void tearDown() {
+        sessionFactory.close();
+        dataSource.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS_PER_TRANSACTION)
+    public void identity() {
+        insert(IdentityRow::new);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS_PER_TRANSACTION)
+    public void pooled() {
+        insert(PooledRow::new);
+    }
+
+    private void insert(Function<String, Object> newRow) {
+        try (Session session = sessionFactory.openSession()) {
+            session.beginTransaction();
+            for (int i = 0; i < ROWS_PER_TRANSACTION; i++) {
+                session.persist(newRow.apply("row-" + i));
+            }
+            session.getTransaction().commit();
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package com.example.mysqlcrudapp.repository;
+
+import com.example.mysqlcrudapp.MysqlCrudAppApplication;
+import com.example.mysqlcrudapp.dto.ItemDto;
+import com.example.mysqlcrudapp.entity.Blueprint;
+import com.example.mysqlcrudapp.entity.BlueprintVersion;
+import com.example.mysqlcrudapp.entity.BlueprintVersionField;
+import com.example.mysqlcrudapp.entity.Field;
+import com.example.mysqlcrudapp.entity.Item;
+import com.example.mysqlcrudapp.entity.ItemLink;
+import com.example.mysqlcrudapp.service.ItemService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Repository and read-path calls against the application context on an embedded H2 database.
+ * <p>
+ * H2 answers without a network round trip, so these numbers show the ORM and mapping overhead per call
+ * rather than what a request costs against MySQL.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RepositoryBenchmark {
+    private static final int PAGE_SIZE = 50;
+
+    @Param({"1000"})
+    private int itemCount;
+
+    private ConfigurableApplicationContext context;
+    private ItemRepository itemRepository;
+    private BlueprintVersionRepository blueprintVersionRepository;
+    private BlueprintVersionFieldRepository blueprintVersionFieldRepository;
+    private ItemService itemService;
+    private Long blueprintId;
+    private Long versionId;
+    private List<Long> itemIds;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(MysqlCrudAppApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=jdbc:h2:mem:jmh;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+                        "--spring.jpa.properties.hibernate.generate_statistics=false",
+                        "--logging.level.root=WARN");
+        itemRepository = context.getBean(ItemRepository.class);
+        blueprintVersionRepository = context.getBean(BlueprintVersionRepository.class);
+        blueprintVersionFieldRepository = context.getBean(BlueprintVersionFieldRepository.class);
+        itemService = context.getBean(ItemService.class);
+        new TransactionTemplate(context.getBean(PlatformTransactionManager.class)).executeWithoutResult(status -> seed());
+    }
+
+    private void seed() {
+        Blueprint blueprint = new Blueprint();
+        blueprint.setName("Benchmark blueprint");
+        blueprint.setVersions(new ArrayList<>());
+        blueprint = context.getBean(BlueprintRepository.class).save(blueprint);
+        blueprintId = blueprint.getId();
+
+        BlueprintVersion version = new BlueprintVersion();
+        version.setBlueprint(blueprint);
+        version.setVersionNumber(1);
+        version.setName("Version 1");
+        version.setActive(true);
+        version = blueprintVersionRepository.save(version);
+        versionId = version.getId();
+
+        FieldRepository fieldRepository = context.getBean(FieldRepository.class);
+        for (int i = 0; i < 10; i++) {
+            Field field = new Field();
+            field.setKey("field" + i);
+            field.setLabel("Field " + i);
+            field.setType("text");
+            field = fieldRepository.save(field);
+
+            BlueprintVersionField versionField = new BlueprintVersionField();
+            versionField.setBlueprintVersion(version);
+            versionField.setField(field);
+            versionField.setDisplayOrder(i);
+            blueprintVersionFieldRepository.save(versionField);
+        }
+        Field linkField = new Field();
+        linkField.setKey("parent");
+        linkField.setLabel("Parent");
+        linkField.setType("link");
+        linkField = fieldRepository.save(linkField);
+
+        List<Item> items = new ArrayList<>(itemCount);
+        for (int i = 0; i < itemCount; i++) {
+            Item item = new Item();
+            item.setBlueprint(blueprint);
+            item.setVersion(version);
+            item.setDataJson("{\"field0\": \"value " + i + "\"}");
+            items.add(item);
+        }
+        items = itemRepository.saveAll(items);
+        itemIds = new ArrayList<>(itemCount);
+        List<ItemLink> links = new ArrayList<>(itemCount);
+        for (int i = 0; i < items.size(); i++) {
+            itemIds.add(items.get(i).getId());
+            if (i > 0) {
+                ItemLink link = new ItemLink();
+                link.setFromItem(items.get(i - 1));
+                link.setToItem(items.get(i));
+                link.setField(linkField);
+                links.add(link);
+            }
+        }
+        context.getBean(ItemLinkRepository.class).saveAll(links);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    private Long randomItemId() {
+        return itemIds.get(ThreadLocalRandom.current().nextInt(itemIds.size()));
+    }
+
+    @Benchmark
+    public Optional<Item> findItemById() {
+        return itemRepository.findById(randomItemId());
+    }
+
+    @Benchmark
+    public List<ItemDto> itemDtoPage() {
+        return itemService.findDtoPage(randomItemId(), PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<ItemDto> itemDtoPageByBlueprint() {
+        return itemService.findDtoPageByBlueprintId(blueprintId, randomItemId(), PAGE_SIZE);
+    }
+
+    @Benchmark
+    public Optional<BlueprintVersion> findActiveVersion() {
+        return blueprintVersionRepository.findActiveVersion(blueprintId);
+    }
+
+    @Benchmark
+    public List<BlueprintVersionField> versionFieldsInOrder() {
+        return blueprintVersionFieldRepository.findByBlueprintVersionIdOrderByDisplayOrder(versionId);
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.mysqlcrudapp.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**
+ * JSON documents shared by the JSON benchmarks, in the shapes the application stores.
+ */
+public final class JsonPayloads {
+
+    private JsonPayloads() {
+    }
+
+    /**
+     * An ObjectMapper configured the way Spring Boot configures the application's own
+     */
+    public static ObjectMapper objectMapper() {
+        return Jackson2ObjectMapperBuilder.json().build();
+    }
+
+    /**
+     * @param size {@code settings} (a field's settings_json), {@code item} (typical item data)
+     *             or {@code large} (item data with long arrays and nested objects)
+     */
+    public static String of(String size) {
+        switch (size) {
+            case "settings":
+                return "{\"placeholder\": \"Enter a value\", \"min\": 0, \"max\": 100, \"multiline\": false}";
+            case "item":
+                return item(3, 5);
+            case "large":
+                return item(200, 50);
+            default:
+                throw new IllegalArgumentException("Unknown payload size: " + size);
+        }
+    }
+
+    private static String item(int entries, int tags) {
+        StringBuilder json = new StringBuilder("{\"title\": \"Quarterly report\", \"status\": \"draft\", ")
+                .append("\"priority\": 3, \"due\": \"2024-06-30\", \"approved\": false, \"tags\": [");
+        for (int i = 0; i < tags; i++) {
+            json.append(i > 0 ? ", " : "").append("\"tag-").append(i).append('"');
+        }
+        json.append("], \"entries\": [");
+        for (int i = 0; i < entries; i++) {
+            json.append(i > 0 ? ", " : "")
+                    .append("{\"line\": ").append(i)
+                    .append(", \"amount\": ").append(i * 12.5)
+                    .append(", \"note\": \"Entry number ").append(i).append(" with some descriptive text\"}");
+        }
+        return json.append("]}").toString();
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.mysqlcrudapp.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Normalizing and pretty-printing JSON with {@link JsonUtils}, as done for every stored JSON column, e.g. the
+ * four JSON columns of a field on every create and update
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonUtilsBenchmark {
+
+    @Param({"settings", "item", "large"})
+    private String payload;
+
+    private JsonUtils jsonUtils;
+    private String json;
+    private String invalidJson;
+
+    @Setup
+    public void setUp() {
+        jsonUtils = new JsonUtils(JsonPayloads.objectMapper());
+        json = JsonPayloads.of(payload);
+        // Truncated input takes the exception path, which is far costlier than a successful parse
+        invalidJson = json.substring(0, json.length() / 2);
+    }
+
+    @Benchmark
+    public String ensureValidJson() {
+        return jsonUtils.ensureValidJson(json);
+    }
+
+    @Benchmark
+    public String ensureValidJsonInvalid() {
+        return jsonUtils.ensureValidJson(invalidJson);
+    }
+
+    @Benchmark
+    public String ensureValidJsonBlank() {
+        return jsonUtils.ensureValidJson("");
+    }
+
+    @Benchmark
+    public String prettyPrintJson() {
+        return jsonUtils.prettyPrintJson(json);
+    }
+}
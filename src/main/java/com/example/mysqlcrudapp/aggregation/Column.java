@@ -0,0 +1,25 @@
+package com.example.mysqlcrudapp.aggregation;
+
+import com.fasterxml.jackson.core.JsonParser;
+
+import java.io.IOException;
+
+/**
+ * One field of a {@link ColumnarTable}: a primitive array holding the field's value for every row
+ */
+abstract class Column {
+    abstract void ensureCapacity(int capacity);
+
+    /**
+     * Reads the value at the parser's current token into a row, or marks it missing if the value does not fit.
+     * Leaves the parser on the last token of the value.
+     */
+    abstract void read(int row, JsonParser parser) throws IOException;
+
+    abstract void clear(int row);
+
+    /**
+     * Copies the value of one row over another, used to fill the hole left by a removed row
+     */
+    abstract void move(int from, int to);
+}
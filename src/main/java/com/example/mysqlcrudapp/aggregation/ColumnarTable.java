@@ -0,0 +1,460 @@
+package com.example.mysqlcrudapp.aggregation;
+
+import com.example.mysqlcrudapp.dto.ItemAggregationGroupDto;
+import com.example.mysqlcrudapp.dto.ItemAggregationResultDto;
+import com.example.mysqlcrudapp.dto.ItemFieldStatsDto;
+import com.example.mysqlcrudapp.dto.ItemHistogramBucketDto;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+/**
+ * The items of one blueprint held column by column for aggregation: an item id array, the item states and one
+ * primitive array per aggregatable field, all indexed by row.
+ * <p>
+ * Number fields are stored as doubles, date fields as epoch days and select or boolean fields as dictionary codes.
+ * Item writes update rows in place and removals move the last row into the hole, so the arrays stay dense.
+ * Aggregations hold the read lock and scan the rows in chunks on the common fork-join pool.
+ * <p>
+ * A table starts empty and is filled by {@link #load}. Changes arriving while it loads are kept and replayed
+ * over the loaded rows, so none are lost to the scan racing with writes.
+ */
+@Slf4j
+public final class ColumnarTable {
+    /** Groups by item state rather than by a data field */
+    public static final String STATE = "currentState";
+    public static final int MAX_HISTOGRAM_BUCKETS = 1000;
+    /** Rows scanned per parallel task; smaller tables are scanned on the calling thread */
+    private static final int CHUNK_ROWS = 16_384;
+
+    public enum ColumnType {
+        NUMBER,
+        DATE,
+        DICTIONARY
+    }
+
+    /**
+     * Receives the items of the blueprint during {@link #load}
+     */
+    @FunctionalInterface
+    public interface Sink {
+        void add(long itemId, String currentState, String dataJson);
+    }
+
+    private final Long blueprintId;
+    private final Map<String, ColumnType> columnTypes;
+    private final JsonFactory jsonFactory;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ReentrantLock loadLock = new ReentrantLock();
+
+    /** Null until loaded */
+    private Rows rows;
+    private final List<Change> pending = new ArrayList<>();
+
+    /**
+     * @param columnTypes Column type by field key; data keys not listed are ignored
+     */
+    public ColumnarTable(Long blueprintId, Map<String, ColumnType> columnTypes, JsonFactory jsonFactory) {
+        this.blueprintId = blueprintId;
+        this.columnTypes = new HashMap<>(columnTypes);
+        this.jsonFactory = jsonFactory;
+    }
+
+    public Long getBlueprintId() {
+        return blueprintId;
+    }
+
+    /**
+     * Fills the table from a scan of the blueprint's items, unless it is already loaded.
+     * Concurrent callers wait for the first one to finish.
+     *
+     * @param scan Calls its argument with every item of the blueprint
+     */
+    public void load(Consumer<Sink> scan) {
+        loadLock.lock();
+        try {
+            if (isLoaded()) {
+                return;
+            }
+            Rows built = new Rows();
+            scan.accept(built::upsert);
+            lock.writeLock().lock();
+            try {
+                for (Change change : pending) {
+                    change.applyTo(built);
+                }
+                pending.clear();
+                rows = built;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            log.info("Loaded {} items of blueprint {} into the aggregation cache", built.count, blueprintId);
+        } finally {
+            loadLock.unlock();
+        }
+    }
+
+    public boolean isLoaded() {
+        lock.readLock().lock();
+        try {
+            return rows != null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return rows == null ? 0 : rows.count;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Adds an item or replaces its row
+     */
+    public void upsert(long itemId, String currentState, String dataJson) {
+        apply(new Change(itemId, currentState, dataJson, false));
+    }
+
+    /**
+     * Removes an item, if the table has it
+     */
+    public void remove(long itemId) {
+        apply(new Change(itemId, null, null, true));
+    }
+
+    private void apply(Change change) {
+        lock.writeLock().lock();
+        try {
+            if (rows == null) {
+                pending.add(change);
+            } else {
+                change.applyTo(rows);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @param groupBy {@link #STATE}, the key of a dictionary column, or null for a single group
+     * @param fields Keys of number or date columns to compute statistics of
+     * @param histogramField Key of a number or date column to bucket, or null for no histogram
+     * @throws IllegalArgumentException if a key does not name a column of the right type
+     * @throws IllegalStateException if the table is not loaded
+     */
+    public ItemAggregationResultDto aggregate(String groupBy, List<String> fields, String histogramField, int buckets) {
+        lock.readLock().lock();
+        try {
+            if (rows == null) {
+                throw new IllegalStateException("Aggregation table of blueprint " + blueprintId + " is not loaded");
+            }
+            DictionaryColumn group = null;
+            if (groupBy != null && !groupBy.isEmpty()) {
+                Column column = STATE.equals(groupBy) ? rows.state : rows.columns.get(groupBy);
+                if (!(column instanceof DictionaryColumn)) {
+                    throw new IllegalArgumentException("Cannot group by '" + groupBy
+                            + "': only " + STATE + " and select or boolean fields can be grouped by");
+                }
+                group = (DictionaryColumn) column;
+            }
+            List<String> keys = fields == null ? new ArrayList<>() : new ArrayList<>(new LinkedHashSet<>(fields));
+            NumericColumn[] metrics = new NumericColumn[keys.size()];
+            for (int m = 0; m < metrics.length; m++) {
+                metrics[m] = numericColumn(keys.get(m));
+            }
+            NumericColumn histogram = histogramField == null || histogramField.isEmpty() ? null : numericColumn(histogramField);
+            if (histogram != null && (buckets < 1 || buckets > MAX_HISTOGRAM_BUCKETS)) {
+                throw new IllegalArgumentException("Histogram buckets must be between 1 and " + MAX_HISTOGRAM_BUCKETS);
+            }
+
+            int rowCount = rows.count;
+            // Slot 0 collects items without a value for the group-by field
+            int groups = group == null ? 1 : group.size() + 1;
+            double[] range = histogram == null ? null : scan(rowCount, (from, to) -> range(histogram, from, to),
+                    (a, b) -> new double[]{Math.min(a[0], b[0]), Math.max(a[1], b[1])});
+            boolean bucketed = range != null && range[0] <= range[1];
+            int bucketCount = bucketed ? buckets : 0;
+            double low = bucketed ? range[0] : 0;
+            double width = bucketed ? (range[1] - range[0]) / buckets : 0;
+
+            DictionaryColumn groupColumn = group;
+            Accumulator total = scan(rowCount, (from, to) -> {
+                Accumulator accumulator = new Accumulator(groups, metrics.length, bucketCount);
+                accumulator.add(from, to, groupColumn, metrics, bucketed ? histogram : null, low, width);
+                return accumulator;
+            }, Accumulator::merge);
+
+            List<ItemAggregationGroupDto> results = new ArrayList<>();
+            for (int g = 0; g < groups; g++) {
+                if (total.counts[g] == 0) {
+                    continue;
+                }
+                Map<String, ItemFieldStatsDto> statistics = new LinkedHashMap<>();
+                for (int m = 0; m < metrics.length; m++) {
+                    statistics.put(keys.get(m), total.statistics(g, m, metrics[m]));
+                }
+                List<ItemHistogramBucketDto> histogramBuckets = null;
+                if (histogram != null) {
+                    histogramBuckets = new ArrayList<>(bucketCount);
+                    for (int b = 0; b < bucketCount; b++) {
+                        histogramBuckets.add(new ItemHistogramBucketDto(histogram.present(low + b * width),
+                                histogram.present(b == bucketCount - 1 ? range[1] : low + (b + 1) * width),
+                                total.histogram[g * bucketCount + b]));
+                    }
+                }
+                String key = group == null || g == 0 ? null : group.valueOf(g - 1);
+                results.add(new ItemAggregationGroupDto(key, total.counts[g], statistics, histogramBuckets));
+            }
+            results.sort(Comparator.comparingLong(ItemAggregationGroupDto::getCount).reversed()
+                    .thenComparing(ItemAggregationGroupDto::getKey, Comparator.nullsLast(Comparator.naturalOrder())));
+            return new ItemAggregationResultDto(blueprintId, group == null ? null : groupBy, rowCount, results);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private NumericColumn numericColumn(String key) {
+        Column column = rows.columns.get(key);
+        if (!(column instanceof NumericColumn)) {
+            throw new IllegalArgumentException("Cannot aggregate '" + key + "': only number and date fields can be aggregated");
+        }
+        return (NumericColumn) column;
+    }
+
+    private static double[] range(NumericColumn column, int from, int to) {
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        for (int row = from; row < to; row++) {
+            double value = column.valueAt(row);
+            if (value < min) {
+                min = value;
+            }
+            if (value > max) {
+                max = value;
+            }
+        }
+        return new double[]{min, max};
+    }
+
+    @FunctionalInterface
+    private interface RangeScan<T> {
+        T scan(int from, int to);
+    }
+
+    /**
+     * Scans rows in chunks of {@value #CHUNK_ROWS}, in parallel when there is more than one, and merges the results
+     */
+    private static <T> T scan(int rowCount, RangeScan<T> scanner, BinaryOperator<T> merge) {
+        int chunks = (rowCount + CHUNK_ROWS - 1) / CHUNK_ROWS;
+        if (chunks <= 1) {
+            return scanner.scan(0, rowCount);
+        }
+        return IntStream.range(0, chunks)
+                .parallel()
+                .mapToObj(chunk -> scanner.scan(chunk * CHUNK_ROWS, Math.min(rowCount, (chunk + 1) * CHUNK_ROWS)))
+                .reduce(merge)
+                .orElseThrow(IllegalStateException::new);
+    }
+
+    /**
+     * Partial aggregates of a range of rows. Per-field arrays are laid out group by group.
+     */
+    private static final class Accumulator {
+        final long[] counts;
+        final int metricCount;
+        final long[] valueCounts;
+        final double[] sums;
+        final double[] mins;
+        final double[] maxs;
+        final int bucketCount;
+        final long[] histogram;
+
+        Accumulator(int groups, int metricCount, int bucketCount) {
+            this.counts = new long[groups];
+            this.metricCount = metricCount;
+            this.valueCounts = new long[groups * metricCount];
+            this.sums = new double[groups * metricCount];
+            this.mins = new double[groups * metricCount];
+            this.maxs = new double[groups * metricCount];
+            Arrays.fill(mins, Double.POSITIVE_INFINITY);
+            Arrays.fill(maxs, Double.NEGATIVE_INFINITY);
+            this.bucketCount = bucketCount;
+            this.histogram = new long[groups * bucketCount];
+        }
+
+        void add(int from, int to, DictionaryColumn group, NumericColumn[] metrics,
+                 NumericColumn bucketed, double low, double width) {
+            for (int row = from; row < to; row++) {
+                int g = group == null ? 0 : group.codeAt(row) + 1;
+                counts[g]++;
+                for (int m = 0; m < metrics.length; m++) {
+                    double value = metrics[m].valueAt(row);
+                    if (!Double.isNaN(value)) {
+                        int at = g * metricCount + m;
+                        valueCounts[at]++;
+                        sums[at] += value;
+                        mins[at] = Math.min(mins[at], value);
+                        maxs[at] = Math.max(maxs[at], value);
+                    }
+                }
+                if (bucketed != null) {
+                    double value = bucketed.valueAt(row);
+                    if (!Double.isNaN(value)) {
+                        int bucket = width == 0 ? 0 : Math.min((int) ((value - low) / width), bucketCount - 1);
+                        histogram[g * bucketCount + bucket]++;
+                    }
+                }
+            }
+        }
+
+        Accumulator merge(Accumulator other) {
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] += other.counts[i];
+            }
+            for (int i = 0; i < valueCounts.length; i++) {
+                valueCounts[i] += other.valueCounts[i];
+                sums[i] += other.sums[i];
+                mins[i] = Math.min(mins[i], other.mins[i]);
+                maxs[i] = Math.max(maxs[i], other.maxs[i]);
+            }
+            for (int i = 0; i < histogram.length; i++) {
+                histogram[i] += other.histogram[i];
+            }
+            return this;
+        }
+
+        ItemFieldStatsDto statistics(int group, int metric, NumericColumn column) {
+            int at = group * metricCount + metric;
+            long count = valueCounts[at];
+            if (count == 0) {
+                return new ItemFieldStatsDto(0, null, null, null, null);
+            }
+            return new ItemFieldStatsDto(count,
+                    column.additive() ? sums[at] : null,
+                    column.additive() ? sums[at] / count : null,
+                    column.present(mins[at]),
+                    column.present(maxs[at]));
+        }
+    }
+
+    private static final class Change {
+        final long itemId;
+        final String currentState;
+        final String dataJson;
+        final boolean removed;
+
+        Change(long itemId, String currentState, String dataJson, boolean removed) {
+            this.itemId = itemId;
+            this.currentState = currentState;
+            this.dataJson = dataJson;
+            this.removed = removed;
+        }
+
+        void applyTo(Rows rows) {
+            if (removed) {
+                rows.remove(itemId);
+            } else {
+                rows.upsert(itemId, currentState, dataJson);
+            }
+        }
+    }
+
+    private final class Rows {
+        long[] itemIds = new long[0];
+        final Map<Long, Integer> rowByItem = new HashMap<>();
+        int count;
+        final DictionaryColumn state = new DictionaryColumn();
+        final Map<String, Column> columns = new HashMap<>();
+
+        Rows() {
+            columnTypes.forEach((key, type) -> columns.put(key, type == ColumnType.NUMBER ? new DoubleColumn()
+                    : type == ColumnType.DATE ? new DateColumn() : new DictionaryColumn()));
+        }
+
+        void upsert(long itemId, String currentState, String dataJson) {
+            Integer row = rowByItem.get(itemId);
+            if (row == null) {
+                if (count == itemIds.length) {
+                    grow(Math.max(16, count + (count >> 1)));
+                }
+                row = count++;
+                itemIds[row] = itemId;
+                rowByItem.put(itemId, row);
+            }
+            state.set(row, currentState);
+            for (Column column : columns.values()) {
+                column.clear(row);
+            }
+            read(row, dataJson);
+        }
+
+        void remove(long itemId) {
+            Integer row = rowByItem.remove(itemId);
+            if (row == null) {
+                return;
+            }
+            int last = --count;
+            if (row != last) {
+                itemIds[row] = itemIds[last];
+                rowByItem.put(itemIds[row], row);
+                state.move(last, row);
+                for (Column column : columns.values()) {
+                    column.move(last, row);
+                }
+            }
+        }
+
+        private void grow(int capacity) {
+            itemIds = Arrays.copyOf(itemIds, capacity);
+            state.ensureCapacity(capacity);
+            for (Column column : columns.values()) {
+                column.ensureCapacity(capacity);
+            }
+        }
+
+        /**
+         * Reads the top-level values of item data into the columns of their keys
+         */
+        private void read(int row, String dataJson) {
+            if (dataJson == null || columns.isEmpty()) {
+                return;
+            }
+            try (JsonParser parser = jsonFactory.createParser(dataJson)) {
+                if (parser.nextToken() != JsonToken.START_OBJECT) {
+                    return;
+                }
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    Column column = columns.get(parser.getCurrentName());
+                    parser.nextToken();
+                    if (column != null) {
+                        column.read(row, parser);
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+            } catch (IOException e) {
+                log.debug("Unreadable data of item {}: {}", itemIds[row], e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.mysqlcrudapp.aggregation;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+
+/**
+ * Values of a date field as epoch days. Timestamps are truncated to their date.
+ */
+final class DateColumn extends NumericColumn {
+    private static final long MISSING = Long.MIN_VALUE;
+
+    private long[] values = new long[0];
+
+    @Override
+    void ensureCapacity(int capacity) {
+        if (values.length < capacity) {
+            int length = values.length;
+            values = Arrays.copyOf(values, capacity);
+            Arrays.fill(values, length, capacity, MISSING);
+        }
+    }
+
+    @Override
+    void read(int row, JsonParser parser) throws IOException {
+        long value = MISSING;
+        if (parser.currentToken() == JsonToken.VALUE_STRING) {
+            String text = parser.getText().trim();
+            try {
+                value = LocalDate.parse(text.length() > 10 ? text.substring(0, 10) : text).toEpochDay();
+            } catch (DateTimeParseException e) {
+                // Not a date; leave it missing
+            }
+        } else {
+            parser.skipChildren();
+        }
+        values[row] = value;
+    }
+
+    @Override
+    void clear(int row) {
+        values[row] = MISSING;
+    }
+
+    @Override
+    void move(int from, int to) {
+        values[to] = values[from];
+    }
+
+    @Override
+    double valueAt(int row) {
+        long value = values[row];
+        return value == MISSING ? Double.NaN : value;
+    }
+
+    @Override
+    Object present(double value) {
+        return LocalDate.ofEpochDay((long) Math.floor(value)).toString();
+    }
+
+    @Override
+    boolean additive() {
+        return false;
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.mysqlcrudapp.aggregation;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Values of a low-cardinality string field, stored as an int code per row into a dictionary of distinct values.
+ * Codes are never reused, so the dictionary only grows until the table is rebuilt.
+ */
+final class DictionaryColumn extends Column {
+    static final int MISSING = -1;
+
+    private int[] codes = new int[0];
+    private final List<String> dictionary = new ArrayList<>();
+    private final Map<String, Integer> codeByValue = new HashMap<>();
+
+    @Override
+    void ensureCapacity(int capacity) {
+        if (codes.length < capacity) {
+            int length = codes.length;
+            codes = Arrays.copyOf(codes, capacity);
+            Arrays.fill(codes, length, capacity, MISSING);
+        }
+    }
+
+    @Override
+    void read(int row, JsonParser parser) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token != null && token.isScalarValue() && token != JsonToken.VALUE_NULL) {
+            set(row, parser.getText());
+        } else {
+            parser.skipChildren();
+            codes[row] = MISSING;
+        }
+    }
+
+    void set(int row, String value) {
+        codes[row] = value == null ? MISSING : codeByValue.computeIfAbsent(value, v -> {
+            dictionary.add(v);
+            return dictionary.size() - 1;
+        });
+    }
+
+    @Override
+    void clear(int row) {
+        codes[row] = MISSING;
+    }
+
+    @Override
+    void move(int from, int to) {
+        codes[to] = codes[from];
+    }
+
+    int codeAt(int row) {
+        return codes[row];
+    }
+
+    int size() {
+        return dictionary.size();
+    }
+
+    String valueOf(int code) {
+        return dictionary.get(code);
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.mysqlcrudapp.aggregation;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Values of a number field. Numeric strings are accepted, as they are when items are validated.
+ */
+final class DoubleColumn extends NumericColumn {
+    private double[] values = new double[0];
+
+    @Override
+    void ensureCapacity(int capacity) {
+        if (values.length < capacity) {
+            int length = values.length;
+            values = Arrays.copyOf(values, capacity);
+            Arrays.fill(values, length, capacity, Double.NaN);
+        }
+    }
+
+    @Override
+    void read(int row, JsonParser parser) throws IOException {
+        JsonToken token = parser.currentToken();
+        double value = Double.NaN;
+        if (token == JsonToken.VALUE_NUMBER_INT || token == JsonToken.VALUE_NUMBER_FLOAT) {
+            value = parser.getDoubleValue();
+        } else if (token == JsonToken.VALUE_STRING) {
+            try {
+                value = Double.parseDouble(parser.getText().trim());
+            } catch (NumberFormatException e) {
+                // Not a number; leave it missing
+            }
+        } else {
+            parser.skipChildren();
+        }
+        values[row] = Double.isFinite(value) ? value : Double.NaN;
+    }
+
+    @Override
+    void clear(int row) {
+        values[row] = Double.NaN;
+    }
+
+    @Override
+    void move(int from, int to) {
+        values[to] = values[from];
+    }
+
+    @Override
+    double valueAt(int row) {
+        return values[row];
+    }
+
+    @Override
+    Object present(double value) {
+        return value;
+    }
+
+    @Override
+    boolean additive() {
+        return true;
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.mysqlcrudapp.aggregation;
+
+/**
+ * A column whose values can be summed and bucketed
+ */
+abstract class NumericColumn extends Column {
+    /**
+     * @return The value of a row, or NaN if it is missing
+     */
+    abstract double valueAt(int row);
+
+    /**
+     * Converts a value computed over the column back to what the API returns: a number, or an ISO date for dates
+     */
+    abstract Object present(double value);
+
+    /**
+     * @return Whether sums and averages of the column mean anything
+     */
+    abstract boolean additive();
+}
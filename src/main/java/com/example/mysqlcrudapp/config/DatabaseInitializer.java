@@ -3,43 +3,56 @@ package com.example.mysqlcrudapp.config;
 import com.example.mysqlcrudapp.entity.Blueprint;
 import com.example.mysqlcrudapp.entity.BlueprintVersion;
 import com.example.mysqlcrudapp.entity.User;
+import com.example.mysqlcrudapp.persistence.ReplicaRoutingDataSource;
 import com.example.mysqlcrudapp.repository.BlueprintRepository;
+import com.example.mysqlcrudapp.service.CustomUserDetailsService;
 import com.example.mysqlcrudapp.service.UserService;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Component;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
+@Slf4j
 @Component
 @RequiredArgsConstructor
 public class DatabaseInitializer implements CommandLineRunner {
+    /** Tables whose author moved from the name in created_by to the user id in created_by_id */
+    private static final List<String> CREATED_BY_TABLES = Arrays.asList(
+            "blueprint", "blueprint_version", "blueprint_version_field", "field", "item", "item_link");
+
     private final UserService userService;
     private final PasswordEncoder passwordEncoder;
     private final BlueprintRepository blueprintRepository;
+    private final JdbcTemplate jdbcTemplate;
 
     @Override
     public void run(String... args) {
-        // Create default admin user if no users exist
-        if (userService.findAll().isEmpty()) {
+        backfillCreatedById();
+
+        // Create default admin user if no users exist; asked of the primary, as a lagging replica would create it twice
+        if (ReplicaRoutingDataSource.readFromPrimary(() -> userService.findAll().isEmpty())) {
             User admin = new User();
             admin.setLogin("admin");
             admin.setEmail("admin@example.com");
             admin.setPasswordHash(passwordEncoder.encode("admin"));
             admin.setFullName("Administrator");
-            admin.setUserType(1); // 1 = ADMIN
+            admin.setUserType(CustomUserDetailsService.ADMIN_USER_TYPE);
             userService.create(admin);
             
             System.out.println("Created default admin user");
         }
           // Create a sample blueprint if none exist
-        if (blueprintRepository.count() == 0) {
+        if (ReplicaRoutingDataSource.readFromPrimary(() -> blueprintRepository.count()) == 0) {
             try {
                 Blueprint blueprint = new Blueprint();
                 blueprint.setName("Sample Blueprint");
                 blueprint.setDescription("This is a sample blueprint created by the system for testing.");
-                blueprint.setCreatedBy("system");
                 
                 // Initialize the versions collection if it's null
                 if (blueprint.getVersions() == null) {
@@ -56,7 +69,6 @@ public class DatabaseInitializer implements CommandLineRunner {
                 version.setActive(true);
                 version.setName("Version 1");
                 version.setDescription("Initial version");
-                version.setCreatedBy("system");
                 
                 // Add the version to the blueprint
                 blueprint.getVersions().add(version);
@@ -72,4 +84,27 @@ public class DatabaseInitializer implements CommandLineRunner {
             }
         }
     }
+
+    /**
+     * Resolves authors of rows written before created_by_id existed. The old created_by column held the
+     * user's full name, or login when it had none; names matching no user, such as "system", stay null.
+     * The old column is left in place and only read here.
+     */
+    private void backfillCreatedById() {
+        for (String table : CREATED_BY_TABLES) {
+            Integer legacyColumns = jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM INFORMATION_SCHEMA.COLUMNS WHERE TABLE_SCHEMA = SCHEMA() "
+                            + "AND LOWER(TABLE_NAME) = ? AND LOWER(COLUMN_NAME) = 'created_by'",
+                    Integer.class, table);
+            if (legacyColumns == null || legacyColumns == 0) {
+                continue;
+            }
+            int updated = jdbcTemplate.update("UPDATE " + table + " t SET created_by_id = "
+                    + "(SELECT MIN(u.user_id) FROM users u WHERE u.full_name = t.created_by OR u.login = t.created_by) "
+                    + "WHERE t.created_by_id IS NULL AND t.created_by IS NOT NULL");
+            if (updated > 0) {
+                log.info("Backfilled created_by_id of {} rows in {}", updated, table);
+            }
+        }
+    }
 }
@@ -1,17 +1,33 @@
 package com.example.mysqlcrudapp.config;
 
+import com.example.mysqlcrudapp.timing.TimedJackson2HttpMessageConverter;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.AutowireCapableBeanFactory;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.converter.json.SpringHandlerInstantiator;
 
 @Configuration
 public class JacksonConfig {
     @Bean
     @Primary
-    public ObjectMapper objectMapper() {
+    public ObjectMapper objectMapper(AutowireCapableBeanFactory beanFactory) {
         ObjectMapper mapper = new ObjectMapper();
         mapper.findAndRegisterModules();
+        // Lets serializers named in annotations take Spring beans, e.g. UserNameSerializer
+        mapper.setHandlerInstantiator(new SpringHandlerInstantiator(beanFactory));
         return mapper;
     }
+
+    /**
+     * Replaces Boot's JSON converter with one that times serialization for the Server-Timing header
+     */
+    @Bean
+    public MappingJackson2HttpMessageConverter mappingJackson2HttpMessageConverter(
+            ObjectMapper objectMapper, @Value("${app.timing.max-buffered-kb:256}") int maxBufferedKb) {
+        return new TimedJackson2HttpMessageConverter(objectMapper, maxBufferedKb * 1024);
+    }
 }
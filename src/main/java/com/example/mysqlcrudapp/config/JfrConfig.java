@@ -0,0 +1,17 @@
+package com.example.mysqlcrudapp.config;
+
+import com.example.mysqlcrudapp.jfr.RepositoryEventsPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Emits Java Flight Recorder events for repository calls; recordings are controlled by {@code JfrRecordingService}
+ */
+@Configuration
+public class JfrConfig {
+
+    @Bean
+    public static RepositoryEventsPostProcessor repositoryEventsPostProcessor() {
+        return new RepositoryEventsPostProcessor();
+    }
+}
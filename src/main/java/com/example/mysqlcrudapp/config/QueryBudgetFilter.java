@@ -0,0 +1,64 @@
+package com.example.mysqlcrudapp.config;
+
+import com.example.mysqlcrudapp.persistence.QueryCounter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Counts the SQL statements of each request and warns about requests over budget.
+ * <p>
+ * A request issuing more than {@code app.query-budget.max-statements} statements is logged with its statement
+ * shapes; one running the same shape {@code app.query-budget.repeated-statement-threshold} times or more is
+ * logged as a likely N+1, since that is usually a lazy association touched once per row.
+ */
+@Slf4j
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+public class QueryBudgetFilter extends OncePerRequestFilter {
+    private final int maxStatements;
+    private final int repeatedStatementThreshold;
+
+    public QueryBudgetFilter(@Value("${app.query-budget.max-statements:20}") int maxStatements,
+                             @Value("${app.query-budget.repeated-statement-threshold:10}") int repeatedStatementThreshold) {
+        this.maxStatements = maxStatements;
+        this.repeatedStatementThreshold = repeatedStatementThreshold;
+    }
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+                                    @NonNull FilterChain filterChain) throws ServletException, IOException {
+        String name = request.getMethod() + " " + request.getRequestURI();
+        try (QueryCounter.Scope scope = QueryCounter.open(name)) {
+            try {
+                filterChain.doFilter(request, response);
+            } finally {
+                check(scope);
+            }
+        }
+    }
+
+    private void check(QueryCounter.Scope scope) {
+        List<Map.Entry<String, Integer>> repeated = scope.repeatedShapes(repeatedStatementThreshold);
+        if (!repeated.isEmpty()) {
+            Map.Entry<String, Integer> worst = repeated.get(0);
+            log.warn("{} ran the same statement {} times, likely an N+1: {}", scope.getName(), worst.getValue(), worst.getKey());
+        }
+        if (scope.getCount() > maxStatements) {
+            log.warn("{} issued {} SQL statements, over the budget of {}:{}", scope.getName(), scope.getCount(),
+                    maxStatements, scope.describe());
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.example.mysqlcrudapp.config;
+
+import com.example.mysqlcrudapp.persistence.ReplicaAwareJpaDialect;
+import com.example.mysqlcrudapp.persistence.ReplicaRoutingDataSource;
+import com.example.mysqlcrudapp.persistence.ReplicaRoutingDataSource.Selection;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.orm.jpa.AbstractEntityManagerFactoryBean;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.util.StringUtils;
+
+import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Sends read-only transactions to the read replicas listed in {@code app.replicas.urls}, if any, see
+ * {@link ReplicaRoutingDataSource}. Without replicas the DataSource is left as it is.
+ * <p>
+ * With replicas, the entity manager factory gets a {@link ReplicaAwareJpaDialect}, which the JPA transaction
+ * manager picks up from it, so that read-only transactions do not fill the second-level cache from a replica.
+ */
+@Configuration
+public class ReplicaRoutingConfig {
+    private final DataSource dataSource;
+
+    public ReplicaRoutingConfig(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    /**
+     * Ordered, so that it wraps the primary pool before {@link QueryCountingConfig} wraps the result and the
+     * statements of replicas are counted too. Declared with its own type: the order is read from the return type.
+     */
+    @Bean
+    public static ReplicaRoutingPostProcessor replicaRoutingDataSourcePostProcessor(Environment environment) {
+        return new ReplicaRoutingPostProcessor(environment);
+    }
+
+    @Bean
+    public MeterBinder replicaRoutingMetrics() {
+        return registry -> find(dataSource).ifPresent(routing -> routing.bindTo(registry));
+    }
+
+    @PreDestroy
+    public void closeReplicas() {
+        find(dataSource).ifPresent(ReplicaRoutingDataSource::close);
+    }
+
+    private static Optional<ReplicaRoutingDataSource> find(DataSource dataSource) {
+        try {
+            return dataSource.isWrapperFor(ReplicaRoutingDataSource.class)
+                    ? Optional.of(dataSource.unwrap(ReplicaRoutingDataSource.class))
+                    : Optional.empty();
+        } catch (SQLException e) {
+            return Optional.empty();
+        }
+    }
+
+    static final class ReplicaRoutingPostProcessor implements BeanPostProcessor, Ordered {
+        private final Environment environment;
+
+        private ReplicaRoutingPostProcessor(Environment environment) {
+            this.environment = environment;
+        }
+
+        @Override
+        public Object postProcessBeforeInitialization(Object bean, String beanName) {
+            if (bean instanceof AbstractEntityManagerFactoryBean && !replicaUrls().isEmpty()) {
+                ((AbstractEntityManagerFactoryBean) bean).setJpaDialect(new ReplicaAwareJpaDialect());
+            }
+            return bean;
+        }
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (!(bean instanceof DataSource) || bean instanceof LazyConnectionDataSourceProxy) {
+                return bean;
+            }
+            Map<String, DataSource> replicas = replicas();
+            if (replicas.isEmpty()) {
+                return bean;
+            }
+            ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource((DataSource) bean, replicas,
+                    Selection.of(environment.getProperty("app.replicas.selection", "round-robin")),
+                    Duration.ofMillis(environment.getProperty("app.replicas.health-check-interval-ms", Long.class, 5000L)),
+                    Duration.ofMillis(environment.getProperty("app.replicas.read-your-writes-ms", Long.class, 2000L)),
+                    ReplicaRoutingPostProcessor::currentUser);
+            // The routing decision needs the transaction's read-only flag, which is only set after the connection is requested
+            return new LazyConnectionDataSourceProxy(routing);
+        }
+
+        private List<String> replicaUrls() {
+            List<String> urls = new ArrayList<>();
+            for (String url : Binder.get(environment).bind("app.replicas.urls", Bindable.listOf(String.class))
+                    .orElse(Collections.emptyList())) {
+                if (StringUtils.hasText(url)) {
+                    urls.add(url.trim());
+                }
+            }
+            return urls;
+        }
+
+        private Map<String, DataSource> replicas() {
+            Map<String, DataSource> replicas = new LinkedHashMap<>();
+            for (String url : replicaUrls()) {
+                String name = "replica-" + (replicas.size() + 1);
+                HikariDataSource replica = new HikariDataSource();
+                replica.setPoolName(name);
+                replica.setJdbcUrl(url);
+                replica.setUsername(environment.getProperty("app.replicas.username", environment.getProperty("spring.datasource.username")));
+                replica.setPassword(environment.getProperty("app.replicas.password", environment.getProperty("spring.datasource.password")));
+                String driver = environment.getProperty("spring.datasource.driver-class-name");
+                if (StringUtils.hasText(driver)) {
+                    replica.setDriverClassName(driver);
+                }
+                replica.setMaximumPoolSize(environment.getProperty("app.replicas.max-pool-size", Integer.class, 10));
+                replica.setConnectionTimeout(environment.getProperty("app.replicas.connection-timeout-ms", Long.class, 2000L));
+                // A replica that is down at startup is routed around rather than failing the application
+                replica.setInitializationFailTimeout(-1);
+                replica.setReadOnly(true);
+                replicas.put(name, replica);
+            }
+            return replicas;
+        }
+
+        private static String currentUser() {
+            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+            return authentication == null ? null : authentication.getName();
+        }
+
+        @Override
+        public int getOrder() {
+            return Ordered.HIGHEST_PRECEDENCE;
+        }
+    }
+}
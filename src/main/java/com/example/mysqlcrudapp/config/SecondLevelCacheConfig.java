@@ -0,0 +1,75 @@
+package com.example.mysqlcrudapp.config;
+
+import com.example.mysqlcrudapp.persistence.CacheRegions;
+import com.github.benmanes.caffeine.jcache.CacheManagerImpl;
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import java.net.URI;
+import java.util.OptionalLong;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hibernate second-level and query cache, held in process by Caffeine behind the JCache API.
+ * <p>
+ * Blueprints, versions, fields and their assignments are read on almost every request and change rarely.
+ * Writes through Hibernate keep the cache current; the expiry only bounds how long a change made directly
+ * in the database stays invisible. The update timestamps region tells Hibernate which cached query results
+ * are stale, so it is never bounded or expired.
+ */
+@Configuration
+public class SecondLevelCacheConfig {
+
+    /**
+     * A cache manager of its own rather than the provider's shared default, so that every application
+     * context, and every test context, gets fresh regions
+     */
+    @Bean(destroyMethod = "close")
+    public CacheManager hibernateCacheManager(@Value("${app.entity-cache.max-size:10000}") long maxSize,
+                                              @Value("${app.entity-cache.query-max-size:1000}") long queryMaxSize,
+                                              @Value("${app.entity-cache.expire-after-write-seconds:3600}") long expireAfterWriteSeconds) {
+        CaffeineCachingProvider provider = new CaffeineCachingProvider();
+        CacheManager cacheManager = new CacheManagerImpl(provider, URI.create("hibernate-second-level-cache"),
+                getClass().getClassLoader(), new Properties());
+        OptionalLong expireAfterWrite = OptionalLong.of(TimeUnit.SECONDS.toNanos(expireAfterWriteSeconds));
+        for (String region : CacheRegions.ENTITY_REGIONS) {
+            cacheManager.createCache(region, configuration(OptionalLong.of(maxSize), expireAfterWrite));
+        }
+        for (String region : CacheRegions.QUERY_REGIONS) {
+            cacheManager.createCache(region, configuration(OptionalLong.of(queryMaxSize), expireAfterWrite));
+        }
+        cacheManager.createCache(CacheRegions.UPDATE_TIMESTAMPS, configuration(OptionalLong.empty(), OptionalLong.empty()));
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheCustomizer(CacheManager hibernateCacheManager) {
+        return properties -> {
+            properties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, true);
+            properties.put(AvailableSettings.USE_QUERY_CACHE, true);
+            properties.put(AvailableSettings.CACHE_REGION_FACTORY, "jcache");
+            properties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+            // Every region is created above; a region missing there is a mistake, not something to improvise
+            properties.put(ConfigSettings.MISSING_CACHE_STRATEGY, "fail");
+            // Inserting a version field must also drop the cached field lists of its version and field
+            properties.put(AvailableSettings.AUTO_EVICT_COLLECTION_CACHE, true);
+        };
+    }
+
+    private static CaffeineConfiguration<Object, Object> configuration(OptionalLong maximumSize, OptionalLong expireAfterWrite) {
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        configuration.setMaximumSize(maximumSize);
+        configuration.setExpireAfterWrite(expireAfterWrite);
+        // Hibernate already stores disassembled state; copying it on every read would only cost time
+        configuration.setStoreByValue(false);
+        return configuration;
+    }
+}
@@ -1,11 +1,16 @@
 package com.example.mysqlcrudapp.config;
 
+import org.springframework.boot.actuate.autoconfigure.security.servlet.EndpointRequest;
+import org.springframework.boot.actuate.metrics.export.prometheus.PrometheusScrapeEndpoint;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
+import org.springframework.security.config.Customizer;
 import org.springframework.security.authentication.AuthenticationProvider;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
+import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -27,8 +32,10 @@ public class SecurityConfig {
                 .csrfTokenRepository(CookieCsrfTokenRepository.withHttpOnlyFalse())
             )            .authorizeHttpRequests(auth -> auth
                 .antMatchers("/", "/login", "/css/**", "/js/**", "/webjars/**", "/static/**", "/favicon.ico").permitAll()
+                .antMatchers("/actuator/health").permitAll()
                 .antMatchers("/debug/csrf", "/api/debug/csrf", "/api/debug/auth", "/csrf-debug", "/csrf-debug/**").permitAll()
                 .antMatchers("/blueprints", "/fields", "/items", "/users").authenticated()
+                .antMatchers("/api/admin/**").hasRole("ADMIN")
                 .antMatchers("/api/**").authenticated()
                 .anyRequest().authenticated()
             )
@@ -48,6 +55,20 @@ public class SecurityConfig {
         return http.build();
     }
 
+    /**
+     * Prometheus scrapes with the HTTP Basic credentials of an application user, without a session
+     */
+    @Bean
+    @Order(1)
+    public SecurityFilterChain prometheusFilterChain(HttpSecurity http) throws Exception {
+        http
+            .requestMatcher(EndpointRequest.to(PrometheusScrapeEndpoint.class))
+            .authorizeHttpRequests(auth -> auth.anyRequest().authenticated())
+            .httpBasic(Customizer.withDefaults())
+            .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS));
+        return http.build();
+    }
+
     @Bean
     public PasswordEncoder passwordEncoder() {
         return new BCryptPasswordEncoder();
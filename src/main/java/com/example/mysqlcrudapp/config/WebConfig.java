@@ -1,14 +1,24 @@
 package com.example.mysqlcrudapp.config;
 
+import com.example.mysqlcrudapp.timing.ViewTimingInterceptor;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
 import org.springframework.lang.NonNull;
 import org.springframework.web.servlet.config.annotation.ContentNegotiationConfigurer;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
+import java.util.List;
+
 @Configuration
+@RequiredArgsConstructor
 public class WebConfig implements WebMvcConfigurer {
+    private final ObjectMapper objectMapper;
     
     @Override
     public void addResourceHandlers(@NonNull ResourceHandlerRegistry registry) {
@@ -25,4 +35,20 @@ public class WebConfig implements WebMvcConfigurer {
             .mediaType("js", MediaType.valueOf("application/javascript"))
             .mediaType("json", MediaType.APPLICATION_JSON);
     }
+
+    @Override
+    public void addInterceptors(@NonNull InterceptorRegistry registry) {
+        registry.addInterceptor(new ViewTimingInterceptor());
+    }
+
+    @Override
+    public void extendMessageConverters(@NonNull List<HttpMessageConverter<?>> converters) {
+        // Boot keeps Spring's default JSON converter behind its own, with a mapper that cannot create
+        // Spring-aware serializers such as UserNameSerializer; give every JSON converter the application mapper
+        for (HttpMessageConverter<?> converter : converters) {
+            if (converter instanceof MappingJackson2HttpMessageConverter) {
+                ((MappingJackson2HttpMessageConverter) converter).setObjectMapper(objectMapper);
+            }
+        }
+    }
 }
@@ -1,6 +1,7 @@
 package com.example.mysqlcrudapp.controller;
 
 import com.example.mysqlcrudapp.dto.BlueprintDto;
+import com.example.mysqlcrudapp.dto.BlueprintSummaryDto;
 import com.example.mysqlcrudapp.service.BlueprintService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
@@ -21,9 +22,12 @@ import java.util.Map;
 public class BlueprintController {
     private final BlueprintService blueprintService;
 
+    /**
+     * All blueprints with version and item counts; the versions themselves come with a single blueprint
+     */
     @GetMapping
-    public ResponseEntity<List<BlueprintDto>> getAllBlueprints() {
-        return ResponseEntity.ok(blueprintService.findAll());
+    public ResponseEntity<List<BlueprintSummaryDto>> getAllBlueprints() {
+        return ResponseEntity.ok(blueprintService.findSummaries());
     }
 
     @GetMapping("/{id}")
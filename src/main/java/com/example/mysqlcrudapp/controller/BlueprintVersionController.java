@@ -2,11 +2,14 @@ package com.example.mysqlcrudapp.controller;
 
 import com.example.mysqlcrudapp.dto.BlueprintDto;
 import com.example.mysqlcrudapp.dto.BlueprintVersionDto;
+import com.example.mysqlcrudapp.dto.CursorPage;
 import com.example.mysqlcrudapp.entity.Blueprint;
 import com.example.mysqlcrudapp.entity.BlueprintVersion;
 import com.example.mysqlcrudapp.exception.ResourceNotFoundException;
 import com.example.mysqlcrudapp.service.BlueprintVersionService;
 import com.example.mysqlcrudapp.service.BlueprintService;
+import com.example.mysqlcrudapp.service.CompiledSchemaService;
+import com.example.mysqlcrudapp.schema.CompiledSchema;
 import lombok.RequiredArgsConstructor;
 import org.modelmapper.ModelMapper;
 import org.springframework.http.HttpStatus;
@@ -18,7 +21,7 @@ import java.net.URI;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.function.Function;
 
 @RestController
 @RequestMapping("/api")
@@ -26,14 +29,22 @@ import java.util.stream.Collectors;
 public class BlueprintVersionController {
     private final BlueprintVersionService blueprintVersionService;
     private final BlueprintService blueprintService;
+    private final CompiledSchemaService compiledSchemaService;
     private final ModelMapper modelMapper;
 
+    /**
+     * Lists versions one keyset page at a time. The full unbounded list is only returned with {@code all=true}.
+     */
     @GetMapping("/blueprint-versions")
-    public ResponseEntity<List<BlueprintVersionDto>> getAllVersions() {
-        List<BlueprintVersionDto> versions = blueprintVersionService.findAll().stream()
-                .map(version -> modelMapper.map(version, BlueprintVersionDto.class))
-                .collect(Collectors.toList());
-        return ResponseEntity.ok(versions);
+    public ResponseEntity<?> getAllVersions(@RequestParam(required = false) Long after,
+                                            @RequestParam(required = false) Integer size,
+                                            @RequestParam(defaultValue = "false") boolean all) {
+        if (all) {
+            return ResponseEntity.ok(blueprintVersionService.findAllDtos());
+        }
+        int pageSize = CursorPage.clampSize(size);
+        List<BlueprintVersionDto> rows = blueprintVersionService.findDtoPage(CursorPage.startAfter(after), pageSize);
+        return ResponseEntity.ok(CursorPage.of(rows, pageSize, BlueprintVersionDto::getId, Function.identity()));
     }
 
     @GetMapping("/blueprint-versions/{id}")
@@ -41,12 +52,23 @@ public class BlueprintVersionController {
         return ResponseEntity.ok(modelMapper.map(blueprintVersionService.findById(id), BlueprintVersionDto.class));
     }
 
+    /**
+     * Returns the version's fields in display order with their settings, options and defaults parsed,
+     * as needed to render an item form
+     */
+    @GetMapping("/blueprint-versions/{id}/schema")
+    public ResponseEntity<CompiledSchema> getVersionSchema(@PathVariable Long id) {
+        return ResponseEntity.ok(compiledSchemaService.get(id));
+    }
+
+    @GetMapping("/blueprint-versions/schema-cache")
+    public ResponseEntity<Map<String, Object>> getSchemaCacheStatistics() {
+        return ResponseEntity.ok(compiledSchemaService.getCacheStatistics());
+    }
+
     @GetMapping("/blueprints/{blueprintId}/versions")
     public ResponseEntity<List<BlueprintVersionDto>> getVersionsByBlueprintId(@PathVariable Long blueprintId) {
-        List<BlueprintVersionDto> versions = blueprintVersionService.findByBlueprintId(blueprintId).stream()
-                .map(version -> modelMapper.map(version, BlueprintVersionDto.class))
-                .collect(Collectors.toList());
-        return ResponseEntity.ok(versions);
+        return ResponseEntity.ok(blueprintVersionService.findDtosByBlueprintId(blueprintId));
     }    @GetMapping("/blueprints/{blueprintId}/active-version")
     public ResponseEntity<BlueprintVersionDto> getActiveVersion(@PathVariable Long blueprintId) {
         return ResponseEntity.ok(modelMapper.map(blueprintVersionService.findActiveVersion(blueprintId), BlueprintVersionDto.class));
@@ -1,6 +1,7 @@
 package com.example.mysqlcrudapp.controller;
 
 import com.example.mysqlcrudapp.dto.BlueprintDto;
+import com.example.mysqlcrudapp.dto.BlueprintSummaryDto;
 import com.example.mysqlcrudapp.service.BlueprintService;
 import com.example.mysqlcrudapp.exception.ResourceNotFoundException;
 import lombok.RequiredArgsConstructor;
@@ -13,7 +14,6 @@ import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 import javax.validation.Valid;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
 
 @Controller
 @RequiredArgsConstructor
@@ -24,16 +24,7 @@ public class BlueprintViewController {    private final BlueprintService bluepri
                                @RequestParam(value = "success", required = false) String successMessage,
                                @RequestParam(value = "error", required = false) String errorMessage) {
         try {
-            System.out.println("BlueprintViewController: Loading blueprints page");
-            List<BlueprintDto> blueprints = blueprintService.findAll();
-            
-            // Filter out any null entries that might have crept in
-            blueprints = blueprints.stream()
-                .filter(b -> b != null && b.getId() != null)
-                .collect(Collectors.toList());
-                
-            System.out.println("BlueprintViewController: Found " + blueprints.size() + " valid blueprints");
-            
+            List<BlueprintSummaryDto> blueprints = blueprintService.findSummaries();
             model.addAttribute("title", "Blueprints");
             model.addAttribute("blueprints", blueprints);
             
@@ -0,0 +1,33 @@
+package com.example.mysqlcrudapp.controller;
+
+import com.example.mysqlcrudapp.dto.CacheRegionStatsDto;
+import com.example.mysqlcrudapp.service.SecondLevelCacheService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * Per-region size and hit statistics of the Hibernate second-level cache
+ */
+@RestController
+@RequestMapping("/api/admin/cache")
+@RequiredArgsConstructor
+public class CacheAdminController {
+    private final SecondLevelCacheService secondLevelCacheService;
+
+    @GetMapping
+    public ResponseEntity<List<CacheRegionStatsDto>> getStatistics() {
+        return ResponseEntity.ok(secondLevelCacheService.getStatistics());
+    }
+
+    @DeleteMapping
+    public ResponseEntity<Void> evictAll() {
+        secondLevelCacheService.evictAll();
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -1,8 +1,10 @@
 package com.example.mysqlcrudapp.controller;
 
+import com.example.mysqlcrudapp.dto.CursorPage;
 import com.example.mysqlcrudapp.dto.FieldDto;
 import com.example.mysqlcrudapp.entity.Field;
 import com.example.mysqlcrudapp.service.FieldService;
+import com.example.mysqlcrudapp.service.ItemFieldIndexService;
 import lombok.RequiredArgsConstructor;
 import org.modelmapper.ModelMapper;
 import org.springframework.http.ResponseEntity;
@@ -12,7 +14,8 @@ import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 import javax.validation.Valid;
 import java.net.URI;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.function.Function;
 
 @RestController
 @RequestMapping("/api/fields")
@@ -20,14 +23,21 @@ import java.util.stream.Collectors;
 public class FieldController {
     private final FieldService fieldService;
     private final ModelMapper modelMapper;
+    private final ItemFieldIndexService itemFieldIndexService;
 
+    /**
+     * Lists fields one keyset page at a time. The full unbounded list is only returned with {@code all=true}.
+     */
     @GetMapping
-    public ResponseEntity<List<FieldDto>> getAllFields() {
-        List<Field> fields = fieldService.findAll();
-        List<FieldDto> fieldDtos = fields.stream()
-                .map(field -> modelMapper.map(field, FieldDto.class))
-                .collect(Collectors.toList());
-        return ResponseEntity.ok(fieldDtos);
+    public ResponseEntity<?> getAllFields(@RequestParam(required = false) Long after,
+                                          @RequestParam(required = false) Integer size,
+                                          @RequestParam(defaultValue = "false") boolean all) {
+        if (all) {
+            return ResponseEntity.ok(fieldService.findAllDtos());
+        }
+        int pageSize = CursorPage.clampSize(size);
+        List<FieldDto> rows = fieldService.findDtoPage(CursorPage.startAfter(after), pageSize);
+        return ResponseEntity.ok(CursorPage.of(rows, pageSize, FieldDto::getId, Function.identity()));
     }
 
     @GetMapping("/{id}")
@@ -57,6 +67,26 @@ public class FieldController {
         return ResponseEntity.ok(modelMapper.map(updated, FieldDto.class));
     }
 
+    /**
+     * Builds an index over this field's value in item data. Returns immediately; poll {@code /indexes} for progress.
+     */
+    @PostMapping("/{id}/index")
+    public ResponseEntity<FieldDto> indexField(@PathVariable Long id) {
+        Field updated = fieldService.setIndexed(id, true);
+        return ResponseEntity.accepted().body(modelMapper.map(updated, FieldDto.class));
+    }
+
+    @DeleteMapping("/{id}/index")
+    public ResponseEntity<FieldDto> dropFieldIndex(@PathVariable Long id) {
+        Field updated = fieldService.setIndexed(id, false);
+        return ResponseEntity.accepted().body(modelMapper.map(updated, FieldDto.class));
+    }
+
+    @GetMapping("/indexes")
+    public ResponseEntity<Map<String, String>> getFieldIndexStates() {
+        return ResponseEntity.ok(itemFieldIndexService.getStates());
+    }
+
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteField(@PathVariable Long id) {
         if (fieldService.existsById(id)) {
@@ -1,23 +1,44 @@
 package com.example.mysqlcrudapp.controller;
 
+import com.example.mysqlcrudapp.dto.CursorPage;
+import com.example.mysqlcrudapp.dto.ItemAggregationQueryDto;
+import com.example.mysqlcrudapp.dto.ItemAggregationResultDto;
 import com.example.mysqlcrudapp.dto.ItemDto;
+import com.example.mysqlcrudapp.dto.ItemQueryDto;
+import com.example.mysqlcrudapp.dto.ItemSearchResultDto;
+import com.example.mysqlcrudapp.dto.ItemValidationResultDto;
 import com.example.mysqlcrudapp.dto.BlueprintDto;
 import com.example.mysqlcrudapp.dto.BlueprintVersionDto;
 import com.example.mysqlcrudapp.entity.Item;
 import com.example.mysqlcrudapp.entity.Blueprint;
 import com.example.mysqlcrudapp.entity.BlueprintVersion;
+import com.example.mysqlcrudapp.service.ItemAggregationService;
+import com.example.mysqlcrudapp.service.ItemBulkService;
+import com.example.mysqlcrudapp.service.ItemPatchService;
+import com.example.mysqlcrudapp.service.ItemQueryCompiler;
+import com.example.mysqlcrudapp.service.ItemQueryService;
+import com.example.mysqlcrudapp.service.ItemSearchService;
 import com.example.mysqlcrudapp.service.ItemService;
+import com.example.mysqlcrudapp.service.ItemValidationService;
 import com.example.mysqlcrudapp.service.BlueprintService;
 import com.example.mysqlcrudapp.service.BlueprintVersionService;
+import com.fasterxml.jackson.databind.JsonNode;
 import lombok.RequiredArgsConstructor;
 import org.modelmapper.ModelMapper;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
 import java.net.URI;
+import java.util.Collections;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.function.Function;
 
 @RestController
 @RequestMapping("/api/items")
@@ -26,38 +47,128 @@ public class ItemController {
     private final ItemService itemService;
     private final BlueprintService blueprintService;
     private final BlueprintVersionService versionService;
+    private final ItemQueryService itemQueryService;
+    private final ItemQueryCompiler itemQueryCompiler;
+    private final ItemBulkService itemBulkService;
+    private final ItemValidationService itemValidationService;
+    private final ItemPatchService itemPatchService;
+    private final ItemSearchService itemSearchService;
+    private final ItemAggregationService itemAggregationService;
     private final ModelMapper modelMapper;
 
+    /**
+     * Lists items one keyset page at a time. The full unbounded list is only returned with {@code all=true}.
+     */
     @GetMapping
-    public ResponseEntity<List<ItemDto>> getAllItems() {
-        List<ItemDto> items = itemService.findAll().stream()
-                .map(item -> modelMapper.map(item, ItemDto.class))
-                .collect(Collectors.toList());
-        return ResponseEntity.ok(items);
+    public ResponseEntity<?> getAllItems(@RequestParam(required = false) Long after,
+                                         @RequestParam(required = false) Integer size,
+                                         @RequestParam(defaultValue = "false") boolean all) {
+        if (all) {
+            return ResponseEntity.ok(itemService.findAllDtos());
+        }
+        int pageSize = CursorPage.clampSize(size);
+        List<ItemDto> rows = itemService.findDtoPage(CursorPage.startAfter(after), pageSize);
+        return ResponseEntity.ok(CursorPage.of(rows, pageSize, ItemDto::getId, Function.identity()));
     }
 
     @GetMapping("/{id}")
     public ResponseEntity<ItemDto> getItemById(@PathVariable Long id) {
         return itemService.findById(id)
-                .map(item -> modelMapper.map(item, ItemDto.class))
-                .map(ResponseEntity::ok)
+                .map(item -> ResponseEntity.ok()
+                        .eTag(String.valueOf(item.getRowVersion()))
+                        .body(modelMapper.map(item, ItemDto.class)))
                 .orElse(ResponseEntity.notFound().build());
     }
 
     @GetMapping("/blueprint/{blueprintId}")
-    public ResponseEntity<List<ItemDto>> getItemsByBlueprintId(@PathVariable Long blueprintId) {
-        List<ItemDto> items = itemService.findByBlueprintId(blueprintId).stream()
-                .map(item -> modelMapper.map(item, ItemDto.class))
-                .collect(Collectors.toList());
-        return ResponseEntity.ok(items);
+    public ResponseEntity<?> getItemsByBlueprintId(@PathVariable Long blueprintId,
+                                                   @RequestParam(required = false) Long after,
+                                                   @RequestParam(required = false) Integer size,
+                                                   @RequestParam(defaultValue = "false") boolean all) {
+        if (all) {
+            return ResponseEntity.ok(itemService.findDtosByBlueprintId(blueprintId));
+        }
+        int pageSize = CursorPage.clampSize(size);
+        List<ItemDto> rows = itemService.findDtoPageByBlueprintId(blueprintId, CursorPage.startAfter(after), pageSize);
+        return ResponseEntity.ok(CursorPage.of(rows, pageSize, ItemDto::getId, Function.identity()));
     }
 
     @GetMapping("/version/{versionId}")
-    public ResponseEntity<List<ItemDto>> getItemsByVersionId(@PathVariable Long versionId) {
-        List<ItemDto> items = itemService.findByVersionId(versionId).stream()
-                .map(item -> modelMapper.map(item, ItemDto.class))
-                .collect(Collectors.toList());
-        return ResponseEntity.ok(items);
+    public ResponseEntity<?> getItemsByVersionId(@PathVariable Long versionId,
+                                                 @RequestParam(required = false) Long after,
+                                                 @RequestParam(required = false) Integer size,
+                                                 @RequestParam(defaultValue = "false") boolean all) {
+        if (all) {
+            return ResponseEntity.ok(itemService.findDtosByVersionId(versionId));
+        }
+        int pageSize = CursorPage.clampSize(size);
+        List<ItemDto> rows = itemService.findDtoPageByVersionId(versionId, CursorPage.startAfter(after), pageSize);
+        return ResponseEntity.ok(CursorPage.of(rows, pageSize, ItemDto::getId, Function.identity()));
+    }
+
+    /**
+     * Lists items of a blueprint whose data value for {@code fieldKey} equals {@code value}, one keyset page at a time
+     */
+    @GetMapping("/blueprint/{blueprintId}/field/{fieldKey}")
+    public ResponseEntity<CursorPage<ItemDto>> getItemsByFieldValue(@PathVariable Long blueprintId,
+                                                                    @PathVariable String fieldKey,
+                                                                    @RequestParam String value,
+                                                                    @RequestParam(required = false) Long after,
+                                                                    @RequestParam(required = false) Integer size) {
+        int pageSize = CursorPage.clampSize(size);
+        List<Item> rows = itemService.findPageByFieldValue(blueprintId, fieldKey, value, CursorPage.startAfter(after), pageSize);
+        return ResponseEntity.ok(CursorPage.of(itemService.toDtos(rows), pageSize, ItemDto::getId, Function.identity()));
+    }
+
+    /**
+     * Filters, sorts and projects items of a blueprint in the database.
+     * See {@link com.example.mysqlcrudapp.dto.ItemQueryFilterDto} for the filter operators.
+     */
+    @PostMapping("/query")
+    public ResponseEntity<List<ItemDto>> queryItems(@RequestBody ItemQueryDto query) {
+        return ResponseEntity.ok(itemQueryService.query(query));
+    }
+
+    @GetMapping("/query/cache")
+    public ResponseEntity<Map<String, Long>> getQueryCacheStatistics() {
+        return ResponseEntity.ok(itemQueryCompiler.getCacheStatistics());
+    }
+
+    /**
+     * Counts, sums, min/max and histograms of field values over the items of a blueprint, grouped by state or
+     * by a select or boolean field. See {@link ItemAggregationQueryDto}.
+     */
+    @PostMapping("/aggregate")
+    public ResponseEntity<ItemAggregationResultDto> aggregateItems(@RequestBody ItemAggregationQueryDto query) {
+        return ResponseEntity.ok(itemAggregationService.aggregate(query));
+    }
+
+    @GetMapping("/aggregate/stats")
+    public ResponseEntity<Map<String, Object>> getAggregationStatistics() {
+        return ResponseEntity.ok(itemAggregationService.getStatistics());
+    }
+
+    /**
+     * Ranks items by how well their string fields match the words of {@code q}, one page at a time
+     */
+    @GetMapping("/search")
+    public ResponseEntity<ItemSearchResultDto> searchItems(@RequestParam String q,
+                                                           @RequestParam(defaultValue = "0") int page,
+                                                           @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(itemSearchService.search(q, page, CursorPage.clampSize(size)));
+    }
+
+    /**
+     * Rebuilds the search index from the database, e.g. after a crash lost buffered changes
+     */
+    @PostMapping("/search/rebuild")
+    public ResponseEntity<Map<String, Long>> rebuildSearchIndex() {
+        return ResponseEntity.ok(Collections.singletonMap("indexed", itemSearchService.rebuild()));
+    }
+
+    @GetMapping("/search/stats")
+    public ResponseEntity<Map<String, Object>> getSearchStatistics() {
+        return ResponseEntity.ok(itemSearchService.getStatistics());
     }
 
     @PostMapping
@@ -82,6 +193,25 @@ public class ItemController {
         return ResponseEntity.created(location).body(createdDto);
     }
 
+    /**
+     * Creates or updates items from a JSON array of items, streaming back one result per row.
+     * Rows without an id are created; rows with an id update that item.
+     */
+    @PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public void bulkUpsertItems(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        itemBulkService.process(request.getInputStream(), response.getOutputStream());
+    }
+
+    /**
+     * Checks many item payloads against their versions' fields without saving anything.
+     * Each item names its {@code versionId}, or its {@code blueprintId} to use the active version.
+     */
+    @PostMapping("/validate")
+    public ResponseEntity<List<ItemValidationResultDto>> validateItems(@RequestBody List<ItemDto> items) {
+        return ResponseEntity.ok(itemValidationService.validateAll(items));
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<ItemDto> updateItem(@PathVariable Long id, @RequestBody ItemDto itemDto) {
         // Convert Blueprint ID to Blueprint entity
@@ -99,6 +229,49 @@ public class ItemController {
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    /**
+     * Partially updates an item's data with an RFC 7396 merge patch ({@code application/merge-patch+json})
+     * or an RFC 6902 JSON Patch ({@code application/json-patch+json}). With plain {@code application/json}
+     * an object is taken as a merge patch and an array as a JSON Patch.
+     * An {@code If-Match} header with the item's ETag makes the patch conditional.
+     */
+    @PatchMapping(value = "/{id}", consumes = {ItemPatchService.MERGE_PATCH_JSON, ItemPatchService.JSON_PATCH_JSON,
+            MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<ItemDto> patchItem(@PathVariable Long id,
+                                             @RequestBody JsonNode patch,
+                                             @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+                                             @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Long expectedRowVersion = parseIfMatch(ifMatch);
+        MediaType type = MediaType.parseMediaType(contentType);
+        boolean jsonPatch = type.equalsTypeAndSubtype(MediaType.parseMediaType(ItemPatchService.JSON_PATCH_JSON))
+                || (MediaType.APPLICATION_JSON.equalsTypeAndSubtype(type) && patch.isArray());
+        Item patched = jsonPatch
+                ? itemPatchService.jsonPatch(id, patch, expectedRowVersion)
+                : itemPatchService.mergePatch(id, patch, expectedRowVersion);
+        return ResponseEntity.ok()
+                .eTag(String.valueOf(patched.getRowVersion()))
+                .body(modelMapper.map(patched, ItemDto.class));
+    }
+
+    /**
+     * @return The row version named by an If-Match header, or null when the header is absent or "*"
+     */
+    private static Long parseIfMatch(String ifMatch) {
+        if (ifMatch == null || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        if (tag.startsWith("W/")) {
+            tag = tag.substring(2);
+        }
+        tag = tag.replace("\"", "");
+        try {
+            return Long.valueOf(tag);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("If-Match must be an ETag returned for this item: " + ifMatch);
+        }
+    }
+
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteItem(@PathVariable Long id) {
         if (itemService.existsById(id)) {
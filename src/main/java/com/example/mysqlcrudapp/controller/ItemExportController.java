@@ -0,0 +1,56 @@
+package com.example.mysqlcrudapp.controller;
+
+import com.example.mysqlcrudapp.exception.ResourceNotFoundException;
+import com.example.mysqlcrudapp.service.BlueprintService;
+import com.example.mysqlcrudapp.service.BlueprintVersionService;
+import com.example.mysqlcrudapp.service.ItemExportService;
+import com.example.mysqlcrudapp.service.ItemExportService.Format;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+/**
+ * Streams item exports. Rows are written while they are read, so the response size is not bounded by memory.
+ */
+@RestController
+@RequestMapping("/api/items/export")
+@RequiredArgsConstructor
+public class ItemExportController {
+    private final ItemExportService itemExportService;
+    private final BlueprintService blueprintService;
+    private final BlueprintVersionService blueprintVersionService;
+
+    @GetMapping("/blueprint/{blueprintId}")
+    public ResponseEntity<StreamingResponseBody> exportBlueprint(@PathVariable Long blueprintId,
+                                                                 @RequestParam(defaultValue = "ndjson") String format,
+                                                                 @RequestParam(required = false) Long versionId) {
+        Format exportFormat = Format.parse(format);
+        if (!blueprintService.existsById(blueprintId)) {
+            throw new ResourceNotFoundException("Blueprint not found with id: " + blueprintId);
+        }
+        return stream("blueprint-" + blueprintId, exportFormat,
+                out -> itemExportService.exportBlueprint(blueprintId, versionId, exportFormat, out));
+    }
+
+    @GetMapping("/version/{versionId}")
+    public ResponseEntity<StreamingResponseBody> exportVersion(@PathVariable Long versionId,
+                                                               @RequestParam(defaultValue = "ndjson") String format) {
+        Format exportFormat = Format.parse(format);
+        if (!blueprintVersionService.existsById(versionId)) {
+            throw new ResourceNotFoundException("Version not found with id: " + versionId);
+        }
+        return stream("version-" + versionId, exportFormat,
+                out -> itemExportService.exportVersion(versionId, exportFormat, out));
+    }
+
+    private ResponseEntity<StreamingResponseBody> stream(String name, Format format, StreamingResponseBody body) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(format.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"items-" + name + "." + format.getExtension() + "\"")
+                .body(body);
+    }
+}
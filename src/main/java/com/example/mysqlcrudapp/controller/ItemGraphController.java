@@ -0,0 +1,74 @@
+package com.example.mysqlcrudapp.controller;
+
+import com.example.mysqlcrudapp.dto.ItemGraphDto;
+import com.example.mysqlcrudapp.dto.ItemGraphPathDto;
+import com.example.mysqlcrudapp.service.ItemGraphService;
+import com.example.mysqlcrudapp.service.ItemLinkClosureService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Multi-hop traversal of item links: neighborhoods, shortest paths and connected components,
+ * and transitive descendants and ancestors along acyclic fields
+ */
+@RestController
+@RequestMapping("/api/items")
+@RequiredArgsConstructor
+public class ItemGraphController {
+    private final ItemGraphService itemGraphService;
+    private final ItemLinkClosureService itemLinkClosureService;
+
+    /**
+     * Items within {@code depth} links of an item, following links {@code out}, {@code in} or {@code both} ways
+     */
+    @GetMapping("/{id}/graph")
+    public ResponseEntity<ItemGraphDto> getGraph(@PathVariable Long id,
+                                                 @RequestParam(defaultValue = "1") int depth,
+                                                 @RequestParam(defaultValue = "out") String direction,
+                                                 @RequestParam(required = false) Long fieldId) {
+        return ResponseEntity.ok(itemGraphService.neighborhood(id, depth, direction, fieldId));
+    }
+
+    @GetMapping("/{id}/graph/path")
+    public ResponseEntity<ItemGraphPathDto> getShortestPath(@PathVariable Long id,
+                                                            @RequestParam Long to,
+                                                            @RequestParam(defaultValue = "out") String direction,
+                                                            @RequestParam(required = false) Long fieldId,
+                                                            @RequestParam(defaultValue = "" + ItemGraphService.MAX_DEPTH) int maxDepth) {
+        return itemGraphService.shortestPath(id, to, direction, fieldId, maxDepth)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/{id}/graph/component")
+    public ResponseEntity<ItemGraphDto> getComponent(@PathVariable Long id,
+                                                     @RequestParam(required = false) Long fieldId) {
+        return ResponseEntity.ok(itemGraphService.component(id, fieldId));
+    }
+
+    /**
+     * Ids of all items reachable from an item along links of an acyclic field, read from its reachability index
+     */
+    @GetMapping("/{id}/descendants")
+    public ResponseEntity<List<Long>> getDescendants(@PathVariable Long id, @RequestParam Long fieldId) {
+        return ResponseEntity.ok(itemLinkClosureService.findDescendantIds(fieldId, id));
+    }
+
+    @GetMapping("/{id}/ancestors")
+    public ResponseEntity<List<Long>> getAncestors(@PathVariable Long id, @RequestParam Long fieldId) {
+        return ResponseEntity.ok(itemLinkClosureService.findAncestorIds(fieldId, id));
+    }
+
+    @GetMapping("/graph/stats")
+    public ResponseEntity<Map<String, Object>> getGraphStatistics() {
+        return ResponseEntity.ok(itemGraphService.getStatistics());
+    }
+}
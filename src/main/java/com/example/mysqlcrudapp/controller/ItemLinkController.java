@@ -1,8 +1,10 @@
 package com.example.mysqlcrudapp.controller;
 
+import com.example.mysqlcrudapp.dto.CursorPage;
 import com.example.mysqlcrudapp.dto.ItemLinkDto;
 import com.example.mysqlcrudapp.entity.ItemLink;
 import com.example.mysqlcrudapp.entity.Item;
+import com.example.mysqlcrudapp.service.FieldService;
 import com.example.mysqlcrudapp.service.ItemLinkService;
 import com.example.mysqlcrudapp.service.ItemService;
 import com.example.mysqlcrudapp.exception.ResourceNotFoundException;
@@ -14,7 +16,7 @@ import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import java.net.URI;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.function.Function;
 
 @RestController
 @RequestMapping("/api/item-links")
@@ -22,12 +24,22 @@ import java.util.stream.Collectors;
 public class ItemLinkController {
     private final ItemLinkService itemLinkService;
     private final ItemService itemService;
-    private final ModelMapper modelMapper;    @GetMapping
-    public ResponseEntity<List<ItemLinkDto>> getAllItemLinks() {
-        List<ItemLinkDto> links = itemLinkService.findAll().stream()
-                .map(link -> modelMapper.map(link, ItemLinkDto.class))
-                .collect(Collectors.toList());
-        return ResponseEntity.ok(links);
+    private final FieldService fieldService;
+    private final ModelMapper modelMapper;
+
+    /**
+     * Lists links one keyset page at a time. The full unbounded list is only returned with {@code all=true}.
+     */
+    @GetMapping
+    public ResponseEntity<?> getAllItemLinks(@RequestParam(required = false) Long after,
+                                             @RequestParam(required = false) Integer size,
+                                             @RequestParam(defaultValue = "false") boolean all) {
+        if (all) {
+            return ResponseEntity.ok(itemLinkService.findAllDtos());
+        }
+        int pageSize = CursorPage.clampSize(size);
+        List<ItemLinkDto> rows = itemLinkService.findDtoPage(CursorPage.startAfter(after), pageSize);
+        return ResponseEntity.ok(CursorPage.of(rows, pageSize, ItemLinkDto::getId, Function.identity()));
     }
 
     @GetMapping("/{id}")
@@ -40,18 +52,12 @@ public class ItemLinkController {
 
     @GetMapping("/from/{fromItemId}")
     public ResponseEntity<List<ItemLinkDto>> getItemLinksByFromItemId(@PathVariable Long fromItemId) {
-        List<ItemLinkDto> links = itemLinkService.findByFromItemId(fromItemId).stream()
-                .map(link -> modelMapper.map(link, ItemLinkDto.class))
-                .collect(Collectors.toList());
-        return ResponseEntity.ok(links);
+        return ResponseEntity.ok(itemLinkService.findDtosByFromItemId(fromItemId));
     }
 
     @GetMapping("/to/{toItemId}")
     public ResponseEntity<List<ItemLinkDto>> getItemLinksByToItemId(@PathVariable Long toItemId) {
-        List<ItemLinkDto> links = itemLinkService.findByToItemId(toItemId).stream()
-                .map(link -> modelMapper.map(link, ItemLinkDto.class))
-                .collect(Collectors.toList());
-        return ResponseEntity.ok(links);
+        return ResponseEntity.ok(itemLinkService.findDtosByToItemId(toItemId));
     }
 
     @PostMapping
@@ -61,9 +67,14 @@ public class ItemLinkController {
         Item toItem = itemService.findById(itemLinkDto.getToItemId())
                 .orElseThrow(() -> new ResourceNotFoundException("To Item not found with id: " + itemLinkDto.getToItemId()));
 
+        if (itemLinkDto.getFieldId() == null) {
+            throw new IllegalArgumentException("fieldId is required");
+        }
+
         ItemLink itemLink = modelMapper.map(itemLinkDto, ItemLink.class);
         itemLink.setFromItem(fromItem);
         itemLink.setToItem(toItem);
+        itemLink.setField(fieldService.findById(itemLinkDto.getFieldId()));
 
         ItemLink created = itemLinkService.create(itemLink);
         ItemLinkDto createdDto = modelMapper.map(created, ItemLinkDto.class);
@@ -83,9 +94,14 @@ public class ItemLinkController {
         Item toItem = itemService.findById(itemLinkDto.getToItemId())
                 .orElseThrow(() -> new ResourceNotFoundException("To Item not found with id: " + itemLinkDto.getToItemId()));
 
+        if (itemLinkDto.getFieldId() == null) {
+            throw new IllegalArgumentException("fieldId is required");
+        }
+
         ItemLink itemLink = modelMapper.map(itemLinkDto, ItemLink.class);
         itemLink.setFromItem(fromItem);
         itemLink.setToItem(toItem);
+        itemLink.setField(fieldService.findById(itemLinkDto.getFieldId()));
 
         return itemLinkService.update(id, itemLink)
                 .map(updated -> modelMapper.map(updated, ItemLinkDto.class))
@@ -32,7 +32,7 @@ public class ItemViewController {
         model.addAttribute("title", "Items");
         model.addAttribute("items", itemService.findAll());
         model.addAttribute("newItem", new Item());
-        model.addAttribute("blueprints", blueprintService.findAll());
+        model.addAttribute("blueprints", blueprintService.findSummaries());
         return "items";
     }
 
@@ -0,0 +1,43 @@
+package com.example.mysqlcrudapp.controller;
+
+import com.example.mysqlcrudapp.service.JfrRecordingService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Controls the Java Flight Recorder recording; files are written on the server, see {@link JfrRecordingService}.
+ * Like everything under /api/admin it is only open to administrators.
+ */
+@RestController
+@RequestMapping("/api/admin/jfr")
+@RequiredArgsConstructor
+public class JfrController {
+    private final JfrRecordingService jfrRecordingService;
+
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> getStatus() {
+        return ResponseEntity.ok(jfrRecordingService.getStatus());
+    }
+
+    @PostMapping("/start")
+    public ResponseEntity<Map<String, Object>> start() {
+        return ResponseEntity.ok(jfrRecordingService.start());
+    }
+
+    @PostMapping("/dump")
+    public ResponseEntity<Map<String, String>> dump() {
+        return ResponseEntity.ok(Collections.singletonMap("file", jfrRecordingService.dump().toAbsolutePath().toString()));
+    }
+
+    @PostMapping("/stop")
+    public ResponseEntity<Map<String, String>> stop() {
+        return ResponseEntity.ok(Collections.singletonMap("file", jfrRecordingService.stop().toAbsolutePath().toString()));
+    }
+}
@@ -1,6 +1,7 @@
 package com.example.mysqlcrudapp.controller;
 
 import com.example.mysqlcrudapp.entity.User;
+import com.example.mysqlcrudapp.service.UserActivityService;
 import com.example.mysqlcrudapp.service.UserService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
@@ -9,12 +10,14 @@ import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import java.net.URI;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/users")
 @RequiredArgsConstructor
 public class UserController {
     private final UserService userService;
+    private final UserActivityService userActivityService;
 
     @GetMapping
     public ResponseEntity<List<User>> getAllUsers() {
@@ -66,6 +69,11 @@ public class UserController {
                 : ResponseEntity.notFound().build();
     }
 
+    @GetMapping("/activity/stats")
+    public ResponseEntity<Map<String, Object>> getActivityStatistics() {
+        return ResponseEntity.ok(userActivityService.getStatistics());
+    }
+
     @PostMapping("/{id}/last-login")
     public ResponseEntity<Void> updateLastLogin(@PathVariable Long id) {
         userService.updateLastLogin(id);
@@ -0,0 +1,25 @@
+package com.example.mysqlcrudapp.converter;
+
+import com.example.mysqlcrudapp.service.UserDirectoryService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+
+/**
+ * Writes a user id as that user's display name. Created through Spring, see {@code JacksonConfig}.
+ */
+public class UserNameSerializer extends StdSerializer<Long> {
+    private final UserDirectoryService userDirectoryService;
+
+    public UserNameSerializer(UserDirectoryService userDirectoryService) {
+        super(Long.class);
+        this.userDirectoryService = userDirectoryService;
+    }
+
+    @Override
+    public void serialize(Long userId, JsonGenerator generator, SerializerProvider provider) throws IOException {
+        generator.writeString(userDirectoryService.displayName(userId));
+    }
+}
@@ -1,5 +1,8 @@
 package com.example.mysqlcrudapp.dto;
 
+import com.example.mysqlcrudapp.converter.UserNameSerializer;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.Size;
 import lombok.Data;
@@ -17,7 +20,10 @@ public class BlueprintDto {
     @Size(max = 1000, message = "Description cannot exceed 1000 characters")
     private String description;
 
-    private String createdBy;
+    /** Id of the creating user, written to JSON as that user's display name; null for system rows */
+    @JsonProperty(value = "createdBy", access = JsonProperty.Access.READ_ONLY)
+    @JsonSerialize(using = UserNameSerializer.class, nullsUsing = UserNameSerializer.class)
+    private Long createdById;
     private Integer activeVersion;
     private List<BlueprintVersionDto> versions;
     private LocalDateTime createdAt;
@@ -0,0 +1,16 @@
+package com.example.mysqlcrudapp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Number of items of one blueprint, see {@code ItemRepository.countByBlueprint}
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BlueprintItemCountDto {
+    private Long blueprintId;
+    private long itemCount;
+}
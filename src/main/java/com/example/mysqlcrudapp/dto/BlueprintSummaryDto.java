@@ -0,0 +1,33 @@
+package com.example.mysqlcrudapp.dto;
+
+import com.example.mysqlcrudapp.converter.UserNameSerializer;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * One row of the blueprint listing: the blueprint with counts instead of its versions.
+ * Built by a single aggregate query, see {@code BlueprintRepository.findSummaries}.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BlueprintSummaryDto {
+    private Long id;
+    private String name;
+    private String description;
+    /** Id of the creating user, written to JSON as that user's display name; null for system rows */
+    @JsonProperty(value = "createdBy", access = JsonProperty.Access.READ_ONLY)
+    @JsonSerialize(using = UserNameSerializer.class, nullsUsing = UserNameSerializer.class)
+    private Long createdById;
+    /** Number of the active version, null if no version is active */
+    private Integer activeVersion;
+    private long versionCount;
+    private long itemCount;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+}
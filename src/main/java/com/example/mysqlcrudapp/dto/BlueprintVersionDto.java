@@ -1,12 +1,20 @@
 package com.example.mysqlcrudapp.dto;
 
+import com.example.mysqlcrudapp.converter.UserNameSerializer;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Size;
+import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 import java.time.LocalDateTime;
 
+// The all-args constructor backs the JPQL SELECT new projections, so keep the field order in step with them
 @Data
+@NoArgsConstructor
+@AllArgsConstructor
 public class BlueprintVersionDto {
     private Long id;
 
@@ -24,7 +32,10 @@ public class BlueprintVersionDto {
     private String description;
 
     private boolean active;
-    private String createdBy;
+    /** Id of the creating user, written to JSON as that user's display name; null for system rows */
+    @JsonProperty(value = "createdBy", access = JsonProperty.Access.READ_ONLY)
+    @JsonSerialize(using = UserNameSerializer.class, nullsUsing = UserNameSerializer.class)
+    private Long createdById;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
 }
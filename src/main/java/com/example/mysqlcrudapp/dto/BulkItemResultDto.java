@@ -0,0 +1,27 @@
+package com.example.mysqlcrudapp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outcome of one row of a bulk item request
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkItemResultDto {
+    public static final String CREATED = "created";
+    public static final String UPDATED = "updated";
+    public static final String ERROR = "error";
+
+    /** Position of the row in the request array */
+    private int index;
+    private Long id;
+    private String status;
+    private String error;
+
+    public static BulkItemResultDto error(int index, Long id, String error) {
+        return new BulkItemResultDto(index, id, ERROR, error);
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.mysqlcrudapp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One region of the Hibernate second-level cache. Hit, miss and put counts are only kept while
+ * {@code hibernate.generate_statistics} is on.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CacheRegionStatsDto {
+    private String region;
+    /** entity, query or timestamps */
+    private String type;
+    private long hitCount;
+    private long missCount;
+    private long putCount;
+    /** Entries currently held, approximately */
+    private long size;
+    /** Entry limit of the region, null if unbounded */
+    private Long maxSize;
+}
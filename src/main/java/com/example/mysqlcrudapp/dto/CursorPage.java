@@ -0,0 +1,66 @@
+package com.example.mysqlcrudapp.dto;
+
+import lombok.Data;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * One page of a keyset-paginated list.
+ * Rows are ordered by id; pass {@code next} back as the {@code after} cursor to fetch the following page.
+ * {@code next} is null when there are no more rows.
+ */
+@Data
+public class CursorPage<T> {
+    public static final int DEFAULT_SIZE = 50;
+    public static final int MAX_SIZE = 500;
+
+    private List<T> items;
+    private Long next;
+    private int size;
+
+    /**
+     * Clamps a requested page size to the allowed range
+     *
+     * @param requested The size asked for by the client, may be null
+     * @return A page size between 1 and {@link #MAX_SIZE}
+     */
+    public static int clampSize(Integer requested) {
+        if (requested == null || requested <= 0) {
+            return DEFAULT_SIZE;
+        }
+        return Math.min(requested, MAX_SIZE);
+    }
+
+    /**
+     * Normalizes a cursor so a missing one starts at the beginning
+     *
+     * @param after The id of the last row of the previous page, may be null
+     * @return The cursor to query with
+     */
+    public static long startAfter(Long after) {
+        return after != null ? after : 0L;
+    }
+
+    /**
+     * Builds a page from rows fetched with a limit of {@code size + 1}.
+     * The extra row only signals that another page exists and is not returned.
+     *
+     * @param rows The fetched rows, ordered by id
+     * @param size The page size the rows were fetched for
+     * @param idOf Extracts the keyset id from a row
+     * @param mapper Converts a row into its response representation
+     * @return The page
+     */
+    public static <E, T> CursorPage<T> of(List<E> rows, int size, Function<E, Long> idOf, Function<E, T> mapper) {
+        boolean hasMore = rows.size() > size;
+        List<E> pageRows = hasMore ? rows.subList(0, size) : rows;
+
+        CursorPage<T> page = new CursorPage<>();
+        page.setItems(pageRows.stream().map(mapper).collect(Collectors.toList()));
+        page.setSize(size);
+        page.setNext(hasMore ? idOf.apply(pageRows.get(pageRows.size() - 1)) : null);
+        return page;
+    }
+}
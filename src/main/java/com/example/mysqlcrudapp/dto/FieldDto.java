@@ -1,8 +1,16 @@
 package com.example.mysqlcrudapp.dto;
 
+import com.example.mysqlcrudapp.converter.UserNameSerializer;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
+// The all-args constructor backs the JPQL SELECT new projections, so keep the field order in step with them
 @Data
+@NoArgsConstructor
+@AllArgsConstructor
 public class FieldDto {
     private Long id;
     private String key;
@@ -18,5 +26,10 @@ public class FieldDto {
     private Double maxNumber;
     private Integer orderIndex;
     private String groupName;
-    private String createdBy;
+    private Boolean indexed;
+    private Boolean acyclic;
+    /** Id of the creating user, written to JSON as that user's display name; null for system rows */
+    @JsonProperty(value = "createdBy", access = JsonProperty.Access.READ_ONLY)
+    @JsonSerialize(using = UserNameSerializer.class, nullsUsing = UserNameSerializer.class)
+    private Long createdById;
 }
@@ -0,0 +1,24 @@
+package com.example.mysqlcrudapp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Aggregates of the items sharing one value of the group-by field
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ItemAggregationGroupDto {
+    /** The shared value, or null for items without one */
+    private String key;
+    private long count;
+    /** Statistics by field key */
+    private Map<String, ItemFieldStatsDto> fields;
+    /** Null unless a histogram was requested */
+    private List<ItemHistogramBucketDto> histogram;
+}
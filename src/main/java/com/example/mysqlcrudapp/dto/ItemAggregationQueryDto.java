@@ -0,0 +1,21 @@
+package com.example.mysqlcrudapp.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Aggregation over the items of one blueprint.
+ * Items are grouped by {@code groupBy}, which is {@code currentState} or the key of a select or boolean field,
+ * or form one group when it is empty. Each group gets its item count, count/sum/min/max/avg of every number
+ * or date field in {@code fields}, and optionally an equal-width histogram of {@code histogramField}.
+ */
+@Data
+public class ItemAggregationQueryDto {
+    private Long blueprintId;
+    private String groupBy;
+    private List<String> fields;
+    private String histogramField;
+    // Number of histogram buckets, spanning the smallest to the largest value over all groups
+    private Integer histogramBuckets;
+}
@@ -0,0 +1,20 @@
+package com.example.mysqlcrudapp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Result of an {@link ItemAggregationQueryDto}, groups with the most items first
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ItemAggregationResultDto {
+    private Long blueprintId;
+    private String groupBy;
+    private long itemCount;
+    private List<ItemAggregationGroupDto> groups;
+}
@@ -1,10 +1,16 @@
 package com.example.mysqlcrudapp.dto;
 
+import com.example.mysqlcrudapp.converter.UserNameSerializer;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import lombok.Data;
+import lombok.NoArgsConstructor;
+
 import java.time.LocalDateTime;
 import java.util.List;
 
 @Data
+@NoArgsConstructor
 public class ItemDto {
     private Long id;
     private Long blueprintId;
@@ -13,6 +19,25 @@ public class ItemDto {
     private String dataJson;
     private List<Long> outgoingLinkIds;
     private List<Long> incomingLinkIds;
-    private String createdBy;
+    /** Id of the creating user, written to JSON as that user's display name; null for system rows */
+    @JsonProperty(value = "createdBy", access = JsonProperty.Access.READ_ONLY)
+    @JsonSerialize(using = UserNameSerializer.class, nullsUsing = UserNameSerializer.class)
+    private Long createdById;
     private LocalDateTime createdAt;
+    private Long rowVersion;
+
+    /**
+     * Projection constructor for JPQL {@code SELECT new} queries; link ids are attached separately
+     */
+    public ItemDto(Long id, Long blueprintId, Long versionId, String currentState, String dataJson,
+                   Long createdById, LocalDateTime createdAt, Long rowVersion) {
+        this.id = id;
+        this.blueprintId = blueprintId;
+        this.versionId = versionId;
+        this.currentState = currentState;
+        this.dataJson = dataJson;
+        this.createdById = createdById;
+        this.createdAt = createdAt;
+        this.rowVersion = rowVersion;
+    }
 }
@@ -0,0 +1,21 @@
+package com.example.mysqlcrudapp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Statistics of one field over a group of items. Min and max are numbers, or ISO dates for date fields,
+ * which have no sum or average.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ItemFieldStatsDto {
+    /** Items with a value for the field */
+    private long count;
+    private Double sum;
+    private Double avg;
+    private Object min;
+    private Object max;
+}
@@ -0,0 +1,21 @@
+package com.example.mysqlcrudapp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Items around a start item and the links followed to reach them, nearest first
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ItemGraphDto {
+    private Long itemId;
+    private List<ItemGraphNodeDto> nodes;
+    private List<ItemLinkDto> links;
+    /** Whether items were left out because the node limit was hit */
+    private boolean truncated;
+}
@@ -0,0 +1,17 @@
+package com.example.mysqlcrudapp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * An item reached in a link graph traversal
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ItemGraphNodeDto {
+    private Long itemId;
+    /** Links between the start item and this one */
+    private int depth;
+}
@@ -0,0 +1,22 @@
+package com.example.mysqlcrudapp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * A path with the fewest links between two items
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ItemGraphPathDto {
+    private Long fromItemId;
+    private Long toItemId;
+    /** Items along the path, both ends included */
+    private List<Long> itemIds;
+    /** Links along the path, in order */
+    private List<ItemLinkDto> links;
+}
@@ -0,0 +1,17 @@
+package com.example.mysqlcrudapp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Items whose value lies in {@code [from, to)}; the last bucket includes {@code to}
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ItemHistogramBucketDto {
+    private Object from;
+    private Object to;
+    private long count;
+}
@@ -1,12 +1,25 @@
 package com.example.mysqlcrudapp.dto;
 
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 @Data
+@NoArgsConstructor
 public class ItemLinkDto {
     private Long id;
     private Long fromItemId;
     private Long toItemId;
+    private Long fieldId;
     private String type;
     private String metadata;
+
+    /**
+     * Projection constructor for JPQL {@code SELECT new} queries
+     */
+    public ItemLinkDto(Long id, Long fromItemId, Long toItemId, Long fieldId) {
+        this.id = id;
+        this.fromItemId = fromItemId;
+        this.toItemId = toItemId;
+        this.fieldId = fieldId;
+    }
 }
@@ -0,0 +1,20 @@
+package com.example.mysqlcrudapp.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Structured item query: filter, sort and projection over the data fields of one blueprint
+ */
+@Data
+public class ItemQueryDto {
+    private Long blueprintId;
+    private Long versionId;
+    private ItemQueryFilterDto filter;
+    private List<ItemQuerySortDto> sort;
+    // Data keys to return; the whole data document is returned when empty
+    private List<String> projection;
+    private Integer limit;
+    private Integer offset;
+}
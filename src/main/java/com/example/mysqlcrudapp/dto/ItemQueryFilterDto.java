@@ -0,0 +1,29 @@
+package com.example.mysqlcrudapp.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * One node of an item query filter tree.
+ * <ul>
+ *     <li>{@code and} / {@code or}: combine {@code filters}</li>
+ *     <li>{@code not}: negates the single entry of {@code filters}</li>
+ *     <li>{@code eq}: {@code field} equals {@code value}</li>
+ *     <li>{@code in}: {@code field} equals one of {@code values}</li>
+ *     <li>{@code range}: {@code field} within any of {@code gt}, {@code gte}, {@code lt}, {@code lte}</li>
+ *     <li>{@code exists}: {@code field} is present in the data document</li>
+ * </ul>
+ */
+@Data
+public class ItemQueryFilterDto {
+    private String op;
+    private String field;
+    private Object value;
+    private List<Object> values;
+    private Object gt;
+    private Object gte;
+    private Object lt;
+    private Object lte;
+    private List<ItemQueryFilterDto> filters;
+}
@@ -0,0 +1,12 @@
+package com.example.mysqlcrudapp.dto;
+
+import lombok.Data;
+
+@Data
+public class ItemQuerySortDto {
+    private String field;
+    // "asc" (default) or "desc"
+    private String direction;
+    // "string" (default), "number" or "date": how values are compared
+    private String type;
+}
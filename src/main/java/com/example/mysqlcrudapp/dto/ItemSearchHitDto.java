@@ -0,0 +1,16 @@
+package com.example.mysqlcrudapp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One item matching a full-text search, with its relevance score
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ItemSearchHitDto {
+    private double score;
+    private ItemDto item;
+}
@@ -0,0 +1,22 @@
+package com.example.mysqlcrudapp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One page of full-text search results, best match first
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ItemSearchResultDto {
+    private String query;
+    private int page;
+    private int size;
+    /** Number of matching items across all pages */
+    private long total;
+    private List<ItemSearchHitDto> hits;
+}
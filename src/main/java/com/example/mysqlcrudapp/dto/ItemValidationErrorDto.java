@@ -0,0 +1,16 @@
+package com.example.mysqlcrudapp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A problem with one field of an item's data. {@code field} is null for problems with the payload as a whole.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ItemValidationErrorDto {
+    private String field;
+    private String message;
+}
@@ -0,0 +1,21 @@
+package com.example.mysqlcrudapp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Outcome of validating one payload of a batch validation request
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ItemValidationResultDto {
+    /** Position of the payload in the request array */
+    private int index;
+    private Long versionId;
+    private boolean valid;
+    private List<ItemValidationErrorDto> errors;
+}
@@ -1,16 +1,22 @@
 package com.example.mysqlcrudapp.entity;
 
+import com.example.mysqlcrudapp.persistence.CacheRegions;
+
+import javax.persistence.Cacheable;
 import javax.persistence.CascadeType;
 import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.FetchType;
 import javax.persistence.GeneratedValue;
-import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.OneToMany;
 import javax.persistence.Table;
 import lombok.Data;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 import org.hibernate.annotations.UpdateTimestamp;
 
 import java.time.LocalDateTime;
@@ -18,11 +24,15 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CacheRegions.BLUEPRINT)
 @Table(name = "blueprint")
 @Data
 public class Blueprint {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(generator = "blueprint_id")
+    @GenericGenerator(name = "blueprint_id", strategy = "com.example.mysqlcrudapp.persistence.PooledIdGenerator",
+            parameters = @Parameter(name = "block_size", value = "20"))
     private Long id;
 
     @Column(nullable = false)
@@ -32,10 +42,11 @@ public class Blueprint {
     private String description;
 
     @OneToMany(mappedBy = "blueprint", cascade = CascadeType.ALL, orphanRemoval = true)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CacheRegions.BLUEPRINT_VERSIONS)
     private List<BlueprintVersion> versions = new ArrayList<>();
 
-    @Column(name = "created_by")
-    private String createdBy;
+    @Column(name = "created_by_id")
+    private Long createdById;
 
     @CreationTimestamp
     @Column(name = "created_at", nullable = false, updatable = false)
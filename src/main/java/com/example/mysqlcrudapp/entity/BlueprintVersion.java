@@ -1,8 +1,15 @@
 package com.example.mysqlcrudapp.entity;
 
+import com.example.mysqlcrudapp.event.SchemaChangePublisher;
+import com.example.mysqlcrudapp.persistence.CacheRegions;
+
 import javax.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 import org.hibernate.annotations.UpdateTimestamp;
 
 import java.time.LocalDateTime;
@@ -10,6 +17,9 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CacheRegions.BLUEPRINT_VERSION)
+@EntityListeners(SchemaChangePublisher.class)
 @Table(name = "blueprint_version")
 @Data
 @NoArgsConstructor
@@ -17,7 +27,9 @@ import java.util.List;
 @Builder
 public class BlueprintVersion {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(generator = "blueprint_version_id")
+    @GenericGenerator(name = "blueprint_version_id", strategy = "com.example.mysqlcrudapp.persistence.PooledIdGenerator",
+            parameters = @Parameter(name = "block_size", value = "50"))
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -36,11 +48,12 @@ public class BlueprintVersion {
     private String description;
 
     @OneToMany(mappedBy = "blueprintVersion", cascade = CascadeType.ALL, orphanRemoval = true)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CacheRegions.BLUEPRINT_VERSION_FIELDS)
     @Builder.Default
     private List<BlueprintVersionField> fields = new ArrayList<>();
 
-    @Column(name = "created_by")
-    private String createdBy;
+    @Column(name = "created_by_id")
+    private Long createdById;
 
     @CreationTimestamp
     @Column(name = "created_at", nullable = false, updatable = false)
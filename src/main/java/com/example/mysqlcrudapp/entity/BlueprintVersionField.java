@@ -1,13 +1,23 @@
 package com.example.mysqlcrudapp.entity;
 
+import com.example.mysqlcrudapp.event.SchemaChangePublisher;
+import com.example.mysqlcrudapp.persistence.CacheRegions;
+
 import javax.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 import org.hibernate.annotations.UpdateTimestamp;
 
 import java.time.LocalDateTime;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CacheRegions.BLUEPRINT_VERSION_FIELD)
+@EntityListeners(SchemaChangePublisher.class)
 @Table(name = "blueprint_version_field")
 @Data
 @NoArgsConstructor
@@ -15,7 +25,9 @@ import java.time.LocalDateTime;
 @Builder
 public class BlueprintVersionField {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(generator = "blueprint_version_field_id")
+    @GenericGenerator(name = "blueprint_version_field_id", strategy = "com.example.mysqlcrudapp.persistence.PooledIdGenerator",
+            parameters = @Parameter(name = "block_size", value = "200"))
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -35,8 +47,8 @@ public class BlueprintVersionField {
     @Column(name = "settings_json", columnDefinition = "json")
     private String settingsJson;
 
-    @Column(name = "created_by")
-    private String createdBy;
+    @Column(name = "created_by_id")
+    private Long createdById;
 
     @CreationTimestamp
     @Column(name = "created_at", nullable = false, updatable = false)
@@ -1,8 +1,15 @@
 package com.example.mysqlcrudapp.entity;
 
+import com.example.mysqlcrudapp.event.SchemaChangePublisher;
+import com.example.mysqlcrudapp.persistence.CacheRegions;
+
 import javax.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 import org.hibernate.annotations.UpdateTimestamp;
 
 import java.time.LocalDateTime;
@@ -10,6 +17,9 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CacheRegions.FIELD)
+@EntityListeners(SchemaChangePublisher.class)
 @Table(name = "field")
 @Data
 @NoArgsConstructor
@@ -17,7 +27,9 @@ import java.util.List;
 @Builder
 public class Field {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(generator = "field_id")
+    @GenericGenerator(name = "field_id", strategy = "com.example.mysqlcrudapp.persistence.PooledIdGenerator",
+            parameters = @Parameter(name = "block_size", value = "50"))
     private Long id;    @Column(name = "field_key", nullable = false)
     private String key;
 
@@ -56,12 +68,21 @@ public class Field {
     @Column(name = "settings_json", columnDefinition = "json")
     private String settingsJson;
 
+    // Indexed fields get a generated column plus index over their value in item.data_json
+    @Column(name = "is_indexed")
+    private Boolean indexed;
+
+    // Links of acyclic fields may not form a cycle; their reachability is kept in item_link_closure
+    @Column(name = "is_acyclic")
+    private Boolean acyclic;
+
     @OneToMany(mappedBy = "field", cascade = CascadeType.ALL)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CacheRegions.FIELD_VERSION_FIELDS)
     @Builder.Default
     private List<BlueprintVersionField> blueprintVersionFields = new ArrayList<>();
 
-    @Column(name = "created_by")
-    private String createdBy;
+    @Column(name = "created_by_id")
+    private Long createdById;
 
     @CreationTimestamp
     @Column(name = "created_at", nullable = false, updatable = false)
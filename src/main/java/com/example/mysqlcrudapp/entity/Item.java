@@ -3,6 +3,8 @@ package com.example.mysqlcrudapp.entity;
 import javax.persistence.*;
 import lombok.*;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
@@ -16,7 +18,9 @@ import java.util.List;
 @Builder
 public class Item {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(generator = "item_id")
+    @GenericGenerator(name = "item_id", strategy = "com.example.mysqlcrudapp.persistence.PooledIdGenerator",
+            parameters = @Parameter(name = "block_size", value = "1000"))
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -41,10 +45,15 @@ public class Item {
     @Builder.Default
     private List<ItemLink> incomingLinks = new ArrayList<>();
 
-    @Column(name = "created_by")
-    private String createdBy;
+    @Column(name = "created_by_id")
+    private Long createdById;
 
     @CreationTimestamp
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
+
+    // Bumped on every write, including the single-statement data patches that bypass the entity
+    @Version
+    @Column(name = "row_version", columnDefinition = "bigint default 0 not null")
+    private Long rowVersion;
 }
@@ -3,6 +3,8 @@ package com.example.mysqlcrudapp.entity;
 import javax.persistence.*;
 import lombok.*;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 
 import java.time.LocalDateTime;
 
@@ -14,7 +16,9 @@ import java.time.LocalDateTime;
 @Builder
 public class ItemLink {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(generator = "item_link_id")
+    @GenericGenerator(name = "item_link_id", strategy = "com.example.mysqlcrudapp.persistence.PooledIdGenerator",
+            parameters = @Parameter(name = "block_size", value = "500"))
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -29,8 +33,8 @@ public class ItemLink {
     @JoinColumn(name = "field_id", nullable = false)
     private Field field;
 
-    @Column(name = "created_by")
-    private String createdBy;
+    @Column(name = "created_by_id")
+    private Long createdById;
 
     @CreationTimestamp
     @Column(name = "created_at", nullable = false, updatable = false)
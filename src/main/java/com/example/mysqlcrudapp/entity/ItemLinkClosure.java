@@ -0,0 +1,51 @@
+package com.example.mysqlcrudapp.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.IdClass;
+import javax.persistence.Index;
+import javax.persistence.Table;
+import java.io.Serializable;
+
+/**
+ * One row of the transitive closure of the links of an acyclic field: the descendant is reachable from the
+ * ancestor along {@code pathCount} distinct paths. Counting paths lets a link be removed without recomputing
+ * reachability; a row goes once its count drops to zero.
+ */
+@Entity
+@Table(name = "item_link_closure",
+        indexes = @Index(name = "idx_item_link_closure_descendant", columnList = "field_id, descendant_id"))
+@IdClass(ItemLinkClosure.Key.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ItemLinkClosure {
+    @Id
+    @Column(name = "field_id")
+    private Long fieldId;
+
+    @Id
+    @Column(name = "ancestor_id")
+    private Long ancestorId;
+
+    @Id
+    @Column(name = "descendant_id")
+    private Long descendantId;
+
+    @Column(name = "path_count", nullable = false)
+    private long pathCount;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Long fieldId;
+        private Long ancestorId;
+        private Long descendantId;
+    }
+}
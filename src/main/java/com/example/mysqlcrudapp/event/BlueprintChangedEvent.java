@@ -0,0 +1,11 @@
+package com.example.mysqlcrudapp.event;
+
+import lombok.Value;
+
+/**
+ * Published when a blueprint is created, updated or deleted
+ */
+@Value
+public class BlueprintChangedEvent {
+    Long blueprintId;
+}
@@ -0,0 +1,27 @@
+package com.example.mysqlcrudapp.event;
+
+import com.example.mysqlcrudapp.entity.Item;
+import lombok.Value;
+
+/**
+ * Published when an item is created, updated or deleted.
+ * Saved items carry their blueprint, version, state and data as written, so listeners running after commit need no query.
+ */
+@Value
+public class ItemChangedEvent {
+    Long itemId;
+    Long blueprintId;
+    Long versionId;
+    String currentState;
+    String dataJson;
+    boolean deleted;
+
+    public static ItemChangedEvent saved(Item item) {
+        return new ItemChangedEvent(item.getId(), item.getBlueprint().getId(), item.getVersion().getId(),
+                item.getCurrentState(), item.getDataJson(), false);
+    }
+
+    public static ItemChangedEvent deleted(Long itemId) {
+        return new ItemChangedEvent(itemId, null, null, null, null, true);
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.mysqlcrudapp.event;
+
+import com.example.mysqlcrudapp.entity.ItemLink;
+import lombok.Value;
+
+/**
+ * Published when an item link is created, updated or deleted.
+ * Saved links carry their ends and field as written, so listeners running after commit need no query.
+ */
+@Value
+public class ItemLinkChangedEvent {
+    Long linkId;
+    Long fromItemId;
+    Long toItemId;
+    Long fieldId;
+    boolean deleted;
+
+    public static ItemLinkChangedEvent saved(ItemLink link) {
+        return new ItemLinkChangedEvent(link.getId(), link.getFromItem().getId(), link.getToItem().getId(),
+                link.getField().getId(), false);
+    }
+
+    public static ItemLinkChangedEvent deleted(Long linkId) {
+        return new ItemLinkChangedEvent(linkId, null, null, null, true);
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.mysqlcrudapp.event;
+
+import com.example.mysqlcrudapp.entity.BlueprintVersion;
+import com.example.mysqlcrudapp.entity.BlueprintVersionField;
+import com.example.mysqlcrudapp.entity.Field;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+/**
+ * JPA entity listener that turns writes to schema entities into {@link SchemaChangedEvent}s.
+ * <p>
+ * Hooking the entities rather than the services also catches rows written through cascades,
+ * such as version fields saved together with their version.
+ * Hibernate creates this listener through Spring, which injects the publisher.
+ */
+public class SchemaChangePublisher {
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    public void setEventPublisher(ApplicationEventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void schemaChanged(Object entity) {
+        if (eventPublisher == null) {
+            return;
+        }
+        if (entity instanceof Field) {
+            eventPublisher.publishEvent(SchemaChangedEvent.ofField(((Field) entity).getId()));
+        } else if (entity instanceof BlueprintVersion) {
+            eventPublisher.publishEvent(SchemaChangedEvent.ofVersion(((BlueprintVersion) entity).getId()));
+        } else if (entity instanceof BlueprintVersionField) {
+            BlueprintVersion version = ((BlueprintVersionField) entity).getBlueprintVersion();
+            if (version != null) {
+                eventPublisher.publishEvent(SchemaChangedEvent.ofVersion(version.getId()));
+            }
+        }
+    }
+}
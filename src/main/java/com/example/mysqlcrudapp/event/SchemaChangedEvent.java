@@ -0,0 +1,21 @@
+package com.example.mysqlcrudapp.event;
+
+import lombok.Value;
+
+/**
+ * Published when a {@code Field}, {@code BlueprintVersion} or {@code BlueprintVersionField} is written.
+ * Exactly one of {@code versionId} and {@code fieldId} is set: field changes can affect any version using the field.
+ */
+@Value
+public class SchemaChangedEvent {
+    Long versionId;
+    Long fieldId;
+
+    public static SchemaChangedEvent ofVersion(Long versionId) {
+        return new SchemaChangedEvent(versionId, null);
+    }
+
+    public static SchemaChangedEvent ofField(Long fieldId) {
+        return new SchemaChangedEvent(null, fieldId);
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.mysqlcrudapp.exception;
+
+import com.example.mysqlcrudapp.dto.ItemValidationErrorDto;
+
+import java.util.List;
+
+/**
+ * Thrown when item data does not match the fields of its blueprint version
+ */
+public class ItemValidationException extends RuntimeException {
+    private final List<ItemValidationErrorDto> errors;
+
+    public ItemValidationException(List<ItemValidationErrorDto> errors) {
+        super("Item data is invalid: " + describe(errors));
+        this.errors = errors;
+    }
+
+    public List<ItemValidationErrorDto> getErrors() {
+        return errors;
+    }
+
+    public static String describe(List<ItemValidationErrorDto> errors) {
+        StringBuilder message = new StringBuilder();
+        for (ItemValidationErrorDto error : errors) {
+            if (message.length() > 0) {
+                message.append("; ");
+            }
+            if (error.getField() != null) {
+                message.append(error.getField()).append(": ");
+            }
+            message.append(error.getMessage());
+        }
+        return message.toString();
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.mysqlcrudapp.graph;
+
+import java.util.Arrays;
+
+/**
+ * The links of one field in one direction, in compressed sparse row form.
+ * <p>
+ * {@code nodes} holds the distinct source items in ascending order; the links of {@code nodes[i]} are
+ * {@code offsets[i]} up to {@code offsets[i + 1]} in {@code neighbors} and {@code linkIds}.
+ * Finding a node's links is a binary search, and its neighbors are read from contiguous arrays.
+ * Immutable once built.
+ */
+final class CsrPartition {
+    /**
+     * Receives one link of a node: its id and the item at the other end
+     */
+    @FunctionalInterface
+    interface LinkConsumer {
+        void accept(long linkId, long neighbor);
+    }
+
+    @FunctionalInterface
+    interface EdgeConsumer {
+        void accept(long linkId, long source, long target);
+    }
+
+    private final long[] nodes;
+    private final int[] offsets;
+    private final long[] neighbors;
+    private final long[] linkIds;
+
+    private CsrPartition(long[] nodes, int[] offsets, long[] neighbors, long[] linkIds) {
+        this.nodes = nodes;
+        this.offsets = offsets;
+        this.neighbors = neighbors;
+        this.linkIds = linkIds;
+    }
+
+    /**
+     * Builds a partition from the first {@code count} entries of parallel arrays
+     */
+    static CsrPartition build(long[] sources, long[] targets, long[] links, int count) {
+        long[] sorted = Arrays.copyOf(sources, count);
+        Arrays.sort(sorted);
+        int distinct = 0;
+        for (int i = 0; i < count; i++) {
+            if (i == 0 || sorted[i] != sorted[i - 1]) {
+                sorted[distinct++] = sorted[i];
+            }
+        }
+        long[] nodes = Arrays.copyOf(sorted, distinct);
+
+        int[] offsets = new int[distinct + 1];
+        int[] positions = new int[count];
+        for (int i = 0; i < count; i++) {
+            positions[i] = Arrays.binarySearch(nodes, sources[i]);
+            offsets[positions[i] + 1]++;
+        }
+        for (int i = 0; i < distinct; i++) {
+            offsets[i + 1] += offsets[i];
+        }
+        int[] next = Arrays.copyOf(offsets, distinct);
+        long[] neighbors = new long[count];
+        long[] linkIds = new long[count];
+        for (int i = 0; i < count; i++) {
+            int at = next[positions[i]]++;
+            neighbors[at] = targets[i];
+            linkIds[at] = links[i];
+        }
+        return new CsrPartition(nodes, offsets, neighbors, linkIds);
+    }
+
+    void forEachLink(long node, LinkConsumer consumer) {
+        int index = Arrays.binarySearch(nodes, node);
+        if (index < 0) {
+            return;
+        }
+        for (int i = offsets[index]; i < offsets[index + 1]; i++) {
+            consumer.accept(linkIds[i], neighbors[i]);
+        }
+    }
+
+    void forEachLink(EdgeConsumer consumer) {
+        for (int index = 0; index < nodes.length; index++) {
+            for (int i = offsets[index]; i < offsets[index + 1]; i++) {
+                consumer.accept(linkIds[i], nodes[index], neighbors[i]);
+            }
+        }
+    }
+
+    int nodeCount() {
+        return nodes.length;
+    }
+
+    int linkCount() {
+        return linkIds.length;
+    }
+
+    long sizeBytes() {
+        return (long) nodes.length * Long.BYTES + (long) offsets.length * Integer.BYTES
+                + (long) neighbors.length * Long.BYTES + (long) linkIds.length * Long.BYTES;
+    }
+}
@@ -0,0 +1,452 @@
+package com.example.mysqlcrudapp.graph;
+
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * In-memory index of item links for multi-hop traversal.
+ * <p>
+ * The bulk of the links sit in an immutable snapshot of {@link CsrPartition}s, one per link field and direction.
+ * Writes go to a small overlay on top: links added or replaced since the snapshot, and link and item ids whose
+ * snapshot links are hidden. Links in the overlay always win over the snapshot, so the overlay is correct whether
+ * or not the snapshot has been loaded yet. {@link #compact} folds the overlay into a new snapshot once it grows;
+ * the rebuild runs outside the lock, and writes made meanwhile are replayed over the result.
+ */
+@Slf4j
+public class ItemLinkGraph {
+    /** The overlay is folded into the snapshot once it holds this many changes, or a sixteenth of the snapshot */
+    private static final int MIN_COMPACT_CHANGES = 1024;
+
+    public enum Direction {
+        OUT,
+        IN,
+        BOTH
+    }
+
+    @Value
+    public static class Link {
+        long id;
+        long fromItemId;
+        long toItemId;
+        long fieldId;
+    }
+
+    /**
+     * Items reached from a start item with their distance in links, in the order they were reached,
+     * and the links followed to reach them
+     */
+    @Value
+    public static class Neighborhood {
+        Map<Long, Integer> depths;
+        List<Link> links;
+        /** Whether items were left out because the node limit was hit */
+        boolean truncated;
+    }
+
+    /**
+     * Receives every link during {@link #load}
+     */
+    @FunctionalInterface
+    public interface LinkSink {
+        void add(long linkId, long fromItemId, long toItemId, long fieldId);
+    }
+
+    @FunctionalInterface
+    private interface LinkVisitor {
+        void visit(long linkId, long fromItemId, long toItemId, long fieldId);
+    }
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ReentrantLock maintenanceLock = new ReentrantLock();
+    private boolean loaded;
+
+    private Map<Long, CsrPartition> outgoing = new HashMap<>();
+    private Map<Long, CsrPartition> incoming = new HashMap<>();
+
+    private final Map<Long, Link> added = new HashMap<>();
+    private final Map<Long, List<Link>> addedOut = new HashMap<>();
+    private final Map<Long, List<Link>> addedIn = new HashMap<>();
+    private final Set<Long> hiddenLinks = new HashSet<>();
+    private final Set<Long> hiddenItems = new HashSet<>();
+    /** Changes made while a compaction builds, replayed over its snapshot; null when none is running */
+    private List<Runnable> journal;
+
+    public boolean isLoaded() {
+        lock.readLock().lock();
+        try {
+            return loaded;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Builds the snapshot from a scan of all links, unless already loaded. Concurrent callers wait for the first.
+     *
+     * @param scan Calls its argument with every link
+     */
+    public void load(Consumer<LinkSink> scan) {
+        maintenanceLock.lock();
+        try {
+            if (isLoaded()) {
+                return;
+            }
+            SnapshotBuilder builder = new SnapshotBuilder();
+            scan.accept(builder::add);
+            lock.writeLock().lock();
+            try {
+                // Overlay changes made during the scan still apply on top
+                install(builder);
+                loaded = true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            log.info("Loaded {} item links into the link graph", builder.count);
+        } finally {
+            maintenanceLock.unlock();
+        }
+    }
+
+    /**
+     * Adds a link or replaces the link with the same id
+     */
+    public void put(long linkId, long fromItemId, long toItemId, long fieldId) {
+        Link link = new Link(linkId, fromItemId, toItemId, fieldId);
+        change(() -> {
+            removeLink(linkId);
+            added.put(linkId, link);
+            addedOut.computeIfAbsent(fromItemId, id -> new ArrayList<>()).add(link);
+            addedIn.computeIfAbsent(toItemId, id -> new ArrayList<>()).add(link);
+        });
+    }
+
+    public void remove(long linkId) {
+        change(() -> removeLink(linkId));
+    }
+
+    /**
+     * Drops every link of a deleted item
+     */
+    public void removeItem(long itemId) {
+        change(() -> {
+            hiddenItems.add(itemId);
+            List<Link> out = addedOut.remove(itemId);
+            if (out != null) {
+                out.forEach(link -> {
+                    added.remove(link.getId());
+                    unlist(addedIn, link.getToItemId(), link);
+                });
+            }
+            List<Link> in = addedIn.remove(itemId);
+            if (in != null) {
+                in.forEach(link -> {
+                    added.remove(link.getId());
+                    unlist(addedOut, link.getFromItemId(), link);
+                });
+            }
+        });
+    }
+
+    private void change(Runnable change) {
+        lock.writeLock().lock();
+        try {
+            change.run();
+            if (journal != null) {
+                journal.add(change);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void removeLink(long linkId) {
+        hiddenLinks.add(linkId);
+        Link previous = added.remove(linkId);
+        if (previous != null) {
+            unlist(addedOut, previous.getFromItemId(), previous);
+            unlist(addedIn, previous.getToItemId(), previous);
+        }
+    }
+
+    private static void unlist(Map<Long, List<Link>> lists, long itemId, Link link) {
+        List<Link> links = lists.get(itemId);
+        if (links != null) {
+            links.remove(link);
+            if (links.isEmpty()) {
+                lists.remove(itemId);
+            }
+        }
+    }
+
+    /**
+     * Breadth-first traversal from an item
+     *
+     * @param maxDepth Links to follow at most
+     * @param fieldId Only follow links of this field, or null for all
+     * @param maxNodes Items to return at most, the start item included
+     */
+    public Neighborhood neighborhood(long start, int maxDepth, Direction direction, Long fieldId, int maxNodes) {
+        lock.readLock().lock();
+        try {
+            Map<Long, Integer> depths = new LinkedHashMap<>();
+            Map<Long, Link> links = new LinkedHashMap<>();
+            boolean[] truncated = {false};
+            depths.put(start, 0);
+            List<Long> level = Collections.singletonList(start);
+            for (int depth = 1; depth <= maxDepth && !level.isEmpty(); depth++) {
+                int reached = depth;
+                List<Long> next = new ArrayList<>();
+                for (long node : level) {
+                    forEachLink(node, direction, fieldId, (linkId, from, to, field) -> {
+                        long other = from == node ? to : from;
+                        if (!depths.containsKey(other)) {
+                            if (depths.size() >= maxNodes) {
+                                truncated[0] = true;
+                                return;
+                            }
+                            depths.put(other, reached);
+                            next.add(other);
+                        }
+                        links.putIfAbsent(linkId, new Link(linkId, from, to, field));
+                    });
+                }
+                level = next;
+            }
+            return new Neighborhood(depths, new ArrayList<>(links.values()), truncated[0]);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Items connected to an item through links in either direction
+     */
+    public Neighborhood component(long start, Long fieldId, int maxNodes) {
+        return neighborhood(start, Integer.MAX_VALUE, Direction.BOTH, fieldId, maxNodes);
+    }
+
+    /**
+     * Finds a path with the fewest links between two items by breadth-first search
+     *
+     * @param maxDepth Longest path to look for, in links
+     * @param maxNodes Items to visit at most before giving up
+     * @return The links of the path in order, empty if both items are the same, or null if no path was found
+     */
+    public List<Link> shortestPath(long from, long to, Direction direction, Long fieldId, int maxDepth, int maxNodes) {
+        if (from == to) {
+            return new ArrayList<>();
+        }
+        lock.readLock().lock();
+        try {
+            Map<Long, Link> reachedBy = new HashMap<>();
+            reachedBy.put(from, null);
+            List<Long> level = Collections.singletonList(from);
+            for (int depth = 1; depth <= maxDepth && !level.isEmpty() && !reachedBy.containsKey(to); depth++) {
+                List<Long> next = new ArrayList<>();
+                for (long node : level) {
+                    forEachLink(node, direction, fieldId, (linkId, linkFrom, linkTo, field) -> {
+                        long other = linkFrom == node ? linkTo : linkFrom;
+                        if (!reachedBy.containsKey(other) && reachedBy.size() < maxNodes) {
+                            reachedBy.put(other, new Link(linkId, linkFrom, linkTo, field));
+                            next.add(other);
+                        }
+                    });
+                    if (reachedBy.containsKey(to)) {
+                        break;
+                    }
+                }
+                level = next;
+            }
+            if (!reachedBy.containsKey(to)) {
+                return null;
+            }
+            List<Link> path = new ArrayList<>();
+            long node = to;
+            while (node != from) {
+                Link link = reachedBy.get(node);
+                path.add(link);
+                node = link.getFromItemId() == node ? link.getToItemId() : link.getFromItemId();
+            }
+            Collections.reverse(path);
+            return path;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void forEachLink(long itemId, Direction direction, Long fieldId, LinkVisitor visitor) {
+        if (direction != Direction.IN) {
+            forEachLink(outgoing, addedOut, itemId, fieldId, true, visitor);
+        }
+        if (direction != Direction.OUT) {
+            forEachLink(incoming, addedIn, itemId, fieldId, false, visitor);
+        }
+    }
+
+    private void forEachLink(Map<Long, CsrPartition> partitions, Map<Long, List<Link>> overlay, long itemId,
+                             Long fieldId, boolean out, LinkVisitor visitor) {
+        if (!hiddenItems.contains(itemId)) {
+            for (Map.Entry<Long, CsrPartition> partition : partitions.entrySet()) {
+                long field = partition.getKey();
+                if (fieldId != null && fieldId != field) {
+                    continue;
+                }
+                partition.getValue().forEachLink(itemId, (linkId, neighbor) -> {
+                    if (!hiddenLinks.contains(linkId) && !hiddenItems.contains(neighbor)) {
+                        if (out) {
+                            visitor.visit(linkId, itemId, neighbor, field);
+                        } else {
+                            visitor.visit(linkId, neighbor, itemId, field);
+                        }
+                    }
+                });
+            }
+        }
+        List<Link> links = overlay.get(itemId);
+        if (links != null) {
+            for (Link link : links) {
+                if (fieldId == null || fieldId == link.getFieldId()) {
+                    visitor.visit(link.getId(), link.getFromItemId(), link.getToItemId(), link.getFieldId());
+                }
+            }
+        }
+    }
+
+    /**
+     * Folds the overlay into a new snapshot if it has grown large enough. Skipped while loading or compacting.
+     *
+     * @return Whether a new snapshot was built
+     */
+    public boolean compact() {
+        if (!maintenanceLock.tryLock()) {
+            return false;
+        }
+        try {
+            Map<Long, CsrPartition> snapshot;
+            Set<Long> links;
+            Set<Long> items;
+            List<Link> overlay;
+            lock.writeLock().lock();
+            try {
+                int changes = added.size() + hiddenLinks.size() + hiddenItems.size();
+                if (!loaded || changes < Math.max(MIN_COMPACT_CHANGES, linkCount(outgoing) / 16)) {
+                    return false;
+                }
+                snapshot = outgoing;
+                links = new HashSet<>(hiddenLinks);
+                items = new HashSet<>(hiddenItems);
+                overlay = new ArrayList<>(added.values());
+                journal = new ArrayList<>();
+            } finally {
+                lock.writeLock().unlock();
+            }
+
+            // Partitions are immutable, so the old snapshot can be read without the lock
+            SnapshotBuilder builder = new SnapshotBuilder();
+            snapshot.forEach((field, partition) -> partition.forEachLink((linkId, source, target) -> {
+                if (!links.contains(linkId) && !items.contains(source) && !items.contains(target)) {
+                    builder.add(linkId, source, target, field);
+                }
+            }));
+            overlay.forEach(link -> builder.add(link.getId(), link.getFromItemId(), link.getToItemId(), link.getFieldId()));
+
+            lock.writeLock().lock();
+            try {
+                install(builder);
+                added.clear();
+                addedOut.clear();
+                addedIn.clear();
+                hiddenLinks.clear();
+                hiddenItems.clear();
+                List<Runnable> replay = journal;
+                journal = null;
+                replay.forEach(Runnable::run);
+            } finally {
+                lock.writeLock().unlock();
+            }
+            log.debug("Compacted the link graph to {} links", builder.count);
+            return true;
+        } finally {
+            if (journal != null) {
+                // The build failed; the overlay is still intact, so just stop journaling
+                lock.writeLock().lock();
+                journal = null;
+                lock.writeLock().unlock();
+            }
+            maintenanceLock.unlock();
+        }
+    }
+
+    private void install(SnapshotBuilder builder) {
+        outgoing = builder.build(true);
+        incoming = builder.build(false);
+    }
+
+    private static int linkCount(Map<Long, CsrPartition> partitions) {
+        return partitions.values().stream().mapToInt(CsrPartition::linkCount).sum();
+    }
+
+    public Map<String, Object> getStatistics() {
+        lock.readLock().lock();
+        try {
+            Map<String, Object> statistics = new LinkedHashMap<>();
+            statistics.put("loaded", loaded);
+            statistics.put("fields", outgoing.size());
+            statistics.put("snapshotLinks", linkCount(outgoing));
+            statistics.put("snapshotSourceItems", outgoing.values().stream().mapToInt(CsrPartition::nodeCount).sum());
+            statistics.put("snapshotBytes", outgoing.values().stream().mapToLong(CsrPartition::sizeBytes).sum()
+                    + incoming.values().stream().mapToLong(CsrPartition::sizeBytes).sum());
+            statistics.put("overlayLinks", added.size());
+            statistics.put("hiddenLinks", hiddenLinks.size());
+            statistics.put("hiddenItems", hiddenItems.size());
+            return statistics;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Collects links per field into growable parallel arrays
+     */
+    private static final class SnapshotBuilder {
+        private final Map<Long, long[][]> columns = new HashMap<>();
+        private final Map<Long, Integer> counts = new HashMap<>();
+        private int count;
+
+        void add(long linkId, long fromItemId, long toItemId, long fieldId) {
+            long[][] arrays = columns.computeIfAbsent(fieldId, field -> new long[][]{new long[16], new long[16], new long[16]});
+            int size = counts.getOrDefault(fieldId, 0);
+            if (size == arrays[0].length) {
+                for (int i = 0; i < arrays.length; i++) {
+                    arrays[i] = Arrays.copyOf(arrays[i], size + (size >> 1));
+                }
+            }
+            arrays[0][size] = linkId;
+            arrays[1][size] = fromItemId;
+            arrays[2][size] = toItemId;
+            counts.put(fieldId, size + 1);
+            count++;
+        }
+
+        Map<Long, CsrPartition> build(boolean out) {
+            Map<Long, CsrPartition> partitions = new HashMap<>();
+            columns.forEach((field, arrays) -> partitions.put(field, out
+                    ? CsrPartition.build(arrays[1], arrays[2], arrays[0], counts.get(field))
+                    : CsrPartition.build(arrays[2], arrays[1], arrays[0], counts.get(field))));
+            return partitions;
+        }
+    }
+}
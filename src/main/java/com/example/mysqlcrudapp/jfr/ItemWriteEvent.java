@@ -0,0 +1,41 @@
+package com.example.mysqlcrudapp.jfr;
+
+import com.example.mysqlcrudapp.entity.Item;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("com.example.mysqlcrudapp.ItemWrite")
+@Label("Item Write")
+@Category({"MySQL CRUD App", "Items"})
+@Description("Validating and saving an item")
+public class ItemWriteEvent extends Event {
+    @Label("Operation")
+    public String operation;
+
+    @Label("Item Id")
+    public long itemId;
+
+    @Label("Version Id")
+    public long versionId;
+
+    @Label("Data Length")
+    @Description("Characters of the item's JSON data")
+    public long dataLength;
+
+    /**
+     * Ends the event and commits it with the saved item, if it is recorded
+     */
+    public void finish(String operation, Item saved) {
+        end();
+        if (shouldCommit()) {
+            this.operation = operation;
+            this.itemId = saved.getId();
+            this.versionId = saved.getVersion().getId();
+            this.dataLength = saved.getDataJson() == null ? 0 : saved.getDataJson().length();
+            commit();
+        }
+    }
+}
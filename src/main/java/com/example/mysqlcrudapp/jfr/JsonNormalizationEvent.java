@@ -0,0 +1,43 @@
+package com.example.mysqlcrudapp.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("com.example.mysqlcrudapp.JsonNormalization")
+@Label("JSON Normalization")
+@Category({"MySQL CRUD App", "JSON"})
+@Description("Parsing and re-writing a JSON document to validate and normalize it")
+public class JsonNormalizationEvent extends Event {
+    @Label("Caller")
+    public String caller;
+
+    @Label("Input Length")
+    @Description("Characters of the document given")
+    public long inputLength;
+
+    @Label("Output Length")
+    @Description("Characters of the normalized document, 0 when the input was invalid")
+    public long outputLength;
+
+    @Label("Valid")
+    public boolean valid;
+
+    /**
+     * Ends the event and commits it, if it is recorded
+     *
+     * @param output the normalized document, or null if the input was not valid JSON
+     */
+    public void finish(String caller, String input, String output) {
+        end();
+        if (shouldCommit()) {
+            this.caller = caller;
+            this.inputLength = input.length();
+            this.outputLength = output == null ? 0 : output.length();
+            this.valid = output != null;
+            commit();
+        }
+    }
+}
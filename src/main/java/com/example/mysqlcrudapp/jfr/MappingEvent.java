@@ -0,0 +1,33 @@
+package com.example.mysqlcrudapp.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+import java.lang.reflect.Type;
+
+@Name("com.example.mysqlcrudapp.Mapping")
+@Label("Object Mapping")
+@Category({"MySQL CRUD App", "Mapping"})
+@Description("A ModelMapper conversion")
+public class MappingEvent extends Event {
+    @Label("Source Type")
+    public String sourceType;
+
+    @Label("Destination Type")
+    public String destinationType;
+
+    /**
+     * Ends the event and commits it, if it is recorded; the type names are only built then
+     */
+    public void finish(Object source, Type destinationType) {
+        end();
+        if (shouldCommit()) {
+            this.sourceType = source == null ? null : source.getClass().getName();
+            this.destinationType = destinationType.getTypeName();
+            commit();
+        }
+    }
+}
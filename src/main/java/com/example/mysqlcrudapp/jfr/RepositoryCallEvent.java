@@ -0,0 +1,29 @@
+package com.example.mysqlcrudapp.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("com.example.mysqlcrudapp.RepositoryCall")
+@Label("Repository Call")
+@Category({"MySQL CRUD App", "Persistence"})
+@Description("A call of a Spring Data repository method")
+public class RepositoryCallEvent extends Event {
+    @Label("Repository")
+    public String repository;
+
+    @Label("Method")
+    public String method;
+
+    @Label("Entity Type")
+    public String entityType;
+
+    @Label("Row Count")
+    @Description("Rows returned, or -1 when the result is not a list of rows, such as a count")
+    public int rowCount;
+
+    @Label("Failed")
+    public boolean failed;
+}
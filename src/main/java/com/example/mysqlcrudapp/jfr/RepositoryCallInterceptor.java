@@ -0,0 +1,68 @@
+package com.example.mysqlcrudapp.jfr;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.repository.core.RepositoryInformation;
+
+import java.util.Collection;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Emits a {@link RepositoryCallEvent} around each method of one repository.
+ * When the event is not recorded, only an unused event object is created, which the JIT usually removes.
+ */
+class RepositoryCallInterceptor implements MethodInterceptor {
+    private final String repository;
+    private final String entityType;
+
+    RepositoryCallInterceptor(RepositoryInformation information) {
+        this.repository = information.getRepositoryInterface().getSimpleName();
+        this.entityType = information.getDomainType().getSimpleName();
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        RepositoryCallEvent event = new RepositoryCallEvent();
+        if (!event.isEnabled()) {
+            return invocation.proceed();
+        }
+        event.begin();
+        try {
+            Object result = invocation.proceed();
+            event.rowCount = rowCount(result);
+            return result;
+        } catch (Throwable e) {
+            event.failed = true;
+            throw e;
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.repository = repository;
+                event.method = invocation.getMethod().getName();
+                event.entityType = entityType;
+                event.commit();
+            }
+        }
+    }
+
+    private static int rowCount(Object result) {
+        if (result == null) {
+            return 0;
+        }
+        if (result instanceof Collection) {
+            return ((Collection<?>) result).size();
+        }
+        if (result instanceof Slice) {
+            return ((Slice<?>) result).getNumberOfElements();
+        }
+        if (result instanceof Optional) {
+            return ((Optional<?>) result).isPresent() ? 1 : 0;
+        }
+        if (result instanceof Number || result instanceof Boolean || result instanceof Iterable || result instanceof Stream) {
+            return -1;
+        }
+        return 1;
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.mysqlcrudapp.persistence;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Names of the Hibernate second-level cache regions. Every region is created up front with its size limit
+ * by {@link com.example.mysqlcrudapp.config.SecondLevelCacheConfig}; Hibernate refuses to start if an entity,
+ * collection or query names a region missing here.
+ */
+public final class CacheRegions {
+    public static final String BLUEPRINT = "blueprint";
+    public static final String BLUEPRINT_VERSIONS = "blueprint.versions";
+    public static final String BLUEPRINT_VERSION = "blueprint_version";
+    public static final String BLUEPRINT_VERSION_FIELDS = "blueprint_version.fields";
+    public static final String FIELD = "field";
+    public static final String FIELD_VERSION_FIELDS = "field.blueprintVersionFields";
+    public static final String BLUEPRINT_VERSION_FIELD = "blueprint_version_field";
+
+    public static final String ACTIVE_VERSION_QUERY = "query.active_version";
+    public static final String VERSION_FIELDS_QUERY = "query.version_fields";
+
+    // Hibernate's own regions: results of cacheable queries without a region, and last write time per table
+    public static final String DEFAULT_QUERY_RESULTS = "default-query-results-region";
+    public static final String UPDATE_TIMESTAMPS = "default-update-timestamps-region";
+
+    public static final List<String> ENTITY_REGIONS = Collections.unmodifiableList(Arrays.asList(
+            BLUEPRINT, BLUEPRINT_VERSIONS, BLUEPRINT_VERSION, BLUEPRINT_VERSION_FIELDS,
+            FIELD, FIELD_VERSION_FIELDS, BLUEPRINT_VERSION_FIELD));
+
+    public static final List<String> QUERY_REGIONS = Collections.unmodifiableList(Arrays.asList(
+            ACTIVE_VERSION_QUERY, VERSION_FIELDS_QUERY, DEFAULT_QUERY_RESULTS));
+
+    private CacheRegions() {
+    }
+}
@@ -0,0 +1,221 @@
+package com.example.mysqlcrudapp.persistence;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.SQLTransactionRollbackException;
+import java.sql.Statement;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Hands out ids from blocks reserved in the {@code id_allocation} table.
+ * <p>
+ * Each block is reserved in its own short transaction that locks the segment row, so any number of
+ * application nodes can share one database without ever handing out the same id twice.
+ * Ids within a block come from memory, which is what lets Hibernate batch inserts.
+ * Once a quarter of the current block is left, the next block is reserved on a background thread,
+ * so callers normally never wait on the allocation table.
+ * The first reservation for a segment starts after the highest id already in the entity table,
+ * so switching an existing table away from AUTO_INCREMENT is safe.
+ * <p>
+ * A reservation takes a pool connection of its own, while the session asking for an id usually holds another.
+ * All reservations run on one thread, so id allocation never holds more than that one extra connection, but the
+ * pool must have at least one connection more than the sessions that insert at the same time: with every
+ * connection held by an inserting session, a reservation waits for the pool's connection timeout and fails.
+ */
+public class IdBlockAllocator {
+    static final String TABLE_NAME = "id_allocation";
+    static final int MAX_ATTEMPTS = 5;
+    private static final int MYSQL_LOCK_WAIT_TIMEOUT = 1205;
+    private static final int MYSQL_DEADLOCK = 1213;
+
+    private static final ExecutorService REFILL_EXECUTOR = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "id-block-refill");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final DataSource dataSource;
+    private final String segment;
+    private final String entityTable;
+    private final String idColumn;
+    private final int blockSize;
+
+    private final int refillThreshold;
+    private volatile boolean tableCreated;
+
+    private long nextId;
+    private long blockEnd;
+    private CompletableFuture<Long> nextBlock;
+
+    public IdBlockAllocator(DataSource dataSource, String segment, String entityTable, String idColumn, int blockSize) {
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("Block size must be positive: " + blockSize);
+        }
+        this.dataSource = dataSource;
+        this.segment = segment;
+        this.entityTable = entityTable;
+        this.idColumn = idColumn;
+        this.blockSize = blockSize;
+        this.refillThreshold = blockSize / 4;
+    }
+
+    public synchronized long next() {
+        if (nextId >= blockEnd) {
+            nextId = takeNextBlock();
+            blockEnd = nextId + blockSize;
+        }
+        if (nextBlock == null && blockEnd - nextId <= refillThreshold) {
+            nextBlock = CompletableFuture.supplyAsync(this::reserveBlock, REFILL_EXECUTOR);
+        }
+        return nextId++;
+    }
+
+    private long takeNextBlock() {
+        CompletableFuture<Long> pending = nextBlock;
+        nextBlock = null;
+        if (pending != null) {
+            try {
+                return pending.join();
+            } catch (RuntimeException e) {
+                // The background reservation failed; try once more so the error surfaces on the caller's thread
+            }
+        }
+        try {
+            return CompletableFuture.supplyAsync(this::reserveBlock, REFILL_EXECUTOR).join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+        }
+    }
+
+    public String getSegment() {
+        return segment;
+    }
+
+    public int getBlockSize() {
+        return blockSize;
+    }
+
+    /**
+     * Reserves the next block for this segment, retrying when the segment row stays locked too long or the
+     * reservation is picked as a deadlock victim
+     *
+     * @return The first id of the reserved block
+     */
+    long reserveBlock() {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return tryReserveBlock();
+            } catch (SQLException e) {
+                if (attempt == MAX_ATTEMPTS || !isLockConflict(e)) {
+                    throw new IllegalStateException("Could not reserve an id block for segment " + segment, e);
+                }
+            }
+            try {
+                Thread.sleep(10L * attempt);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while reserving an id block for segment " + segment, e);
+            }
+        }
+    }
+
+    private long tryReserveBlock() throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try {
+                ensureTable(connection);
+                long start = lockSegment(connection);
+                try (PreparedStatement update = connection.prepareStatement(
+                        "UPDATE " + TABLE_NAME + " SET next_val = ? WHERE segment_name = ?")) {
+                    update.setLong(1, start + blockSize);
+                    update.setString(2, segment);
+                    update.executeUpdate();
+                }
+                connection.commit();
+                return start;
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        }
+    }
+
+    /**
+     * Locks the segment row and returns its next value, seeding the row on first use.
+     * <p>
+     * The row is seeded before it is locked: a locking read of a missing row would lock the gap it belongs in,
+     * and two nodes seeding at once would each wait for the other's gap lock to insert. INSERT IGNORE lets the
+     * node that loses the race wait for the winner's row instead, then lock it.
+     */
+    private long lockSegment(Connection connection) throws SQLException {
+        if (!segmentExists(connection)) {
+            long seed;
+            try (Statement max = connection.createStatement();
+                 ResultSet rs = max.executeQuery("SELECT COALESCE(MAX(" + idColumn + "), 0) + 1 FROM " + entityTable)) {
+                rs.next();
+                seed = rs.getLong(1);
+            }
+            try (PreparedStatement insert = connection.prepareStatement(
+                    "INSERT IGNORE INTO " + TABLE_NAME + " (segment_name, next_val) VALUES (?, ?)")) {
+                insert.setString(1, segment);
+                insert.setLong(2, seed);
+                insert.executeUpdate();
+            }
+        }
+        try (PreparedStatement select = connection.prepareStatement(
+                "SELECT next_val FROM " + TABLE_NAME + " WHERE segment_name = ? FOR UPDATE")) {
+            select.setString(1, segment);
+            try (ResultSet rs = select.executeQuery()) {
+                if (!rs.next()) {
+                    throw new IllegalStateException("Segment " + segment + " is missing from " + TABLE_NAME);
+                }
+                return rs.getLong(1);
+            }
+        }
+    }
+
+    /**
+     * A plain read, which takes no locks
+     */
+    private boolean segmentExists(Connection connection) throws SQLException {
+        try (PreparedStatement select = connection.prepareStatement(
+                "SELECT 1 FROM " + TABLE_NAME + " WHERE segment_name = ?")) {
+            select.setString(1, segment);
+            try (ResultSet rs = select.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
+
+    /**
+     * Whether the statement failed for waiting too long on a lock or being rolled back to break a deadlock, so
+     * that running the transaction again can succeed
+     */
+    static boolean isLockConflict(SQLException e) {
+        return e instanceof SQLTransactionRollbackException
+                || e instanceof SQLTimeoutException
+                || e.getErrorCode() == MYSQL_LOCK_WAIT_TIMEOUT
+                || e.getErrorCode() == MYSQL_DEADLOCK;
+    }
+
+    private void ensureTable(Connection connection) throws SQLException {
+        if (tableCreated) {
+            return;
+        }
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE IF NOT EXISTS " + TABLE_NAME
+                    + " (segment_name VARCHAR(64) NOT NULL PRIMARY KEY, next_val BIGINT NOT NULL)");
+        }
+        tableCreated = true;
+    }
+}
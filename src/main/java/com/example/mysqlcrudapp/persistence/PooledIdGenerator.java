@@ -0,0 +1,63 @@
+package com.example.mysqlcrudapp.persistence;
+
+import org.hibernate.MappingException;
+import org.hibernate.engine.jdbc.connections.spi.ConnectionProvider;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGenerator;
+import org.hibernate.id.PersistentIdentifierGenerator;
+import org.hibernate.internal.util.config.ConfigurationHelper;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+import javax.sql.DataSource;
+import java.io.Serializable;
+import java.util.Properties;
+
+/**
+ * Hibernate id generator backed by {@link IdBlockAllocator}.
+ * Unlike IDENTITY, ids are known before the INSERT, so Hibernate can group inserts into JDBC batches.
+ * <p>
+ * Parameters: {@code segment} (defaults to the entity table) and {@code block_size} (defaults to 100).
+ */
+public class PooledIdGenerator implements IdentifierGenerator {
+    public static final String SEGMENT = "segment";
+    public static final String BLOCK_SIZE = "block_size";
+    static final int DEFAULT_BLOCK_SIZE = 100;
+
+    private ServiceRegistry serviceRegistry;
+    private String segment;
+    private String entityTable;
+    private String idColumn;
+    private int blockSize;
+    private volatile IdBlockAllocator allocator;
+
+    @Override
+    public void configure(Type type, Properties params, ServiceRegistry serviceRegistry) throws MappingException {
+        this.serviceRegistry = serviceRegistry;
+        this.entityTable = params.getProperty(PersistentIdentifierGenerator.TABLE);
+        this.idColumn = params.getProperty(PersistentIdentifierGenerator.PK);
+        this.segment = ConfigurationHelper.getString(SEGMENT, params, entityTable);
+        this.blockSize = ConfigurationHelper.getInt(BLOCK_SIZE, params, DEFAULT_BLOCK_SIZE);
+    }
+
+    @Override
+    public Serializable generate(SharedSessionContractImplementor session, Object object) {
+        return allocator().next();
+    }
+
+    private IdBlockAllocator allocator() {
+        IdBlockAllocator current = allocator;
+        if (current == null) {
+            synchronized (this) {
+                current = allocator;
+                if (current == null) {
+                    // Blocks are reserved on their own connection, independent of the session's transaction
+                    DataSource dataSource = serviceRegistry.getService(ConnectionProvider.class).unwrap(DataSource.class);
+                    current = new IdBlockAllocator(dataSource, segment, entityTable, idColumn, blockSize);
+                    allocator = current;
+                }
+            }
+        }
+        return current;
+    }
+}
@@ -0,0 +1,140 @@
+package com.example.mysqlcrudapp.persistence;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Counts the SQL statements a thread executes while a {@link Scope} is open, by statement shape.
+ * <p>
+ * Statements are reported by {@link StatementCountingDataSource}. Scopes nest: a statement counts towards
+ * every scope open on the thread, and a scope closing reports itself to the one around it, so a test can see
+ * each request it performed. Statements run on other threads, e.g. by async requests, are not seen.
+ */
+public final class QueryCounter {
+    private static final ThreadLocal<Deque<Scope>> SCOPES = ThreadLocal.withInitial(ArrayDeque::new);
+
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("\\b\\d+(?:\\.\\d+)?\\b");
+    private static final Pattern PARAMETER_LIST = Pattern.compile("\\(\\s*\\?(?:\\s*,\\s*\\?)*\\s*\\)");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private QueryCounter() {
+    }
+
+    /**
+     * Starts counting on this thread; close the scope on the same thread, innermost first
+     */
+    public static Scope open(String name) {
+        Scope scope = new Scope(name);
+        SCOPES.get().push(scope);
+        return scope;
+    }
+
+    static void record(String sql) {
+        Deque<Scope> scopes = SCOPES.get();
+        if (scopes.isEmpty()) {
+            return;
+        }
+        String shape = shape(sql);
+        for (Scope scope : scopes) {
+            scope.count++;
+            scope.shapes.merge(shape, 1, Integer::sum);
+        }
+    }
+
+    /**
+     * The statement with literals replaced by {@code ?} and parameter lists of any length folded into one,
+     * so that statements differing only in their values count as the same shape
+     */
+    static String shape(String sql) {
+        if (sql == null) {
+            return "<batch>";
+        }
+        String shape = STRING_LITERAL.matcher(sql).replaceAll("?");
+        shape = NUMBER_LITERAL.matcher(shape).replaceAll("?");
+        shape = PARAMETER_LIST.matcher(shape).replaceAll("(?...)");
+        return WHITESPACE.matcher(shape).replaceAll(" ").trim();
+    }
+
+    public static final class Scope implements AutoCloseable {
+        private final String name;
+        private final Map<String, Integer> shapes = new LinkedHashMap<>();
+        private final List<Scope> children = new ArrayList<>();
+        private int count;
+
+        private Scope(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Statements executed while the scope was open
+         */
+        public int getCount() {
+            return count;
+        }
+
+        /**
+         * Statement shapes in order of first execution, with how often each ran
+         */
+        public Map<String, Integer> getShapes() {
+            return Collections.unmodifiableMap(shapes);
+        }
+
+        /**
+         * Scopes opened and closed inside this one, such as the requests a test performed
+         */
+        public List<Scope> getChildren() {
+            return Collections.unmodifiableList(children);
+        }
+
+        /**
+         * The shapes executed at least {@code threshold} times, most frequent first; the usual sign of an N+1
+         */
+        public List<Map.Entry<String, Integer>> repeatedShapes(int threshold) {
+            List<Map.Entry<String, Integer>> repeated = new ArrayList<>();
+            for (Map.Entry<String, Integer> entry : shapes.entrySet()) {
+                if (entry.getValue() >= threshold) {
+                    repeated.add(entry);
+                }
+            }
+            repeated.sort(Map.Entry.<String, Integer>comparingByValue().reversed());
+            return repeated;
+        }
+
+        /**
+         * One line per shape, most frequent first, for log and assertion messages
+         */
+        public String describe() {
+            StringBuilder description = new StringBuilder();
+            for (Map.Entry<String, Integer> entry : repeatedShapes(1)) {
+                description.append("\n  ").append(entry.getValue()).append(" x ").append(entry.getKey());
+            }
+            return description.toString();
+        }
+
+        @Override
+        public void close() {
+            Deque<Scope> scopes = SCOPES.get();
+            if (scopes.peek() != this) {
+                throw new IllegalStateException("Query count scope '" + name + "' closed out of order");
+            }
+            scopes.pop();
+            Scope parent = scopes.peek();
+            if (parent != null) {
+                parent.children.add(this);
+            } else {
+                SCOPES.remove();
+            }
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.mysqlcrudapp.persistence;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.orm.jpa.vendor.HibernateJpaDialect;
+import org.springframework.transaction.TransactionDefinition;
+
+import javax.persistence.CacheStoreMode;
+import javax.persistence.EntityManager;
+import java.sql.SQLException;
+
+/**
+ * Keeps entities and query results read by read-only transactions out of Hibernate's second-level and query
+ * caches, unless the transaction begins inside {@link ReplicaRoutingDataSource#readFromPrimary}.
+ * <p>
+ * Such a transaction may read from a replica that has not yet seen a write, while the cache entry that write
+ * replaced is already gone; putting the replica's copy back would keep the old state until the entry expires.
+ * The session still reads from the caches. Reads routed to the primary by read-your-writes or a fallback are
+ * treated the same, since that is only decided on the first statement.
+ */
+public class ReplicaAwareJpaDialect extends HibernateJpaDialect {
+
+    @Override
+    public Object beginTransaction(EntityManager entityManager, TransactionDefinition definition) throws SQLException {
+        Object transactionData = super.beginTransaction(entityManager, definition);
+        if (!definition.isReadOnly() || ReplicaRoutingDataSource.isReadingFromPrimary()) {
+            return transactionData;
+        }
+        // A property rather than the session's cache mode, which EntityManager.find resets from the properties
+        Object previousStoreMode = entityManager.getProperties().get(AvailableSettings.JPA_SHARED_CACHE_STORE_MODE);
+        entityManager.setProperty(AvailableSettings.JPA_SHARED_CACHE_STORE_MODE, CacheStoreMode.BYPASS);
+        return new ReplicaReadData(transactionData, entityManager, previousStoreMode);
+    }
+
+    @Override
+    public void cleanupTransaction(Object transactionData) {
+        if (transactionData instanceof ReplicaReadData) {
+            ReplicaReadData replicaRead = (ReplicaReadData) transactionData;
+            // The session outlives the transaction when it is bound to the request
+            replicaRead.entityManager.setProperty(AvailableSettings.JPA_SHARED_CACHE_STORE_MODE,
+                    replicaRead.previousStoreMode != null ? replicaRead.previousStoreMode : CacheStoreMode.USE);
+            super.cleanupTransaction(replicaRead.transactionData);
+        } else {
+            super.cleanupTransaction(transactionData);
+        }
+    }
+
+    private static final class ReplicaReadData {
+        private final Object transactionData;
+        private final EntityManager entityManager;
+        private final Object previousStoreMode;
+
+        private ReplicaReadData(Object transactionData, EntityManager entityManager, Object previousStoreMode) {
+            this.transactionData = transactionData;
+            this.entityManager = entityManager;
+            this.previousStoreMode = previousStoreMode;
+        }
+    }
+}
@@ -0,0 +1,366 @@
+package com.example.mysqlcrudapp.persistence;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Hands out connections of read-only transactions from one of a set of replica DataSources, all others from the
+ * primary.
+ * <p>
+ * A transaction is only known to be read-only once it has begun, after the transaction manager has asked for
+ * its connection, so this must sit behind a {@link LazyConnectionDataSourceProxy}, which asks for the real
+ * connection on the first statement. Replicas are picked round-robin, or the one with the fewest active
+ * connections, among those that are healthy. A replica that cannot hand out a connection is marked unhealthy
+ * and the next is tried, then the primary; a background check marks replicas healthy again once they answer.
+ * <p>
+ * With a read-your-writes window, the reads of a user who wrote within the window go to the primary, so that
+ * replication lag does not hide their own changes. Any read-write transaction counts as a write, noted when it
+ * commits.
+ * <p>
+ * Loads that fill a cache run inside {@link #readFromPrimary(Supplier)}: what they read is kept until the next
+ * invalidation, and a lagging replica could hand them data older than the change that invalidated the cache.
+ * Hibernate's second-level and query caches are kept from replica reads by {@link ReplicaAwareJpaDialect}.
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractDataSource implements MeterBinder, Closeable {
+    private static final int HEALTH_CHECK_TIMEOUT_SECONDS = 2;
+    private static final ThreadLocal<Boolean> PRIMARY_SCOPE = new ThreadLocal<>();
+
+    public enum Selection {
+        ROUND_ROBIN,
+        LEAST_LOADED;
+
+        /**
+         * @param name e.g. "round-robin" or "least-loaded"
+         */
+        public static Selection of(String name) {
+            try {
+                return valueOf(name.trim().toUpperCase().replace('-', '_'));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown replica selection '" + name + "', use round-robin or least-loaded");
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface ConnectionSource {
+        Connection get(DataSource dataSource) throws SQLException;
+    }
+
+    private final DataSource primary;
+    private final List<Replica> replicas = new ArrayList<>();
+    private final Selection selection;
+    private final Supplier<String> userKey;
+    /** Users who wrote within the read-your-writes window; null without a window */
+    private final Cache<String, Boolean> recentWriters;
+    private final ScheduledExecutorService healthChecker;
+    private final AtomicInteger next = new AtomicInteger();
+
+    private final LongAdder writes = new LongAdder();
+    private final LongAdder stickyReads = new LongAdder();
+    private final LongAdder primaryReads = new LongAdder();
+    private final LongAdder fallbackReads = new LongAdder();
+
+    /**
+     * @param replicas            replica DataSources by name; closed with this one
+     * @param healthCheckInterval how often all replicas are checked; zero to check only through {@link #checkHealth()}
+     * @param readYourWritesWindow how long a user's reads go to the primary after they wrote; zero to disable
+     * @param userKey             identifies the current user for read-your-writes; may return null
+     */
+    public ReplicaRoutingDataSource(DataSource primary, Map<String, ? extends DataSource> replicas, Selection selection,
+                                    Duration healthCheckInterval, Duration readYourWritesWindow, Supplier<String> userKey) {
+        if (replicas.isEmpty()) {
+            throw new IllegalArgumentException("At least one replica is needed");
+        }
+        this.primary = primary;
+        replicas.forEach((name, dataSource) -> this.replicas.add(new Replica(name, dataSource)));
+        this.selection = selection;
+        this.userKey = userKey;
+        this.recentWriters = readYourWritesWindow.isZero() ? null : Caffeine.newBuilder()
+                .expireAfterWrite(readYourWritesWindow)
+                .maximumSize(100_000)
+                .build();
+        if (healthCheckInterval.isZero()) {
+            this.healthChecker = null;
+        } else {
+            this.healthChecker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "replica-health-check");
+                thread.setDaemon(true);
+                return thread;
+            });
+            long millis = healthCheckInterval.toMillis();
+            healthChecker.scheduleWithFixedDelay(this::checkHealth, millis, millis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Runs work with every connection it asks for taken from the primary, read-only transactions included. A
+     * transaction begun inside also keeps what it loads in Hibernate's second-level and query caches.
+     * <p>
+     * Connections are asked for on the first statement, so the scope covers a transaction begun outside it as
+     * long as that transaction has not run a statement yet.
+     */
+    public static <T> T readFromPrimary(Supplier<T> work) {
+        Boolean outer = PRIMARY_SCOPE.get();
+        PRIMARY_SCOPE.set(Boolean.TRUE);
+        try {
+            return work.get();
+        } finally {
+            if (outer == null) {
+                PRIMARY_SCOPE.remove();
+            }
+        }
+    }
+
+    public static void readFromPrimary(Runnable work) {
+        readFromPrimary(() -> {
+            work.run();
+            return null;
+        });
+    }
+
+    /**
+     * @return Whether the current thread runs inside {@link #readFromPrimary(Supplier)}
+     */
+    public static boolean isReadingFromPrimary() {
+        return PRIMARY_SCOPE.get() != null;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return route(DataSource::getConnection);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return route(dataSource -> dataSource.getConnection(username, password));
+    }
+
+    private Connection route(ConnectionSource source) throws SQLException {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            writes.increment();
+            noteWrite();
+            return source.get(primary);
+        }
+        if (isReadingFromPrimary()) {
+            primaryReads.increment();
+            return source.get(primary);
+        }
+        if (wroteRecently()) {
+            stickyReads.increment();
+            return source.get(primary);
+        }
+        List<Replica> candidates = healthyReplicas();
+        while (!candidates.isEmpty()) {
+            Replica replica = select(candidates);
+            try {
+                Connection connection = source.get(replica.dataSource);
+                replica.reads.increment();
+                return connection;
+            } catch (SQLException | RuntimeException e) {
+                replica.failures.increment();
+                replica.healthy = false;
+                log.warn("Replica {} is unavailable, reading elsewhere until it answers again: {}", replica.name, e.getMessage());
+                candidates.remove(replica);
+            }
+        }
+        fallbackReads.increment();
+        return source.get(primary);
+    }
+
+    private List<Replica> healthyReplicas() {
+        List<Replica> healthy = new ArrayList<>(replicas.size());
+        for (Replica replica : replicas) {
+            if (replica.healthy) {
+                healthy.add(replica);
+            }
+        }
+        return healthy;
+    }
+
+    private Replica select(List<Replica> candidates) {
+        // Starting where the last pick left off spreads ties between equally loaded replicas too
+        int start = Math.floorMod(next.getAndIncrement(), candidates.size());
+        if (selection == Selection.ROUND_ROBIN) {
+            return candidates.get(start);
+        }
+        Replica least = candidates.get(start);
+        int leastActive = least.activeConnections();
+        for (int i = 1; i < candidates.size(); i++) {
+            Replica replica = candidates.get((start + i) % candidates.size());
+            int active = replica.activeConnections();
+            if (active < leastActive) {
+                least = replica;
+                leastActive = active;
+            }
+        }
+        return least;
+    }
+
+    private void noteWrite() {
+        if (recentWriters == null || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        String user = userKey.get();
+        if (user == null) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    recentWriters.put(user, Boolean.TRUE);
+                }
+            }
+        });
+    }
+
+    private boolean wroteRecently() {
+        if (recentWriters == null) {
+            return false;
+        }
+        String user = userKey.get();
+        return user != null && recentWriters.getIfPresent(user) != null;
+    }
+
+    /**
+     * Asks every replica for a valid connection and marks it healthy or not accordingly
+     */
+    public void checkHealth() {
+        for (Replica replica : replicas) {
+            boolean healthy;
+            try (Connection connection = replica.dataSource.getConnection()) {
+                healthy = connection.isValid(HEALTH_CHECK_TIMEOUT_SECONDS);
+            } catch (SQLException | RuntimeException e) {
+                healthy = false;
+            }
+            if (healthy != replica.healthy) {
+                log.info("Replica {} is {}", replica.name, healthy ? "healthy again" : "unhealthy");
+                replica.healthy = healthy;
+            }
+        }
+    }
+
+    public boolean isHealthy(String replicaName) {
+        return replicas.stream().anyMatch(replica -> replica.name.equals(replicaName) && replica.healthy);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("datasource.routing.connections", writes, LongAdder::doubleValue)
+                .description("Connections handed out, by where they came from and why")
+                .tag("route", "write")
+                .register(registry);
+        FunctionCounter.builder("datasource.routing.connections", stickyReads, LongAdder::doubleValue)
+                .tag("route", "read-your-writes")
+                .register(registry);
+        FunctionCounter.builder("datasource.routing.connections", primaryReads, LongAdder::doubleValue)
+                .tag("route", "primary-scope")
+                .register(registry);
+        FunctionCounter.builder("datasource.routing.connections", fallbackReads, LongAdder::doubleValue)
+                .tag("route", "fallback")
+                .register(registry);
+        for (Replica replica : replicas) {
+            FunctionCounter.builder("datasource.routing.connections", replica.reads, LongAdder::doubleValue)
+                    .tag("route", "replica")
+                    .tag("replica", replica.name)
+                    .register(registry);
+            FunctionCounter.builder("datasource.replica.failures", replica.failures, LongAdder::doubleValue)
+                    .tag("replica", replica.name)
+                    .register(registry);
+            Gauge.builder("datasource.replica.healthy", replica, r -> r.healthy ? 1 : 0)
+                    .tag("replica", replica.name)
+                    .register(registry);
+            Gauge.builder("datasource.replica.connections.active", replica, Replica::activeConnections)
+                    .tag("replica", replica.name)
+                    .register(registry);
+        }
+    }
+
+    /**
+     * Stops the health checks and closes the replicas; the primary is left alone
+     */
+    @Override
+    public void close() {
+        if (healthChecker != null) {
+            healthChecker.shutdownNow();
+        }
+        for (Replica replica : replicas) {
+            if (replica.dataSource instanceof Closeable) {
+                try {
+                    ((Closeable) replica.dataSource).close();
+                } catch (IOException e) {
+                    log.warn("Could not close replica {}: {}", replica.name, e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Unwraps to this or else to the primary, so that pool metrics still find the primary pool
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return (T) this;
+        }
+        return primary.unwrap(iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return iface.isInstance(this) || primary.isWrapperFor(iface);
+    }
+
+    private static final class Replica {
+        private final String name;
+        private final DataSource dataSource;
+        private final LongAdder reads = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+        private volatile boolean healthy = true;
+
+        private Replica(String name, DataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+
+        /**
+         * Connections in use, known for Hikari pools only; 0 otherwise
+         */
+        private int activeConnections() {
+            if (dataSource instanceof HikariDataSource) {
+                HikariPoolMXBean pool = ((HikariDataSource) dataSource).getHikariPoolMXBean();
+                return pool == null ? 0 : pool.getActiveConnections();
+            }
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.mysqlcrudapp.persistence;
+
+import com.example.mysqlcrudapp.timing.RequestTimings;
+import com.example.mysqlcrudapp.timing.RequestTimings.Phase;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Reports every statement executed through its connections to {@link QueryCounter}, and its execution time
+ * to {@link RequestTimings}.
+ * <p>
+ * Connections and statements are wrapped in JDK proxies that pass everything through; only the
+ * {@code execute*} calls are noted, a JDBC batch counting once. Pool metrics still reach the pool through
+ * {@link #unwrap}.
+ */
+public class StatementCountingDataSource extends DelegatingDataSource {
+
+    public StatementCountingDataSource(DataSource targetDataSource) {
+        super(targetDataSource);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return wrap(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return wrap(super.getConnection(username, password));
+    }
+
+    private static Connection wrap(Connection connection) {
+        return proxy(Connection.class, connection, (proxy, method, args) -> {
+            Object result = invoke(connection, method, args);
+            if (result instanceof CallableStatement) {
+                return wrap(CallableStatement.class, (CallableStatement) result, (String) args[0]);
+            }
+            if (result instanceof PreparedStatement) {
+                return wrap(PreparedStatement.class, (PreparedStatement) result, (String) args[0]);
+            }
+            if (result instanceof Statement) {
+                return wrap(Statement.class, (Statement) result, null);
+            }
+            return result;
+        });
+    }
+
+    /**
+     * @param sql the prepared statement, or null for a plain statement, which is given its SQL on execution
+     */
+    private static <T extends Statement> T wrap(Class<T> type, T statement, String sql) {
+        return proxy(type, statement, (proxy, method, args) -> {
+            if (!method.getName().startsWith("execute")) {
+                return invoke(statement, method, args);
+            }
+            QueryCounter.record(sql != null || args == null || !(args[0] instanceof String) ? sql : (String) args[0]);
+            long start = System.nanoTime();
+            try {
+                return invoke(statement, method, args);
+            } finally {
+                RequestTimings.add(Phase.DB, System.nanoTime() - start);
+            }
+        });
+    }
+
+    private static <T> T proxy(Class<T> type, T target, InvocationHandler handler) {
+        Object proxy = Proxy.newProxyInstance(StatementCountingDataSource.class.getClassLoader(), new Class<?>[]{type},
+                (self, method, args) -> {
+                    switch (method.getName()) {
+                        case "equals":
+                            return self == args[0];
+                        case "hashCode":
+                            return System.identityHashCode(self);
+                        case "toString":
+                            return "Counting " + target;
+                        default:
+                            return handler.invoke(self, method, args);
+                    }
+                });
+        return type.cast(proxy);
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
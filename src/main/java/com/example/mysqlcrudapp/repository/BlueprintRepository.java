@@ -1,5 +1,6 @@
 package com.example.mysqlcrudapp.repository;
 
+import com.example.mysqlcrudapp.dto.BlueprintSummaryDto;
 import com.example.mysqlcrudapp.entity.Blueprint;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
@@ -9,9 +10,19 @@ import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface BlueprintRepository extends JpaRepository<Blueprint, Long> {    @Query("SELECT DISTINCT b FROM Blueprint b LEFT JOIN FETCH b.versions ORDER BY b.createdAt DESC")
-    List<Blueprint> findAllWithVersions();
-    
+public interface BlueprintRepository extends JpaRepository<Blueprint, Long> {
+    /**
+     * Every blueprint with its active version number and version count, newest first. The item count is left at 0
+     * for {@code ItemRepository.countByBlueprint} to fill in.
+     * The count is a correlated subquery on the indexed blueprint_id column, so no version rows are loaded.
+     */
+    @Query("SELECT new com.example.mysqlcrudapp.dto.BlueprintSummaryDto(b.id, b.name, b.description, b.createdById, "
+            + "(SELECT MAX(v.versionNumber) FROM BlueprintVersion v WHERE v.blueprint.id = b.id AND v.active = true), "
+            + "(SELECT COUNT(v.id) FROM BlueprintVersion v WHERE v.blueprint.id = b.id), "
+            + "0L, "
+            + "b.createdAt, b.updatedAt) FROM Blueprint b ORDER BY b.createdAt DESC")
+    List<BlueprintSummaryDto> findSummaries();
+
     @Query("SELECT b FROM Blueprint b LEFT JOIN FETCH b.versions WHERE b.id = :id")
     Optional<Blueprint> findByIdWithVersions(Long id);
     
@@ -1,12 +1,26 @@
 package com.example.mysqlcrudapp.repository;
 
 import com.example.mysqlcrudapp.entity.BlueprintVersionField;
+import com.example.mysqlcrudapp.persistence.CacheRegions;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
+
 import java.util.List;
 
 @Repository
 public interface BlueprintVersionFieldRepository extends JpaRepository<BlueprintVersionField, Long> {
+    // Cached until the next write to blueprint_version_field; the rows themselves come from the entity cache
+    @QueryHints({
+            @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_CACHE_REGION, value = CacheRegions.VERSION_FIELDS_QUERY)
+    })
     List<BlueprintVersionField> findByBlueprintVersionIdOrderByDisplayOrder(Long versionId);
+
+    @Query("SELECT bvf FROM BlueprintVersionField bvf JOIN FETCH bvf.field "
+            + "WHERE bvf.blueprintVersion.id = :versionId ORDER BY bvf.displayOrder")
+    List<BlueprintVersionField> findWithFieldByBlueprintVersionId(Long versionId);
 }
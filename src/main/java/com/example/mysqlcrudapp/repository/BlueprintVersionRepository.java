@@ -1,17 +1,44 @@
 package com.example.mysqlcrudapp.repository;
 
+import com.example.mysqlcrudapp.dto.BlueprintVersionDto;
 import com.example.mysqlcrudapp.entity.BlueprintVersion;
+import com.example.mysqlcrudapp.persistence.CacheRegions;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
+
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface BlueprintVersionRepository extends JpaRepository<BlueprintVersion, Long> {
     List<BlueprintVersion> findByBlueprintIdOrderByVersionNumberDesc(Long blueprintId);
-    
+    List<BlueprintVersion> findByActiveTrue();
+
+    // Cached until the next write to blueprint_version; the entity itself then comes from the entity cache
     @Query("SELECT bv FROM BlueprintVersion bv WHERE bv.blueprint.id = :blueprintId AND bv.active = true")
+    @QueryHints({
+            @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_CACHE_REGION, value = CacheRegions.ACTIVE_VERSION_QUERY)
+    })
     Optional<BlueprintVersion> findActiveVersion(Long blueprintId);
+
+    // Read-only list projections, in BlueprintVersionDto's constructor order
+    String SELECT_DTO = "SELECT new com.example.mysqlcrudapp.dto.BlueprintVersionDto(bv.id, bv.blueprint.id, "
+            + "bv.versionNumber, bv.name, bv.description, bv.active, bv.createdById, bv.createdAt, bv.updatedAt) "
+            + "FROM BlueprintVersion bv ";
+
+    @Query(SELECT_DTO + "ORDER BY bv.id")
+    List<BlueprintVersionDto> findAllDtos();
+
+    @Query(SELECT_DTO + "WHERE bv.blueprint.id = :blueprintId ORDER BY bv.versionNumber DESC")
+    List<BlueprintVersionDto> findDtosByBlueprintId(Long blueprintId);
+
+    // Keyset pagination: callers pass the last seen id and a Pageable limiting the row count
+    @Query(SELECT_DTO + "WHERE bv.id > :afterId ORDER BY bv.id")
+    List<BlueprintVersionDto> findDtoPage(Long afterId, Pageable pageable);
 }
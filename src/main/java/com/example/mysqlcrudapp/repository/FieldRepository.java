@@ -1,12 +1,40 @@
 package com.example.mysqlcrudapp.repository;
 
+import com.example.mysqlcrudapp.dto.FieldDto;
 import com.example.mysqlcrudapp.entity.Field;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.LockModeType;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface FieldRepository extends JpaRepository<Field, Long> {
     List<Field> findByGroupNameOrderByOrderIndex(String groupName);
+    List<Field> findByIndexedTrue();
+    Optional<Field> findFirstByKeyAndIndexedTrue(String key);
+    boolean existsByKeyAndIndexedTrueAndIdNot(String key, Long id);
+
+    /**
+     * Reads a field with a row lock held until the transaction ends; serializes link writes of acyclic fields
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT f FROM Field f WHERE f.id = :id")
+    Optional<Field> findByIdForUpdate(Long id);
+
+    // Read-only list projections, in FieldDto's constructor order
+    String SELECT_DTO = "SELECT new com.example.mysqlcrudapp.dto.FieldDto(f.id, f.key, f.label, f.description, "
+            + "f.type, f.widget, f.defaultJson, f.validationJson, f.optionsJson, f.settingsJson, f.minNumber, "
+            + "f.maxNumber, f.orderIndex, f.groupName, f.indexed, f.acyclic, f.createdById) FROM Field f ";
+
+    @Query(SELECT_DTO + "ORDER BY f.id")
+    List<FieldDto> findAllDtos();
+
+    // Keyset pagination: callers pass the last seen id and a Pageable limiting the row count
+    @Query(SELECT_DTO + "WHERE f.id > :afterId ORDER BY f.id")
+    List<FieldDto> findDtoPage(Long afterId, Pageable pageable);
 }
@@ -0,0 +1,34 @@
+package com.example.mysqlcrudapp.repository;
+
+import com.example.mysqlcrudapp.entity.ItemLinkClosure;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ItemLinkClosureRepository extends JpaRepository<ItemLinkClosure, ItemLinkClosure.Key> {
+    // Primary key lookup: is the descendant reachable from the ancestor?
+    boolean existsByFieldIdAndAncestorIdAndDescendantId(Long fieldId, Long ancestorId, Long descendantId);
+
+    List<ItemLinkClosure> findByFieldIdAndAncestorId(Long fieldId, Long ancestorId);
+
+    List<ItemLinkClosure> findByFieldIdAndDescendantId(Long fieldId, Long descendantId);
+
+    @Query("SELECT c.descendantId FROM ItemLinkClosure c WHERE c.fieldId = :fieldId AND c.ancestorId = :itemId ORDER BY c.descendantId")
+    List<Long> findDescendantIds(Long fieldId, Long itemId);
+
+    @Query("SELECT c.ancestorId FROM ItemLinkClosure c WHERE c.fieldId = :fieldId AND c.descendantId = :itemId ORDER BY c.ancestorId")
+    List<Long> findAncestorIds(Long fieldId, Long itemId);
+
+    @Query("SELECT c FROM ItemLinkClosure c WHERE c.fieldId = :fieldId "
+            + "AND c.ancestorId IN :ancestorIds AND c.descendantId IN :descendantIds")
+    List<ItemLinkClosure> findPairs(Long fieldId, Collection<Long> ancestorIds, Collection<Long> descendantIds);
+
+    @Modifying
+    @Query("DELETE FROM ItemLinkClosure c WHERE c.fieldId = :fieldId")
+    int deleteByFieldId(Long fieldId);
+}
@@ -1,13 +1,43 @@
 package com.example.mysqlcrudapp.repository;
 
+import com.example.mysqlcrudapp.dto.ItemLinkDto;
 import com.example.mysqlcrudapp.entity.ItemLink;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface ItemLinkRepository extends JpaRepository<ItemLink, Long> {
     List<ItemLink> findByFromItemId(Long fromItemId);
     List<ItemLink> findByToItemId(Long toItemId);
+
+    // Read-only list projections; the item and field ids are the foreign key columns, so nothing is joined or loaded
+    String SELECT_DTO = "SELECT new com.example.mysqlcrudapp.dto.ItemLinkDto(l.id, l.fromItem.id, l.toItem.id, l.field.id) "
+            + "FROM ItemLink l ";
+
+    @Query(SELECT_DTO + "ORDER BY l.id")
+    List<ItemLinkDto> findAllDtos();
+
+    @Query(SELECT_DTO + "WHERE l.id > :afterId ORDER BY l.id")
+    List<ItemLinkDto> findDtoPage(Long afterId, Pageable pageable);
+
+    @Query(SELECT_DTO + "WHERE l.fromItem.id = :fromItemId ORDER BY l.id")
+    List<ItemLinkDto> findDtosByFromItemId(Long fromItemId);
+
+    @Query(SELECT_DTO + "WHERE l.toItem.id = :toItemId ORDER BY l.id")
+    List<ItemLinkDto> findDtosByToItemId(Long toItemId);
+
+    @Query(SELECT_DTO + "WHERE l.field.id = :fieldId ORDER BY l.id")
+    List<ItemLinkDto> findDtosByFieldId(Long fieldId);
+
+    /**
+     * All links starting or ending at any of the given items, ordered by id.
+     * Lets a page of items get its outgoing and incoming link ids from a single statement.
+     */
+    @Query(SELECT_DTO + "WHERE l.fromItem.id IN :itemIds OR l.toItem.id IN :itemIds ORDER BY l.id")
+    List<ItemLinkDto> findDtosTouchingItems(Collection<Long> itemIds);
 }
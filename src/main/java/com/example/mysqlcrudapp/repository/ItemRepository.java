@@ -1,13 +1,88 @@
 package com.example.mysqlcrudapp.repository;
 
+import com.example.mysqlcrudapp.dto.BlueprintItemCountDto;
+import com.example.mysqlcrudapp.dto.ItemDto;
 import com.example.mysqlcrudapp.entity.Item;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
 
 @Repository
-public interface ItemRepository extends JpaRepository<Item, Long> {
-    List<Item> findByBlueprintId(Long blueprintId);
-    List<Item> findByVersionId(Long versionId);
+public interface ItemRepository extends JpaRepository<Item, Long>, ItemRepositoryCustom {
+    // Read-only list projections: DTOs come straight from the item columns without loading entities.
+    // The link id lists are left empty here and filled by ItemService from one query per page.
+    String SELECT_DTO = "SELECT new com.example.mysqlcrudapp.dto.ItemDto(i.id, i.blueprint.id, i.version.id, "
+            + "i.currentState, i.dataJson, i.createdById, i.createdAt, i.rowVersion) FROM Item i ";
+
+    /**
+     * All items with the blueprint and version the items page shows; fetched here, as the page renders after
+     * the session has closed
+     */
+    @Override
+    @EntityGraph(attributePaths = {"blueprint", "version"})
+    List<Item> findAll();
+
+    @Query(SELECT_DTO + "ORDER BY i.id")
+    List<ItemDto> findAllDtos();
+
+    @Query(SELECT_DTO + "WHERE i.blueprint.id = :blueprintId ORDER BY i.id")
+    List<ItemDto> findDtosByBlueprintId(Long blueprintId);
+
+    @Query(SELECT_DTO + "WHERE i.version.id = :versionId ORDER BY i.id")
+    List<ItemDto> findDtosByVersionId(Long versionId);
+
+    @Query(SELECT_DTO + "WHERE i.id IN :ids")
+    List<ItemDto> findDtosByIdIn(Collection<Long> ids);
+
+    // Keyset pagination: callers pass the last seen id and a Pageable limiting the row count
+    @Query(SELECT_DTO + "WHERE i.id > :afterId ORDER BY i.id")
+    List<ItemDto> findDtoPage(Long afterId, Pageable pageable);
+
+    @Query(SELECT_DTO + "WHERE i.blueprint.id = :blueprintId AND i.id > :afterId ORDER BY i.id")
+    List<ItemDto> findDtoPageByBlueprintId(Long blueprintId, Long afterId, Pageable pageable);
+
+    @Query(SELECT_DTO + "WHERE i.version.id = :versionId AND i.id > :afterId ORDER BY i.id")
+    List<ItemDto> findDtoPageByVersionId(Long versionId, Long afterId, Pageable pageable);
+
+    // Item counts of the blueprint listing, kept apart from it since items change far more often than blueprints
+    @Query("SELECT new com.example.mysqlcrudapp.dto.BlueprintItemCountDto(i.blueprint.id, COUNT(i.id)) "
+            + "FROM Item i GROUP BY i.blueprint.id")
+    List<BlueprintItemCountDto> countByBlueprint();
+
+    // Authors of the rows an export is about to stream; their names are resolved before the cursor is opened
+    @Query("SELECT DISTINCT i.createdById FROM Item i WHERE i.blueprint.id = :blueprintId AND i.createdById IS NOT NULL")
+    List<Long> findCreatorIdsByBlueprintId(Long blueprintId);
+
+    @Query("SELECT DISTINCT i.createdById FROM Item i WHERE i.version.id = :versionId AND i.createdById IS NOT NULL")
+    List<Long> findCreatorIdsByVersionId(Long versionId);
+
+    // Forward-only cursors for exports. A fetch size of Integer.MIN_VALUE makes MySQL Connector/J stream rows
+    // one at a time instead of buffering the whole result; callers must consume them inside a transaction.
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE),
+            @QueryHint(name = HINT_CACHEABLE, value = "false"),
+            @QueryHint(name = HINT_READONLY, value = "true")
+    })
+    @Query("SELECT i FROM Item i WHERE i.blueprint.id = :blueprintId ORDER BY i.id")
+    Stream<Item> streamByBlueprintId(Long blueprintId);
+
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE),
+            @QueryHint(name = HINT_CACHEABLE, value = "false"),
+            @QueryHint(name = HINT_READONLY, value = "true")
+    })
+    @Query("SELECT i FROM Item i WHERE i.version.id = :versionId ORDER BY i.id")
+    Stream<Item> streamByVersionId(Long versionId);
 }
@@ -0,0 +1,37 @@
+package com.example.mysqlcrudapp.repository;
+
+import com.example.mysqlcrudapp.entity.Item;
+import com.example.mysqlcrudapp.util.JsonPathSql.ValueType;
+
+import java.util.List;
+import java.util.Map;
+
+public interface ItemRepositoryCustom {
+    /**
+     * Finds items of a blueprint whose data_json value for a field equals the given value, ordered by id.
+     * With {@code indexed} the field's generated column is compared, so the lookup is an index range scan;
+     * otherwise the JSON expression is evaluated for every item of the blueprint.
+     *
+     * @param blueprintId The blueprint the items belong to
+     * @param fieldKey The top-level key in data_json
+     * @param type The SQL type the value is compared as
+     * @param value The value, already converted to {@code type}
+     * @param indexed Whether the generated column for {@code fieldKey} exists
+     * @param afterId Keyset cursor, only items with a greater id are returned
+     * @param limit Maximum number of rows
+     */
+    List<Item> findByFieldValue(Long blueprintId, String fieldKey, ValueType type, Object value,
+                                boolean indexed, long afterId, int limit);
+
+    /**
+     * Rewrites the data of one item with a single UPDATE, without loading it, and bumps its row version
+     *
+     * @param dataExpression SQL expression computing the new document from {@code data_json};
+     *                       may reference the named {@code parameters}
+     * @param requiredPaths JSON paths that must exist in the current document for the update to apply
+     * @param expectedRowVersion When not null, the update only applies if the row version still matches
+     * @return The number of rows updated, 0 or 1
+     */
+    int updateData(Long id, String dataExpression, Map<String, Object> parameters,
+                   List<String> requiredPaths, Long expectedRowVersion);
+}
@@ -0,0 +1,79 @@
+package com.example.mysqlcrudapp.repository;
+
+import com.example.mysqlcrudapp.entity.Item;
+import com.example.mysqlcrudapp.util.JsonPathSql;
+import com.example.mysqlcrudapp.util.JsonPathSql.ValueType;
+import org.hibernate.query.NativeQuery;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Query;
+import java.util.List;
+import java.util.Map;
+
+public class ItemRepositoryImpl implements ItemRepositoryCustom {
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<Item> findByFieldValue(Long blueprintId, String fieldKey, ValueType type, Object value,
+                                       boolean indexed, long afterId, int limit) {
+        String valueColumn = indexed
+                ? JsonPathSql.generatedColumnName(fieldKey)
+                : JsonPathSql.valueExpression(fieldKey, type);
+
+        StringBuilder sql = new StringBuilder("SELECT i.* FROM item i WHERE i.blueprint_id = :blueprintId AND ")
+                .append(valueColumn).append(" = :value");
+        Object comparedValue = value;
+        if (type == ValueType.STRING) {
+            // The column holds a prefix; re-check the full text so long values do not match on their prefix alone
+            String text = value.toString();
+            comparedValue = text.length() > JsonPathSql.MAX_STRING_LENGTH
+                    ? text.substring(0, JsonPathSql.MAX_STRING_LENGTH)
+                    : text;
+            sql.append(" AND ").append(JsonPathSql.textExpression(fieldKey)).append(" = :fullValue");
+        }
+        sql.append(" AND i.id > :afterId ORDER BY i.id");
+
+        Query query = entityManager.createNativeQuery(sql.toString(), Item.class)
+                .setParameter("blueprintId", blueprintId)
+                .setParameter("value", comparedValue)
+                .setParameter("afterId", afterId)
+                .setMaxResults(limit);
+        if (type == ValueType.STRING) {
+            query.setParameter("fullValue", value.toString());
+        }
+        return query.getResultList();
+    }
+
+    @Override
+    public int updateData(Long id, String dataExpression, Map<String, Object> parameters,
+                          List<String> requiredPaths, Long expectedRowVersion) {
+        StringBuilder sql = new StringBuilder("UPDATE item SET data_json = ").append(dataExpression)
+                .append(", row_version = row_version + 1 WHERE id = :id");
+        if (!requiredPaths.isEmpty()) {
+            sql.append(" AND JSON_CONTAINS_PATH(data_json, 'all'");
+            for (int i = 0; i < requiredPaths.size(); i++) {
+                sql.append(", :requiredPath").append(i);
+            }
+            sql.append(")");
+        }
+        if (expectedRowVersion != null) {
+            sql.append(" AND row_version = :rowVersion");
+        }
+
+        Query query = entityManager.createNativeQuery(sql.toString())
+                .setParameter("id", id);
+        // Tells Hibernate which entity the statement touches, so cached Item state is evicted
+        query.unwrap(NativeQuery.class).addSynchronizedEntityClass(Item.class);
+        parameters.forEach(query::setParameter);
+        for (int i = 0; i < requiredPaths.size(); i++) {
+            query.setParameter("requiredPath" + i, requiredPaths.get(i));
+        }
+        if (expectedRowVersion != null) {
+            query.setParameter("rowVersion", expectedRowVersion);
+        }
+        return query.executeUpdate();
+    }
+}
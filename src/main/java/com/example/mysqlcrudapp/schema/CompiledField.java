@@ -0,0 +1,65 @@
+package com.example.mysqlcrudapp.schema;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * One field of a {@link CompiledSchema}, with its JSON columns already parsed.
+ * Settings are the field's own settings overlaid with those of the version field.
+ */
+@Value
+@Builder
+public class CompiledField {
+    Long fieldId;
+    String key;
+    String label;
+    String description;
+    String type;
+    String widget;
+    String groupName;
+    int displayOrder;
+    boolean required;
+    Double minNumber;
+    Double maxNumber;
+    /** Parsed default value, or null when the field has none */
+    Object defaultValue;
+    Map<String, Object> validation;
+    /**
+     * From optionsJson, which may be an array of values, an array of {@code {"value": ..., "label": ...}} objects,
+     * or an object mapping values to labels
+     */
+    List<FieldOption> options;
+    Map<String, Object> settings;
+
+    /**
+     * @return The named validation setting as a number, or null if it is absent or not a number
+     */
+    public Number validationNumber(String name) {
+        Object value = validation.get(name);
+        return value instanceof Number ? (Number) value : null;
+    }
+
+    /**
+     * Makes parsed JSON unmodifiable all the way down
+     */
+    @SuppressWarnings("unchecked")
+    static Object freeze(Object value) {
+        if (value instanceof Map) {
+            Map<String, Object> copy = new LinkedHashMap<>();
+            ((Map<String, Object>) value).forEach((key, nested) -> copy.put(key, freeze(nested)));
+            return Collections.unmodifiableMap(copy);
+        }
+        if (value instanceof List) {
+            return Collections.unmodifiableList(((List<Object>) value).stream()
+                    .map(CompiledField::freeze)
+                    .collect(Collectors.toList()));
+        }
+        return value;
+    }
+}
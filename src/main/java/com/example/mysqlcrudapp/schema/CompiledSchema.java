@@ -0,0 +1,210 @@
+package com.example.mysqlcrudapp.schema;
+
+import com.example.mysqlcrudapp.entity.BlueprintVersion;
+import com.example.mysqlcrudapp.entity.BlueprintVersionField;
+import com.example.mysqlcrudapp.entity.Field;
+import com.example.mysqlcrudapp.validation.ItemDataValidator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable, fully resolved view of a blueprint version's fields.
+ * <p>
+ * Built once from the version and its version fields, so item writes and form renders can read field
+ * definitions without touching the database or parsing JSON settings again.
+ * Also carries the {@link ItemDataValidator} compiled from the same fields.
+ */
+@Slf4j
+public final class CompiledSchema {
+    /** Field types whose values are not free text; every other type is validated and searched as a string */
+    private static final Set<String> NON_TEXT_TYPES = new HashSet<>(Arrays.asList("number", "boolean", "date", "array", "object"));
+
+    private final Long versionId;
+    private final Long blueprintId;
+    private final Integer versionNumber;
+    private final boolean active;
+    private final List<CompiledField> fields;
+    private final Map<String, Integer> indexByKey;
+    private final Set<Long> fieldIds;
+    private final Set<String> textFieldKeys;
+    private final ItemDataValidator validator;
+
+    private CompiledSchema(BlueprintVersion version, List<CompiledField> fields, ObjectMapper objectMapper) {
+        this.versionId = version.getId();
+        this.blueprintId = version.getBlueprint() != null ? version.getBlueprint().getId() : null;
+        this.versionNumber = version.getVersionNumber();
+        this.active = version.isActive();
+        this.fields = Collections.unmodifiableList(fields);
+
+        Map<String, Integer> keys = new HashMap<>();
+        Set<Long> ids = new HashSet<>();
+        Set<String> textKeys = new HashSet<>();
+        for (int i = 0; i < fields.size(); i++) {
+            CompiledField field = fields.get(i);
+            keys.putIfAbsent(field.getKey(), i);
+            ids.add(field.getFieldId());
+            if (field.getType() == null || !NON_TEXT_TYPES.contains(field.getType().toLowerCase())) {
+                textKeys.add(field.getKey());
+            }
+        }
+        this.indexByKey = Collections.unmodifiableMap(keys);
+        this.fieldIds = Collections.unmodifiableSet(ids);
+        this.textFieldKeys = Collections.unmodifiableSet(textKeys);
+        this.validator = ItemDataValidator.compile(this, objectMapper.getFactory());
+    }
+
+    /**
+     * Compiles a version's schema
+     *
+     * @param versionFields The version's fields with their {@link Field} loaded, in display order
+     */
+    @SuppressWarnings("unchecked")
+    public static CompiledSchema compile(BlueprintVersion version, List<BlueprintVersionField> versionFields, ObjectMapper objectMapper) {
+        List<CompiledField> fields = new ArrayList<>(versionFields.size());
+        for (BlueprintVersionField versionField : versionFields) {
+            Field field = versionField.getField();
+            if (field == null || field.getKey() == null) {
+                continue;
+            }
+            Map<String, Object> validation = readObject(objectMapper, field.getValidationJson(), field.getKey());
+            Map<String, Object> settings = new LinkedHashMap<>(readObject(objectMapper, field.getSettingsJson(), field.getKey()));
+            settings.putAll(readObject(objectMapper, versionField.getSettingsJson(), field.getKey()));
+
+            fields.add(CompiledField.builder()
+                    .fieldId(field.getId())
+                    .key(field.getKey())
+                    .label(field.getLabel())
+                    .description(field.getDescription())
+                    .type(field.getType())
+                    .widget(field.getWidget())
+                    .groupName(field.getGroupName())
+                    .displayOrder(versionField.getDisplayOrder() != null ? versionField.getDisplayOrder() : fields.size())
+                    .required(Boolean.TRUE.equals(versionField.getRequired()) || Boolean.TRUE.equals(validation.get("required")))
+                    .minNumber(field.getMinNumber())
+                    .maxNumber(field.getMaxNumber())
+                    .defaultValue(readDefault(objectMapper, field))
+                    .validation(validation)
+                    .options(readOptions(objectMapper, field.getOptionsJson(), field.getKey()))
+                    .settings((Map<String, Object>) CompiledField.freeze(settings))
+                    .build());
+        }
+        return new CompiledSchema(version, fields, objectMapper);
+    }
+
+    public Long getVersionId() {
+        return versionId;
+    }
+
+    public Long getBlueprintId() {
+        return blueprintId;
+    }
+
+    public Integer getVersionNumber() {
+        return versionNumber;
+    }
+
+    public boolean isActive() {
+        return active;
+    }
+
+    public List<CompiledField> getFields() {
+        return fields;
+    }
+
+    /**
+     * @return The position of the field with this key in {@link #getFields()}, or -1
+     */
+    public int indexOf(String key) {
+        Integer index = indexByKey.get(key);
+        return index != null ? index : -1;
+    }
+
+    public CompiledField getField(String key) {
+        Integer index = indexByKey.get(key);
+        return index != null ? fields.get(index) : null;
+    }
+
+    /**
+     * @return true if the schema depends on the given field's settings
+     */
+    public boolean usesField(Long fieldId) {
+        return fieldIds.contains(fieldId);
+    }
+
+    /**
+     * @return Keys of the string-typed fields, whose values are indexed for full-text search
+     */
+    @JsonIgnore
+    public Set<String> getTextFieldKeys() {
+        return textFieldKeys;
+    }
+
+    @JsonIgnore
+    public ItemDataValidator getValidator() {
+        return validator;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> readObject(ObjectMapper objectMapper, String json, String key) {
+        Object parsed = read(objectMapper, json, key);
+        return parsed instanceof Map ? (Map<String, Object>) CompiledField.freeze(parsed) : Collections.emptyMap();
+    }
+
+    /**
+     * Empty objects are how the field form stores "no default", except on object fields
+     */
+    private static Object readDefault(ObjectMapper objectMapper, Field field) {
+        Object parsed = read(objectMapper, field.getDefaultJson(), field.getKey());
+        if (parsed instanceof Map && ((Map<?, ?>) parsed).isEmpty() && !"object".equalsIgnoreCase(field.getType())) {
+            return null;
+        }
+        return CompiledField.freeze(parsed);
+    }
+
+    private static List<FieldOption> readOptions(ObjectMapper objectMapper, String json, String key) {
+        Object parsed = read(objectMapper, json, key);
+        List<FieldOption> options = new ArrayList<>();
+        if (parsed instanceof List) {
+            for (Object option : (List<?>) parsed) {
+                if (option instanceof Map) {
+                    Map<?, ?> map = (Map<?, ?>) option;
+                    Object value = map.get("value");
+                    if (value != null) {
+                        Object label = map.get("label");
+                        options.add(new FieldOption(value, label != null ? label.toString() : value.toString()));
+                    }
+                } else if (option != null) {
+                    options.add(new FieldOption(option, option.toString()));
+                }
+            }
+        } else if (parsed instanceof Map) {
+            ((Map<?, ?>) parsed).forEach((value, label) ->
+                    options.add(new FieldOption(value, label != null ? label.toString() : value.toString())));
+        }
+        return Collections.unmodifiableList(options);
+    }
+
+    private static Object read(ObjectMapper objectMapper, String json, String key) {
+        if (json == null || json.trim().isEmpty()) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(json, Object.class);
+        } catch (JsonProcessingException e) {
+            log.warn("Ignoring unreadable settings of field {}: {}", key, e.getOriginalMessage());
+            return null;
+        }
+    }
+}
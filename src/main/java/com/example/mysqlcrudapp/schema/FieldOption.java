@@ -0,0 +1,12 @@
+package com.example.mysqlcrudapp.schema;
+
+import lombok.Value;
+
+/**
+ * One allowed value of a select, radio or checkbox field
+ */
+@Value
+public class FieldOption {
+    Object value;
+    String label;
+}
@@ -0,0 +1,254 @@
+package com.example.mysqlcrudapp.search;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.LongConsumer;
+
+/**
+ * An immutable index segment on disk, read through a memory-mapped file.
+ * <p>
+ * Layout, big-endian:
+ * <pre>
+ * header      magic, format, docCount, tombstoneCount, termCount (ints), docsOffset, tombstonesOffset, termsOffset (longs)
+ * docs        docCount x (long itemId, int length), ascending item id
+ * tombstones  tombstoneCount x long itemId, items deleted after older segments were written
+ * terms       termCount x (long termOffset, long postingsOffset, int postingCount), ascending unsigned UTF-8 order
+ * term bytes  per term: short length, UTF-8 bytes
+ * postings    per term: postingCount x (long itemId, int frequency), ascending item id
+ * </pre>
+ * A segment only says what it contained when written; which copy of an item is current is decided by
+ * {@link ItemSearchIndex}, where newer generations win. Segments are limited to 2 GB, the size of one mapping.
+ */
+final class IndexSegment {
+    private static final int MAGIC = 0x49534547;
+    private static final int FORMAT = 1;
+    private static final int HEADER_SIZE = 5 * Integer.BYTES + 3 * Long.BYTES;
+    private static final int DOC_SIZE = Long.BYTES + Integer.BYTES;
+    private static final int TERM_SIZE = 2 * Long.BYTES + Integer.BYTES;
+    private static final int POSTING_SIZE = Long.BYTES + Integer.BYTES;
+
+    /**
+     * Receives an item id paired with a number: a document length or a term frequency
+     */
+    @FunctionalInterface
+    interface EntryConsumer {
+        void accept(long itemId, int value);
+    }
+
+    private final long generation;
+    private final Path path;
+    private final MappedByteBuffer buffer;
+    private final int docCount;
+    private final int tombstoneCount;
+    private final int termCount;
+    private final long docsOffset;
+    private final long tombstonesOffset;
+    private final long termsOffset;
+
+    private IndexSegment(long generation, Path path, MappedByteBuffer buffer) throws IOException {
+        this.generation = generation;
+        this.path = path;
+        this.buffer = buffer;
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not an index segment: " + path);
+        }
+        if (buffer.getInt(4) != FORMAT) {
+            throw new IOException("Unsupported segment format " + buffer.getInt(4) + ": " + path);
+        }
+        this.docCount = buffer.getInt(8);
+        this.tombstoneCount = buffer.getInt(12);
+        this.termCount = buffer.getInt(16);
+        this.docsOffset = buffer.getLong(20);
+        this.tombstonesOffset = buffer.getLong(28);
+        this.termsOffset = buffer.getLong(36);
+    }
+
+    static IndexSegment open(Path path, long generation) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Segment larger than 2 GB: " + path);
+            }
+            // The mapping stays valid after the channel is closed
+            return new IndexSegment(generation, path, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    long getGeneration() {
+        return generation;
+    }
+
+    Path getPath() {
+        return path;
+    }
+
+    int getDocCount() {
+        return docCount;
+    }
+
+    int getTermCount() {
+        return termCount;
+    }
+
+    long getSizeBytes() {
+        return buffer.capacity();
+    }
+
+    void forEachDoc(EntryConsumer consumer) {
+        for (int i = 0; i < docCount; i++) {
+            int at = (int) (docsOffset + (long) i * DOC_SIZE);
+            consumer.accept(buffer.getLong(at), buffer.getInt(at + Long.BYTES));
+        }
+    }
+
+    void forEachTombstone(LongConsumer consumer) {
+        for (int i = 0; i < tombstoneCount; i++) {
+            consumer.accept(buffer.getLong((int) (tombstonesOffset + (long) i * Long.BYTES)));
+        }
+    }
+
+    /**
+     * Feeds the postings of a term to the consumer, if the segment has the term
+     */
+    void postings(byte[] term, EntryConsumer consumer) {
+        int low = 0;
+        int high = termCount - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int comparison = compareTerm(middle, term);
+            if (comparison < 0) {
+                low = middle + 1;
+            } else if (comparison > 0) {
+                high = middle - 1;
+            } else {
+                postingsAt(middle, consumer);
+                return;
+            }
+        }
+    }
+
+    String termAt(int index) {
+        int termOffset = (int) buffer.getLong(termEntry(index));
+        byte[] bytes = new byte[buffer.getShort(termOffset)];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = buffer.get(termOffset + Short.BYTES + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    void postingsAt(int index, EntryConsumer consumer) {
+        int entry = termEntry(index);
+        long postingsOffset = buffer.getLong(entry + Long.BYTES);
+        int count = buffer.getInt(entry + 2 * Long.BYTES);
+        for (int i = 0; i < count; i++) {
+            int at = (int) (postingsOffset + (long) i * POSTING_SIZE);
+            consumer.accept(buffer.getLong(at), buffer.getInt(at + Long.BYTES));
+        }
+    }
+
+    private int termEntry(int index) {
+        return (int) (termsOffset + (long) index * TERM_SIZE);
+    }
+
+    private int compareTerm(int index, byte[] term) {
+        int termOffset = (int) buffer.getLong(termEntry(index));
+        int length = buffer.getShort(termOffset);
+        int common = Math.min(length, term.length);
+        for (int i = 0; i < common; i++) {
+            int difference = Byte.toUnsignedInt(buffer.get(termOffset + Short.BYTES + i)) - Byte.toUnsignedInt(term[i]);
+            if (difference != 0) {
+                return difference;
+            }
+        }
+        return length - term.length;
+    }
+
+    /**
+     * Writes a segment to a temporary file, forces it to disk and moves it into place
+     *
+     * @param docLengths Term count of every item in the segment, items without terms included
+     * @param tombstones Items deleted since older segments were written
+     * @param postings Term frequency per item, for every term
+     */
+    static void write(Path target, Map<Long, Integer> docLengths, Collection<Long> tombstones,
+                      Map<String, Map<Long, Integer>> postings) throws IOException {
+        List<byte[]> terms = new ArrayList<>(postings.size());
+        List<Map<Long, Integer>> termPostings = new ArrayList<>(postings.size());
+        TreeMap<byte[], Map<Long, Integer>> sorted = new TreeMap<>(Arrays::compareUnsigned);
+        for (Map.Entry<String, Map<Long, Integer>> entry : postings.entrySet()) {
+            if (!entry.getValue().isEmpty()) {
+                sorted.put(entry.getKey().getBytes(StandardCharsets.UTF_8), entry.getValue());
+            }
+        }
+        sorted.forEach((term, itemFrequencies) -> {
+            terms.add(term);
+            termPostings.add(itemFrequencies);
+        });
+
+        long docsOffset = HEADER_SIZE;
+        long tombstonesOffset = docsOffset + (long) docLengths.size() * DOC_SIZE;
+        long termsOffset = tombstonesOffset + (long) tombstones.size() * Long.BYTES;
+        long termBytesOffset = termsOffset + (long) terms.size() * TERM_SIZE;
+        long postingsOffset = termBytesOffset;
+        for (byte[] term : terms) {
+            postingsOffset += Short.BYTES + term.length;
+        }
+
+        Path temporary = target.resolveSibling(target.getFileName() + ".tmp");
+        try (FileOutputStream file = new FileOutputStream(temporary.toFile());
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file, 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT);
+            out.writeInt(docLengths.size());
+            out.writeInt(tombstones.size());
+            out.writeInt(terms.size());
+            out.writeLong(docsOffset);
+            out.writeLong(tombstonesOffset);
+            out.writeLong(termsOffset);
+
+            for (Map.Entry<Long, Integer> doc : new TreeMap<>(docLengths).entrySet()) {
+                out.writeLong(doc.getKey());
+                out.writeInt(doc.getValue());
+            }
+            for (Long itemId : tombstones) {
+                out.writeLong(itemId);
+            }
+            long termOffset = termBytesOffset;
+            long postingOffset = postingsOffset;
+            for (int i = 0; i < terms.size(); i++) {
+                out.writeLong(termOffset);
+                out.writeLong(postingOffset);
+                out.writeInt(termPostings.get(i).size());
+                termOffset += Short.BYTES + terms.get(i).length;
+                postingOffset += (long) termPostings.get(i).size() * POSTING_SIZE;
+            }
+            for (byte[] term : terms) {
+                out.writeShort(term.length);
+                out.write(term);
+            }
+            for (Map<Long, Integer> itemFrequencies : termPostings) {
+                for (Map.Entry<Long, Integer> posting : new TreeMap<>(itemFrequencies).entrySet()) {
+                    out.writeLong(posting.getKey());
+                    out.writeInt(posting.getValue());
+                }
+            }
+            out.flush();
+            file.getChannel().force(true);
+        }
+        Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+}
@@ -0,0 +1,490 @@
+package com.example.mysqlcrudapp.search;
+
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * An inverted index from terms to items, kept in immutable memory-mapped {@link IndexSegment segments}
+ * plus an in-memory buffer of recent changes.
+ * <p>
+ * Every change goes to the buffer first. {@link #flush()} writes the buffer out as a new segment, and
+ * {@link #merge(int)} folds all segments into one when there are too many. An item may appear in several
+ * segments; only the copy in the newest one (or the buffer) is live, the rest are skipped when searching.
+ * Deletions are written as tombstones so they survive a restart.
+ * <p>
+ * Searches take a read lock and item changes a short write lock. Flushes, merges and rebuilds are
+ * serialized on a separate maintenance lock; merges and rebuilds write their files without blocking either.
+ * Changes still in the buffer are lost if the process dies; {@link #rebuild} recovers from that.
+ */
+@Slf4j
+public class ItemSearchIndex {
+    /** Generation marking items whose live copy is in the buffer */
+    private static final long BUFFERED = Long.MAX_VALUE;
+    private static final Pattern SEGMENT_FILE = Pattern.compile("segment-(\\d+)\\.idx");
+    private static final Pattern TEMPORARY_FILE = Pattern.compile("(rebuild-\\d+\\.idx|.*\\.tmp)");
+
+    // BM25 parameters
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    private final Path directory;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ReentrantLock maintenanceLock = new ReentrantLock();
+
+    private List<IndexSegment> segments = new ArrayList<>();
+    private long nextGeneration = 1;
+    /** Every live item with where its current postings are and its length in terms */
+    private final Map<Long, DocRef> docs = new HashMap<>();
+    private long totalLength;
+
+    private final Map<Long, Map<String, Integer>> bufferedDocs = new HashMap<>();
+    private final Map<String, Map<Long, Integer>> bufferedPostings = new HashMap<>();
+    private final Set<Long> bufferedDeletes = new HashSet<>();
+
+    private static final class DocRef {
+        final long generation;
+        final int length;
+
+        DocRef(long generation, int length) {
+            this.generation = generation;
+            this.length = length;
+        }
+    }
+
+    @Value
+    public static class Hit {
+        long itemId;
+        double score;
+    }
+
+    @Value
+    public static class Result {
+        long total;
+        List<Hit> hits;
+    }
+
+    /**
+     * Opens the index in a directory, creating the directory if needed and loading the segments found there
+     */
+    public ItemSearchIndex(Path directory) throws IOException {
+        this.directory = directory;
+        Files.createDirectories(directory);
+        Map<Long, Path> found = new TreeMap<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                Matcher matcher = SEGMENT_FILE.matcher(name);
+                if (matcher.matches()) {
+                    found.put(Long.parseLong(matcher.group(1)), file);
+                } else if (TEMPORARY_FILE.matcher(name).matches()) {
+                    // Left behind by a flush, merge or rebuild that did not finish
+                    Files.delete(file);
+                }
+            }
+        }
+        for (Map.Entry<Long, Path> entry : found.entrySet()) {
+            IndexSegment segment = IndexSegment.open(entry.getValue(), entry.getKey());
+            segments.add(segment);
+            apply(segment);
+            nextGeneration = entry.getKey() + 1;
+        }
+    }
+
+    /**
+     * Replays a segment over the live item map, as if its changes had just been made
+     */
+    private void apply(IndexSegment segment) {
+        segment.forEachTombstone(itemId -> {
+            DocRef removed = docs.remove(itemId);
+            if (removed != null) {
+                totalLength -= removed.length;
+            }
+        });
+        segment.forEachDoc((itemId, length) -> {
+            DocRef previous = docs.put(itemId, new DocRef(segment.getGeneration(), length));
+            totalLength += length - (previous != null ? previous.length : 0);
+        });
+    }
+
+    public boolean isEmpty() {
+        lock.readLock().lock();
+        try {
+            return docs.isEmpty() && segments.isEmpty();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Replaces an item's terms
+     */
+    public void index(long itemId, List<String> terms) {
+        Map<String, Integer> frequencies = new HashMap<>();
+        for (String term : terms) {
+            frequencies.merge(term, 1, Integer::sum);
+        }
+        lock.writeLock().lock();
+        try {
+            removeFromBuffer(itemId);
+            bufferedDeletes.remove(itemId);
+            bufferedDocs.put(itemId, frequencies);
+            frequencies.forEach((term, frequency) ->
+                    bufferedPostings.computeIfAbsent(term, t -> new HashMap<>()).put(itemId, frequency));
+            DocRef previous = docs.put(itemId, new DocRef(BUFFERED, terms.size()));
+            totalLength += terms.size() - (previous != null ? previous.length : 0);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void delete(long itemId) {
+        lock.writeLock().lock();
+        try {
+            removeFromBuffer(itemId);
+            DocRef removed = docs.remove(itemId);
+            if (removed != null) {
+                totalLength -= removed.length;
+            }
+            bufferedDeletes.add(itemId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void removeFromBuffer(long itemId) {
+        Map<String, Integer> previous = bufferedDocs.remove(itemId);
+        if (previous != null) {
+            for (String term : previous.keySet()) {
+                Map<Long, Integer> postings = bufferedPostings.get(term);
+                postings.remove(itemId);
+                if (postings.isEmpty()) {
+                    bufferedPostings.remove(term);
+                }
+            }
+        }
+    }
+
+    /**
+     * Ranks items by BM25 over the given terms; an item matches if it contains any of them
+     *
+     * @return The total number of matching items and the requested slice of them, best first
+     */
+    public Result search(List<String> terms, int offset, int limit) {
+        lock.readLock().lock();
+        try {
+            if (docs.isEmpty()) {
+                return new Result(0, new ArrayList<>());
+            }
+            double averageLength = Math.max(1.0, (double) totalLength / docs.size());
+            Map<Long, Double> scores = new HashMap<>();
+            for (String term : new LinkedHashSet<>(terms)) {
+                Map<Long, Integer> matches = new HashMap<>();
+                Map<Long, Integer> buffered = bufferedPostings.get(term);
+                if (buffered != null) {
+                    matches.putAll(buffered);
+                }
+                byte[] termBytes = term.getBytes(StandardCharsets.UTF_8);
+                for (IndexSegment segment : segments) {
+                    segment.postings(termBytes, (itemId, frequency) -> {
+                        DocRef doc = docs.get(itemId);
+                        if (doc != null && doc.generation == segment.getGeneration()) {
+                            matches.put(itemId, frequency);
+                        }
+                    });
+                }
+                double documentFrequency = matches.size();
+                double idf = Math.log(1 + (docs.size() - documentFrequency + 0.5) / (documentFrequency + 0.5));
+                matches.forEach((itemId, frequency) -> {
+                    double lengthRatio = docs.get(itemId).length / averageLength;
+                    double score = idf * frequency * (K1 + 1) / (frequency + K1 * (1 - B + B * lengthRatio));
+                    scores.merge(itemId, score, Double::sum);
+                });
+            }
+
+            List<Hit> hits = new ArrayList<>(scores.size());
+            scores.forEach((itemId, score) -> hits.add(new Hit(itemId, score)));
+            hits.sort(Comparator.comparingDouble(Hit::getScore).reversed().thenComparingLong(Hit::getItemId));
+            int from = Math.min(offset, hits.size());
+            return new Result(hits.size(), new ArrayList<>(hits.subList(from, Math.min(from + limit, hits.size()))));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Writes buffered changes to a new segment. Skipped while another flush, merge or rebuild is running.
+     *
+     * @return Whether a segment was written
+     */
+    public boolean flush() throws IOException {
+        if (!maintenanceLock.tryLock()) {
+            return false;
+        }
+        try {
+            lock.writeLock().lock();
+            try {
+                if (bufferedDocs.isEmpty() && bufferedDeletes.isEmpty()) {
+                    return false;
+                }
+                long generation = nextGeneration++;
+                Map<Long, Integer> docLengths = new HashMap<>();
+                bufferedDocs.keySet().forEach(itemId -> docLengths.put(itemId, docs.get(itemId).length));
+                Path file = segmentFile(generation);
+                IndexSegment.write(file, docLengths, new ArrayList<>(bufferedDeletes), bufferedPostings);
+                segments.add(IndexSegment.open(file, generation));
+                docLengths.forEach((itemId, length) -> docs.put(itemId, new DocRef(generation, length)));
+                bufferedDocs.clear();
+                bufferedPostings.clear();
+                bufferedDeletes.clear();
+                return true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        } finally {
+            maintenanceLock.unlock();
+        }
+    }
+
+    /**
+     * Merges all segments into one when there are more than {@code maxSegments}, dropping superseded copies
+     * and tombstones. Skipped while another flush, merge or rebuild is running.
+     *
+     * @return Whether segments were merged
+     */
+    public boolean merge(int maxSegments) throws IOException {
+        if (!maintenanceLock.tryLock()) {
+            return false;
+        }
+        try {
+            List<IndexSegment> merging;
+            Map<Long, Long> liveGenerations = new HashMap<>();
+            lock.readLock().lock();
+            try {
+                if (segments.size() <= maxSegments) {
+                    return false;
+                }
+                merging = new ArrayList<>(segments);
+                docs.forEach((itemId, doc) -> {
+                    if (doc.generation != BUFFERED) {
+                        liveGenerations.put(itemId, doc.generation);
+                    }
+                });
+            } finally {
+                lock.readLock().unlock();
+            }
+
+            // Segments are immutable and no flush can add one meanwhile, so the merged file is written unlocked.
+            // Items changed in the meantime now live in the buffer, which outranks the merged segment.
+            Map<Long, Integer> docLengths = new HashMap<>();
+            Map<String, Map<Long, Integer>> postings = new HashMap<>();
+            for (IndexSegment segment : merging) {
+                long generation = segment.getGeneration();
+                segment.forEachDoc((itemId, length) -> {
+                    if (liveGenerations.getOrDefault(itemId, 0L) == generation) {
+                        docLengths.put(itemId, length);
+                    }
+                });
+                for (int i = 0; i < segment.getTermCount(); i++) {
+                    Map<Long, Integer> termPostings = new HashMap<>();
+                    segment.postingsAt(i, (itemId, frequency) -> {
+                        if (liveGenerations.getOrDefault(itemId, 0L) == generation) {
+                            termPostings.put(itemId, frequency);
+                        }
+                    });
+                    if (!termPostings.isEmpty()) {
+                        postings.computeIfAbsent(segment.termAt(i), term -> new HashMap<>()).putAll(termPostings);
+                    }
+                }
+            }
+            long generation;
+            lock.writeLock().lock();
+            try {
+                generation = nextGeneration++;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            Path file = segmentFile(generation);
+            IndexSegment.write(file, docLengths, new ArrayList<>(), postings);
+            IndexSegment merged = IndexSegment.open(file, generation);
+
+            lock.writeLock().lock();
+            try {
+                Set<Long> mergedGenerations = new HashSet<>();
+                merging.forEach(segment -> mergedGenerations.add(segment.getGeneration()));
+                docs.replaceAll((itemId, doc) -> mergedGenerations.contains(doc.generation)
+                        ? new DocRef(generation, doc.length) : doc);
+                segments = new ArrayList<>();
+                segments.add(merged);
+            } finally {
+                lock.writeLock().unlock();
+            }
+            deleteFiles(merging);
+            log.info("Merged {} search index segments into one of {} items", merging.size(), docLengths.size());
+            return true;
+        } finally {
+            maintenanceLock.unlock();
+        }
+    }
+
+    /**
+     * Rebuilds the index from a full scan, for recovery. The current index keeps serving searches and
+     * taking changes until the scan is done; changes made during the scan are kept on top of it.
+     *
+     * @param scan Calls its argument with every item; the argument indexes one item and its terms
+     * @param itemsPerSegment Items written per segment while scanning
+     * @return The number of items indexed
+     */
+    public long rebuild(Consumer<RebuildSink> scan, int itemsPerSegment) throws IOException {
+        maintenanceLock.lock();
+        List<IndexSegment> built = new ArrayList<>();
+        try {
+            RebuildSink sink = new RebuildSink(itemsPerSegment, built);
+            try {
+                scan.accept(sink);
+                sink.writeSegment();
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+
+            List<IndexSegment> replaced;
+            lock.writeLock().lock();
+            try {
+                replaced = segments;
+                segments = new ArrayList<>();
+                docs.clear();
+                totalLength = 0;
+                for (IndexSegment segment : built) {
+                    Path file = segmentFile(segment.getGeneration());
+                    Files.move(segment.getPath(), file, StandardCopyOption.ATOMIC_MOVE);
+                    IndexSegment installed = IndexSegment.open(file, segment.getGeneration());
+                    segments.add(installed);
+                    apply(installed);
+                }
+                built.clear();
+                // Buffered changes are at least as new as the scan
+                bufferedDeletes.forEach(itemId -> {
+                    DocRef removed = docs.remove(itemId);
+                    if (removed != null) {
+                        totalLength -= removed.length;
+                    }
+                });
+                bufferedDocs.forEach((itemId, frequencies) -> {
+                    int length = frequencies.values().stream().mapToInt(Integer::intValue).sum();
+                    DocRef previous = docs.put(itemId, new DocRef(BUFFERED, length));
+                    totalLength += length - (previous != null ? previous.length : 0);
+                });
+            } finally {
+                lock.writeLock().unlock();
+            }
+            deleteFiles(replaced);
+            log.info("Rebuilt the search index with {} items", sink.count);
+            return sink.count;
+        } finally {
+            deleteFiles(built);
+            maintenanceLock.unlock();
+        }
+    }
+
+    /**
+     * Collects items during a {@link #rebuild}, writing them out in segments as it goes
+     */
+    public final class RebuildSink {
+        private final int itemsPerSegment;
+        private final List<IndexSegment> built;
+        private final Map<Long, Integer> docLengths = new HashMap<>();
+        private final Map<String, Map<Long, Integer>> postings = new HashMap<>();
+        private long count;
+
+        private RebuildSink(int itemsPerSegment, List<IndexSegment> built) {
+            this.itemsPerSegment = itemsPerSegment;
+            this.built = built;
+        }
+
+        public void add(long itemId, List<String> terms) {
+            for (String term : terms) {
+                postings.computeIfAbsent(term, t -> new HashMap<>()).merge(itemId, 1, Integer::sum);
+            }
+            docLengths.put(itemId, terms.size());
+            count++;
+            if (docLengths.size() >= itemsPerSegment) {
+                try {
+                    writeSegment();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        }
+
+        private void writeSegment() throws IOException {
+            if (docLengths.isEmpty()) {
+                return;
+            }
+            long generation;
+            lock.writeLock().lock();
+            try {
+                generation = nextGeneration++;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            // Named apart from live segments until the rebuild completes, so a crash leaves nothing half-built
+            Path file = directory.resolve(String.format("rebuild-%010d.idx", generation));
+            IndexSegment.write(file, docLengths, new ArrayList<>(), postings);
+            built.add(IndexSegment.open(file, generation));
+            docLengths.clear();
+            postings.clear();
+        }
+    }
+
+    public Map<String, Object> getStatistics() {
+        lock.readLock().lock();
+        try {
+            Map<String, Object> statistics = new LinkedHashMap<>();
+            statistics.put("items", docs.size());
+            statistics.put("segments", segments.size());
+            statistics.put("segmentBytes", segments.stream().mapToLong(IndexSegment::getSizeBytes).sum());
+            statistics.put("bufferedItems", bufferedDocs.size());
+            statistics.put("bufferedDeletes", bufferedDeletes.size());
+            statistics.put("bufferedTerms", bufferedPostings.size());
+            return statistics;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Path segmentFile(long generation) {
+        return directory.resolve(String.format("segment-%010d.idx", generation));
+    }
+
+    private void deleteFiles(List<IndexSegment> obsolete) {
+        for (IndexSegment segment : obsolete) {
+            try {
+                Files.deleteIfExists(segment.getPath());
+            } catch (IOException e) {
+                log.warn("Could not delete search index file {}: {}", segment.getPath(), e.getMessage());
+            }
+        }
+    }
+}
@@ -17,6 +17,20 @@ import java.util.Optional;
 public class AuthenticationService {
     
     private final UserRepository userRepository;
+    private final UserDirectoryService userDirectoryService;
+    
+    /**
+     * Get the id of the currently authenticated user, as recorded in created_by_id columns.
+     * Read from the session principal; other principals are resolved through the user cache.
+     * @return the id of the current user, or null if no user is authenticated or it has no users row
+     */
+    public Long getCurrentUserId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof UserPrincipal) {
+            return ((UserPrincipal) authentication.getPrincipal()).getId();
+        }
+        return userDirectoryService.findIdByLogin(getCurrentUserLogin());
+    }
     
     /**
      * Get the full name of the currently authenticated user
@@ -27,19 +41,16 @@ public class AuthenticationService {
         
         if (authentication == null || !authentication.isAuthenticated() || 
             "anonymousUser".equals(authentication.getPrincipal())) {
-            return "system";
+            return UserDirectoryService.SYSTEM_NAME;
         }
-        
-        String login = authentication.getName();
-        Optional<User> userOpt = userRepository.findByLogin(login);
-        
-        if (userOpt.isPresent()) {
-            User user = userOpt.get();
-            return user.getFullName() != null ? user.getFullName() : login;
+        if (authentication.getPrincipal() instanceof UserPrincipal) {
+            UserPrincipal principal = (UserPrincipal) authentication.getPrincipal();
+            return principal.getFullName() != null ? principal.getFullName() : principal.getUsername();
         }
         
         // Fallback to login if user not found in database
-        return login;
+        Long userId = userDirectoryService.findIdByLogin(authentication.getName());
+        return userId != null ? userDirectoryService.displayName(userId) : authentication.getName();
     }
     
     /**
@@ -1,46 +1,86 @@
 package com.example.mysqlcrudapp.service;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
 
 import org.modelmapper.ModelMapper;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
 
 import com.example.mysqlcrudapp.dto.BlueprintDto;
+import com.example.mysqlcrudapp.dto.BlueprintItemCountDto;
+import com.example.mysqlcrudapp.dto.BlueprintSummaryDto;
 import com.example.mysqlcrudapp.dto.BlueprintVersionDto;
 import com.example.mysqlcrudapp.entity.Blueprint;
 import com.example.mysqlcrudapp.entity.BlueprintVersion;
+import com.example.mysqlcrudapp.event.BlueprintChangedEvent;
+import com.example.mysqlcrudapp.event.ItemChangedEvent;
+import com.example.mysqlcrudapp.event.SchemaChangedEvent;
 import com.example.mysqlcrudapp.exception.ResourceNotFoundException;
+import com.example.mysqlcrudapp.persistence.ReplicaRoutingDataSource;
 import com.example.mysqlcrudapp.repository.BlueprintRepository;
+import com.example.mysqlcrudapp.repository.ItemRepository;
 
 @Service
 @Transactional(readOnly = true)
 public class BlueprintService {
     private final BlueprintRepository blueprintRepository;
+    private final ItemRepository itemRepository;
     private final ModelMapper modelMapper;
-    private final AuthenticationService authenticationService;    public BlueprintService(BlueprintRepository blueprintRepository, ModelMapper modelMapper, AuthenticationService authenticationService) {
+    private final AuthenticationService authenticationService;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final InvalidatedCache<List<BlueprintSummaryDto>> summaries = new InvalidatedCache<>();
+    private final InvalidatedCache<Map<Long, Long>> itemCounts = new InvalidatedCache<>();
+
+    public BlueprintService(BlueprintRepository blueprintRepository, ItemRepository itemRepository, ModelMapper modelMapper,
+                            AuthenticationService authenticationService, ApplicationEventPublisher eventPublisher) {
         this.blueprintRepository = blueprintRepository;
+        this.itemRepository = itemRepository;
         this.modelMapper = modelMapper;
         this.authenticationService = authenticationService;
-    }public List<BlueprintDto> findAll() {
-        try {
-            System.out.println("BlueprintService: Fetching all blueprints");
-            List<Blueprint> blueprints = blueprintRepository.findAllWithVersions();
-            System.out.println("BlueprintService: Found " + blueprints.size() + " blueprints in repository");
-            
-            List<BlueprintDto> dtoList = blueprints.stream()
-                    .map(blueprint -> modelMapper.map(blueprint, BlueprintDto.class))
-                    .collect(Collectors.toList());
-            
-            System.out.println("BlueprintService: Mapped " + dtoList.size() + " blueprints to DTOs");
-            return dtoList;
-        } catch (Exception e) {
-            System.err.println("BlueprintService: Error fetching all blueprints: " + e.getMessage());
-            e.printStackTrace();
-            throw new RuntimeException("Failed to fetch blueprints: " + e.getMessage(), e);
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * The blueprint listing. The blueprints and their version counts are kept until a blueprint or version is
+     * written; the item counts, one grouped query, are kept apart until an item is written.
+     */
+    public List<BlueprintSummaryDto> findSummaries() {
+        List<BlueprintSummaryDto> blueprints = summaries.get(() -> Collections.unmodifiableList(blueprintRepository.findSummaries()));
+        Map<Long, Long> counts = itemCounts.get(this::loadItemCounts);
+        List<BlueprintSummaryDto> listing = new ArrayList<>(blueprints.size());
+        for (BlueprintSummaryDto blueprint : blueprints) {
+            listing.add(new BlueprintSummaryDto(blueprint.getId(), blueprint.getName(), blueprint.getDescription(),
+                    blueprint.getCreatedById(), blueprint.getActiveVersion(), blueprint.getVersionCount(),
+                    counts.getOrDefault(blueprint.getId(), 0L), blueprint.getCreatedAt(), blueprint.getUpdatedAt()));
+        }
+        return listing;
+    }
+
+    private Map<Long, Long> loadItemCounts() {
+        Map<Long, Long> counts = new HashMap<>();
+        for (BlueprintItemCountDto count : itemRepository.countByBlueprint()) {
+            counts.put(count.getBlueprintId(), count.getItemCount());
         }
+        return Collections.unmodifiableMap(counts);
+    }
+
+    @TransactionalEventListener(classes = {BlueprintChangedEvent.class, SchemaChangedEvent.class}, fallbackExecution = true)
+    public void invalidateSummaries() {
+        summaries.invalidate();
+    }
+
+    @TransactionalEventListener(classes = ItemChangedEvent.class, fallbackExecution = true)
+    public void invalidateItemCounts() {
+        itemCounts.invalidate();
     }    public BlueprintDto findById(Long id) {
         try {
             System.out.println("BlueprintService: Finding blueprint by ID: " + id);
@@ -95,7 +135,7 @@ public class BlueprintService {
                 fallbackDto.setId(blueprint.getId());
                 fallbackDto.setName(blueprint.getName());
                 fallbackDto.setDescription(blueprint.getDescription());
-                fallbackDto.setCreatedBy(blueprint.getCreatedBy());
+                fallbackDto.setCreatedById(blueprint.getCreatedById());
                 fallbackDto.setCreatedAt(blueprint.getCreatedAt());
                 fallbackDto.setUpdatedAt(blueprint.getUpdatedAt());
                 
@@ -109,7 +149,7 @@ public class BlueprintService {
                     versionDto.setName(version.getName());
                     versionDto.setDescription(version.getDescription());
                     versionDto.setActive(version.isActive());
-                    versionDto.setCreatedBy(version.getCreatedBy());
+                    versionDto.setCreatedById(version.getCreatedById());
                     versionDto.setCreatedAt(version.getCreatedAt());
                     versionDto.setUpdatedAt(version.getUpdatedAt());
                     versionDtos.add(versionDto);
@@ -135,8 +175,8 @@ public class BlueprintService {
             Blueprint blueprint = new Blueprint();
             blueprint.setName(blueprintDto.getName());
             blueprint.setDescription(blueprintDto.getDescription());
-            // Automatically set createdBy to current user's full name
-            blueprint.setCreatedBy(authenticationService.getCurrentUserFullName());
+            // Record the current user, read from the session principal
+            blueprint.setCreatedById(authenticationService.getCurrentUserId());
             
             // Initialize empty versions list
             if (blueprint.getVersions() == null) {
@@ -146,10 +186,11 @@ public class BlueprintService {
             // Save the entity
             System.out.println("Saving blueprint to repository: " + blueprint.getName());
             Blueprint saved = blueprintRepository.save(blueprint);
+            eventPublisher.publishEvent(new BlueprintChangedEvent(saved.getId()));
             System.out.println("Blueprint saved with ID: " + saved.getId() + 
                               ", name: " + saved.getName() + 
                               ", description: " + (saved.getDescription() != null ? saved.getDescription() : "null") + 
-                              ", createdBy: " + saved.getCreatedBy() + 
+                              ", createdById: " + saved.getCreatedById() + 
                               ", createdAt: " + saved.getCreatedAt());
             
             // Map back to DTO
@@ -169,6 +210,7 @@ public class BlueprintService {
                 .map(blueprint -> {
                     modelMapper.map(blueprintDto, blueprint);
                     blueprint = blueprintRepository.save(blueprint);
+                    eventPublisher.publishEvent(new BlueprintChangedEvent(blueprint.getId()));
                     return modelMapper.map(blueprint, BlueprintDto.class);
                 })
                 .orElseThrow(() -> new ResourceNotFoundException("Blueprint not found with id: " + id));
@@ -184,5 +226,37 @@ public class BlueprintService {
             throw new ResourceNotFoundException("Blueprint not found with id: " + id);
         }
         blueprintRepository.deleteById(id);
+        eventPublisher.publishEvent(new BlueprintChangedEvent(id));
+    }
+
+    /**
+     * A value loaded on first use and kept until invalidated. A load that overlaps an invalidation is returned
+     * but not kept: the write behind it committed while loading, so the result may not include it.
+     */
+    private static final class InvalidatedCache<T> {
+        // Incremented on every invalidation
+        private final AtomicLong generation = new AtomicLong();
+        private volatile T value;
+
+        T get(Supplier<T> loader) {
+            T cached = value;
+            if (cached != null) {
+                return cached;
+            }
+            long loadGeneration = generation.get();
+            // From the primary: a replica that has not seen the last write would have its state kept until the next
+            T loaded = ReplicaRoutingDataSource.readFromPrimary(loader);
+            synchronized (this) {
+                if (generation.get() == loadGeneration) {
+                    value = loaded;
+                }
+            }
+            return loaded;
+        }
+
+        synchronized void invalidate() {
+            generation.incrementAndGet();
+            value = null;
+        }
     }
 }
@@ -1,9 +1,11 @@
 package com.example.mysqlcrudapp.service;
 
+import com.example.mysqlcrudapp.dto.BlueprintVersionDto;
 import com.example.mysqlcrudapp.entity.BlueprintVersion;
 import com.example.mysqlcrudapp.exception.ResourceNotFoundException;
 import com.example.mysqlcrudapp.repository.BlueprintVersionRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -16,8 +18,16 @@ public class BlueprintVersionService {
     private final BlueprintVersionRepository blueprintVersionRepository;
     private final AuthenticationService authenticationService;
 
-    public List<BlueprintVersion> findAll() {
-        return blueprintVersionRepository.findAll();
+    public List<BlueprintVersionDto> findAllDtos() {
+        return blueprintVersionRepository.findAllDtos();
+    }
+
+    /**
+     * Fetches up to {@code size + 1} versions with an id greater than {@code afterId}, ordered by id.
+     * The extra row tells the caller whether another page exists.
+     */
+    public List<BlueprintVersionDto> findDtoPage(long afterId, int size) {
+        return blueprintVersionRepository.findDtoPage(afterId, PageRequest.of(0, size + 1));
     }
 
     public BlueprintVersion findById(Long id) {
@@ -29,6 +39,10 @@ public class BlueprintVersionService {
         return blueprintVersionRepository.findByBlueprintIdOrderByVersionNumberDesc(blueprintId);
     }
 
+    public List<BlueprintVersionDto> findDtosByBlueprintId(Long blueprintId) {
+        return blueprintVersionRepository.findDtosByBlueprintId(blueprintId);
+    }
+
     public BlueprintVersion findActiveVersion(Long blueprintId) {
         return blueprintVersionRepository.findActiveVersion(blueprintId)
                 .orElseThrow(() -> new ResourceNotFoundException("No active version found for blueprint: " + blueprintId));
@@ -57,9 +71,9 @@ public class BlueprintVersionService {
                 System.out.println("BlueprintVersionService: Auto-assigned version number: " + version.getVersionNumber());
             }
               // Set default values for missing fields
-            if (version.getCreatedBy() == null || version.getCreatedBy().isEmpty()) {
-                // Automatically set createdBy to current user's full name
-                version.setCreatedBy(authenticationService.getCurrentUserFullName());
+            if (version.getCreatedById() == null) {
+                // Record the current user, read from the session principal
+                version.setCreatedById(authenticationService.getCurrentUserId());
             }
             
             // Save version
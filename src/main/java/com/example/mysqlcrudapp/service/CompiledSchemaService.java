@@ -0,0 +1,114 @@
+package com.example.mysqlcrudapp.service;
+
+import com.example.mysqlcrudapp.entity.BlueprintVersion;
+import com.example.mysqlcrudapp.event.SchemaChangedEvent;
+import com.example.mysqlcrudapp.exception.ResourceNotFoundException;
+import com.example.mysqlcrudapp.persistence.ReplicaRoutingDataSource;
+import com.example.mysqlcrudapp.repository.BlueprintVersionFieldRepository;
+import com.example.mysqlcrudapp.repository.BlueprintVersionRepository;
+import com.example.mysqlcrudapp.schema.CompiledSchema;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Caches one {@link CompiledSchema} per blueprint version.
+ * <p>
+ * The cache is bounded by {@code app.schema-cache.max-size} and entries are dropped after any write to a
+ * field, version or version field commits. Active versions are compiled at startup so the first item
+ * writes after a deploy do not pay for it.
+ */
+@Slf4j
+@Service
+public class CompiledSchemaService implements MeterBinder {
+    private final BlueprintVersionRepository blueprintVersionRepository;
+    private final BlueprintVersionFieldRepository blueprintVersionFieldRepository;
+    private final ObjectMapper objectMapper;
+    private final LoadingCache<Long, CompiledSchema> schemas;
+
+    public CompiledSchemaService(BlueprintVersionRepository blueprintVersionRepository,
+                                 BlueprintVersionFieldRepository blueprintVersionFieldRepository,
+                                 ObjectMapper objectMapper,
+                                 @Value("${app.schema-cache.max-size:1000}") long maxSize) {
+        this.blueprintVersionRepository = blueprintVersionRepository;
+        this.blueprintVersionFieldRepository = blueprintVersionFieldRepository;
+        this.objectMapper = objectMapper;
+        this.schemas = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .recordStats()
+                .build(this::load);
+    }
+
+    /**
+     * @throws ResourceNotFoundException if the version does not exist
+     */
+    public CompiledSchema get(Long versionId) {
+        return find(versionId)
+                .orElseThrow(() -> new ResourceNotFoundException("Version not found with id: " + versionId));
+    }
+
+    public Optional<CompiledSchema> find(Long versionId) {
+        return Optional.ofNullable(schemas.get(versionId));
+    }
+
+    private CompiledSchema load(Long versionId) {
+        // Schemas are kept until the next schema change, so they must not come from a replica that lags behind
+        return ReplicaRoutingDataSource.readFromPrimary(() -> blueprintVersionRepository.findById(versionId)
+                .map(version -> CompiledSchema.compile(version,
+                        blueprintVersionFieldRepository.findWithFieldByBlueprintVersionId(versionId), objectMapper))
+                .orElse(null));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSchemaChanged(SchemaChangedEvent event) {
+        if (event.getVersionId() != null) {
+            schemas.invalidate(event.getVersionId());
+        } else {
+            schemas.asMap().values().removeIf(schema -> schema.usesField(event.getFieldId()));
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        try {
+            int count = 0;
+            for (BlueprintVersion version : ReplicaRoutingDataSource.readFromPrimary(blueprintVersionRepository::findByActiveTrue)) {
+                schemas.get(version.getId());
+                count++;
+            }
+            log.info("Compiled schemas of {} active blueprint versions", count);
+        } catch (RuntimeException e) {
+            log.warn("Could not warm the schema cache: {}", e.getMessage());
+        }
+    }
+
+    public Map<String, Object> getCacheStatistics() {
+        CacheStats stats = schemas.stats();
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        statistics.put("size", schemas.estimatedSize());
+        statistics.put("hits", stats.hitCount());
+        statistics.put("misses", stats.missCount());
+        statistics.put("evictions", stats.evictionCount());
+        statistics.put("averageLoadMillis", stats.averageLoadPenalty() / 1_000_000.0);
+        return statistics;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, schemas, "compiled.schemas");
+    }
+}
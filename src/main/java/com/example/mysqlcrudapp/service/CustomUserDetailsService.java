@@ -10,11 +10,15 @@ import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Arrays;
 import java.util.Collections;
 
 @Service
 @RequiredArgsConstructor
 public class CustomUserDetailsService implements UserDetailsService {
+    /** {@code User.userType} of administrators, who may also use the /api/admin endpoints */
+    public static final int ADMIN_USER_TYPE = 1;
+
     private final UserRepository userRepository;
 
     @Override
@@ -23,10 +27,14 @@ public class CustomUserDetailsService implements UserDetailsService {
         User user = userRepository.findByLogin(login)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found: " + login));
 
-        return new org.springframework.security.core.userdetails.User(
+        return new UserPrincipal(
+                user.getId(),
                 user.getLogin(),
                 user.getPasswordHash(),
-                Collections.singletonList(new SimpleGrantedAuthority("ROLE_USER"))
+                user.getFullName(),
+                Integer.valueOf(ADMIN_USER_TYPE).equals(user.getUserType())
+                        ? Arrays.asList(new SimpleGrantedAuthority("ROLE_USER"), new SimpleGrantedAuthority("ROLE_ADMIN"))
+                        : Collections.singletonList(new SimpleGrantedAuthority("ROLE_USER"))
         );
     }
 }
@@ -1,11 +1,12 @@
 package com.example.mysqlcrudapp.service;
 
+import com.example.mysqlcrudapp.dto.FieldDto;
 import com.example.mysqlcrudapp.entity.Field;
 import com.example.mysqlcrudapp.exception.ResourceNotFoundException;
 import com.example.mysqlcrudapp.repository.FieldRepository;
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.example.mysqlcrudapp.util.JsonUtils;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -16,33 +17,61 @@ import java.util.List;
 @Transactional(readOnly = true)
 public class FieldService {
     private final FieldRepository fieldRepository;
-    private final ObjectMapper objectMapper;
+    private final JsonUtils jsonUtils;
     private final AuthenticationService authenticationService;
+    private final ItemFieldIndexService itemFieldIndexService;
+    private final ItemLinkClosureService itemLinkClosureService;
 
     public List<Field> findAll() {
         return fieldRepository.findAll();
-    }public Field findById(Long id) {
+    }
+
+    /**
+     * Fetches up to {@code size + 1} fields with an id greater than {@code afterId}, ordered by id.
+     * The extra row tells the caller whether another page exists.
+     */
+    public List<FieldDto> findDtoPage(long afterId, int size) {
+        return fieldRepository.findDtoPage(afterId, PageRequest.of(0, size + 1));
+    }
+
+    public List<FieldDto> findAllDtos() {
+        return fieldRepository.findAllDtos();
+    }
+
+public Field findById(Long id) {
         return fieldRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Field not found with id: " + id));
     }
       @Transactional
     public Field create(Field field) {
-        // Automatically set createdBy to current user's full name
-        field.setCreatedBy(authenticationService.getCurrentUserFullName());
+        // Record the current user, read from the session principal
+        field.setCreatedById(authenticationService.getCurrentUserId());
         
         // Ensure JSON fields are properly formatted
-        field.setDefaultJson(ensureValidJson(field.getDefaultJson()));
-        field.setValidationJson(ensureValidJson(field.getValidationJson()));
-        field.setOptionsJson(ensureValidJson(field.getOptionsJson()));
-        field.setSettingsJson(ensureValidJson(field.getSettingsJson()));
-        
-        return fieldRepository.save(field);
+        field.setDefaultJson(jsonUtils.ensureValidJson(field.getDefaultJson()));
+        field.setValidationJson(jsonUtils.ensureValidJson(field.getValidationJson()));
+        field.setOptionsJson(jsonUtils.ensureValidJson(field.getOptionsJson()));
+        field.setSettingsJson(jsonUtils.ensureValidJson(field.getSettingsJson()));
+
+        itemFieldIndexService.validate(field);
+        Field saved = fieldRepository.save(field);
+        if (Boolean.TRUE.equals(saved.getIndexed())) {
+            itemFieldIndexService.reconcileAfterCommit(saved.getKey());
+        }
+        if (Boolean.TRUE.equals(saved.getAcyclic())) {
+            itemLinkClosureService.build(saved.getId());
+        }
+        return saved;
     }
 
     @Transactional
     public Field update(Long id, Field fieldDetails) {
         return fieldRepository.findById(id)
                 .map(field -> {
+                    String previousKey = field.getKey();
+                    boolean wasIndexed = Boolean.TRUE.equals(field.getIndexed());
+                    boolean wasAcyclic = Boolean.TRUE.equals(field.getAcyclic());
+
                     field.setKey(fieldDetails.getKey());
                     field.setLabel(fieldDetails.getLabel());
                     field.setDescription(fieldDetails.getDescription());
@@ -50,48 +79,70 @@ public class FieldService {
                     field.setWidget(fieldDetails.getWidget());
                     
                     // Ensure JSON fields are properly formatted
-                    field.setDefaultJson(ensureValidJson(fieldDetails.getDefaultJson()));
-                    field.setValidationJson(ensureValidJson(fieldDetails.getValidationJson()));
-                    field.setOptionsJson(ensureValidJson(fieldDetails.getOptionsJson()));
-                    field.setSettingsJson(ensureValidJson(fieldDetails.getSettingsJson()));
+                    field.setDefaultJson(jsonUtils.ensureValidJson(fieldDetails.getDefaultJson()));
+                    field.setValidationJson(jsonUtils.ensureValidJson(fieldDetails.getValidationJson()));
+                    field.setOptionsJson(jsonUtils.ensureValidJson(fieldDetails.getOptionsJson()));
+                    field.setSettingsJson(jsonUtils.ensureValidJson(fieldDetails.getSettingsJson()));
                     
                     field.setMinNumber(fieldDetails.getMinNumber());
                     field.setMaxNumber(fieldDetails.getMaxNumber());
                     field.setOrderIndex(fieldDetails.getOrderIndex());
-                    field.setGroupName(fieldDetails.getGroupName());                    return fieldRepository.save(field);
+                    field.setGroupName(fieldDetails.getGroupName());
+                    // Clients that do not know about indexing leave the flag untouched
+                    if (fieldDetails.getIndexed() != null) {
+                        field.setIndexed(fieldDetails.getIndexed());
+                    }
+                    if (fieldDetails.getAcyclic() != null) {
+                        field.setAcyclic(fieldDetails.getAcyclic());
+                    }
+
+                    itemFieldIndexService.validate(field);
+                    Field saved = fieldRepository.save(field);
+                    // Reconciling is idempotent, so any change to an indexed field simply re-checks its key(s)
+                    if (wasIndexed || Boolean.TRUE.equals(saved.getIndexed())) {
+                        if (!saved.getKey().equals(previousKey)) {
+                            itemFieldIndexService.reconcileAfterCommit(previousKey);
+                        }
+                        itemFieldIndexService.reconcileAfterCommit(saved.getKey());
+                    }
+                    // Turning acyclicity on checks the existing links and indexes them; turning it off drops the index
+                    boolean acyclic = Boolean.TRUE.equals(saved.getAcyclic());
+                    if (acyclic && !wasAcyclic) {
+                        itemLinkClosureService.build(saved.getId());
+                    } else if (!acyclic && wasAcyclic) {
+                        itemLinkClosureService.clear(saved.getId());
+                    }
+                    return saved;
                 })
                 .orElseThrow(() -> new ResourceNotFoundException("Field not found with id: " + id));
     }
 
+    /**
+     * Turns the item data index for a field on or off. The index itself is built or dropped in the background.
+     */
+    @Transactional
+    public Field setIndexed(Long id, boolean indexed) {
+        Field field = findById(id);
+        field.setIndexed(indexed);
+        itemFieldIndexService.validate(field);
+        Field saved = fieldRepository.save(field);
+        itemFieldIndexService.reconcileAfterCommit(saved.getKey());
+        return saved;
+    }
+
     public boolean existsById(Long id) {
         return fieldRepository.existsById(id);
     }
 
     @Transactional
     public void deleteById(Long id) {
-        if (!existsById(id)) {
-            throw new ResourceNotFoundException("Field not found with id: " + id);
+        Field field = findById(id);
+        fieldRepository.delete(field);
+        if (Boolean.TRUE.equals(field.getIndexed())) {
+            itemFieldIndexService.reconcileAfterCommit(field.getKey());
         }
-        fieldRepository.deleteById(id);
-    }
-
-    /**
-     * Ensures that a string is valid JSON or returns a default value
-     * 
-     * @param input The JSON string to validate
-     * @return A valid JSON string, or "{}" if input is invalid
-     */
-    private String ensureValidJson(String input) {
-        if (input == null || input.trim().isEmpty()) {
-            return "{}";
-        }
-        
-        try {
-            // Parse and re-stringify to normalize format
-            Object parsed = objectMapper.readValue(input, Object.class);
-            return objectMapper.writeValueAsString(parsed);
-        } catch (JsonProcessingException e) {
-            return "{}";
+        if (Boolean.TRUE.equals(field.getAcyclic())) {
+            itemLinkClosureService.clear(id);
         }
     }
 }
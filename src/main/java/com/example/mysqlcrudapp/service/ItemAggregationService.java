@@ -0,0 +1,176 @@
+package com.example.mysqlcrudapp.service;
+
+import com.example.mysqlcrudapp.aggregation.ColumnarTable;
+import com.example.mysqlcrudapp.aggregation.ColumnarTable.ColumnType;
+import com.example.mysqlcrudapp.dto.BlueprintVersionDto;
+import com.example.mysqlcrudapp.dto.ItemAggregationQueryDto;
+import com.example.mysqlcrudapp.dto.ItemAggregationResultDto;
+import com.example.mysqlcrudapp.dto.ItemDto;
+import com.example.mysqlcrudapp.event.ItemChangedEvent;
+import com.example.mysqlcrudapp.event.SchemaChangedEvent;
+import com.example.mysqlcrudapp.exception.ResourceNotFoundException;
+import com.example.mysqlcrudapp.persistence.ReplicaRoutingDataSource;
+import com.example.mysqlcrudapp.repository.BlueprintRepository;
+import com.example.mysqlcrudapp.repository.BlueprintVersionRepository;
+import com.example.mysqlcrudapp.repository.ItemRepository;
+import com.example.mysqlcrudapp.schema.CompiledField;
+import com.example.mysqlcrudapp.schema.CompiledSchema;
+import com.example.mysqlcrudapp.util.JsonPathSql.ValueType;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Counts, sums, min/max and histograms of item field values per blueprint, computed in memory.
+ * <p>
+ * Each blueprint's items are loaded into a {@link ColumnarTable} on its first aggregation and kept up to date
+ * from {@link ItemChangedEvent}s after commit. At most {@code app.aggregation.max-blueprints} tables are kept;
+ * all are dropped when a field or version changes, since that can change which columns a table needs.
+ */
+@Service
+public class ItemAggregationService implements MeterBinder {
+    private static final int LOAD_PAGE_SIZE = 1000;
+    private static final int DEFAULT_HISTOGRAM_BUCKETS = 10;
+
+    private final ItemRepository itemRepository;
+    private final BlueprintRepository blueprintRepository;
+    private final BlueprintVersionRepository blueprintVersionRepository;
+    private final CompiledSchemaService compiledSchemaService;
+    private final JsonFactory jsonFactory;
+    private final Cache<Long, ColumnarTable> tables;
+
+    public ItemAggregationService(ItemRepository itemRepository,
+                                  BlueprintRepository blueprintRepository,
+                                  BlueprintVersionRepository blueprintVersionRepository,
+                                  CompiledSchemaService compiledSchemaService,
+                                  ObjectMapper objectMapper,
+                                  @Value("${app.aggregation.max-blueprints:100}") long maxBlueprints) {
+        this.itemRepository = itemRepository;
+        this.blueprintRepository = blueprintRepository;
+        this.blueprintVersionRepository = blueprintVersionRepository;
+        this.compiledSchemaService = compiledSchemaService;
+        this.jsonFactory = objectMapper.getFactory();
+        this.tables = Caffeine.newBuilder()
+                .maximumSize(maxBlueprints)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * @throws IllegalArgumentException if the blueprint is missing or a field cannot be grouped or aggregated
+     * @throws ResourceNotFoundException if the blueprint does not exist
+     */
+    public ItemAggregationResultDto aggregate(ItemAggregationQueryDto query) {
+        if (query.getBlueprintId() == null) {
+            throw new IllegalArgumentException("blueprintId is required");
+        }
+        Long blueprintId = query.getBlueprintId();
+        if (!blueprintRepository.existsById(blueprintId)) {
+            tables.invalidate(blueprintId);
+            throw new ResourceNotFoundException("Blueprint not found with id: " + blueprintId);
+        }
+        // Tables are loaded from the primary, as they are kept up to date from changes committed after the load
+        ColumnarTable table = ReplicaRoutingDataSource.readFromPrimary(() -> tables.get(blueprintId, this::newTable));
+        try {
+            table.load(sink -> ReplicaRoutingDataSource.readFromPrimary(() -> {
+                long afterId = 0;
+                List<ItemDto> page;
+                do {
+                    page = itemRepository.findDtoPageByBlueprintId(blueprintId, afterId, PageRequest.of(0, LOAD_PAGE_SIZE));
+                    for (ItemDto item : page) {
+                        sink.add(item.getId(), item.getCurrentState(), item.getDataJson());
+                        afterId = item.getId();
+                    }
+                } while (page.size() == LOAD_PAGE_SIZE);
+            }));
+        } catch (RuntimeException e) {
+            // Do not keep an unloaded table collecting changes nobody will replay
+            tables.asMap().remove(blueprintId, table);
+            throw e;
+        }
+        int buckets = query.getHistogramBuckets() != null ? query.getHistogramBuckets() : DEFAULT_HISTOGRAM_BUCKETS;
+        return table.aggregate(query.getGroupBy(), query.getFields(), query.getHistogramField(), buckets);
+    }
+
+    /**
+     * Lays out a table for the fields of every version of a blueprint: number and date fields, and string fields
+     * with options or of boolean type. Where versions disagree on a key's type, the newest version wins.
+     */
+    private ColumnarTable newTable(Long blueprintId) {
+        Map<String, ColumnType> columnTypes = new HashMap<>();
+        // Newest version first
+        for (BlueprintVersionDto version : blueprintVersionRepository.findDtosByBlueprintId(blueprintId)) {
+            CompiledSchema schema = compiledSchemaService.find(version.getId()).orElse(null);
+            if (schema == null) {
+                continue;
+            }
+            for (CompiledField field : schema.getFields()) {
+                ColumnType type = columnType(field);
+                if (type != null) {
+                    columnTypes.putIfAbsent(field.getKey(), type);
+                }
+            }
+        }
+        return new ColumnarTable(blueprintId, columnTypes, jsonFactory);
+    }
+
+    private static ColumnType columnType(CompiledField field) {
+        ValueType valueType = ValueType.fromFieldType(field.getType());
+        if (valueType == ValueType.NUMBER) {
+            return ColumnType.NUMBER;
+        }
+        if (valueType == ValueType.DATE) {
+            return ColumnType.DATE;
+        }
+        boolean categorical = "boolean".equalsIgnoreCase(field.getType())
+                || (field.getOptions() != null && !field.getOptions().isEmpty());
+        return valueType == ValueType.STRING && categorical ? ColumnType.DICTIONARY : null;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onItemChanged(ItemChangedEvent event) {
+        for (ColumnarTable table : tables.asMap().values()) {
+            // An update may have moved the item to another blueprint, so every other table drops it
+            if (!event.isDeleted() && table.getBlueprintId().equals(event.getBlueprintId())) {
+                table.upsert(event.getItemId(), event.getCurrentState(), event.getDataJson());
+            } else {
+                table.remove(event.getItemId());
+            }
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSchemaChanged(SchemaChangedEvent event) {
+        tables.invalidateAll();
+    }
+
+    public Map<String, Object> getStatistics() {
+        CacheStats stats = tables.stats();
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        statistics.put("blueprints", tables.estimatedSize());
+        statistics.put("items", tables.asMap().values().stream().mapToLong(ColumnarTable::size).sum());
+        statistics.put("hits", stats.hitCount());
+        statistics.put("misses", stats.missCount());
+        statistics.put("evictions", stats.evictionCount());
+        return statistics;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, tables, "aggregation.tables");
+    }
+}
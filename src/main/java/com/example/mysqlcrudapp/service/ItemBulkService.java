@@ -0,0 +1,312 @@
+package com.example.mysqlcrudapp.service;
+
+import com.example.mysqlcrudapp.dto.BulkItemResultDto;
+import com.example.mysqlcrudapp.dto.ItemDto;
+import com.example.mysqlcrudapp.dto.ItemValidationErrorDto;
+import com.example.mysqlcrudapp.entity.Blueprint;
+import com.example.mysqlcrudapp.entity.BlueprintVersion;
+import com.example.mysqlcrudapp.entity.Item;
+import com.example.mysqlcrudapp.event.ItemChangedEvent;
+import com.example.mysqlcrudapp.exception.ItemValidationException;
+import com.example.mysqlcrudapp.repository.BlueprintVersionRepository;
+import com.example.mysqlcrudapp.repository.ItemRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Creates and updates items from a streamed JSON array of {@link ItemDto}.
+ * <p>
+ * Rows are read one at a time and written in chunks of {@link #CHUNK_SIZE}, each in its own transaction.
+ * Within a chunk, versions, active versions and existing items are looked up with one query each,
+ * and inserts and updates are sent as JDBC batches. Results are streamed back as the chunks commit,
+ * one per input row and in input order.
+ * <p>
+ * Rows without an id are created. Rows with an id update that item and fail if it does not exist.
+ * Data is checked against the version's fields with the same cached validator as single item writes.
+ * A row that fails validation is reported without affecting the rest of its chunk;
+ * if a chunk fails to commit, every row of that chunk is reported as failed.
+ */
+@Slf4j
+@Service
+public class ItemBulkService {
+    static final int CHUNK_SIZE = 500;
+
+    private final ItemRepository itemRepository;
+    private final BlueprintVersionRepository blueprintVersionRepository;
+    private final AuthenticationService authenticationService;
+    private final ItemValidationService itemValidationService;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public ItemBulkService(ItemRepository itemRepository,
+                           BlueprintVersionRepository blueprintVersionRepository,
+                           AuthenticationService authenticationService,
+                           ItemValidationService itemValidationService,
+                           ObjectMapper objectMapper,
+                           PlatformTransactionManager transactionManager,
+                           ApplicationEventPublisher eventPublisher) {
+        this.itemRepository = itemRepository;
+        this.blueprintVersionRepository = blueprintVersionRepository;
+        this.authenticationService = authenticationService;
+        this.itemValidationService = itemValidationService;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * Reads a JSON array of items from {@code in} and writes a JSON array of {@link BulkItemResultDto} to {@code out}
+     *
+     * @throws IllegalArgumentException if the body is not a JSON array
+     */
+    public void process(InputStream in, OutputStream out) throws IOException {
+        JsonParser parser = objectMapper.getFactory().createParser(in);
+        if (parser.nextToken() != JsonToken.START_ARRAY) {
+            throw new IllegalArgumentException("Request body must be a JSON array of items");
+        }
+
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        generator.writeStartArray();
+
+        BatchContext context = new BatchContext(authenticationService.getCurrentUserId());
+        List<Row> chunk = new ArrayList<>(CHUNK_SIZE);
+        int index = 0;
+        while (true) {
+            JsonNode node;
+            try {
+                if (parser.nextToken() != JsonToken.START_OBJECT) {
+                    break;
+                }
+                node = parser.readValueAsTree();
+            } catch (JsonProcessingException e) {
+                // The stream cannot be resynchronized after malformed JSON; report it and stop reading
+                writeChunk(generator, chunk, context);
+                generator.writeObject(BulkItemResultDto.error(index, null, "Malformed JSON: " + e.getOriginalMessage()));
+                break;
+            }
+
+            Row row = new Row(index++);
+            try {
+                row.dto = objectMapper.treeToValue(node, ItemDto.class);
+            } catch (JsonProcessingException e) {
+                row.result = BulkItemResultDto.error(row.index, null, "Invalid item: " + e.getOriginalMessage());
+            }
+            chunk.add(row);
+            if (chunk.size() == CHUNK_SIZE) {
+                writeChunk(generator, chunk, context);
+            }
+        }
+        writeChunk(generator, chunk, context);
+
+        generator.writeEndArray();
+        generator.flush();
+    }
+
+    private void writeChunk(JsonGenerator generator, List<Row> chunk, BatchContext context) throws IOException {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> saveChunk(chunk, context));
+        } catch (RuntimeException e) {
+            log.warn("Bulk item chunk of {} rows starting at index {} failed", chunk.size(), chunk.get(0).index, e);
+            String message = "Chunk failed: " + rootMessage(e);
+            for (Row row : chunk) {
+                if (row.result == null || !BulkItemResultDto.ERROR.equals(row.result.getStatus())) {
+                    Long id = row.dto != null ? row.dto.getId() : null;
+                    row.result = BulkItemResultDto.error(row.index, id, message);
+                }
+            }
+        }
+        for (Row row : chunk) {
+            generator.writeObject(row.result);
+        }
+        generator.flush();
+        chunk.clear();
+    }
+
+    private void saveChunk(List<Row> chunk, BatchContext context) {
+        resolveVersions(chunk, context);
+
+        Set<Long> existingIds = chunk.stream()
+                .filter(row -> row.result == null && row.dto.getId() != null)
+                .map(row -> row.dto.getId())
+                .collect(Collectors.toSet());
+        Map<Long, Item> existing = existingIds.isEmpty()
+                ? new HashMap<>()
+                : itemRepository.findAllById(existingIds).stream().collect(Collectors.toMap(Item::getId, Function.identity()));
+
+        List<Item> toInsert = new ArrayList<>();
+        List<Row> inserted = new ArrayList<>();
+        List<Item> saved = new ArrayList<>();
+        for (Row row : chunk) {
+            if (row.result != null) {
+                continue;
+            }
+            ItemDto dto = row.dto;
+            Long versionId = row.versionId;
+            Long blueprintId = context.blueprintOfVersion.get(versionId);
+
+            String dataJson = dto.getDataJson() == null || dto.getDataJson().trim().isEmpty() ? "{}" : dto.getDataJson();
+            List<ItemValidationErrorDto> errors = itemValidationService.validate(versionId, dataJson);
+            if (!errors.isEmpty()) {
+                row.result = BulkItemResultDto.error(row.index, dto.getId(), ItemValidationException.describe(errors));
+                continue;
+            }
+
+            Item item;
+            if (dto.getId() != null) {
+                item = existing.get(dto.getId());
+                if (item == null) {
+                    row.result = BulkItemResultDto.error(row.index, dto.getId(), "Item not found with id: " + dto.getId());
+                    continue;
+                }
+                row.result = new BulkItemResultDto(row.index, item.getId(), BulkItemResultDto.UPDATED, null);
+            } else {
+                item = new Item();
+                item.setCreatedById(context.createdById);
+                toInsert.add(item);
+                inserted.add(row);
+            }
+            item.setBlueprint(entityManager.getReference(Blueprint.class, blueprintId));
+            item.setVersion(entityManager.getReference(BlueprintVersion.class, versionId));
+            item.setCurrentState(dto.getCurrentState());
+            item.setDataJson(dataJson);
+            saved.add(item);
+        }
+
+        // Ids come from the pooled generator, so these persists are queued and flushed as one batch
+        itemRepository.saveAll(toInsert);
+        for (int i = 0; i < inserted.size(); i++) {
+            Row row = inserted.get(i);
+            row.result = new BulkItemResultDto(row.index, toInsert.get(i).getId(), BulkItemResultDto.CREATED, null);
+        }
+        entityManager.flush();
+        // Events hold ids and data, not the entities, so they survive the clear
+        saved.forEach(item -> eventPublisher.publishEvent(ItemChangedEvent.saved(item)));
+        entityManager.clear();
+    }
+
+    /**
+     * Resolves the version of every row, loading any versions and active versions not seen in earlier chunks
+     */
+    private void resolveVersions(List<Row> chunk, BatchContext context) {
+        Set<Long> unknownVersions = new HashSet<>();
+        Set<Long> unknownActive = new HashSet<>();
+        for (Row row : chunk) {
+            if (row.result != null) {
+                continue;
+            }
+            ItemDto dto = row.dto;
+            if (dto.getVersionId() != null) {
+                if (!context.blueprintOfVersion.containsKey(dto.getVersionId())) {
+                    unknownVersions.add(dto.getVersionId());
+                }
+            } else if (dto.getBlueprintId() != null) {
+                if (!context.activeVersionOfBlueprint.containsKey(dto.getBlueprintId())) {
+                    unknownActive.add(dto.getBlueprintId());
+                }
+            }
+        }
+
+        if (!unknownVersions.isEmpty()) {
+            for (BlueprintVersion version : blueprintVersionRepository.findAllById(unknownVersions)) {
+                context.blueprintOfVersion.put(version.getId(), version.getBlueprint().getId());
+            }
+        }
+        for (Long blueprintId : unknownActive) {
+            Optional<BlueprintVersion> active = blueprintVersionRepository.findActiveVersion(blueprintId);
+            context.activeVersionOfBlueprint.put(blueprintId, active.map(BlueprintVersion::getId).orElse(null));
+            active.ifPresent(version -> context.blueprintOfVersion.put(version.getId(), blueprintId));
+        }
+
+        for (Row row : chunk) {
+            if (row.result != null) {
+                continue;
+            }
+            ItemDto dto = row.dto;
+            if (dto.getVersionId() != null) {
+                Long blueprintId = context.blueprintOfVersion.get(dto.getVersionId());
+                if (blueprintId == null) {
+                    row.result = BulkItemResultDto.error(row.index, dto.getId(), "Version not found with id: " + dto.getVersionId());
+                } else if (dto.getBlueprintId() != null && !dto.getBlueprintId().equals(blueprintId)) {
+                    row.result = BulkItemResultDto.error(row.index, dto.getId(),
+                            "Version " + dto.getVersionId() + " does not belong to blueprint " + dto.getBlueprintId());
+                } else {
+                    row.versionId = dto.getVersionId();
+                }
+            } else if (dto.getBlueprintId() != null) {
+                Long activeVersionId = context.activeVersionOfBlueprint.get(dto.getBlueprintId());
+                if (activeVersionId == null) {
+                    row.result = BulkItemResultDto.error(row.index, dto.getId(),
+                            "No active version for blueprint with id: " + dto.getBlueprintId());
+                } else {
+                    row.versionId = activeVersionId;
+                }
+            } else {
+                row.result = BulkItemResultDto.error(row.index, dto.getId(), "blueprintId or versionId is required");
+            }
+        }
+    }
+
+    private static String rootMessage(Throwable e) {
+        Throwable root = e;
+        while (root.getCause() != null && root.getCause() != root) {
+            root = root.getCause();
+        }
+        return root.getMessage() != null ? root.getMessage() : root.getClass().getSimpleName();
+    }
+
+    private static class Row {
+        final int index;
+        ItemDto dto;
+        Long versionId;
+        BulkItemResultDto result;
+
+        Row(int index) {
+            this.index = index;
+        }
+    }
+
+    /**
+     * Lookups shared by all chunks of one request
+     */
+    private static class BatchContext {
+        final Long createdById;
+        final Map<Long, Long> blueprintOfVersion = new HashMap<>();
+        final Map<Long, Long> activeVersionOfBlueprint = new HashMap<>();
+
+        BatchContext(Long createdById) {
+            this.createdById = createdById;
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package com.example.mysqlcrudapp.service;
+
+import com.example.mysqlcrudapp.entity.BlueprintVersion;
+import com.example.mysqlcrudapp.entity.Item;
+import com.example.mysqlcrudapp.repository.BlueprintVersionRepository;
+import com.example.mysqlcrudapp.repository.ItemRepository;
+import com.example.mysqlcrudapp.schema.CompiledField;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Writes every item of a blueprint or version as NDJSON or CSV.
+ * <p>
+ * Items are read through a forward-only cursor and detached as soon as they are written,
+ * so memory use does not grow with the number of items exported. Nothing else may be queried while the
+ * cursor is open, so the authors' names are resolved before it is opened.
+ */
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class ItemExportService {
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+    private static final String[] CSV_BASE_COLUMNS = {"id", "blueprint_id", "version_id", "current_state", "created_by", "created_at"};
+
+    public enum Format {
+        NDJSON("application/x-ndjson", "ndjson"),
+        CSV("text/csv", "csv");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        public static Format parse(String value) {
+            for (Format format : values()) {
+                if (format.extension.equalsIgnoreCase(value)) {
+                    return format;
+                }
+            }
+            throw new IllegalArgumentException("Unsupported export format: " + value);
+        }
+    }
+
+    private final ItemRepository itemRepository;
+    private final BlueprintVersionRepository blueprintVersionRepository;
+    private final CompiledSchemaService compiledSchemaService;
+    private final UserDirectoryService userDirectoryService;
+    private final ObjectMapper objectMapper;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Exports all items of a blueprint, across versions
+     *
+     * @param columnsVersionId Version whose fields define the CSV columns; the active version when null
+     */
+    public void exportBlueprint(Long blueprintId, Long columnsVersionId, Format format, OutputStream out) throws IOException {
+        Long versionId = columnsVersionId != null
+                ? columnsVersionId
+                : blueprintVersionRepository.findActiveVersion(blueprintId).map(BlueprintVersion::getId).orElse(null);
+        List<String> fieldKeys = format == Format.CSV ? fieldKeys(versionId) : Collections.emptyList();
+        Map<Long, String> authors = userDirectoryService.displayNames(itemRepository.findCreatorIdsByBlueprintId(blueprintId));
+        try (Stream<Item> items = itemRepository.streamByBlueprintId(blueprintId)) {
+            write(items.iterator(), format, fieldKeys, authors, out);
+        }
+    }
+
+    public void exportVersion(Long versionId, Format format, OutputStream out) throws IOException {
+        List<String> fieldKeys = format == Format.CSV ? fieldKeys(versionId) : Collections.emptyList();
+        Map<Long, String> authors = userDirectoryService.displayNames(itemRepository.findCreatorIdsByVersionId(versionId));
+        try (Stream<Item> items = itemRepository.streamByVersionId(versionId)) {
+            write(items.iterator(), format, fieldKeys, authors, out);
+        }
+    }
+
+    private List<String> fieldKeys(Long versionId) {
+        List<String> keys = new ArrayList<>();
+        if (versionId != null) {
+            for (CompiledField field : compiledSchemaService.get(versionId).getFields()) {
+                keys.add(field.getKey());
+            }
+        }
+        return keys;
+    }
+
+    private void write(Iterator<Item> items, Format format, List<String> fieldKeys, Map<Long, String> authors,
+                       OutputStream out) throws IOException {
+        if (format == Format.NDJSON) {
+            writeNdjson(items, authors, out);
+        } else {
+            writeCsv(items, fieldKeys, authors, out);
+        }
+    }
+
+    private void writeNdjson(Iterator<Item> items, Map<Long, String> authors, OutputStream out) throws IOException {
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        while (items.hasNext()) {
+            Item item = items.next();
+            generator.writeStartObject();
+            generator.writeNumberField("id", item.getId());
+            generator.writeNumberField("blueprintId", item.getBlueprint().getId());
+            generator.writeNumberField("versionId", item.getVersion().getId());
+            generator.writeStringField("currentState", item.getCurrentState());
+            generator.writeStringField("createdBy", author(authors, item.getCreatedById()));
+            generator.writeStringField("createdAt", item.getCreatedAt() != null ? item.getCreatedAt().toString() : null);
+            generator.writeFieldName("data");
+            // data_json is a MySQL JSON column, so it is already valid JSON and can be copied without parsing
+            generator.writeRawValue(item.getDataJson());
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+            entityManager.detach(item);
+        }
+        generator.flush();
+    }
+
+    private void writeCsv(Iterator<Item> items, List<String> fieldKeys, Map<Long, String> authors, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), WRITE_BUFFER_SIZE);
+        List<String> header = new ArrayList<>();
+        Collections.addAll(header, CSV_BASE_COLUMNS);
+        header.addAll(fieldKeys);
+        writeCsvRow(writer, header);
+
+        List<String> row = new ArrayList<>(header.size());
+        while (items.hasNext()) {
+            Item item = items.next();
+            row.clear();
+            row.add(String.valueOf(item.getId()));
+            row.add(String.valueOf(item.getBlueprint().getId()));
+            row.add(String.valueOf(item.getVersion().getId()));
+            row.add(item.getCurrentState());
+            row.add(author(authors, item.getCreatedById()));
+            row.add(item.getCreatedAt() != null ? item.getCreatedAt().toString() : null);
+
+            JsonNode data = item.getDataJson() != null ? objectMapper.readTree(item.getDataJson()) : null;
+            for (String key : fieldKeys) {
+                JsonNode value = data != null ? data.get(key) : null;
+                if (value == null || value.isNull()) {
+                    row.add(null);
+                } else {
+                    row.add(value.isValueNode() ? value.asText() : value.toString());
+                }
+            }
+            writeCsvRow(writer, row);
+            entityManager.detach(item);
+        }
+        writer.flush();
+    }
+
+    /**
+     * Name of an item's author from the names resolved up front; an author added after they were resolved is
+     * shown by id rather than queried with the cursor open
+     */
+    private static String author(Map<Long, String> authors, Long userId) {
+        if (userId == null) {
+            return UserDirectoryService.SYSTEM_NAME;
+        }
+        String name = authors.get(userId);
+        return name != null ? name : UserDirectoryService.unknownName(userId);
+    }
+
+    private static void writeCsvRow(Writer writer, List<String> values) throws IOException {
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            String value = values.get(i);
+            if (value == null) {
+                continue;
+            }
+            if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0) {
+                writer.write('"');
+                writer.write(value.replace("\"", "\"\""));
+                writer.write('"');
+            } else {
+                writer.write(value);
+            }
+        }
+        writer.write("\r\n");
+    }
+}
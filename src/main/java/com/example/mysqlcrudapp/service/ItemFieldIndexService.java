@@ -0,0 +1,214 @@
+package com.example.mysqlcrudapp.service;
+
+import com.example.mysqlcrudapp.entity.Field;
+import com.example.mysqlcrudapp.persistence.ReplicaRoutingDataSource;
+import com.example.mysqlcrudapp.repository.FieldRepository;
+import com.example.mysqlcrudapp.util.JsonPathSql;
+import com.example.mysqlcrudapp.util.JsonPathSql.ValueType;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PreDestroy;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Maintains a generated column and index on the item table for every field flagged as indexed.
+ * <p>
+ * The column is VIRTUAL, so adding it does not rebuild the table; the index is then built with
+ * ALGORITHM=INPLACE, LOCK=NONE, which backfills it from existing rows while item writes keep going.
+ * DDL runs on a single background thread after the field change commits, so requests never wait on it.
+ * <p>
+ * A field only counts as READY once information_schema.STATISTICS lists its index. A column left without one,
+ * as when the application stops between the two statements, gets the index built by the next reconcile;
+ * startup schedules one for every indexed field that is not READY.
+ */
+@Slf4j
+@Service
+public class ItemFieldIndexService {
+    public static final String BUILDING = "BUILDING";
+    public static final String READY = "READY";
+    public static final String DROPPING = "DROPPING";
+    public static final String FAILED = "FAILED";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final FieldRepository fieldRepository;
+    private final ExecutorService ddlExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "item-field-index");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Map<String, String> states = new ConcurrentHashMap<>();
+    private volatile boolean statesLoaded;
+
+    public ItemFieldIndexService(JdbcTemplate jdbcTemplate, FieldRepository fieldRepository) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.fieldRepository = fieldRepository;
+    }
+
+    /**
+     * Checks that a field can be indexed before its indexed flag is saved
+     *
+     * @throws IllegalArgumentException if the key is not a plain identifier or the type has no scalar SQL form
+     */
+    public void validate(Field field) {
+        if (!Boolean.TRUE.equals(field.getIndexed())) {
+            return;
+        }
+        JsonPathSql.requireSafeKey(field.getKey());
+        if (ValueType.fromFieldType(field.getType()) == null) {
+            throw new IllegalArgumentException("Fields of type " + field.getType() + " cannot be indexed");
+        }
+    }
+
+    /**
+     * Schedules {@link #reconcile(String)} for a field key once the current transaction commits
+     */
+    public void reconcileAfterCommit(String key) {
+        if (!JsonPathSql.isSafeKey(key)) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    ddlExecutor.submit(() -> reconcile(key));
+                }
+            });
+        } else {
+            ddlExecutor.submit(() -> reconcile(key));
+        }
+    }
+
+    /**
+     * Brings the generated column for a key in line with the fields that use it:
+     * creates it when some field with this key is indexed, drops it when none is,
+     * and recreates it when the field type no longer matches the column type.
+     */
+    public void reconcile(String key) {
+        ensureStatesLoaded();
+        Optional<Field> indexedField = fieldRepository.findFirstByKeyAndIndexedTrue(key);
+        ValueType wanted = indexedField.map(field -> ValueType.fromFieldType(field.getType())).orElse(null);
+        String existingType = columnDataType(key);
+
+        try {
+            if (existingType != null && (wanted == null || !wanted.getSqlType().toLowerCase().startsWith(existingType))) {
+                dropIndex(key);
+                existingType = null;
+            }
+            if (wanted != null && existingType == null) {
+                createIndex(key, wanted);
+            } else if (wanted != null && !indexExists(key)) {
+                buildIndex(key);
+            } else if (wanted != null) {
+                states.put(key, READY);
+            }
+        } catch (RuntimeException e) {
+            log.error("Failed to reconcile index for field key {}", key, e);
+            states.put(key, FAILED);
+        }
+    }
+
+    /**
+     * @return true if lookups on this key can read the generated column instead of parsing data_json
+     */
+    public boolean isReady(String key) {
+        ensureStatesLoaded();
+        return READY.equals(states.get(key));
+    }
+
+    public Map<String, String> getStates() {
+        ensureStatesLoaded();
+        return new TreeMap<>(states);
+    }
+
+    private void createIndex(String key, ValueType type) {
+        String column = JsonPathSql.generatedColumnName(key);
+        states.put(key, BUILDING);
+        log.info("Adding generated column {} ({}) to item", column, type.getSqlType());
+        jdbcTemplate.execute("ALTER TABLE item ADD COLUMN " + column + " " + type.getSqlType()
+                + " GENERATED ALWAYS AS (" + JsonPathSql.valueExpression(key, type) + ") VIRTUAL");
+        buildIndex(key);
+    }
+
+    private void buildIndex(String key) {
+        String column = JsonPathSql.generatedColumnName(key);
+        states.put(key, BUILDING);
+        long started = System.currentTimeMillis();
+        jdbcTemplate.execute("ALTER TABLE item ADD INDEX " + JsonPathSql.indexName(key)
+                + " (blueprint_id, " + column + "), ALGORITHM=INPLACE, LOCK=NONE");
+        log.info("Built index {} in {} ms", JsonPathSql.indexName(key), System.currentTimeMillis() - started);
+        states.put(key, READY);
+    }
+
+    private void dropIndex(String key) {
+        states.put(key, DROPPING);
+        log.info("Dropping generated column {} from item", JsonPathSql.generatedColumnName(key));
+        // Dropping the column also drops the index over it
+        jdbcTemplate.execute("ALTER TABLE item DROP COLUMN " + JsonPathSql.generatedColumnName(key)
+                + ", ALGORITHM=INPLACE, LOCK=NONE");
+        states.remove(key);
+    }
+
+    private String columnDataType(String key) {
+        List<String> types = jdbcTemplate.queryForList(
+                "SELECT DATA_TYPE FROM information_schema.COLUMNS "
+                        + "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'item' AND COLUMN_NAME = ?",
+                String.class, JsonPathSql.generatedColumnName(key));
+        return types.isEmpty() ? null : types.get(0).toLowerCase();
+    }
+
+    private boolean indexExists(String key) {
+        return !jdbcTemplate.queryForList(
+                "SELECT INDEX_NAME FROM information_schema.STATISTICS "
+                        + "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'item' AND INDEX_NAME = ?",
+                String.class, JsonPathSql.indexName(key)).isEmpty();
+    }
+
+    private void ensureStatesLoaded() {
+        if (statesLoaded) {
+            return;
+        }
+        synchronized (states) {
+            if (statesLoaded) {
+                return;
+            }
+            Set<String> incomplete = new TreeSet<>();
+            try {
+                for (Field field : ReplicaRoutingDataSource.readFromPrimary(fieldRepository::findByIndexedTrue)) {
+                    String key = field.getKey();
+                    if (!JsonPathSql.isSafeKey(key) || states.containsKey(key)) {
+                        continue;
+                    }
+                    if (columnDataType(key) != null && indexExists(key)) {
+                        states.put(key, READY);
+                    } else {
+                        incomplete.add(key);
+                    }
+                }
+            } catch (RuntimeException e) {
+                log.warn("Could not read indexed item columns: {}", e.getMessage());
+            }
+            statesLoaded = true;
+            for (String key : incomplete) {
+                log.info("Index for field key {} is missing or incomplete, rebuilding it", key);
+                ddlExecutor.submit(() -> reconcile(key));
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        ddlExecutor.shutdownNow();
+    }
+}
@@ -0,0 +1,172 @@
+package com.example.mysqlcrudapp.service;
+
+import com.example.mysqlcrudapp.dto.ItemGraphDto;
+import com.example.mysqlcrudapp.dto.ItemGraphNodeDto;
+import com.example.mysqlcrudapp.dto.ItemGraphPathDto;
+import com.example.mysqlcrudapp.dto.ItemLinkDto;
+import com.example.mysqlcrudapp.event.ItemChangedEvent;
+import com.example.mysqlcrudapp.event.ItemLinkChangedEvent;
+import com.example.mysqlcrudapp.exception.ResourceNotFoundException;
+import com.example.mysqlcrudapp.graph.ItemLinkGraph;
+import com.example.mysqlcrudapp.graph.ItemLinkGraph.Direction;
+import com.example.mysqlcrudapp.persistence.ReplicaRoutingDataSource;
+import com.example.mysqlcrudapp.repository.ItemLinkRepository;
+import com.example.mysqlcrudapp.repository.ItemRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * Multi-hop queries over item links, answered from an in-memory {@link ItemLinkGraph}.
+ * <p>
+ * The graph is loaded from the database on first use and kept up to date from {@link ItemLinkChangedEvent}s
+ * and item deletions after commit. Traversals stop after {@code app.graph.max-nodes} items.
+ */
+@Service
+public class ItemGraphService {
+    public static final int MAX_DEPTH = 20;
+    private static final int LOAD_PAGE_SIZE = 5000;
+
+    private final ItemRepository itemRepository;
+    private final ItemLinkRepository itemLinkRepository;
+    private final ItemLinkGraph graph = new ItemLinkGraph();
+    private final int maxNodes;
+
+    public ItemGraphService(ItemRepository itemRepository,
+                            ItemLinkRepository itemLinkRepository,
+                            @Value("${app.graph.max-nodes:10000}") int maxNodes) {
+        this.itemRepository = itemRepository;
+        this.itemLinkRepository = itemLinkRepository;
+        this.maxNodes = maxNodes;
+    }
+
+    /**
+     * @param direction "out", "in" or "both"
+     * @param fieldId Only follow links of this field, or null for all
+     * @throws IllegalArgumentException if the depth or direction is invalid
+     * @throws ResourceNotFoundException if the item does not exist
+     */
+    public ItemGraphDto neighborhood(Long itemId, int depth, String direction, Long fieldId) {
+        if (depth < 1 || depth > MAX_DEPTH) {
+            throw new IllegalArgumentException("Depth must be between 1 and " + MAX_DEPTH);
+        }
+        Direction parsed = parseDirection(direction);
+        requireItem(itemId);
+        return toDto(itemId, loadedGraph().neighborhood(itemId, depth, parsed, fieldId, maxNodes));
+    }
+
+    /**
+     * Items connected to an item by links in either direction, however far
+     *
+     * @throws ResourceNotFoundException if the item does not exist
+     */
+    public ItemGraphDto component(Long itemId, Long fieldId) {
+        requireItem(itemId);
+        return toDto(itemId, loadedGraph().component(itemId, fieldId, maxNodes));
+    }
+
+    /**
+     * @return The path with the fewest links, or empty if there is none within {@code maxDepth} links
+     * @throws ResourceNotFoundException if either item does not exist
+     */
+    public Optional<ItemGraphPathDto> shortestPath(Long fromItemId, Long toItemId, String direction, Long fieldId,
+                                                   int maxDepth) {
+        if (maxDepth < 1 || maxDepth > MAX_DEPTH) {
+            throw new IllegalArgumentException("Maximum depth must be between 1 and " + MAX_DEPTH);
+        }
+        Direction parsed = parseDirection(direction);
+        requireItem(fromItemId);
+        requireItem(toItemId);
+        List<ItemLinkGraph.Link> path = loadedGraph().shortestPath(fromItemId, toItemId, parsed, fieldId, maxDepth, maxNodes);
+        if (path == null) {
+            return Optional.empty();
+        }
+        List<Long> itemIds = new ArrayList<>();
+        itemIds.add(fromItemId);
+        long at = fromItemId;
+        for (ItemLinkGraph.Link link : path) {
+            at = link.getFromItemId() == at ? link.getToItemId() : link.getFromItemId();
+            itemIds.add(at);
+        }
+        return Optional.of(new ItemGraphPathDto(fromItemId, toItemId, itemIds,
+                path.stream().map(ItemGraphService::toDto).collect(Collectors.toList())));
+    }
+
+    private ItemLinkGraph loadedGraph() {
+        if (!graph.isLoaded()) {
+            // From the primary, since later changes only arrive as events
+            graph.load(sink -> ReplicaRoutingDataSource.readFromPrimary(() -> {
+                long afterId = 0;
+                List<ItemLinkDto> page;
+                do {
+                    page = itemLinkRepository.findDtoPage(afterId, PageRequest.of(0, LOAD_PAGE_SIZE));
+                    for (ItemLinkDto link : page) {
+                        sink.add(link.getId(), link.getFromItemId(), link.getToItemId(), link.getFieldId());
+                        afterId = link.getId();
+                    }
+                } while (page.size() == LOAD_PAGE_SIZE);
+            }));
+        }
+        return graph;
+    }
+
+    private void requireItem(Long itemId) {
+        if (!itemRepository.existsById(itemId)) {
+            throw new ResourceNotFoundException("Item not found with id: " + itemId);
+        }
+    }
+
+    private static Direction parseDirection(String direction) {
+        try {
+            return Direction.valueOf(direction.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Direction must be out, in or both, not '" + direction + "'");
+        }
+    }
+
+    private static ItemGraphDto toDto(Long itemId, ItemLinkGraph.Neighborhood neighborhood) {
+        List<ItemGraphNodeDto> nodes = new ArrayList<>(neighborhood.getDepths().size());
+        neighborhood.getDepths().forEach((id, depth) -> nodes.add(new ItemGraphNodeDto(id, depth)));
+        return new ItemGraphDto(itemId, nodes,
+                neighborhood.getLinks().stream().map(ItemGraphService::toDto).collect(Collectors.toList()),
+                neighborhood.isTruncated());
+    }
+
+    private static ItemLinkDto toDto(ItemLinkGraph.Link link) {
+        return new ItemLinkDto(link.getId(), link.getFromItemId(), link.getToItemId(), link.getFieldId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onItemLinkChanged(ItemLinkChangedEvent event) {
+        if (event.isDeleted()) {
+            graph.remove(event.getLinkId());
+        } else {
+            graph.put(event.getLinkId(), event.getFromItemId(), event.getToItemId(), event.getFieldId());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onItemChanged(ItemChangedEvent event) {
+        // Deleting an item cascades to its links without going through ItemLinkService
+        if (event.isDeleted()) {
+            graph.removeItem(event.getItemId());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.graph.compact-interval-ms:30000}")
+    public void compact() {
+        graph.compact();
+    }
+
+    public Map<String, Object> getStatistics() {
+        return graph.getStatistics();
+    }
+}
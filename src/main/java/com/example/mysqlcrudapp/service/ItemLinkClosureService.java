@@ -0,0 +1,279 @@
+package com.example.mysqlcrudapp.service;
+
+import com.example.mysqlcrudapp.dto.ItemLinkDto;
+import com.example.mysqlcrudapp.entity.Field;
+import com.example.mysqlcrudapp.entity.ItemLinkClosure;
+import com.example.mysqlcrudapp.exception.ResourceNotFoundException;
+import com.example.mysqlcrudapp.repository.FieldRepository;
+import com.example.mysqlcrudapp.repository.ItemLinkClosureRepository;
+import com.example.mysqlcrudapp.repository.ItemLinkRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps the reachability index of acyclic link fields in {@code item_link_closure}.
+ * <p>
+ * For every pair of items connected by a path of a field's links there is one row, holding the number of
+ * distinct paths. Adding a link {@code from -> to} adds {@code paths(a, from) * paths(to, d)} to every pair
+ * of an ancestor {@code a} of {@code from} and a descendant {@code d} of {@code to}, both ends included;
+ * removing it subtracts the same, and a pair without paths left is deleted. A link closes a cycle exactly
+ * when {@code from} is already reachable from {@code to}, which is a primary key lookup.
+ * <p>
+ * Writes to the links of one acyclic field are serialized by a row lock on the field, so two concurrent
+ * links cannot each pass the cycle check and close a cycle together. Links of other fields are untouched.
+ * A write touching several fields takes their locks up front with {@link #lockFields}, in ascending id order,
+ * so two such writes cannot deadlock on each other's fields.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class ItemLinkClosureService {
+    /** Ids per IN list when loading closure rows, to stay well clear of statement size limits */
+    private static final int PAIR_LOOKUP_CHUNK = 500;
+    /** Rows persisted between flushes when building a field's closure */
+    private static final int BUILD_FLUSH_SIZE = 500;
+
+    private final ItemLinkClosureRepository closureRepository;
+    private final ItemLinkRepository itemLinkRepository;
+    private final FieldRepository fieldRepository;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Records a new link of an acyclic field; links of other fields are ignored
+     *
+     * @throws IllegalArgumentException if the link would close a cycle
+     */
+    @Transactional
+    public void addLink(Long fieldId, Long fromItemId, Long toItemId) {
+        Field field = lockIfAcyclic(fieldId);
+        if (field == null) {
+            return;
+        }
+        if (fromItemId.equals(toItemId)
+                || closureRepository.existsByFieldIdAndAncestorIdAndDescendantId(fieldId, toItemId, fromItemId)) {
+            throw new IllegalArgumentException("Link from item " + fromItemId + " to item " + toItemId
+                    + " would create a cycle in field '" + field.getKey() + "'");
+        }
+        adjust(fieldId, fromItemId, toItemId, 1);
+    }
+
+    /**
+     * Forgets a removed link of an acyclic field; links of other fields are ignored
+     */
+    @Transactional
+    public void removeLink(Long fieldId, Long fromItemId, Long toItemId) {
+        if (lockIfAcyclic(fieldId) != null) {
+            adjust(fieldId, fromItemId, toItemId, -1);
+        }
+    }
+
+    /**
+     * Takes the row locks of the acyclic fields among {@code fieldIds} in ascending id order, ahead of
+     * {@link #addLink} and {@link #removeLink} calls for several fields in the same transaction
+     */
+    @Transactional
+    public void lockFields(Collection<Long> fieldIds) {
+        for (Long fieldId : new TreeSet<>(fieldIds)) {
+            lockIfAcyclic(fieldId);
+        }
+    }
+
+    /**
+     * Forgets every acyclic link starting or ending at an item that is about to be deleted with its links
+     */
+    @Transactional
+    public void removeItem(Long itemId) {
+        List<ItemLinkDto> links = itemLinkRepository.findDtosTouchingItems(Collections.singletonList(itemId));
+        lockFields(links.stream().map(ItemLinkDto::getFieldId).collect(Collectors.toSet()));
+        Map<Long, Boolean> acyclicFields = new HashMap<>();
+        for (ItemLinkDto link : links) {
+            boolean acyclic = acyclicFields.computeIfAbsent(link.getFieldId(), fieldId -> fieldRepository.findById(fieldId)
+                    .map(field -> Boolean.TRUE.equals(field.getAcyclic()))
+                    .orElse(false));
+            if (acyclic) {
+                removeLink(link.getFieldId(), link.getFromItemId(), link.getToItemId());
+            }
+        }
+    }
+
+    /**
+     * Builds the closure of a field from its current links, replacing any rows it already has.
+     * Used when a field becomes acyclic.
+     *
+     * @throws IllegalArgumentException if the existing links already contain a cycle
+     */
+    @Transactional
+    public void build(Long fieldId) {
+        Field field = fieldRepository.findByIdForUpdate(fieldId)
+                .orElseThrow(() -> new ResourceNotFoundException("Field not found with id: " + fieldId));
+        closureRepository.deleteByFieldId(fieldId);
+
+        Map<Long, List<Long>> children = new HashMap<>();
+        Map<Long, Integer> inDegree = new HashMap<>();
+        for (ItemLinkDto link : itemLinkRepository.findDtosByFieldId(fieldId)) {
+            children.computeIfAbsent(link.getFromItemId(), id -> new ArrayList<>()).add(link.getToItemId());
+            inDegree.putIfAbsent(link.getFromItemId(), 0);
+            inDegree.merge(link.getToItemId(), 1, Integer::sum);
+        }
+
+        // Kahn's algorithm; anything left with incoming links afterwards lies on a cycle
+        List<Long> order = new ArrayList<>(inDegree.size());
+        Deque<Long> ready = new ArrayDeque<>();
+        inDegree.forEach((itemId, degree) -> {
+            if (degree == 0) {
+                ready.add(itemId);
+            }
+        });
+        Map<Long, Integer> remaining = new HashMap<>(inDegree);
+        while (!ready.isEmpty()) {
+            Long itemId = ready.poll();
+            order.add(itemId);
+            for (Long child : children.getOrDefault(itemId, Collections.emptyList())) {
+                if (remaining.merge(child, -1, Integer::sum) == 0) {
+                    ready.add(child);
+                }
+            }
+        }
+        if (order.size() < inDegree.size()) {
+            throw new IllegalArgumentException("Field '" + field.getKey() + "' cannot be made acyclic: its links contain a cycle");
+        }
+
+        // Children come after their parents in topological order, so walking it backwards sees them first
+        Map<Long, Map<Long, Long>> descendants = new HashMap<>();
+        List<ItemLinkClosure> batch = new ArrayList<>(BUILD_FLUSH_SIZE);
+        int rows = 0;
+        for (int i = order.size() - 1; i >= 0; i--) {
+            Long itemId = order.get(i);
+            Map<Long, Long> paths = new LinkedHashMap<>();
+            for (Long child : children.getOrDefault(itemId, Collections.emptyList())) {
+                paths.merge(child, 1L, Long::sum);
+                descendants.get(child).forEach((descendant, count) -> paths.merge(descendant, count, Long::sum));
+            }
+            descendants.put(itemId, paths);
+            for (Map.Entry<Long, Long> entry : paths.entrySet()) {
+                ItemLinkClosure row = new ItemLinkClosure(fieldId, itemId, entry.getKey(), entry.getValue());
+                entityManager.persist(row);
+                batch.add(row);
+                rows++;
+                if (batch.size() == BUILD_FLUSH_SIZE) {
+                    flush(batch);
+                }
+            }
+        }
+        flush(batch);
+        log.info("Built reachability index of field '{}': {} rows for {} items", field.getKey(), rows, order.size());
+    }
+
+    /**
+     * Drops the closure of a field that is no longer acyclic or is being deleted
+     */
+    @Transactional
+    public void clear(Long fieldId) {
+        closureRepository.deleteByFieldId(fieldId);
+    }
+
+    /**
+     * All items reachable from an item along links of an acyclic field, ordered by id
+     */
+    public List<Long> findDescendantIds(Long fieldId, Long itemId) {
+        requireAcyclic(fieldId);
+        return closureRepository.findDescendantIds(fieldId, itemId);
+    }
+
+    /**
+     * All items an item is reachable from along links of an acyclic field, ordered by id
+     */
+    public List<Long> findAncestorIds(Long fieldId, Long itemId) {
+        requireAcyclic(fieldId);
+        return closureRepository.findAncestorIds(fieldId, itemId);
+    }
+
+    private void requireAcyclic(Long fieldId) {
+        Field field = fieldRepository.findById(fieldId)
+                .orElseThrow(() -> new ResourceNotFoundException("Field not found with id: " + fieldId));
+        if (!Boolean.TRUE.equals(field.getAcyclic())) {
+            throw new IllegalArgumentException("Field '" + field.getKey() + "' is not acyclic");
+        }
+    }
+
+    private Field lockIfAcyclic(Long fieldId) {
+        Field field = fieldRepository.findById(fieldId).orElse(null);
+        if (field == null || !Boolean.TRUE.equals(field.getAcyclic())) {
+            return null;
+        }
+        return fieldRepository.findByIdForUpdate(fieldId).orElse(null);
+    }
+
+    /**
+     * Adds {@code sign} times the paths through the link {@code from -> to} to every affected pair.
+     * Counts wrap around on overflow, which still cancels exactly when the same link is removed again.
+     */
+    private void adjust(Long fieldId, Long fromItemId, Long toItemId, int sign) {
+        Map<Long, Long> ancestors = new LinkedHashMap<>();
+        ancestors.put(fromItemId, 1L);
+        for (ItemLinkClosure row : closureRepository.findByFieldIdAndDescendantId(fieldId, fromItemId)) {
+            ancestors.put(row.getAncestorId(), row.getPathCount());
+        }
+        Map<Long, Long> descendants = new LinkedHashMap<>();
+        descendants.put(toItemId, 1L);
+        for (ItemLinkClosure row : closureRepository.findByFieldIdAndAncestorId(fieldId, toItemId)) {
+            descendants.put(row.getDescendantId(), row.getPathCount());
+        }
+
+        List<Long> ancestorIds = new ArrayList<>(ancestors.keySet());
+        List<Long> descendantIds = new ArrayList<>(descendants.keySet());
+        for (int a = 0; a < ancestorIds.size(); a += PAIR_LOOKUP_CHUNK) {
+            List<Long> ancestorChunk = ancestorIds.subList(a, Math.min(a + PAIR_LOOKUP_CHUNK, ancestorIds.size()));
+            for (int d = 0; d < descendantIds.size(); d += PAIR_LOOKUP_CHUNK) {
+                List<Long> descendantChunk = descendantIds.subList(d, Math.min(d + PAIR_LOOKUP_CHUNK, descendantIds.size()));
+                Map<ItemLinkClosure.Key, ItemLinkClosure> existing = new HashMap<>();
+                for (ItemLinkClosure row : closureRepository.findPairs(fieldId, ancestorChunk, descendantChunk)) {
+                    existing.put(new ItemLinkClosure.Key(fieldId, row.getAncestorId(), row.getDescendantId()), row);
+                }
+                for (Long ancestorId : ancestorChunk) {
+                    for (Long descendantId : descendantChunk) {
+                        long delta = sign * ancestors.get(ancestorId) * descendants.get(descendantId);
+                        ItemLinkClosure row = existing.get(new ItemLinkClosure.Key(fieldId, ancestorId, descendantId));
+                        if (row == null) {
+                            if (sign > 0) {
+                                entityManager.persist(new ItemLinkClosure(fieldId, ancestorId, descendantId, delta));
+                            }
+                        } else if (row.getPathCount() + delta == 0) {
+                            entityManager.remove(row);
+                        } else {
+                            row.setPathCount(row.getPathCount() + delta);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes persisted rows and detaches them, leaving other entities of the caller managed
+     */
+    private void flush(List<ItemLinkClosure> batch) {
+        entityManager.flush();
+        batch.forEach(entityManager::detach);
+        batch.clear();
+    }
+}
@@ -1,12 +1,17 @@
 package com.example.mysqlcrudapp.service;
 
+import com.example.mysqlcrudapp.dto.ItemLinkDto;
 import com.example.mysqlcrudapp.entity.ItemLink;
+import com.example.mysqlcrudapp.event.ItemLinkChangedEvent;
 import com.example.mysqlcrudapp.exception.ResourceNotFoundException;
 import com.example.mysqlcrudapp.repository.ItemLinkRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 
@@ -15,44 +20,66 @@ import java.util.Optional;
 @Transactional(readOnly = true)
 public class ItemLinkService {
     private final ItemLinkRepository itemLinkRepository;
+    private final ItemLinkClosureService itemLinkClosureService;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public List<ItemLink> findAll() {
-        return itemLinkRepository.findAll();
+    public List<ItemLinkDto> findAllDtos() {
+        return itemLinkRepository.findAllDtos();
+    }
+
+    /**
+     * Fetches up to {@code size + 1} links with an id greater than {@code afterId}, ordered by id.
+     * The extra row tells the caller whether another page exists.
+     */
+    public List<ItemLinkDto> findDtoPage(long afterId, int size) {
+        return itemLinkRepository.findDtoPage(afterId, PageRequest.of(0, size + 1));
     }
 
     public Optional<ItemLink> findById(Long id) {
         return itemLinkRepository.findById(id);
     }
 
-    public List<ItemLink> findByFromItemId(Long fromItemId) {
-        return itemLinkRepository.findByFromItemId(fromItemId);
+    public List<ItemLinkDto> findDtosByFromItemId(Long fromItemId) {
+        return itemLinkRepository.findDtosByFromItemId(fromItemId);
     }
 
-    public List<ItemLink> findByToItemId(Long toItemId) {
-        return itemLinkRepository.findByToItemId(toItemId);
+    public List<ItemLinkDto> findDtosByToItemId(Long toItemId) {
+        return itemLinkRepository.findDtosByToItemId(toItemId);
     }
 
     @Transactional
     public ItemLink create(ItemLink itemLink) {
-        return itemLinkRepository.save(itemLink);
+        itemLinkClosureService.addLink(itemLink.getField().getId(), itemLink.getFromItem().getId(), itemLink.getToItem().getId());
+        ItemLink saved = itemLinkRepository.save(itemLink);
+        eventPublisher.publishEvent(ItemLinkChangedEvent.saved(saved));
+        return saved;
     }
 
     @Transactional
     public Optional<ItemLink> update(Long id, ItemLink itemLinkDetails) {
         return itemLinkRepository.findById(id)
                 .map(itemLink -> {
+                    // Both fields are locked before either link is touched, lowest id first, as every writer does
+                    itemLinkClosureService.lockFields(Arrays.asList(itemLink.getField().getId(), itemLinkDetails.getField().getId()));
+                    // The old link leaves the reachability index before the new one is checked against it
+                    itemLinkClosureService.removeLink(itemLink.getField().getId(), itemLink.getFromItem().getId(), itemLink.getToItem().getId());
+                    itemLinkClosureService.addLink(itemLinkDetails.getField().getId(), itemLinkDetails.getFromItem().getId(),
+                            itemLinkDetails.getToItem().getId());
                     itemLink.setFromItem(itemLinkDetails.getFromItem());
                     itemLink.setToItem(itemLinkDetails.getToItem());
                     itemLink.setField(itemLinkDetails.getField());
-                    return itemLinkRepository.save(itemLink);
+                    ItemLink saved = itemLinkRepository.save(itemLink);
+                    eventPublisher.publishEvent(ItemLinkChangedEvent.saved(saved));
+                    return saved;
                 });
     }    public boolean existsById(Long id) {
         return itemLinkRepository.existsById(id);
     }    @Transactional
     public void deleteById(Long id) {
-        if (!existsById(id)) {
-            throw new ResourceNotFoundException("ItemLink not found with id: " + id);
-        }
-        itemLinkRepository.deleteById(id);
+        ItemLink itemLink = itemLinkRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("ItemLink not found with id: " + id));
+        itemLinkClosureService.removeLink(itemLink.getField().getId(), itemLink.getFromItem().getId(), itemLink.getToItem().getId());
+        itemLinkRepository.delete(itemLink);
+        eventPublisher.publishEvent(ItemLinkChangedEvent.deleted(id));
     }
 }
@@ -0,0 +1,355 @@
+package com.example.mysqlcrudapp.service;
+
+import com.example.mysqlcrudapp.dto.CursorPage;
+import com.example.mysqlcrudapp.dto.ItemQueryDto;
+import com.example.mysqlcrudapp.dto.ItemQueryFilterDto;
+import com.example.mysqlcrudapp.dto.ItemQuerySortDto;
+import com.example.mysqlcrudapp.util.JsonPathSql;
+import com.example.mysqlcrudapp.util.JsonPathSql.ValueType;
+import lombok.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Compiles an {@link ItemQueryDto} into a single native SQL statement over {@code item.data_json}.
+ * <p>
+ * Compiled SQL is cached by query shape: the query tree with every literal replaced by its kind
+ * (string, number, boolean). Queries that only differ in their values reuse the cached SQL and just
+ * collect new bind parameters. IN lists are padded to a power of two so list length does not explode the cache.
+ * <p>
+ * Value expressions come from {@link JsonPathSql}, so string equality and ranges match the generated
+ * columns of indexed fields and MySQL can answer them from the index.
+ */
+@Component
+public class ItemQueryCompiler {
+    static final int PLAN_CACHE_SIZE = 512;
+    private static final int MAX_NODES = 256;
+    private static final int MAX_DEPTH = 16;
+
+    // The data alias must not be "data_json": ORDER BY resolves select aliases before columns
+    private static final String SELECT_COLUMNS =
+            "SELECT i.id, i.blueprint_id, i.version_id, i.current_state, %s AS item_data, i.created_by_id, i.created_at FROM item i";
+
+    private final Map<String, String> planCache = Collections.synchronizedMap(
+            new LinkedHashMap<String, String>(64, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                    return size() > PLAN_CACHE_SIZE;
+                }
+            });
+    private final AtomicLong cacheHits = new AtomicLong();
+    private final AtomicLong cacheMisses = new AtomicLong();
+
+    /**
+     * A compiled query: SQL with positional placeholders and the values to bind, in order
+     */
+    @Value
+    public static class CompiledItemQuery {
+        String sql;
+        Object[] parameters;
+    }
+
+    /**
+     * @throws IllegalArgumentException if the query is malformed or references keys that are not plain identifiers
+     */
+    public CompiledItemQuery compile(ItemQueryDto query) {
+        if (query.getBlueprintId() == null) {
+            throw new IllegalArgumentException("blueprintId is required");
+        }
+
+        StringBuilder shape = new StringBuilder();
+        List<Object> parameters = new ArrayList<>();
+        // First pass: shape and parameters only
+        writeQuery(query, shape, null, parameters);
+
+        String key = shape.toString();
+        String sql = planCache.get(key);
+        if (sql != null) {
+            cacheHits.incrementAndGet();
+        } else {
+            cacheMisses.incrementAndGet();
+            StringBuilder sqlBuilder = new StringBuilder();
+            writeQuery(query, new StringBuilder(), sqlBuilder, new ArrayList<>());
+            sql = sqlBuilder.toString();
+            planCache.put(key, sql);
+        }
+        return new CompiledItemQuery(sql, parameters.toArray());
+    }
+
+    public Map<String, Long> getCacheStatistics() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("size", (long) planCache.size());
+        stats.put("hits", cacheHits.get());
+        stats.put("misses", cacheMisses.get());
+        return stats;
+    }
+
+    /**
+     * Walks the whole query once. Shape and parameters are always written; SQL only when {@code sql} is not null.
+     * Keeping both in one walk guarantees the parameter order always matches the placeholders.
+     */
+    private void writeQuery(ItemQueryDto query, StringBuilder shape, StringBuilder sql, List<Object> parameters) {
+        List<String> projection = query.getProjection() != null ? query.getProjection() : Collections.emptyList();
+        Set<String> projectedKeys = new LinkedHashSet<>();
+        for (String key : projection) {
+            projectedKeys.add(JsonPathSql.requireSafeKey(key));
+        }
+        shape.append("p").append(projectedKeys);
+        if (sql != null) {
+            sql.append(String.format(SELECT_COLUMNS, projectionExpression(projectedKeys)));
+            sql.append(" WHERE i.blueprint_id = ?");
+        }
+        parameters.add(query.getBlueprintId());
+
+        if (query.getVersionId() != null) {
+            shape.append("|v");
+            if (sql != null) {
+                sql.append(" AND i.version_id = ?");
+            }
+            parameters.add(query.getVersionId());
+        }
+
+        if (query.getFilter() != null) {
+            shape.append("|f:");
+            if (sql != null) {
+                sql.append(" AND ");
+            }
+            writeFilter(query.getFilter(), shape, sql, parameters, 1, new int[]{0});
+        }
+
+        shape.append("|s:");
+        if (sql != null) {
+            sql.append(" ORDER BY ");
+        }
+        if (query.getSort() != null) {
+            for (ItemQuerySortDto sort : query.getSort()) {
+                ValueType type = sortType(sort.getType());
+                boolean descending = "desc".equalsIgnoreCase(sort.getDirection());
+                shape.append(JsonPathSql.requireSafeKey(sort.getField())).append(':').append(type).append(descending ? ":d," : ":a,");
+                if (sql != null) {
+                    sql.append(JsonPathSql.valueExpression(sort.getField(), type)).append(descending ? " DESC, " : " ASC, ");
+                }
+            }
+        }
+        if (sql != null) {
+            // Tie-break on id so pages are stable
+            sql.append("i.id ASC LIMIT ? OFFSET ?");
+        }
+        parameters.add(CursorPage.clampSize(query.getLimit()));
+        parameters.add(query.getOffset() != null ? Math.max(0, query.getOffset()) : 0);
+    }
+
+    private void writeFilter(ItemQueryFilterDto filter, StringBuilder shape, StringBuilder sql, List<Object> parameters,
+                             int depth, int[] nodeCount) {
+        if (depth > MAX_DEPTH || ++nodeCount[0] > MAX_NODES) {
+            throw new IllegalArgumentException("Query filter is too large");
+        }
+        String op = filter.getOp() != null ? filter.getOp().toLowerCase() : "";
+        switch (op) {
+            case "and":
+            case "or":
+                writeJunction(op, filter.getFilters(), shape, sql, parameters, depth, nodeCount);
+                break;
+            case "not":
+                if (filter.getFilters() == null || filter.getFilters().size() != 1) {
+                    throw new IllegalArgumentException("'not' takes exactly one filter");
+                }
+                shape.append("not(");
+                append(sql, "NOT (");
+                writeFilter(filter.getFilters().get(0), shape, sql, parameters, depth + 1, nodeCount);
+                shape.append(')');
+                append(sql, ")");
+                break;
+            case "eq":
+                writeEquals(filter, shape, sql, parameters);
+                break;
+            case "in":
+                writeIn(filter, shape, sql, parameters);
+                break;
+            case "range":
+                writeRange(filter, shape, sql, parameters);
+                break;
+            case "exists":
+                shape.append("exists(").append(JsonPathSql.requireSafeKey(filter.getField())).append(')');
+                append(sql, "JSON_CONTAINS_PATH(data_json, 'one', " + JsonPathSql.jsonPath(filter.getField()) + ")");
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown filter op: " + filter.getOp());
+        }
+    }
+
+    private void writeJunction(String op, List<ItemQueryFilterDto> children, StringBuilder shape, StringBuilder sql,
+                               List<Object> parameters, int depth, int[] nodeCount) {
+        if (children == null || children.isEmpty()) {
+            // Neutral element: an empty AND matches everything, an empty OR nothing
+            shape.append(op).append("()");
+            append(sql, "and".equals(op) ? "TRUE" : "FALSE");
+            return;
+        }
+        shape.append(op).append('(');
+        append(sql, "(");
+        for (int i = 0; i < children.size(); i++) {
+            if (i > 0) {
+                shape.append(',');
+                append(sql, "and".equals(op) ? " AND " : " OR ");
+            }
+            writeFilter(children.get(i), shape, sql, parameters, depth + 1, nodeCount);
+        }
+        shape.append(')');
+        append(sql, ")");
+    }
+
+    private void writeEquals(ItemQueryFilterDto filter, StringBuilder shape, StringBuilder sql, List<Object> parameters) {
+        String key = JsonPathSql.requireSafeKey(filter.getField());
+        Object value = requireScalar(filter.getValue(), "eq");
+        ValueType type = valueType(value);
+        shape.append("eq(").append(key).append(':').append(type).append(')');
+
+        if (type == ValueType.NUMBER) {
+            append(sql, JsonPathSql.valueExpression(key, type) + " = ?");
+            parameters.add(((Number) value).doubleValue());
+        } else {
+            // Indexed prefix narrows the rows, the full text keeps long values exact
+            append(sql, "(" + JsonPathSql.valueExpression(key, type) + " = ? AND " + JsonPathSql.textExpression(key) + " = ?)");
+            parameters.add(prefix(value.toString()));
+            parameters.add(value.toString());
+        }
+    }
+
+    private void writeIn(ItemQueryFilterDto filter, StringBuilder shape, StringBuilder sql, List<Object> parameters) {
+        String key = JsonPathSql.requireSafeKey(filter.getField());
+        List<Object> values = filter.getValues();
+        if (values == null || values.isEmpty()) {
+            throw new IllegalArgumentException("'in' needs at least one value for field " + key);
+        }
+        ValueType type = valueType(requireScalar(values.get(0), "in"));
+        for (Object value : values) {
+            if (valueType(requireScalar(value, "in")) != type) {
+                throw new IllegalArgumentException("'in' values for field " + key + " must all have the same type");
+            }
+        }
+        // Pad to a power of two by repeating the last value; duplicates do not change the result
+        int slots = Integer.highestOneBit(values.size());
+        if (slots < values.size()) {
+            slots <<= 1;
+        }
+        shape.append("in(").append(key).append(':').append(type).append('#').append(slots).append(')');
+
+        String placeholders = String.join(", ", Collections.nCopies(slots, "?"));
+        if (type == ValueType.NUMBER) {
+            append(sql, JsonPathSql.valueExpression(key, type) + " IN (" + placeholders + ")");
+            for (int i = 0; i < slots; i++) {
+                parameters.add(((Number) values.get(Math.min(i, values.size() - 1))).doubleValue());
+            }
+        } else {
+            append(sql, "(" + JsonPathSql.valueExpression(key, type) + " IN (" + placeholders + ") AND "
+                    + JsonPathSql.textExpression(key) + " IN (" + placeholders + "))");
+            for (int i = 0; i < slots; i++) {
+                parameters.add(prefix(values.get(Math.min(i, values.size() - 1)).toString()));
+            }
+            for (int i = 0; i < slots; i++) {
+                parameters.add(values.get(Math.min(i, values.size() - 1)).toString());
+            }
+        }
+    }
+
+    private void writeRange(ItemQueryFilterDto filter, StringBuilder shape, StringBuilder sql, List<Object> parameters) {
+        String key = JsonPathSql.requireSafeKey(filter.getField());
+        Object[] bounds = {filter.getGt(), filter.getGte(), filter.getLt(), filter.getLte()};
+        String[] operators = {">", ">=", "<", "<="};
+
+        boolean numeric = true;
+        boolean any = false;
+        for (Object bound : bounds) {
+            if (bound != null) {
+                any = true;
+                numeric &= requireScalar(bound, "range") instanceof Number;
+            }
+        }
+        if (!any) {
+            throw new IllegalArgumentException("'range' needs at least one of gt, gte, lt, lte for field " + key);
+        }
+        ValueType type = numeric ? ValueType.NUMBER : ValueType.STRING;
+        shape.append("range(").append(key).append(':').append(type);
+
+        List<String> conditions = new ArrayList<>();
+        for (int i = 0; i < bounds.length; i++) {
+            if (bounds[i] == null) {
+                continue;
+            }
+            shape.append(',').append(operators[i]);
+            if (numeric) {
+                conditions.add(JsonPathSql.valueExpression(key, type) + " " + operators[i] + " ?");
+                parameters.add(((Number) bounds[i]).doubleValue());
+            } else {
+                // The prefix comparison is implied by the full one and only there to let an index narrow the scan
+                String text = bounds[i].toString();
+                String prefixOperator = operators[i].substring(0, 1) + "=";
+                conditions.add(JsonPathSql.valueExpression(key, type) + " " + prefixOperator + " ?");
+                conditions.add(JsonPathSql.textExpression(key) + " " + operators[i] + " ?");
+                parameters.add(prefix(text));
+                parameters.add(text);
+            }
+        }
+        shape.append(')');
+        append(sql, "(" + String.join(" AND ", conditions) + ")");
+    }
+
+    private static String projectionExpression(Set<String> keys) {
+        if (keys.isEmpty()) {
+            return "i.data_json";
+        }
+        StringBuilder expression = new StringBuilder("JSON_OBJECT(");
+        boolean first = true;
+        for (String key : keys) {
+            if (!first) {
+                expression.append(", ");
+            }
+            expression.append('\'').append(key).append("', JSON_EXTRACT(data_json, ").append(JsonPathSql.jsonPath(key)).append(')');
+            first = false;
+        }
+        return expression.append(')').toString();
+    }
+
+    private static ValueType sortType(String type) {
+        if ("number".equalsIgnoreCase(type)) {
+            return ValueType.NUMBER;
+        }
+        if ("date".equalsIgnoreCase(type)) {
+            return ValueType.DATE;
+        }
+        return ValueType.STRING;
+    }
+
+    /**
+     * Numbers compare numerically; strings and booleans ("true"/"false") compare as text
+     */
+    private static ValueType valueType(Object value) {
+        return value instanceof Number ? ValueType.NUMBER : ValueType.STRING;
+    }
+
+    private static Object requireScalar(Object value, String op) {
+        if (value == null || value instanceof Map || value instanceof List) {
+            throw new IllegalArgumentException("'" + op + "' values must be strings, numbers or booleans");
+        }
+        return value;
+    }
+
+    private static String prefix(String text) {
+        return text.length() > JsonPathSql.MAX_STRING_LENGTH ? text.substring(0, JsonPathSql.MAX_STRING_LENGTH) : text;
+    }
+
+    private static void append(StringBuilder sql, String fragment) {
+        if (sql != null) {
+            sql.append(fragment);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.mysqlcrudapp.service;
+
+import com.example.mysqlcrudapp.dto.ItemDto;
+import com.example.mysqlcrudapp.dto.ItemQueryDto;
+import com.example.mysqlcrudapp.service.ItemQueryCompiler.CompiledItemQuery;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+/**
+ * Runs structured item queries as one SQL statement so filtering happens in the database, not the browser
+ */
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class ItemQueryService {
+    private static final RowMapper<ItemDto> ITEM_ROW_MAPPER = (rs, rowNum) -> {
+        ItemDto dto = new ItemDto();
+        dto.setId(rs.getLong("id"));
+        dto.setBlueprintId(rs.getLong("blueprint_id"));
+        dto.setVersionId(rs.getLong("version_id"));
+        dto.setCurrentState(rs.getString("current_state"));
+        dto.setDataJson(rs.getString("item_data"));
+        dto.setCreatedById(rs.getObject("created_by_id", Long.class));
+        Timestamp createdAt = rs.getTimestamp("created_at");
+        dto.setCreatedAt(createdAt != null ? createdAt.toLocalDateTime() : null);
+        return dto;
+    };
+
+    private final ItemQueryCompiler itemQueryCompiler;
+    private final JdbcTemplate jdbcTemplate;
+
+    public List<ItemDto> query(ItemQueryDto query) {
+        CompiledItemQuery compiled = itemQueryCompiler.compile(query);
+        return jdbcTemplate.query(compiled.getSql(), ITEM_ROW_MAPPER, compiled.getParameters());
+    }
+}
@@ -0,0 +1,212 @@
+package com.example.mysqlcrudapp.service;
+
+import com.example.mysqlcrudapp.dto.ItemDto;
+import com.example.mysqlcrudapp.dto.ItemSearchHitDto;
+import com.example.mysqlcrudapp.dto.ItemSearchResultDto;
+import com.example.mysqlcrudapp.event.ItemChangedEvent;
+import com.example.mysqlcrudapp.persistence.ReplicaRoutingDataSource;
+import com.example.mysqlcrudapp.repository.ItemRepository;
+import com.example.mysqlcrudapp.schema.CompiledSchema;
+import com.example.mysqlcrudapp.search.ItemSearchIndex;
+import com.example.mysqlcrudapp.search.SearchTokenizer;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Full-text search over the string fields of items.
+ * <p>
+ * The index lives in {@code app.search.directory} and is kept up to date from {@link ItemChangedEvent}s once
+ * their transaction commits. New changes are buffered in memory and written out every
+ * {@code app.search.flush-interval-ms}; segments are merged once there are more than {@code app.search.max-segments}.
+ * Changes still buffered when the process dies are lost, so the index is rebuilt from the database at startup
+ * when it is empty, and can be rebuilt on demand.
+ */
+@Slf4j
+@Service
+public class ItemSearchService {
+    /** Query terms beyond this are ignored, bounding the work of one search */
+    static final int MAX_QUERY_TERMS = 32;
+    private static final int REBUILD_PAGE_SIZE = 1000;
+    private static final int REBUILD_SEGMENT_ITEMS = 50_000;
+
+    private final ItemRepository itemRepository;
+    private final ItemService itemService;
+    private final CompiledSchemaService compiledSchemaService;
+    private final JsonFactory jsonFactory;
+    private final ItemSearchIndex index;
+    private final int maxSegments;
+
+    public ItemSearchService(ItemRepository itemRepository,
+                             ItemService itemService,
+                             CompiledSchemaService compiledSchemaService,
+                             ObjectMapper objectMapper,
+                             @Value("${app.search.directory:data/search-index}") String directory,
+                             @Value("${app.search.max-segments:8}") int maxSegments) throws IOException {
+        this.itemRepository = itemRepository;
+        this.itemService = itemService;
+        this.compiledSchemaService = compiledSchemaService;
+        this.jsonFactory = objectMapper.getFactory();
+        this.index = new ItemSearchIndex(Paths.get(directory));
+        this.maxSegments = maxSegments;
+    }
+
+    /**
+     * Finds items containing any word of the query, best match first
+     *
+     * @throws IllegalArgumentException if the query has no words or the page is negative
+     */
+    public ItemSearchResultDto search(String query, int page, int size) {
+        if (page < 0) {
+            throw new IllegalArgumentException("Page must not be negative");
+        }
+        List<String> terms = SearchTokenizer.tokenize(query);
+        if (terms.isEmpty()) {
+            throw new IllegalArgumentException("Search query must contain at least one letter or digit");
+        }
+        if (terms.size() > MAX_QUERY_TERMS) {
+            terms = terms.subList(0, MAX_QUERY_TERMS);
+        }
+        ItemSearchIndex.Result result = index.search(terms, (int) Math.min((long) page * size, Integer.MAX_VALUE), size);
+
+        Map<Long, ItemDto> items = itemService.findDtosByIds(result.getHits().stream()
+                        .map(ItemSearchIndex.Hit::getItemId)
+                        .collect(Collectors.toList()))
+                .stream()
+                .collect(Collectors.toMap(ItemDto::getId, Function.identity()));
+        List<ItemSearchHitDto> hits = new ArrayList<>(result.getHits().size());
+        for (ItemSearchIndex.Hit hit : result.getHits()) {
+            // An item deleted while its change was in flight has no row left; leave it out
+            ItemDto item = items.get(hit.getItemId());
+            if (item != null) {
+                hits.add(new ItemSearchHitDto(hit.getScore(), item));
+            }
+        }
+        return new ItemSearchResultDto(query, page, size, result.getTotal(), hits);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onItemChanged(ItemChangedEvent event) {
+        if (event.isDeleted()) {
+            index.delete(event.getItemId());
+        } else {
+            index.index(event.getItemId(), terms(event.getVersionId(), event.getDataJson()));
+        }
+    }
+
+    /**
+     * Replaces the index with one built from every item in the database
+     *
+     * @return The number of items indexed
+     */
+    public long rebuild() {
+        try {
+            // From the primary: changes committed after the scan only reach the index as events
+            return index.rebuild(sink -> ReplicaRoutingDataSource.readFromPrimary(() -> {
+                long afterId = 0;
+                List<ItemDto> page;
+                do {
+                    page = itemRepository.findDtoPage(afterId, PageRequest.of(0, REBUILD_PAGE_SIZE));
+                    for (ItemDto item : page) {
+                        sink.add(item.getId(), terms(item.getVersionId(), item.getDataJson()));
+                        afterId = item.getId();
+                    }
+                } while (page.size() == REBUILD_PAGE_SIZE);
+            }), REBUILD_SEGMENT_ITEMS);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not rebuild the search index: " + e.getMessage(), e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.search.flush-interval-ms:10000}")
+    public void maintain() {
+        try {
+            index.flush();
+            index.merge(maxSegments);
+        } catch (IOException | UncheckedIOException e) {
+            log.warn("Could not write the search index: {}", e.getMessage());
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildIfEmpty() {
+        try {
+            if (index.isEmpty() && ReplicaRoutingDataSource.readFromPrimary(() -> itemRepository.count()) > 0) {
+                rebuild();
+            }
+        } catch (RuntimeException e) {
+            log.warn("Could not build the search index: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        maintain();
+    }
+
+    public Map<String, Object> getStatistics() {
+        return index.getStatistics();
+    }
+
+    /**
+     * Tokenizes the top-level string-typed fields of item data, and the strings directly inside them when they
+     * hold arrays. Items of unknown versions or with unreadable data get no terms.
+     */
+    List<String> terms(Long versionId, String dataJson) {
+        List<String> terms = new ArrayList<>();
+        if (versionId == null || dataJson == null) {
+            return terms;
+        }
+        Set<String> textKeys = compiledSchemaService.find(versionId)
+                .map(CompiledSchema::getTextFieldKeys)
+                .orElse(null);
+        if (textKeys == null || textKeys.isEmpty()) {
+            return terms;
+        }
+        try (JsonParser parser = jsonFactory.createParser(dataJson)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return terms;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                boolean text = textKeys.contains(parser.getCurrentName());
+                JsonToken value = parser.nextToken();
+                if (text && value == JsonToken.VALUE_STRING) {
+                    terms.addAll(SearchTokenizer.tokenize(parser.getText()));
+                } else if (text && value == JsonToken.START_ARRAY) {
+                    for (JsonToken element = parser.nextToken(); element != JsonToken.END_ARRAY; element = parser.nextToken()) {
+                        if (element == JsonToken.VALUE_STRING) {
+                            terms.addAll(SearchTokenizer.tokenize(parser.getText()));
+                        } else {
+                            parser.skipChildren();
+                        }
+                    }
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        } catch (IOException e) {
+            log.debug("Not indexing unreadable item data of version {}: {}", versionId, e.getMessage());
+        }
+        return terms;
+    }
+}
@@ -1,20 +1,48 @@
 package com.example.mysqlcrudapp.service;
 
+import com.example.mysqlcrudapp.dto.ItemDto;
+import com.example.mysqlcrudapp.dto.ItemLinkDto;
+import com.example.mysqlcrudapp.entity.Field;
 import com.example.mysqlcrudapp.entity.Item;
+import com.example.mysqlcrudapp.event.ItemChangedEvent;
 import com.example.mysqlcrudapp.exception.ResourceNotFoundException;
+import com.example.mysqlcrudapp.jfr.ItemWriteEvent;
+import com.example.mysqlcrudapp.repository.FieldRepository;
+import com.example.mysqlcrudapp.repository.ItemLinkRepository;
 import com.example.mysqlcrudapp.repository.ItemRepository;
+import com.example.mysqlcrudapp.util.JsonPathSql;
+import com.example.mysqlcrudapp.util.JsonPathSql.ValueType;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 @Transactional(readOnly = true)
 public class ItemService {
+    /** Item ids per IN list when loading link ids, to stay well clear of statement size limits */
+    private static final int LINK_LOOKUP_CHUNK = 1000;
+
     private final ItemRepository itemRepository;
+    private final ItemLinkRepository itemLinkRepository;
+    private final FieldRepository fieldRepository;
+    private final ItemFieldIndexService itemFieldIndexService;
+    private final ItemValidationService itemValidationService;
+    private final ItemLinkClosureService itemLinkClosureService;
+    private final ApplicationEventPublisher eventPublisher;
 
     public List<Item> findAll() {
         return itemRepository.findAll();
@@ -24,28 +52,137 @@ public class ItemService {
         return itemRepository.findById(id);
     }
 
-    public List<Item> findByBlueprintId(Long blueprintId) {
-        return itemRepository.findByBlueprintId(blueprintId);
+    public List<ItemDto> findAllDtos() {
+        return withLinkIds(itemRepository.findAllDtos());
+    }
+
+    public List<ItemDto> findDtosByBlueprintId(Long blueprintId) {
+        return withLinkIds(itemRepository.findDtosByBlueprintId(blueprintId));
+    }
+
+    public List<ItemDto> findDtosByVersionId(Long versionId) {
+        return withLinkIds(itemRepository.findDtosByVersionId(versionId));
+    }
+
+    /**
+     * Fetches up to {@code size + 1} items with an id greater than {@code afterId}, ordered by id.
+     * The extra row tells the caller whether another page exists.
+     */
+    public List<ItemDto> findDtoPage(long afterId, int size) {
+        return withLinkIds(itemRepository.findDtoPage(afterId, PageRequest.of(0, size + 1)));
+    }
+
+    public List<ItemDto> findDtoPageByBlueprintId(Long blueprintId, long afterId, int size) {
+        return withLinkIds(itemRepository.findDtoPageByBlueprintId(blueprintId, afterId, PageRequest.of(0, size + 1)));
+    }
+
+    public List<ItemDto> findDtoPageByVersionId(Long versionId, long afterId, int size) {
+        return withLinkIds(itemRepository.findDtoPageByVersionId(versionId, afterId, PageRequest.of(0, size + 1)));
     }
 
-    public List<Item> findByVersionId(Long versionId) {
-        return itemRepository.findByVersionId(versionId);
+    /**
+     * Loads the items with the given ids, in no particular order
+     */
+    public List<ItemDto> findDtosByIds(Collection<Long> ids) {
+        return ids.isEmpty() ? new ArrayList<>() : withLinkIds(itemRepository.findDtosByIdIn(ids));
+    }
+
+    /**
+     * Converts loaded items to DTOs without touching their lazy associations.
+     * Reading the id of a lazy to-one proxy does not initialize it, and link ids come from one query.
+     */
+    public List<ItemDto> toDtos(List<Item> items) {
+        return withLinkIds(items.stream()
+                .map(item -> new ItemDto(item.getId(), item.getBlueprint().getId(), item.getVersion().getId(),
+                        item.getCurrentState(), item.getDataJson(), item.getCreatedById(), item.getCreatedAt(),
+                        item.getRowVersion()))
+                .collect(Collectors.toList()));
+    }
+
+    /**
+     * Fills in the outgoing and incoming link ids of projected items.
+     * The links of up to {@value #LINK_LOOKUP_CHUNK} items are read in one statement and grouped here,
+     * instead of initializing two lazy collections per item.
+     */
+    private List<ItemDto> withLinkIds(List<ItemDto> items) {
+        Map<Long, ItemDto> byId = new HashMap<>();
+        for (ItemDto item : items) {
+            item.setOutgoingLinkIds(new ArrayList<>());
+            item.setIncomingLinkIds(new ArrayList<>());
+            byId.put(item.getId(), item);
+        }
+        List<Long> ids = new ArrayList<>(byId.keySet());
+        for (int from = 0; from < ids.size(); from += LINK_LOOKUP_CHUNK) {
+            Set<Long> chunk = new HashSet<>(ids.subList(from, Math.min(from + LINK_LOOKUP_CHUNK, ids.size())));
+            for (ItemLinkDto link : itemLinkRepository.findDtosTouchingItems(chunk)) {
+                // A link between items of different chunks is returned for both; record each end only with its chunk
+                if (chunk.contains(link.getFromItemId())) {
+                    byId.get(link.getFromItemId()).getOutgoingLinkIds().add(link.getId());
+                }
+                if (chunk.contains(link.getToItemId())) {
+                    byId.get(link.getToItemId()).getIncomingLinkIds().add(link.getId());
+                }
+            }
+        }
+        return items;
+    }
+
+    /**
+     * Fetches up to {@code size + 1} items of a blueprint whose value for {@code fieldKey} equals {@code value}.
+     * Uses the field's generated column index when the field is indexed and the index is built.
+     */
+    public List<Item> findPageByFieldValue(Long blueprintId, String fieldKey, String value, long afterId, int size) {
+        JsonPathSql.requireSafeKey(fieldKey);
+        ValueType type = fieldRepository.findFirstByKeyAndIndexedTrue(fieldKey)
+                .map(Field::getType)
+                .map(ValueType::fromFieldType)
+                .orElse(ValueType.STRING);
+        boolean indexed = itemFieldIndexService.isReady(fieldKey);
+
+        Object typedValue;
+        try {
+            switch (type) {
+                case NUMBER:
+                    typedValue = Double.valueOf(value);
+                    break;
+                case DATE:
+                    typedValue = LocalDate.parse(value);
+                    break;
+                default:
+                    typedValue = value;
+            }
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Value '" + value + "' is not a valid " + type.name().toLowerCase());
+        }
+        return itemRepository.findByFieldValue(blueprintId, fieldKey, type, typedValue, indexed, afterId, size + 1);
     }
 
     @Transactional
     public Item create(Item item) {
-        return itemRepository.save(item);
+        ItemWriteEvent event = new ItemWriteEvent();
+        event.begin();
+        itemValidationService.validateOrThrow(item.getVersion().getId(), item.getDataJson());
+        Item saved = itemRepository.save(item);
+        event.finish("create", saved);
+        eventPublisher.publishEvent(ItemChangedEvent.saved(saved));
+        return saved;
     }
 
     @Transactional
     public Optional<Item> update(Long id, Item itemDetails) {
+        ItemWriteEvent event = new ItemWriteEvent();
+        event.begin();
+        itemValidationService.validateOrThrow(itemDetails.getVersion().getId(), itemDetails.getDataJson());
         return itemRepository.findById(id)
                 .map(item -> {
                     item.setBlueprint(itemDetails.getBlueprint());
                     item.setVersion(itemDetails.getVersion());
                     item.setCurrentState(itemDetails.getCurrentState());
                     item.setDataJson(itemDetails.getDataJson());
-                    return itemRepository.save(item);
+                    Item saved = itemRepository.save(item);
+                    event.finish("update", saved);
+                    eventPublisher.publishEvent(ItemChangedEvent.saved(saved));
+                    return saved;
                 });
     }
 
@@ -58,6 +195,9 @@ public class ItemService {
         if (!existsById(id)) {
             throw new ResourceNotFoundException("Item not found with id: " + id);
         }
+        // The item's links go with it
+        itemLinkClosureService.removeItem(id);
         itemRepository.deleteById(id);
+        eventPublisher.publishEvent(ItemChangedEvent.deleted(id));
     }
 }
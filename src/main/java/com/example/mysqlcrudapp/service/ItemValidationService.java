@@ -0,0 +1,110 @@
+package com.example.mysqlcrudapp.service;
+
+import com.example.mysqlcrudapp.dto.ItemDto;
+import com.example.mysqlcrudapp.dto.ItemValidationErrorDto;
+import com.example.mysqlcrudapp.dto.ItemValidationResultDto;
+import com.example.mysqlcrudapp.entity.BlueprintVersion;
+import com.example.mysqlcrudapp.exception.ItemValidationException;
+import com.example.mysqlcrudapp.repository.BlueprintVersionRepository;
+import com.example.mysqlcrudapp.schema.CompiledSchema;
+import com.example.mysqlcrudapp.validation.ItemDataValidator;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Validates item data against the fields of its blueprint version.
+ * <p>
+ * Each version's {@link ItemDataValidator} comes with its cached {@link CompiledSchemaService compiled schema},
+ * so it is rebuilt only when a field, the version or one of its version fields changes.
+ * Batch validation runs on a dedicated fork-join pool so large pre-import checks
+ * do not compete with the common pool used by parallel streams elsewhere.
+ */
+@Service
+public class ItemValidationService {
+    private final CompiledSchemaService compiledSchemaService;
+    private final BlueprintVersionRepository blueprintVersionRepository;
+    private final ForkJoinPool validationPool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+
+    public ItemValidationService(CompiledSchemaService compiledSchemaService,
+                                 BlueprintVersionRepository blueprintVersionRepository) {
+        this.compiledSchemaService = compiledSchemaService;
+        this.blueprintVersionRepository = blueprintVersionRepository;
+    }
+
+    /**
+     * @throws com.example.mysqlcrudapp.exception.ResourceNotFoundException if the version does not exist
+     */
+    public ItemDataValidator getValidator(Long versionId) {
+        return compiledSchemaService.get(versionId).getValidator();
+    }
+
+    public List<ItemValidationErrorDto> validate(Long versionId, String dataJson) {
+        return getValidator(versionId).validate(dataJson);
+    }
+
+    /**
+     * @throws ItemValidationException if the data does not match the version's fields
+     */
+    public void validateOrThrow(Long versionId, String dataJson) {
+        List<ItemValidationErrorDto> errors = validate(versionId, dataJson);
+        if (!errors.isEmpty()) {
+            throw new ItemValidationException(errors);
+        }
+    }
+
+    /**
+     * Validates many payloads in parallel. Each item names its version, or its blueprint to use the active version.
+     *
+     * @return One result per item, in input order
+     */
+    public List<ItemValidationResultDto> validateAll(List<ItemDto> items) {
+        // Resolve versions and compile validators up front, so the parallel part never touches the database
+        Long[] versionIds = new Long[items.size()];
+        Map<Long, Long> activeVersions = new HashMap<>();
+        Map<Long, ItemDataValidator> batchValidators = new HashMap<>();
+        for (int i = 0; i < items.size(); i++) {
+            ItemDto item = items.get(i);
+            Long versionId = item.getVersionId();
+            if (versionId == null && item.getBlueprintId() != null) {
+                versionId = activeVersions.computeIfAbsent(item.getBlueprintId(), blueprintId ->
+                        blueprintVersionRepository.findActiveVersion(blueprintId).map(BlueprintVersion::getId).orElse(null));
+            }
+            versionIds[i] = versionId;
+            if (versionId != null && !batchValidators.containsKey(versionId)) {
+                batchValidators.put(versionId, compiledSchemaService.find(versionId).map(CompiledSchema::getValidator).orElse(null));
+            }
+        }
+
+        try {
+            return validationPool.submit(() -> IntStream.range(0, items.size())
+                    .parallel()
+                    .mapToObj(i -> {
+                        ItemDataValidator validator = versionIds[i] != null ? batchValidators.get(versionIds[i]) : null;
+                        List<ItemValidationErrorDto> errors = validator != null
+                                ? validator.validate(items.get(i).getDataJson())
+                                : Collections.singletonList(new ItemValidationErrorDto(null, "Version not found"));
+                        return new ItemValidationResultDto(i, versionIds[i], errors.isEmpty(), errors);
+                    })
+                    .collect(Collectors.toList())).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Validation was interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Validation failed", e.getCause());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        validationPool.shutdown();
+    }
+}
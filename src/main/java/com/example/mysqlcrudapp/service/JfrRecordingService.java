@@ -0,0 +1,197 @@
+package com.example.mysqlcrudapp.service;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.text.ParseException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Starts, dumps and stops one Java Flight Recorder recording, written to files in {@code app.jfr.directory}.
+ * <p>
+ * The recording uses the JDK settings named by {@code app.jfr.settings} ("default" or "profile") and includes
+ * the application's own events from the {@code jfr} package. With {@code app.jfr.start-on-startup} it starts
+ * once the application is ready; a running recording is written out on shutdown. Only the newest
+ * {@code app.jfr.max-files} recording files are kept in the directory; older ones are deleted as new ones are written.
+ */
+@Slf4j
+@Service
+public class JfrRecordingService {
+    private static final DateTimeFormatter FILE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss-SSS");
+    private static final String FILE_PREFIX = "recording-";
+    private static final String FILE_SUFFIX = ".jfr";
+
+    private final Path directory;
+    private final String settings;
+    private final long maxSizeBytes;
+    private final boolean startOnStartup;
+    private final int maxFiles;
+
+    private Recording recording;
+
+    public JfrRecordingService(@Value("${app.jfr.directory:data/jfr}") String directory,
+                               @Value("${app.jfr.settings:profile}") String settings,
+                               @Value("${app.jfr.max-size-mb:256}") long maxSizeMb,
+                               @Value("${app.jfr.start-on-startup:false}") boolean startOnStartup,
+                               @Value("${app.jfr.max-files:10}") int maxFiles) {
+        if (maxFiles < 1) {
+            throw new IllegalArgumentException("app.jfr.max-files must be at least 1");
+        }
+        this.directory = Paths.get(directory);
+        this.settings = settings;
+        this.maxSizeBytes = maxSizeMb * 1024 * 1024;
+        this.startOnStartup = startOnStartup;
+        this.maxFiles = maxFiles;
+    }
+
+    /**
+     * @throws IllegalArgumentException if a recording is already running
+     */
+    public synchronized Map<String, Object> start() {
+        if (isRunning()) {
+            throw new IllegalArgumentException("A flight recording is already running");
+        }
+        Configuration configuration;
+        try {
+            configuration = Configuration.getConfiguration(settings);
+        } catch (IOException | ParseException e) {
+            throw new IllegalStateException("Could not read flight recorder settings '" + settings + "'", e);
+        }
+        recording = new Recording(configuration);
+        recording.setName("mysql-crud-app");
+        recording.setToDisk(true);
+        recording.setMaxSize(maxSizeBytes);
+        recording.start();
+        log.info("Started flight recording with settings '{}'", settings);
+        return getStatus();
+    }
+
+    /**
+     * Writes what the running recording holds so far to a new file, and keeps recording
+     *
+     * @return the file written
+     * @throws IllegalArgumentException if no recording is running
+     */
+    public synchronized Path dump() {
+        requireRunning();
+        return writeTo(recording);
+    }
+
+    /**
+     * Stops the running recording and writes it to a new file
+     *
+     * @return the file written
+     * @throws IllegalArgumentException if no recording is running
+     */
+    public synchronized Path stop() {
+        requireRunning();
+        try {
+            recording.stop();
+            return writeTo(recording);
+        } finally {
+            recording.close();
+            recording = null;
+        }
+    }
+
+    public synchronized Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("running", isRunning());
+        status.put("settings", settings);
+        status.put("directory", directory.toAbsolutePath().toString());
+        if (isRunning()) {
+            status.put("startTime", recording.getStartTime());
+            status.put("sizeBytes", recording.getSize());
+        }
+        return status;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startOnStartup() {
+        if (startOnStartup) {
+            start();
+        }
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        if (isRunning()) {
+            log.info("Wrote flight recording to {} on shutdown", stop());
+        }
+    }
+
+    private boolean isRunning() {
+        return recording != null && recording.getState() == RecordingState.RUNNING;
+    }
+
+    private void requireRunning() {
+        if (!isRunning()) {
+            throw new IllegalArgumentException("No flight recording is running");
+        }
+    }
+
+    private Path writeTo(Recording source) {
+        try {
+            Files.createDirectories(directory);
+            String time = LocalDateTime.now().format(FILE_TIME);
+            Path file = directory.resolve(FILE_PREFIX + time + FILE_SUFFIX);
+            for (int suffix = 1; Files.exists(file); suffix++) {
+                file = directory.resolve(FILE_PREFIX + time + "-" + suffix + FILE_SUFFIX);
+            }
+            source.dump(file);
+            log.info("Wrote flight recording to {}", file);
+            deleteOldRecordings();
+            return file;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write the flight recording to " + directory, e);
+        }
+    }
+
+    /**
+     * Deletes all but the newest {@code maxFiles} recording files, oldest first by modification time
+     */
+    private void deleteOldRecordings() throws IOException {
+        List<Path> recordings;
+        try (Stream<Path> files = Files.list(directory)) {
+            recordings = files
+                    .filter(file -> {
+                        String name = file.getFileName().toString();
+                        return name.startsWith(FILE_PREFIX) && name.endsWith(FILE_SUFFIX);
+                    })
+                    .collect(Collectors.toList());
+        }
+        if (recordings.size() <= maxFiles) {
+            return;
+        }
+        Map<Path, FileTime> modified = new HashMap<>();
+        for (Path file : recordings) {
+            modified.put(file, Files.getLastModifiedTime(file));
+        }
+        recordings.sort(Comparator.comparing((Path file) -> modified.get(file)).thenComparing(Path::getFileName));
+        for (Path file : recordings.subList(0, recordings.size() - maxFiles)) {
+            Files.deleteIfExists(file);
+            log.info("Deleted old flight recording {}", file);
+        }
+    }
+}
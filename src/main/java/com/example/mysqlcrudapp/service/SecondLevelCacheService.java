@@ -0,0 +1,73 @@
+package com.example.mysqlcrudapp.service;
+
+import com.example.mysqlcrudapp.dto.CacheRegionStatsDto;
+import com.example.mysqlcrudapp.persistence.CacheRegions;
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.SessionFactory;
+import org.hibernate.cache.spi.CacheImplementor;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.stereotype.Service;
+
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.OptionalLong;
+
+/**
+ * Statistics and eviction for the Hibernate second-level cache, see
+ * {@link com.example.mysqlcrudapp.config.SecondLevelCacheConfig}
+ */
+@Service
+@RequiredArgsConstructor
+public class SecondLevelCacheService {
+    private final EntityManagerFactory entityManagerFactory;
+    private final CacheManager hibernateCacheManager;
+
+    public List<CacheRegionStatsDto> getStatistics() {
+        Statistics statistics = sessionFactory().getStatistics();
+        List<CacheRegionStatsDto> regions = new ArrayList<>();
+        for (String region : CacheRegions.ENTITY_REGIONS) {
+            regions.add(describe(region, "entity", statistics.getDomainDataRegionStatistics(region)));
+        }
+        CacheImplementor cache = (CacheImplementor) sessionFactory().getCache();
+        for (String region : CacheRegions.QUERY_REGIONS) {
+            // Named query regions are opened on first use, and Hibernate remembers statistics asked for
+            // before that as missing for good, after which the query itself fails; so open them first
+            cache.getQueryResultsCache(region);
+            regions.add(describe(region, "query", statistics.getQueryRegionStatistics(region)));
+        }
+        CacheRegionStatsDto timestamps = describe(CacheRegions.UPDATE_TIMESTAMPS, "timestamps", null);
+        timestamps.setHitCount(statistics.getUpdateTimestampsCacheHitCount());
+        timestamps.setMissCount(statistics.getUpdateTimestampsCacheMissCount());
+        timestamps.setPutCount(statistics.getUpdateTimestampsCachePutCount());
+        regions.add(timestamps);
+        return regions;
+    }
+
+    /**
+     * Drops every cached entity, collection and query result, e.g. after the schema tables were edited by hand
+     */
+    public void evictAll() {
+        sessionFactory().getCache().evictAll();
+    }
+
+    private CacheRegionStatsDto describe(String region, String type, CacheRegionStatistics statistics) {
+        Cache<Object, Object> cache = hibernateCacheManager.getCache(region);
+        @SuppressWarnings("unchecked")
+        OptionalLong maxSize = cache.getConfiguration(CaffeineConfiguration.class).getMaximumSize();
+        return new CacheRegionStatsDto(region, type,
+                statistics != null ? statistics.getHitCount() : 0,
+                statistics != null ? statistics.getMissCount() : 0,
+                statistics != null ? statistics.getPutCount() : 0,
+                cache.unwrap(com.github.benmanes.caffeine.cache.Cache.class).estimatedSize(),
+                maxSize.isPresent() ? maxSize.getAsLong() : null);
+    }
+
+    private SessionFactory sessionFactory() {
+        return entityManagerFactory.unwrap(SessionFactory.class);
+    }
+}
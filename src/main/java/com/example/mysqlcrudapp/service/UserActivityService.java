@@ -0,0 +1,230 @@
+package com.example.mysqlcrudapp.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.authentication.event.AuthenticationSuccessEvent;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Buffers users' last activity times and writes them to {@code users.last_login} in batches.
+ * <p>
+ * Each user has at most one pending time, the latest, so a burst of logins by the same user costs one row
+ * update. Pending times are written every {@code app.user-activity.flush-interval-ms} as JDBC batches of
+ * {@code app.user-activity.batch-size}, and once more on shutdown. At most {@code app.user-activity.buffer-size}
+ * users are pending; beyond that the user who has been pending longest is dropped, so a database outage
+ * costs old activity times rather than memory. An update never moves a stored time backwards.
+ * The same numbers as {@link #getStatistics()} are published as {@code user.activity.*} metrics.
+ */
+@Slf4j
+@Service
+public class UserActivityService implements MeterBinder {
+    private static final String UPDATE_SQL =
+            "UPDATE users SET last_login = ? WHERE user_id = ? AND (last_login IS NULL OR last_login < ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int bufferSize;
+    private final int batchSize;
+
+    /** Latest activity per user, the longest pending first; guarded by itself */
+    private final LinkedHashMap<Long, LocalDateTime> pending = new LinkedHashMap<>();
+    private long recorded;
+    private long dropped;
+    private long flushes;
+    private long written;
+    private long failedFlushes;
+    private int lastBatchSize;
+    private int maxBatchSize;
+    private long lastFlushMillis;
+
+    public UserActivityService(JdbcTemplate jdbcTemplate,
+                               @Value("${app.user-activity.buffer-size:10000}") int bufferSize,
+                               @Value("${app.user-activity.batch-size:500}") int batchSize) {
+        if (bufferSize <= 0 || batchSize <= 0) {
+            throw new IllegalArgumentException("User activity buffer and batch sizes must be positive");
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.bufferSize = bufferSize;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Records that a user was active now; written to the database with the next flush
+     */
+    public void record(Long userId) {
+        LocalDateTime now = LocalDateTime.now();
+        synchronized (pending) {
+            recorded++;
+            // Re-inserting moves the user to the back, behind users pending for longer
+            pending.remove(userId);
+            pending.put(userId, now);
+            if (pending.size() > bufferSize) {
+                Iterator<Long> eldest = pending.keySet().iterator();
+                eldest.next();
+                eldest.remove();
+                dropped++;
+            }
+        }
+    }
+
+    @EventListener
+    public void onLogin(AuthenticationSuccessEvent event) {
+        Object principal = event.getAuthentication().getPrincipal();
+        if (principal instanceof UserPrincipal) {
+            record(((UserPrincipal) principal).getId());
+        }
+    }
+
+    /**
+     * Writes all pending activity times; those of a failed batch are put back unless the user was active since
+     *
+     * @return the number of users written
+     */
+    @Scheduled(fixedDelayString = "${app.user-activity.flush-interval-ms:5000}")
+    public int flush() {
+        List<Map.Entry<Long, LocalDateTime>> entries;
+        synchronized (pending) {
+            if (pending.isEmpty()) {
+                return 0;
+            }
+            entries = new ArrayList<>(pending.entrySet());
+            pending.clear();
+        }
+
+        long start = System.nanoTime();
+        int count = 0;
+        for (int from = 0; from < entries.size(); from += batchSize) {
+            List<Map.Entry<Long, LocalDateTime>> batch = entries.subList(from, Math.min(from + batchSize, entries.size()));
+            try {
+                jdbcTemplate.batchUpdate(UPDATE_SQL, batch, batch.size(), (ps, entry) -> {
+                    Timestamp time = Timestamp.valueOf(entry.getValue());
+                    ps.setTimestamp(1, time);
+                    ps.setLong(2, entry.getKey());
+                    ps.setTimestamp(3, time);
+                });
+                count += batch.size();
+                synchronized (pending) {
+                    lastBatchSize = batch.size();
+                    maxBatchSize = Math.max(maxBatchSize, batch.size());
+                }
+            } catch (RuntimeException e) {
+                log.warn("Could not write the last activity of {} users: {}", batch.size(), e.getMessage());
+                requeue(batch);
+            }
+        }
+        synchronized (pending) {
+            flushes++;
+            written += count;
+            if (count < entries.size()) {
+                failedFlushes++;
+            }
+            lastFlushMillis = (System.nanoTime() - start) / 1_000_000;
+        }
+        return count;
+    }
+
+    @PreDestroy
+    public void close() {
+        int count = flush();
+        if (count > 0) {
+            log.info("Wrote the last activity of {} users on shutdown", count);
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("user.activity.pending", this, service -> service.read(() -> service.pending.size()))
+                .description("Users whose latest activity time is not written yet")
+                .register(registry);
+        TimeGauge.builder("user.activity.flush.lag", this, TimeUnit.MILLISECONDS, service -> service.read(service::flushLagMillis))
+                .description("Age of the longest pending activity time")
+                .register(registry);
+        Gauge.builder("user.activity.batch.size.last", this, service -> service.read(() -> service.lastBatchSize))
+                .register(registry);
+        Gauge.builder("user.activity.batch.size.max", this, service -> service.read(() -> service.maxBatchSize))
+                .register(registry);
+        Gauge.builder("user.activity.flush.duration.last", this, service -> service.read(() -> service.lastFlushMillis))
+                .baseUnit("milliseconds")
+                .register(registry);
+        FunctionCounter.builder("user.activity.recorded", this, service -> service.read(() -> service.recorded))
+                .register(registry);
+        FunctionCounter.builder("user.activity.dropped", this, service -> service.read(() -> service.dropped))
+                .description("Activity times dropped because the buffer was full")
+                .register(registry);
+        FunctionCounter.builder("user.activity.written", this, service -> service.read(() -> service.written))
+                .register(registry);
+        FunctionCounter.builder("user.activity.flushes", this, service -> service.read(() -> service.flushes))
+                .register(registry);
+        FunctionCounter.builder("user.activity.flushes.failed", this, service -> service.read(() -> service.failedFlushes))
+                .register(registry);
+    }
+
+    public Map<String, Object> getStatistics() {
+        synchronized (pending) {
+            Map<String, Object> statistics = new LinkedHashMap<>();
+            statistics.put("pending", pending.size());
+            statistics.put("flushLagMillis", flushLagMillis());
+            statistics.put("recorded", recorded);
+            statistics.put("dropped", dropped);
+            statistics.put("flushes", flushes);
+            statistics.put("failedFlushes", failedFlushes);
+            statistics.put("written", written);
+            statistics.put("lastBatchSize", lastBatchSize);
+            statistics.put("maxBatchSize", maxBatchSize);
+            statistics.put("lastFlushMillis", lastFlushMillis);
+            return statistics;
+        }
+    }
+
+    /**
+     * How far the database is behind: the age of the longest pending activity time. Call holding the lock.
+     */
+    private long flushLagMillis() {
+        return pending.isEmpty() ? 0 : pending.values().iterator().next().until(LocalDateTime.now(), ChronoUnit.MILLIS);
+    }
+
+    private double read(LongSupplier value) {
+        synchronized (pending) {
+            return value.getAsLong();
+        }
+    }
+
+    private void requeue(List<Map.Entry<Long, LocalDateTime>> batch) {
+        synchronized (pending) {
+            // The failed times have been pending longest, so they go in front; a newer time recorded meanwhile wins
+            LinkedHashMap<Long, LocalDateTime> merged = new LinkedHashMap<>();
+            batch.forEach(entry -> merged.put(entry.getKey(), entry.getValue()));
+            pending.forEach((userId, time) -> {
+                merged.remove(userId);
+                merged.put(userId, time);
+            });
+            pending.clear();
+            pending.putAll(merged);
+            Iterator<Long> eldest = pending.keySet().iterator();
+            while (pending.size() > bufferSize) {
+                eldest.next();
+                eldest.remove();
+                dropped++;
+            }
+        }
+    }
+}
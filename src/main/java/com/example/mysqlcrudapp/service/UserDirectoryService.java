@@ -0,0 +1,130 @@
+package com.example.mysqlcrudapp.service;
+
+import com.example.mysqlcrudapp.entity.User;
+import com.example.mysqlcrudapp.persistence.ReplicaRoutingDataSource;
+import com.example.mysqlcrudapp.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * Resolves user ids to display names and logins to ids through a small time-bounded cache.
+ * <p>
+ * Rows store the id of the user who created them; listings show names, which would otherwise cost a
+ * users query per row or per request. Entries expire after {@code app.user-cache.ttl-seconds}, and
+ * are dropped right away when a user is changed through {@link UserService}.
+ */
+@Service
+public class UserDirectoryService implements MeterBinder {
+    /** Shown for rows written without a signed-in user, such as seed data */
+    public static final String SYSTEM_NAME = "system";
+
+    private final LoadingCache<Long, String> namesById;
+    private final LoadingCache<String, Optional<Long>> idsByLogin;
+
+    public UserDirectoryService(UserRepository userRepository,
+                                @Value("${app.user-cache.max-size:10000}") long maxSize,
+                                @Value("${app.user-cache.ttl-seconds:300}") long ttlSeconds) {
+        Duration ttl = Duration.ofSeconds(ttlSeconds);
+        this.namesById = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build(new CacheLoader<Long, String>() {
+                    @Override
+                    public String load(Long id) {
+                        return ReplicaRoutingDataSource.readFromPrimary(() -> userRepository.findById(id))
+                                .map(UserDirectoryService::displayName)
+                                .orElse(unknownName(id));
+                    }
+
+                    @Override
+                    public Map<Long, String> loadAll(Iterable<? extends Long> ids) {
+                        List<Long> wanted = new ArrayList<>();
+                        ids.forEach(wanted::add);
+                        Map<Long, String> names = new HashMap<>();
+                        for (User user : ReplicaRoutingDataSource.readFromPrimary(() -> userRepository.findAllById(wanted))) {
+                            names.put(user.getId(), displayName(user));
+                        }
+                        for (Long id : wanted) {
+                            names.putIfAbsent(id, unknownName(id));
+                        }
+                        return names;
+                    }
+                });
+        this.idsByLogin = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build(login -> ReplicaRoutingDataSource.readFromPrimary(() -> userRepository.findByLogin(login)).map(User::getId));
+    }
+
+    /**
+     * Display name of a user: the full name, else the login; {@value #SYSTEM_NAME} for a null id
+     */
+    public String displayName(Long userId) {
+        return userId == null ? SYSTEM_NAME : namesById.get(userId);
+    }
+
+    /**
+     * Display names of several users, with the ones not cached yet loaded in one query.
+     * <p>
+     * Callers that are about to read through a streaming cursor resolve names with this first, as no other
+     * statement can run on the connection until the cursor is closed.
+     *
+     * @return names by user id; null ids are left out
+     */
+    public Map<Long, String> displayNames(Collection<Long> userIds) {
+        return namesById.getAll(userIds.stream().filter(Objects::nonNull).collect(Collectors.toSet()));
+    }
+
+    /**
+     * Id of the user with a login, or null if there is none
+     */
+    public Long findIdByLogin(String login) {
+        return login == null ? null : idsByLogin.get(login).orElse(null);
+    }
+
+    /**
+     * Forgets what is cached about a user whose login or name may have changed
+     */
+    public void evict(Long userId, String... logins) {
+        if (userId != null) {
+            namesById.invalidate(userId);
+        }
+        for (String login : logins) {
+            if (login != null) {
+                idsByLogin.invalidate(login);
+            }
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, namesById, "user.names");
+        CaffeineCacheMetrics.monitor(registry, idsByLogin, "user.ids");
+    }
+
+    static String unknownName(Long userId) {
+        return "user #" + userId;
+    }
+
+    static String displayName(User user) {
+        return user.getFullName() != null ? user.getFullName() : user.getLogin();
+    }
+}
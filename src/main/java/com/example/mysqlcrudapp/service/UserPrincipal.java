@@ -0,0 +1,26 @@
+package com.example.mysqlcrudapp.service;
+
+import lombok.Getter;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+
+import java.util.Collection;
+
+/**
+ * The signed-in user as stored in the session, carrying the id and full name read at login
+ * so that writes can record their author without looking the user up again
+ */
+@Getter
+public class UserPrincipal extends User {
+    private static final long serialVersionUID = 1L;
+
+    private final Long id;
+    private final String fullName;
+
+    public UserPrincipal(Long id, String login, String passwordHash, String fullName,
+                         Collection<? extends GrantedAuthority> authorities) {
+        super(login, passwordHash, authorities);
+        this.id = id;
+        this.fullName = fullName;
+    }
+}
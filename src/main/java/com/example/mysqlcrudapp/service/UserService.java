@@ -6,7 +6,6 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -15,6 +14,8 @@ import java.util.Optional;
 @Transactional(readOnly = true)
 public class UserService {
     private final UserRepository userRepository;
+    private final UserDirectoryService userDirectoryService;
+    private final UserActivityService userActivityService;
 
     public List<User> findAll() {
         return userRepository.findAll();
@@ -34,6 +35,8 @@ public class UserService {
 
     @Transactional
     public User create(User user) {
+        // The login may be cached as unknown
+        userDirectoryService.evict(user.getId(), user.getLogin());
         return userRepository.save(user);
     }
 
@@ -41,6 +44,7 @@ public class UserService {
     public Optional<User> update(Long id, User userDetails) {
         return userRepository.findById(id)
                 .map(user -> {
+                    userDirectoryService.evict(id, user.getLogin(), userDetails.getLogin());
                     user.setLogin(userDetails.getLogin());
                     user.setEmail(userDetails.getEmail());
                     user.setPasswordHash(userDetails.getPasswordHash());
@@ -59,17 +63,16 @@ public class UserService {
         return userRepository.findById(id)
                 .map(user -> {
                     userRepository.delete(user);
+                    userDirectoryService.evict(id, user.getLogin());
                     return true;
                 })
                 .orElse(false);
     }
 
-    @Transactional
+    /**
+     * Records that a user is active now; last_login is written in the background, see {@link UserActivityService}
+     */
     public void updateLastLogin(Long id) {
-        userRepository.findById(id)
-                .ifPresent(user -> {
-                    user.setLastLogin(LocalDateTime.now());
-                    userRepository.save(user);
-                });
+        userActivityService.record(id);
     }
 }
@@ -0,0 +1,129 @@
+package com.example.mysqlcrudapp.timing;
+
+import java.util.Arrays;
+
+/**
+ * Where the time of the current request went, per {@link Phase}, for the {@code Server-Timing} header and the
+ * access log.
+ * <p>
+ * Each thread keeps one {@code long[]} that is reset when a request starts, so recording a phase allocates
+ * nothing. Outside a request, e.g. in scheduled jobs, nothing is recorded. Phases may overlap: a lazy load
+ * while mapping or rendering counts as database time too.
+ */
+public final class RequestTimings {
+
+    public enum Phase {
+        DB("db", "Database"),
+        MAPPING("map", "Mapping"),
+        SERIALIZATION("json", "Serialization"),
+        VIEW("view", "View rendering");
+
+        private final String metricName;
+        private final String description;
+
+        Phase(String metricName, String description) {
+            this.metricName = metricName;
+            this.description = description;
+        }
+    }
+
+    private static final Phase[] PHASES = Phase.values();
+    /** Slots: the nanoseconds of each phase, then the count of each phase, then the request start */
+    private static final int COUNTS = PHASES.length;
+    private static final int START = PHASES.length * 2;
+    private static final ThreadLocal<long[]> SLOTS = ThreadLocal.withInitial(() -> new long[START + 1]);
+
+    private RequestTimings() {
+    }
+
+    /**
+     * Starts timing a request on this thread, discarding what the previous request left
+     */
+    public static void start() {
+        long[] slots = SLOTS.get();
+        Arrays.fill(slots, 0);
+        slots[START] = System.nanoTime();
+    }
+
+    public static void stop() {
+        SLOTS.get()[START] = 0;
+    }
+
+    public static boolean isActive() {
+        return SLOTS.get()[START] != 0;
+    }
+
+    /**
+     * Adds one occurrence of a phase that took {@code nanos}; ignored outside a request
+     */
+    public static void add(Phase phase, long nanos) {
+        long[] slots = SLOTS.get();
+        if (slots[START] != 0) {
+            slots[phase.ordinal()] += nanos;
+            slots[COUNTS + phase.ordinal()]++;
+        }
+    }
+
+    public static long nanos(Phase phase) {
+        return SLOTS.get()[phase.ordinal()];
+    }
+
+    public static long count(Phase phase) {
+        return SLOTS.get()[COUNTS + phase.ordinal()];
+    }
+
+    /**
+     * Time since the request started, or 0 outside a request
+     */
+    public static long totalNanos() {
+        long start = SLOTS.get()[START];
+        return start == 0 ? 0 : System.nanoTime() - start;
+    }
+
+    /**
+     * The phases recorded so far and the total, as a {@code Server-Timing} header value, e.g.
+     * {@code db;dur=3.12;desc="Database (2)", json;dur=0.41;desc="Serialization (1)", total;dur=5.02}
+     */
+    public static String serverTimingHeader() {
+        StringBuilder header = new StringBuilder(160);
+        for (Phase phase : PHASES) {
+            long count = count(phase);
+            if (count > 0) {
+                header.append(phase.metricName).append(";dur=");
+                appendMillis(header, nanos(phase));
+                header.append(";desc=\"").append(phase.description).append(" (").append(count).append(")\", ");
+            }
+        }
+        header.append("total;dur=");
+        appendMillis(header, totalNanos());
+        return header.toString();
+    }
+
+    /**
+     * The phases as {@code key=value} pairs for a log line, every phase included so lines line up
+     */
+    public static String logFields() {
+        StringBuilder fields = new StringBuilder(160);
+        fields.append("total_ms=");
+        appendMillis(fields, totalNanos());
+        for (Phase phase : PHASES) {
+            fields.append(' ').append(phase.metricName).append("_ms=");
+            appendMillis(fields, nanos(phase));
+            fields.append(' ').append(phase.metricName).append("_count=").append(count(phase));
+        }
+        return fields.toString();
+    }
+
+    /**
+     * Milliseconds with two decimals, without going through a formatter
+     */
+    private static void appendMillis(StringBuilder target, long nanos) {
+        long hundredths = nanos / 10_000;
+        target.append(hundredths / 100).append('.');
+        long fraction = hundredths % 100;
+        if (fraction < 10) {
+            target.append('0');
+        }
+        target.append(fraction);
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.mysqlcrudapp.timing;
+
+import com.example.mysqlcrudapp.timing.RequestTimings.Phase;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Times each request by {@link Phase} and reports it in a {@code Server-Timing} header and on the
+ * {@code access} logger, one {@code key=value} line per request.
+ * <p>
+ * JSON responses get the header from {@link TimedJackson2HttpMessageConverter} and pages from
+ * {@link ViewTimingInterceptor}, since both commit the response while writing it; other responses get it here
+ * if nothing has been written yet. Database time comes from {@code StatementCountingDataSource}.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class ServerTimingFilter extends OncePerRequestFilter {
+    public static final String SERVER_TIMING = "Server-Timing";
+
+    private static final Logger ACCESS_LOG = LoggerFactory.getLogger("access");
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+                                    @NonNull FilterChain filterChain) throws ServletException, IOException {
+        RequestTimings.start();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            if (!response.isCommitted() && !response.containsHeader(SERVER_TIMING)) {
+                response.setHeader(SERVER_TIMING, RequestTimings.serverTimingHeader());
+            }
+            if (ACCESS_LOG.isInfoEnabled()) {
+                Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+                ACCESS_LOG.info("method={} uri={} pattern={} status={} {}", request.getMethod(), request.getRequestURI(),
+                        pattern != null ? pattern : "-", response.getStatus(), RequestTimings.logFields());
+            }
+            RequestTimings.stop();
+        }
+    }
+}
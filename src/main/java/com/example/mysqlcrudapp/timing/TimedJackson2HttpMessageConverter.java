@@ -0,0 +1,128 @@
+package com.example.mysqlcrudapp.timing;
+
+import com.example.mysqlcrudapp.timing.RequestTimings.Phase;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.lang.NonNull;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Type;
+
+/**
+ * Writes JSON into a buffer first, so that serialization is timed apart from sending the bytes, and the
+ * {@code Server-Timing} header, complete up to this point, can still be added before the response is committed.
+ * <p>
+ * Only the first {@code maxBufferedBytes} are held back. A larger response sends the header without the
+ * serialization phase, then streams the rest; its serialization time, which then includes sending, only
+ * reaches the access log.
+ */
+public class TimedJackson2HttpMessageConverter extends MappingJackson2HttpMessageConverter {
+    private static final int INITIAL_BUFFER_SIZE = 8192;
+
+    private final int maxBufferedBytes;
+
+    public TimedJackson2HttpMessageConverter(ObjectMapper objectMapper, int maxBufferedBytes) {
+        super(objectMapper);
+        if (maxBufferedBytes < 1) {
+            throw new IllegalArgumentException("maxBufferedBytes must be positive");
+        }
+        this.maxBufferedBytes = maxBufferedBytes;
+    }
+
+    @Override
+    protected void writeInternal(@NonNull Object object, Type type, @NonNull HttpOutputMessage outputMessage)
+            throws IOException, HttpMessageNotWritableException {
+        if (!RequestTimings.isActive()) {
+            super.writeInternal(object, type, outputMessage);
+            return;
+        }
+        SpillingOutputStream body = new SpillingOutputStream(outputMessage);
+        long start = System.nanoTime();
+        super.writeInternal(object, type, new HttpOutputMessage() {
+            @Override
+            @NonNull
+            public OutputStream getBody() {
+                return body;
+            }
+
+            @Override
+            @NonNull
+            public HttpHeaders getHeaders() {
+                return outputMessage.getHeaders();
+            }
+        });
+        RequestTimings.add(Phase.SERIALIZATION, System.nanoTime() - start);
+        body.finish();
+    }
+
+    /**
+     * Buffers up to {@code maxBufferedBytes}, then adds the header and passes everything on to the response
+     */
+    private final class SpillingOutputStream extends OutputStream {
+        private final HttpOutputMessage outputMessage;
+        private ByteArrayOutputStream buffer = new ByteArrayOutputStream(Math.min(INITIAL_BUFFER_SIZE, maxBufferedBytes));
+        private OutputStream target;
+
+        private SpillingOutputStream(HttpOutputMessage outputMessage) {
+            this.outputMessage = outputMessage;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (target == null && buffer.size() + 1 > maxBufferedBytes) {
+                spill();
+            }
+            if (target != null) {
+                target.write(b);
+            } else {
+                buffer.write(b);
+            }
+        }
+
+        @Override
+        public void write(@NonNull byte[] bytes, int offset, int length) throws IOException {
+            if (target == null && buffer.size() + length > maxBufferedBytes) {
+                spill();
+            }
+            if (target != null) {
+                target.write(bytes, offset, length);
+            } else {
+                buffer.write(bytes, offset, length);
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            // Jackson flushes when it is done; buffered bytes wait for finish()
+            if (target != null) {
+                target.flush();
+            }
+        }
+
+        /**
+         * Sends a response that stayed within the buffer, with its length and the complete header
+         */
+        private void finish() throws IOException {
+            if (target != null) {
+                return;
+            }
+            HttpHeaders headers = outputMessage.getHeaders();
+            headers.set(ServerTimingFilter.SERVER_TIMING, RequestTimings.serverTimingHeader());
+            headers.setContentLength(buffer.size());
+            buffer.writeTo(outputMessage.getBody());
+            buffer = null;
+        }
+
+        private void spill() throws IOException {
+            outputMessage.getHeaders().set(ServerTimingFilter.SERVER_TIMING, RequestTimings.serverTimingHeader());
+            target = outputMessage.getBody();
+            buffer.writeTo(target);
+            buffer = null;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.mysqlcrudapp.timing;
+
+import com.example.mysqlcrudapp.jfr.MappingEvent;
+import com.example.mysqlcrudapp.timing.RequestTimings.Phase;
+import org.modelmapper.ModelMapper;
+
+import java.lang.reflect.Type;
+
+/**
+ * A ModelMapper that adds the time of each mapping to the {@link Phase#MAPPING} phase of the current request,
+ * and emits a {@link MappingEvent} for it
+ */
+public class TimedModelMapper extends ModelMapper {
+
+    @Override
+    public <D> D map(Object source, Class<D> destinationType) {
+        long start = System.nanoTime();
+        MappingEvent event = new MappingEvent();
+        event.begin();
+        try {
+            return super.map(source, destinationType);
+        } finally {
+            finish(start, event, source, destinationType);
+        }
+    }
+
+    @Override
+    public <D> D map(Object source, Class<D> destinationType, String typeMapName) {
+        long start = System.nanoTime();
+        MappingEvent event = new MappingEvent();
+        event.begin();
+        try {
+            return super.map(source, destinationType, typeMapName);
+        } finally {
+            finish(start, event, source, destinationType);
+        }
+    }
+
+    @Override
+    public void map(Object source, Object destination) {
+        long start = System.nanoTime();
+        MappingEvent event = new MappingEvent();
+        event.begin();
+        try {
+            super.map(source, destination);
+        } finally {
+            finish(start, event, source, destination.getClass());
+        }
+    }
+
+    @Override
+    public void map(Object source, Object destination, String typeMapName) {
+        long start = System.nanoTime();
+        MappingEvent event = new MappingEvent();
+        event.begin();
+        try {
+            super.map(source, destination, typeMapName);
+        } finally {
+            finish(start, event, source, destination.getClass());
+        }
+    }
+
+    @Override
+    public <D> D map(Object source, Type destinationType) {
+        long start = System.nanoTime();
+        MappingEvent event = new MappingEvent();
+        event.begin();
+        try {
+            return super.map(source, destinationType);
+        } finally {
+            finish(start, event, source, destinationType);
+        }
+    }
+
+    @Override
+    public <D> D map(Object source, Type destinationType, String typeMapName) {
+        long start = System.nanoTime();
+        MappingEvent event = new MappingEvent();
+        event.begin();
+        try {
+            return super.map(source, destinationType, typeMapName);
+        } finally {
+            finish(start, event, source, destinationType);
+        }
+    }
+
+    private static void finish(long start, MappingEvent event, Object source, Type destinationType) {
+        RequestTimings.add(Phase.MAPPING, System.nanoTime() - start);
+        event.finish(source, destinationType);
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.mysqlcrudapp.timing;
+
+import com.example.mysqlcrudapp.timing.RequestTimings.Phase;
+import org.springframework.lang.NonNull;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.ModelAndView;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Times view rendering into the {@link Phase#VIEW} phase.
+ * <p>
+ * Rendering writes the page as it goes, so the {@code Server-Timing} header of a page is set before rendering
+ * and covers the work done up to then; the rendering time itself is only in the access log.
+ */
+public class ViewTimingInterceptor implements HandlerInterceptor {
+    private static final String RENDER_START = ViewTimingInterceptor.class.getName() + ".renderStart";
+
+    @Override
+    public void postHandle(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+                           @NonNull Object handler, ModelAndView modelAndView) {
+        if (modelAndView == null || !RequestTimings.isActive()) {
+            return;
+        }
+        if (!response.isCommitted()) {
+            response.setHeader(ServerTimingFilter.SERVER_TIMING, RequestTimings.serverTimingHeader());
+        }
+        request.setAttribute(RENDER_START, System.nanoTime());
+    }
+
+    @Override
+    public void afterCompletion(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+                                @NonNull Object handler, Exception ex) {
+        Object start = request.getAttribute(RENDER_START);
+        if (start != null) {
+            RequestTimings.add(Phase.VIEW, System.nanoTime() - (Long) start);
+        }
+    }
+}
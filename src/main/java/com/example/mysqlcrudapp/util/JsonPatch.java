@@ -0,0 +1,178 @@
+package com.example.mysqlcrudapp.util;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Applies RFC 6902 JSON Patch documents to Jackson trees.
+ * <p>
+ * Supports all six operations. Problems with the patch, or a failed {@code test}, raise
+ * {@link IllegalArgumentException} naming the offending operation.
+ */
+public final class JsonPatch {
+
+    private JsonPatch() {
+    }
+
+    /**
+     * Applies a patch to a copy of the document
+     *
+     * @param document The document to patch; it is not modified
+     * @param patch The patch, an array of operation objects
+     * @return The patched document
+     */
+    public static JsonNode apply(JsonNode document, JsonNode patch) {
+        if (patch == null || !patch.isArray()) {
+            throw new IllegalArgumentException("JSON Patch must be an array of operations");
+        }
+        JsonNode result = document.deepCopy();
+        for (int i = 0; i < patch.size(); i++) {
+            JsonNode operation = patch.get(i);
+            try {
+                result = applyOperation(result, operation);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Patch operation " + i + " failed: " + e.getMessage(), e);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Splits a JSON Pointer into its unescaped reference tokens
+     *
+     * @throws IllegalArgumentException if the pointer is not empty and does not start with '/'
+     */
+    public static List<String> parsePointer(String pointer) {
+        List<String> tokens = new ArrayList<>();
+        if (pointer.isEmpty()) {
+            return tokens;
+        }
+        if (pointer.charAt(0) != '/') {
+            throw new IllegalArgumentException("Invalid JSON Pointer: " + pointer);
+        }
+        for (String token : pointer.substring(1).split("/", -1)) {
+            tokens.add(token.replace("~1", "/").replace("~0", "~"));
+        }
+        return tokens;
+    }
+
+    private static JsonNode applyOperation(JsonNode document, JsonNode operation) {
+        String op = requiredText(operation, "op");
+        List<String> path = parsePointer(requiredText(operation, "path"));
+        switch (op) {
+            case "add":
+                return add(document, path, requiredValue(operation));
+            case "remove":
+                return remove(document, path);
+            case "replace":
+                get(document, path);
+                return add(remove(document, path), path, requiredValue(operation));
+            case "move": {
+                List<String> from = parsePointer(requiredText(operation, "from"));
+                if (path.size() > from.size() && path.subList(0, from.size()).equals(from)) {
+                    throw new IllegalArgumentException("Cannot move a value into one of its children");
+                }
+                JsonNode value = get(document, from);
+                return add(remove(document, from), path, value);
+            }
+            case "copy":
+                return add(document, path, get(document, parsePointer(requiredText(operation, "from"))).deepCopy());
+            case "test":
+                if (!get(document, path).equals(requiredValue(operation))) {
+                    throw new IllegalArgumentException("Test failed at " + operation.get("path").asText());
+                }
+                return document;
+            default:
+                throw new IllegalArgumentException("Unsupported operation: " + op);
+        }
+    }
+
+    private static JsonNode add(JsonNode document, List<String> path, JsonNode value) {
+        if (path.isEmpty()) {
+            return value;
+        }
+        JsonNode parent = get(document, path.subList(0, path.size() - 1));
+        String last = path.get(path.size() - 1);
+        if (parent.isObject()) {
+            ((ObjectNode) parent).set(last, value);
+        } else if (parent.isArray()) {
+            ArrayNode array = (ArrayNode) parent;
+            if ("-".equals(last)) {
+                array.add(value);
+            } else {
+                int index = arrayIndex(last, array.size());
+                array.insert(index, value);
+            }
+        } else {
+            throw new IllegalArgumentException("Cannot add to a scalar value");
+        }
+        return document;
+    }
+
+    private static JsonNode remove(JsonNode document, List<String> path) {
+        if (path.isEmpty()) {
+            throw new IllegalArgumentException("Cannot remove the whole document");
+        }
+        JsonNode parent = get(document, path.subList(0, path.size() - 1));
+        String last = path.get(path.size() - 1);
+        if (parent.isObject()) {
+            if (!parent.has(last)) {
+                throw new IllegalArgumentException("No value at /" + String.join("/", path));
+            }
+            ((ObjectNode) parent).remove(last);
+        } else if (parent.isArray()) {
+            ((ArrayNode) parent).remove(arrayIndex(last, parent.size() - 1));
+        } else {
+            throw new IllegalArgumentException("No value at /" + String.join("/", path));
+        }
+        return document;
+    }
+
+    private static JsonNode get(JsonNode document, List<String> path) {
+        JsonNode node = document;
+        for (String token : path) {
+            if (node.isObject()) {
+                node = node.get(token);
+            } else if (node.isArray()) {
+                node = node.get(arrayIndex(token, node.size() - 1));
+            } else {
+                node = null;
+            }
+            if (node == null) {
+                throw new IllegalArgumentException("No value at /" + String.join("/", path));
+            }
+        }
+        return node;
+    }
+
+    private static int arrayIndex(String token, int max) {
+        if (!token.matches("0|[1-9][0-9]{0,8}")) {
+            throw new IllegalArgumentException("Invalid array index: " + token);
+        }
+        int index = Integer.parseInt(token);
+        if (index > max) {
+            throw new IllegalArgumentException("Array index out of bounds: " + token);
+        }
+        return index;
+    }
+
+    private static String requiredText(JsonNode operation, String name) {
+        JsonNode value = operation.get(name);
+        if (value == null || !value.isTextual()) {
+            throw new IllegalArgumentException("Missing \"" + name + "\"");
+        }
+        return value.textValue();
+    }
+
+    private static JsonNode requiredValue(JsonNode operation) {
+        JsonNode value = operation.get("value");
+        if (value == null) {
+            throw new IllegalArgumentException("Missing \"value\"");
+        }
+        return value;
+    }
+}
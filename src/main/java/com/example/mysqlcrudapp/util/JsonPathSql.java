@@ -0,0 +1,116 @@
+package com.example.mysqlcrudapp.util;
+
+import java.util.regex.Pattern;
+
+/**
+ * Builds MySQL expressions that read a single top-level key out of {@code item.data_json}.
+ * <p>
+ * Generated columns and ad-hoc queries must use exactly the same expression text:
+ * MySQL only substitutes an indexed generated column for an expression that matches its definition.
+ */
+public final class JsonPathSql {
+
+    /** Field keys that may be spliced into SQL; also keeps generated column and index names under 64 chars */
+    private static final Pattern SAFE_KEY = Pattern.compile("[A-Za-z0-9_]{1,48}");
+
+    public static final int MAX_STRING_LENGTH = 255;
+
+    /**
+     * SQL type a field value is extracted as
+     */
+    public enum ValueType {
+        STRING("VARCHAR(" + MAX_STRING_LENGTH + ")"),
+        NUMBER("DOUBLE"),
+        DATE("DATE");
+
+        private final String sqlType;
+
+        ValueType(String sqlType) {
+            this.sqlType = sqlType;
+        }
+
+        public String getSqlType() {
+            return sqlType;
+        }
+
+        /**
+         * Maps a {@code Field.type} to the SQL type its values are indexed as.
+         * Booleans are indexed as their "true"/"false" text.
+         *
+         * @param fieldType The field type, e.g. "string" or "number"
+         * @return The value type, or null if the field type cannot be indexed (arrays and objects)
+         */
+        public static ValueType fromFieldType(String fieldType) {
+            if (fieldType == null) {
+                return STRING;
+            }
+            switch (fieldType.toLowerCase()) {
+                case "number":
+                    return NUMBER;
+                case "date":
+                    return DATE;
+                case "array":
+                case "object":
+                    return null;
+                default:
+                    return STRING;
+            }
+        }
+    }
+
+    private JsonPathSql() {
+    }
+
+    public static boolean isSafeKey(String key) {
+        return key != null && SAFE_KEY.matcher(key).matches();
+    }
+
+    /**
+     * @throws IllegalArgumentException if the key cannot be used in a SQL identifier or JSON path literal
+     */
+    public static String requireSafeKey(String key) {
+        if (!isSafeKey(key)) {
+            throw new IllegalArgumentException("Field key must match " + SAFE_KEY.pattern() + ": " + key);
+        }
+        return key;
+    }
+
+    public static String jsonPath(String key) {
+        return "'$.\"" + requireSafeKey(key) + "\"'";
+    }
+
+    /**
+     * Expression yielding the value of {@code key} typed as {@code type}.
+     * Strings are cut to {@link #MAX_STRING_LENGTH} and other types yield NULL when the stored value does not convert,
+     * so a generated column over the expression can never reject an item write.
+     */
+    public static String valueExpression(String key, ValueType type) {
+        if (type == ValueType.STRING) {
+            return "LEFT(" + textExpression(key) + ", " + MAX_STRING_LENGTH + ")";
+        }
+        return "JSON_VALUE(data_json, " + jsonPath(key) + " RETURNING " + type.getSqlType() + " NULL ON ERROR)";
+    }
+
+    /**
+     * Untruncated text of the value of {@code key}, used to confirm string matches longer than the indexed prefix
+     */
+    public static String textExpression(String key) {
+        return "JSON_UNQUOTE(JSON_EXTRACT(data_json, " + jsonPath(key) + "))";
+    }
+
+    /**
+     * MySQL JSON path for a top-level key, for binding as a parameter rather than splicing into SQL.
+     * Unlike {@link #jsonPath(String)} it accepts any key.
+     */
+    public static String boundJsonPath(String key) {
+        return "$.\"" + key.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+
+    public static String generatedColumnName(String key) {
+        return "jf_" + requireSafeKey(key);
+    }
+
+    public static String indexName(String key) {
+        return "idx_item_jf_" + requireSafeKey(key);
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.mysqlcrudapp.util;
 
+import com.example.mysqlcrudapp.jfr.JsonNormalizationEvent;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.stereotype.Component;
@@ -31,11 +32,16 @@ public class JsonUtils {
             return defaultValue;
         }
         
+        JsonNormalizationEvent event = new JsonNormalizationEvent();
+        event.begin();
         try {
             // Parse and re-stringify to normalize format
             Object parsed = objectMapper.readValue(input, Object.class);
-            return objectMapper.writeValueAsString(parsed);
+            String normalized = objectMapper.writeValueAsString(parsed);
+            event.finish("JsonUtils", input, normalized);
+            return normalized;
         } catch (JsonProcessingException e) {
+            event.finish("JsonUtils", input, null);
             return defaultValue;
         }
     }
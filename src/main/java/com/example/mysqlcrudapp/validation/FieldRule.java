@@ -0,0 +1,223 @@
+package com.example.mysqlcrudapp.validation;
+
+import com.example.mysqlcrudapp.dto.ItemValidationErrorDto;
+import com.example.mysqlcrudapp.schema.FieldOption;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * The checks for one field of a blueprint version, resolved from the field's columns and JSON settings.
+ * <p>
+ * Recognized {@code validationJson} keys: {@code required}, {@code min}, {@code max}, {@code minLength},
+ * {@code maxLength}, {@code pattern}, {@code minItems} and {@code maxItems}.
+ * When the field has options, values (or array elements) must be one of them.
+ */
+final class FieldRule {
+
+    enum Kind {
+        STRING, NUMBER, BOOLEAN, DATE, ARRAY, OBJECT;
+
+        static Kind fromFieldType(String type) {
+            if (type == null) {
+                return STRING;
+            }
+            switch (type.toLowerCase()) {
+                case "number":
+                    return NUMBER;
+                case "boolean":
+                    return BOOLEAN;
+                case "date":
+                    return DATE;
+                case "array":
+                    return ARRAY;
+                case "object":
+                    return OBJECT;
+                default:
+                    return STRING;
+            }
+        }
+    }
+
+    final String key;
+    final Kind kind;
+    final boolean required;
+    final Double min;
+    final Double max;
+    final Integer minLength;
+    final Integer maxLength;
+    final Pattern pattern;
+    final Integer minItems;
+    final Integer maxItems;
+    /** Allowed values in canonical text form, or null when any value is allowed */
+    final Set<String> options;
+
+    FieldRule(String key, Kind kind, boolean required, Double min, Double max,
+              Integer minLength, Integer maxLength, Pattern pattern, Integer minItems, Integer maxItems,
+              Set<String> options) {
+        this.key = key;
+        this.kind = kind;
+        this.required = required;
+        this.min = min;
+        this.max = max;
+        this.minLength = minLength;
+        this.maxLength = maxLength;
+        this.pattern = pattern;
+        this.minItems = minItems;
+        this.maxItems = maxItems;
+        this.options = options;
+    }
+
+    /**
+     * Checks the value the parser is positioned on and consumes it, including any nested content
+     */
+    void check(JsonParser parser, JsonToken token, List<ItemValidationErrorDto> errors) throws IOException {
+        switch (kind) {
+            case ARRAY:
+                if (token != JsonToken.START_ARRAY) {
+                    parser.skipChildren();
+                    errors.add(error("must be an array"));
+                    return;
+                }
+                int count = 0;
+                JsonToken element;
+                while ((element = parser.nextToken()) != JsonToken.END_ARRAY) {
+                    count++;
+                    if (options != null && element.isScalarValue() && !options.contains(canonical(parser, element))) {
+                        errors.add(error("item " + parser.getText() + " is not one of the allowed options"));
+                    }
+                    parser.skipChildren();
+                }
+                if (minItems != null && count < minItems) {
+                    errors.add(error("must have at least " + minItems + " items"));
+                }
+                if (maxItems != null && count > maxItems) {
+                    errors.add(error("must have at most " + maxItems + " items"));
+                }
+                return;
+            case OBJECT:
+                if (token != JsonToken.START_OBJECT) {
+                    errors.add(error("must be an object"));
+                }
+                parser.skipChildren();
+                return;
+            default:
+                if (!token.isScalarValue()) {
+                    parser.skipChildren();
+                    errors.add(error("must be a " + kind.name().toLowerCase()));
+                    return;
+                }
+                checkScalar(parser, token, errors);
+        }
+    }
+
+    private void checkScalar(JsonParser parser, JsonToken token, List<ItemValidationErrorDto> errors) throws IOException {
+        switch (kind) {
+            case NUMBER:
+                if (!token.isNumeric()) {
+                    errors.add(error("must be a number"));
+                    return;
+                }
+                double number = parser.getDoubleValue();
+                if (min != null && number < min) {
+                    errors.add(error("must be at least " + min));
+                }
+                if (max != null && number > max) {
+                    errors.add(error("must be at most " + max));
+                }
+                break;
+            case BOOLEAN:
+                if (!token.isBoolean()) {
+                    errors.add(error("must be true or false"));
+                    return;
+                }
+                break;
+            case DATE:
+                if (token != JsonToken.VALUE_STRING || !isDate(parser.getText())) {
+                    errors.add(error("must be a date (yyyy-MM-dd)"));
+                    return;
+                }
+                break;
+            default:
+                if (token != JsonToken.VALUE_STRING) {
+                    errors.add(error("must be a string"));
+                    return;
+                }
+                String text = parser.getText();
+                if (minLength != null && text.length() < minLength) {
+                    errors.add(error("must be at least " + minLength + " characters"));
+                }
+                if (maxLength != null && text.length() > maxLength) {
+                    errors.add(error("must be at most " + maxLength + " characters"));
+                }
+                if (pattern != null && !pattern.matcher(text).matches()) {
+                    errors.add(error("must match " + pattern.pattern()));
+                }
+        }
+        if (options != null && !options.contains(canonical(parser, token))) {
+            errors.add(error("is not one of the allowed options"));
+        }
+    }
+
+    ItemValidationErrorDto error(String message) {
+        return new ItemValidationErrorDto(key, message);
+    }
+
+    private static boolean isDate(String text) {
+        try {
+            if (text.length() > 10) {
+                LocalDateTime.parse(text);
+            } else {
+                LocalDate.parse(text);
+            }
+            return true;
+        } catch (DateTimeParseException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Text form used to compare values against options, so that 1, 1.0 and "1" all match an option of 1
+     */
+    private static String canonical(JsonParser parser, JsonToken token) throws IOException {
+        if (token.isNumeric()) {
+            return canonicalNumber(parser.getText());
+        }
+        return parser.getText();
+    }
+
+    private static String canonicalNumber(String text) {
+        try {
+            return new BigDecimal(text).stripTrailingZeros().toPlainString();
+        } catch (NumberFormatException e) {
+            return text;
+        }
+    }
+
+    /**
+     * Collects a field's allowed values
+     *
+     * @return The values in canonical text form, or null when the field has no options
+     */
+    static Set<String> optionValues(List<FieldOption> options) {
+        if (options.isEmpty()) {
+            return null;
+        }
+        Set<String> values = new HashSet<>();
+        for (FieldOption option : options) {
+            String text = option.getValue().toString();
+            values.add(option.getValue() instanceof Number ? canonicalNumber(text) : text);
+        }
+        return Collections.unmodifiableSet(values);
+    }
+}
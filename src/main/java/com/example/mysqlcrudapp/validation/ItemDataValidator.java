@@ -0,0 +1,137 @@
+package com.example.mysqlcrudapp.validation;
+
+import com.example.mysqlcrudapp.dto.ItemValidationErrorDto;
+import com.example.mysqlcrudapp.schema.CompiledField;
+import com.example.mysqlcrudapp.schema.CompiledSchema;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Validates item data against the fields of one blueprint version.
+ * <p>
+ * All checks are resolved once, from the version's {@link CompiledSchema}. Validating a payload is then a single
+ * pass over its JSON tokens: no tree is built and keys that are not fields of the version are skipped unread.
+ * Instances are immutable and safe to share between threads.
+ */
+@Slf4j
+public final class ItemDataValidator {
+    private final Long versionId;
+    private final JsonFactory jsonFactory;
+    private final FieldRule[] rules;
+    private final Map<String, Integer> ruleIndexByKey;
+
+    private ItemDataValidator(Long versionId, JsonFactory jsonFactory, FieldRule[] rules) {
+        this.versionId = versionId;
+        this.jsonFactory = jsonFactory;
+        this.rules = rules;
+        Map<String, Integer> indexByKey = new HashMap<>();
+        for (int i = 0; i < rules.length; i++) {
+            indexByKey.putIfAbsent(rules[i].key, i);
+        }
+        this.ruleIndexByKey = indexByKey;
+    }
+
+    /**
+     * Compiles a validator from a version's compiled schema
+     */
+    public static ItemDataValidator compile(CompiledSchema schema, JsonFactory jsonFactory) {
+        List<FieldRule> rules = new ArrayList<>(schema.getFields().size());
+        for (CompiledField field : schema.getFields()) {
+            Double min = field.getMinNumber() != null ? field.getMinNumber() : doubleSetting(field, "min");
+            Double max = field.getMaxNumber() != null ? field.getMaxNumber() : doubleSetting(field, "max");
+            rules.add(new FieldRule(field.getKey(), FieldRule.Kind.fromFieldType(field.getType()),
+                    field.isRequired(), min, max,
+                    intSetting(field, "minLength"), intSetting(field, "maxLength"),
+                    pattern(field),
+                    intSetting(field, "minItems"), intSetting(field, "maxItems"),
+                    FieldRule.optionValues(field.getOptions())));
+        }
+        return new ItemDataValidator(schema.getVersionId(), jsonFactory, rules.toArray(new FieldRule[0]));
+    }
+
+    public Long getVersionId() {
+        return versionId;
+    }
+
+    /**
+     * Validates one payload
+     *
+     * @param dataJson The item data; null or blank counts as an empty object
+     * @return The problems found, empty if the payload is valid
+     */
+    public List<ItemValidationErrorDto> validate(String dataJson) {
+        List<ItemValidationErrorDto> errors = new ArrayList<>(0);
+        boolean[] present = new boolean[rules.length];
+
+        if (dataJson != null && !dataJson.trim().isEmpty()) {
+            try (JsonParser parser = jsonFactory.createParser(dataJson)) {
+                if (parser.nextToken() != JsonToken.START_OBJECT) {
+                    errors.add(new ItemValidationErrorDto(null, "Item data must be a JSON object"));
+                    return errors;
+                }
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    Integer index = ruleIndexByKey.get(parser.getCurrentName());
+                    JsonToken value = parser.nextToken();
+                    if (index == null) {
+                        parser.skipChildren();
+                        continue;
+                    }
+                    if (value == JsonToken.VALUE_NULL) {
+                        continue;
+                    }
+                    present[index] = true;
+                    rules[index].check(parser, value, errors);
+                }
+                if (parser.nextToken() != null) {
+                    errors.add(new ItemValidationErrorDto(null, "Unexpected content after the item data object"));
+                }
+            } catch (JsonProcessingException e) {
+                errors.add(new ItemValidationErrorDto(null, "Malformed JSON: " + e.getOriginalMessage()));
+                return errors;
+            } catch (IOException e) {
+                throw new IllegalStateException("Could not read item data", e);
+            }
+        }
+
+        for (int i = 0; i < rules.length; i++) {
+            if (rules[i].required && !present[i]) {
+                errors.add(rules[i].error("is required"));
+            }
+        }
+        return errors;
+    }
+
+    private static Double doubleSetting(CompiledField field, String name) {
+        Number value = field.validationNumber(name);
+        return value != null ? value.doubleValue() : null;
+    }
+
+    private static Integer intSetting(CompiledField field, String name) {
+        Number value = field.validationNumber(name);
+        return value != null ? value.intValue() : null;
+    }
+
+    private static Pattern pattern(CompiledField field) {
+        Object value = field.getValidation().get("pattern");
+        if (!(value instanceof String)) {
+            return null;
+        }
+        try {
+            return Pattern.compile((String) value);
+        } catch (PatternSyntaxException e) {
+            log.warn("Ignoring invalid pattern of field {}: {}", field.getKey(), e.getMessage());
+            return null;
+        }
+    }
+}
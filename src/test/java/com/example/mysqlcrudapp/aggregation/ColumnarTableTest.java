@@ -0,0 +1,245 @@
+package com.example.mysqlcrudapp.aggregation;
+
+import com.example.mysqlcrudapp.aggregation.ColumnarTable.ColumnType;
+import com.example.mysqlcrudapp.dto.ItemAggregationGroupDto;
+import com.example.mysqlcrudapp.dto.ItemAggregationResultDto;
+import com.example.mysqlcrudapp.dto.ItemFieldStatsDto;
+import com.example.mysqlcrudapp.dto.ItemHistogramBucketDto;
+import com.fasterxml.jackson.core.JsonFactory;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Group-by, statistics and histograms over a {@link ColumnarTable}, as rows are upserted, removed and loaded
+ */
+public class ColumnarTableTest {
+    private static final Map<String, ColumnType> COLUMNS = columns();
+
+    @Test
+    public void aggregate_GroupsByStateWithStatistics() {
+        ColumnarTable table = loaded(
+                "1|open|{\"price\": 10, \"due\": \"2024-01-05\"}",
+                "2|open|{\"price\": \"20\", \"due\": \"2024-01-01T10:00:00\"}",
+                "3|open|{\"price\": \"n/a\"}",
+                "4|done|{\"price\": 5}",
+                "5||{\"price\": 1}");
+
+        ItemAggregationResultDto result = table.aggregate(ColumnarTable.STATE, Arrays.asList("price", "due", "price"), null, 0);
+
+        assertEquals(ColumnarTable.STATE, result.getGroupBy());
+        assertEquals(5, result.getItemCount());
+        // Most items first, then by key with items lacking one last
+        assertEquals(Arrays.asList("open", "done", null), keys(result));
+        ItemAggregationGroupDto open = result.getGroups().get(0);
+        assertEquals(3, open.getCount());
+        assertEquals(Arrays.asList("price", "due"), Arrays.asList(open.getFields().keySet().toArray()));
+        assertEquals(new ItemFieldStatsDto(2, 30.0, 15.0, 10.0, 20.0), open.getFields().get("price"));
+        // Dates have no sum or average and are truncated to the day
+        assertEquals(new ItemFieldStatsDto(2, null, null, "2024-01-01", "2024-01-05"), open.getFields().get("due"));
+        assertEquals(new ItemFieldStatsDto(0, null, null, null, null), result.getGroups().get(1).getFields().get("due"));
+        assertNull(open.getHistogram());
+    }
+
+    @Test
+    public void aggregate_GroupsByDictionaryFieldsOrAsOneGroup() {
+        ColumnarTable table = loaded(
+                "1|a|{\"color\": \"red\", \"flag\": true}",
+                "2|a|{\"color\": \"blue\", \"flag\": false}",
+                "3|a|{\"color\": \"red\", \"flag\": true}",
+                "4|a|{\"color\": [\"red\"], \"flag\": 1}",
+                "5|a|{\"other\": {\"color\": \"blue\"}}");
+
+        assertEquals(Arrays.asList("red", null, "blue"), keys(table.aggregate("color", null, null, 0)));
+        assertEquals(Arrays.asList(2L, 2L, 1L), counts(table.aggregate("color", null, null, 0)));
+        // Booleans and numbers group by their text
+        assertEquals(Arrays.asList("true", "1", "false", null), keys(table.aggregate("flag", null, null, 0)));
+
+        ItemAggregationResultDto single = table.aggregate(null, null, null, 0);
+        assertNull(single.getGroupBy());
+        assertEquals(1, single.getGroups().size());
+        assertNull(single.getGroups().get(0).getKey());
+        assertEquals(5, single.getGroups().get(0).getCount());
+    }
+
+    @Test
+    public void aggregate_BucketsNumbersPerGroup() {
+        String[] items = new String[11];
+        for (int i = 0; i <= 10; i++) {
+            items[i] = (i + 1) + "|" + (i % 2 == 0 ? "even" : "odd") + "|{\"price\": " + i + "}";
+        }
+        ColumnarTable table = loaded(items);
+
+        ItemAggregationResultDto all = table.aggregate(null, null, "price", 5);
+        List<ItemHistogramBucketDto> buckets = all.getGroups().get(0).getHistogram();
+        assertEquals(Arrays.asList(
+                new ItemHistogramBucketDto(0.0, 2.0, 2),
+                new ItemHistogramBucketDto(2.0, 4.0, 2),
+                new ItemHistogramBucketDto(4.0, 6.0, 2),
+                new ItemHistogramBucketDto(6.0, 8.0, 2),
+                // The last bucket includes the maximum
+                new ItemHistogramBucketDto(8.0, 10.0, 3)), buckets);
+
+        // Groups share the buckets of the whole table
+        ItemAggregationResultDto byState = table.aggregate(ColumnarTable.STATE, null, "price", 5);
+        assertEquals(Arrays.asList("even", "odd"), keys(byState));
+        assertEquals(Arrays.asList(1L, 1L, 1L, 1L, 2L), bucketCounts(byState.getGroups().get(0)));
+        assertEquals(Arrays.asList(1L, 1L, 1L, 1L, 1L), bucketCounts(byState.getGroups().get(1)));
+    }
+
+    @Test
+    public void aggregate_BucketsDatesAndSingleValues() {
+        ColumnarTable table = loaded(
+                "1|a|{\"due\": \"2024-01-01\", \"price\": 3}",
+                "2|a|{\"due\": \"2024-01-11\", \"price\": 3}",
+                "3|a|{\"due\": \"2024-01-21\"}");
+
+        assertEquals(Arrays.asList(
+                new ItemHistogramBucketDto("2024-01-01", "2024-01-11", 1),
+                new ItemHistogramBucketDto("2024-01-11", "2024-01-21", 2)),
+                table.aggregate(null, null, "due", 2).getGroups().get(0).getHistogram());
+        // A single distinct value fills the first bucket; items without one are not bucketed
+        assertEquals(Arrays.asList(
+                new ItemHistogramBucketDto(3.0, 3.0, 2),
+                new ItemHistogramBucketDto(3.0, 3.0, 0)),
+                table.aggregate(null, null, "price", 2).getGroups().get(0).getHistogram());
+        // No values at all leaves the histogram empty
+        assertEquals(Collections.emptyList(), loaded("1|a|{}").aggregate(null, null, "price", 2).getGroups().get(0).getHistogram());
+    }
+
+    @Test
+    public void upsertAndRemove_KeepRowsDense() {
+        ColumnarTable table = loaded(
+                "1|a|{\"price\": 1, \"color\": \"red\"}",
+                "2|a|{\"price\": 2, \"color\": \"red\"}",
+                "3|b|{\"price\": 4, \"color\": \"blue\"}");
+
+        // Replacing a row clears values the new data no longer has
+        table.upsert(1, "b", "{\"color\": \"blue\"}");
+        // Removing a middle row moves the last one into its place
+        table.remove(2);
+        table.remove(99);
+        table.upsert(4, "a", "{\"price\": 8, \"color\": \"red\"}");
+
+        assertEquals(3, table.size());
+        ItemAggregationResultDto result = table.aggregate("color", Collections.singletonList("price"), null, 0);
+        assertEquals(Arrays.asList("blue", "red"), keys(result));
+        assertEquals(new ItemFieldStatsDto(1, 4.0, 4.0, 4.0, 4.0), result.getGroups().get(0).getFields().get("price"));
+        assertEquals(new ItemFieldStatsDto(1, 8.0, 8.0, 8.0, 8.0), result.getGroups().get(1).getFields().get("price"));
+        assertEquals(Arrays.asList("b", "a"), keys(table.aggregate(ColumnarTable.STATE, null, null, 0)));
+
+        table.remove(1);
+        table.remove(3);
+        table.remove(4);
+        assertEquals(0, table.size());
+        assertEquals(Collections.emptyList(), table.aggregate(ColumnarTable.STATE, null, null, 0).getGroups());
+    }
+
+    @Test
+    public void load_ReplaysChangesMadeBeforeAndDuringTheScan() {
+        ColumnarTable table = new ColumnarTable(1L, COLUMNS, new JsonFactory());
+        assertFalse(table.isLoaded());
+        assertThrows(IllegalStateException.class, () -> table.aggregate(null, null, null, 0));
+        table.upsert(1, "a", "{\"price\": 100}");
+
+        table.load(sink -> {
+            sink.add(1, "a", "{\"price\": 1}");
+            sink.add(2, "a", "{\"price\": 2}");
+            // Writes racing with the scan
+            table.upsert(2, "a", "{\"price\": 20}");
+            table.remove(3);
+            table.upsert(4, "a", "{\"price\": 4}");
+            sink.add(3, "a", "{\"price\": 3}");
+        });
+        table.load(sink -> sink.add(5, "a", "{}"));
+
+        assertTrue(table.isLoaded());
+        assertEquals(3, table.size());
+        assertEquals(new ItemFieldStatsDto(3, 124.0, 124.0 / 3, 4.0, 100.0),
+                table.aggregate(null, Collections.singletonList("price"), null, 0).getGroups().get(0).getFields().get("price"));
+    }
+
+    @Test
+    public void aggregate_ScansLargeTablesInParallelChunks() {
+        ColumnarTable table = new ColumnarTable(1L, COLUMNS, new JsonFactory());
+        int rows = 40_000;
+        table.load(sink -> {
+            for (int i = 0; i < rows; i++) {
+                sink.add(i, i % 3 == 0 ? "x" : "y", "{\"price\": " + (i % 100) + "}");
+            }
+        });
+
+        ItemAggregationResultDto result = table.aggregate(ColumnarTable.STATE, Collections.singletonList("price"), "price", 10);
+
+        assertEquals(Arrays.asList(26_666L, 13_334L), counts(result));
+        long total = 0;
+        double sum = 0;
+        for (ItemAggregationGroupDto group : result.getGroups()) {
+            total += bucketCounts(group).stream().mapToLong(Long::longValue).sum();
+            sum += group.getFields().get("price").getSum();
+            assertEquals(0.0, group.getFields().get("price").getMin());
+            assertEquals(99.0, group.getFields().get("price").getMax());
+        }
+        assertEquals(rows, total);
+        assertEquals(rows / 100 * 4950.0, sum);
+    }
+
+    @Test
+    public void aggregate_RejectsColumnsOfTheWrongType() {
+        ColumnarTable table = loaded("1|a|{}");
+
+        assertThrows(IllegalArgumentException.class, () -> table.aggregate("price", null, null, 0));
+        assertThrows(IllegalArgumentException.class, () -> table.aggregate("missing", null, null, 0));
+        assertThrows(IllegalArgumentException.class, () -> table.aggregate(null, Collections.singletonList("color"), null, 0));
+        assertThrows(IllegalArgumentException.class, () -> table.aggregate(null, null, "color", 5));
+        assertThrows(IllegalArgumentException.class, () -> table.aggregate(null, null, "price", 0));
+        assertThrows(IllegalArgumentException.class,
+                () -> table.aggregate(null, null, "price", ColumnarTable.MAX_HISTOGRAM_BUCKETS + 1));
+    }
+
+    /**
+     * A loaded table of items written as "id|state|data"
+     */
+    private static ColumnarTable loaded(String... items) {
+        ColumnarTable table = new ColumnarTable(1L, COLUMNS, new JsonFactory());
+        table.load(sink -> {
+            for (String item : items) {
+                String[] parts = item.split("\\|", 3);
+                sink.add(Long.parseLong(parts[0]), parts[1].isEmpty() ? null : parts[1], parts[2]);
+            }
+        });
+        return table;
+    }
+
+    private static Map<String, ColumnType> columns() {
+        Map<String, ColumnType> columns = new HashMap<>();
+        columns.put("price", ColumnType.NUMBER);
+        columns.put("due", ColumnType.DATE);
+        columns.put("color", ColumnType.DICTIONARY);
+        columns.put("flag", ColumnType.DICTIONARY);
+        return columns;
+    }
+
+    private static List<String> keys(ItemAggregationResultDto result) {
+        return result.getGroups().stream().map(ItemAggregationGroupDto::getKey).collect(Collectors.toList());
+    }
+
+    private static List<Long> counts(ItemAggregationResultDto result) {
+        return result.getGroups().stream().map(ItemAggregationGroupDto::getCount).collect(Collectors.toList());
+    }
+
+    private static List<Long> bucketCounts(ItemAggregationGroupDto group) {
+        return group.getHistogram().stream().map(ItemHistogramBucketDto::getCount).collect(Collectors.toList());
+    }
+}
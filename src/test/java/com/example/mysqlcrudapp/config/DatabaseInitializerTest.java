@@ -0,0 +1,89 @@
+package com.example.mysqlcrudapp.config;
+
+import com.example.mysqlcrudapp.entity.User;
+import com.example.mysqlcrudapp.repository.TestFixtures;
+import com.example.mysqlcrudapp.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Startup backfill of created_by_id from the created_by column of older schemas, which held a full name or
+ * a login
+ */
+@SpringBootTest
+public class DatabaseInitializerTest {
+
+    @Autowired
+    private DatabaseInitializer databaseInitializer;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TestFixtures testFixtures;
+
+    private User writer;
+
+    @BeforeEach
+    public void addLegacyColumn() {
+        writer = new User();
+        writer.setLogin("backfill-writer");
+        writer.setPasswordHash("hash");
+        writer.setFullName("Backfill Writer");
+        writer = userRepository.save(writer);
+        jdbcTemplate.execute("ALTER TABLE blueprint ADD COLUMN created_by VARCHAR(255)");
+    }
+
+    @AfterEach
+    public void dropLegacyColumn() {
+        jdbcTemplate.execute("ALTER TABLE blueprint DROP COLUMN created_by");
+        userRepository.delete(writer);
+    }
+
+    @Test
+    public void backfill_MatchesFullNamesAndLoginsAndLeavesTheRest() {
+        Long byName = legacyBlueprint("Backfill Writer");
+        Long byLogin = legacyBlueprint("backfill-writer");
+        Long unknown = legacyBlueprint("system");
+        Long alreadySet = legacyBlueprint("backfill-writer");
+        jdbcTemplate.update("UPDATE blueprint SET created_by_id = ? WHERE id = ?", -1L, alreadySet);
+
+        databaseInitializer.run();
+
+        assertEquals(writer.getId(), createdById(byName));
+        assertEquals(writer.getId(), createdById(byLogin));
+        assertNull(createdById(unknown));
+        assertEquals(-1L, createdById(alreadySet));
+    }
+
+    @Test
+    public void backfill_IsARerunnableNoOp() {
+        Long byName = legacyBlueprint("Backfill Writer");
+        databaseInitializer.run();
+        jdbcTemplate.update("UPDATE blueprint SET created_by = ? WHERE id = ?", "system", byName);
+
+        databaseInitializer.run();
+
+        assertEquals(writer.getId(), createdById(byName));
+    }
+
+    private Long legacyBlueprint(String createdBy) {
+        Long id = testFixtures.blueprint("Legacy blueprint").getId();
+        jdbcTemplate.update("UPDATE blueprint SET created_by = ?, created_by_id = NULL WHERE id = ?", createdBy, id);
+        return id;
+    }
+
+    private Long createdById(Long blueprintId) {
+        return jdbcTemplate.queryForObject("SELECT created_by_id FROM blueprint WHERE id = ?", Long.class, blueprintId);
+    }
+}
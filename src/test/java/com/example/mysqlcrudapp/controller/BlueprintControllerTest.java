@@ -1,6 +1,7 @@
 package com.example.mysqlcrudapp.controller;
 
 import com.example.mysqlcrudapp.dto.BlueprintDto;
+import com.example.mysqlcrudapp.dto.BlueprintSummaryDto;
 import com.example.mysqlcrudapp.service.BlueprintService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
@@ -16,6 +17,7 @@ import java.util.Arrays;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.when;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -35,13 +37,13 @@ public class BlueprintControllerTest {
     @Test
     @WithMockUser
     public void getAllBlueprints_ShouldReturnBlueprints() throws Exception {
-        BlueprintDto blueprint = new BlueprintDto();
+        BlueprintSummaryDto blueprint = new BlueprintSummaryDto();
         blueprint.setId(1L);
         blueprint.setName("Test Blueprint");
 
-        when(blueprintService.findAll()).thenReturn(Arrays.asList(blueprint));
+        when(blueprintService.findSummaries()).thenReturn(Arrays.asList(blueprint));
 
-        mockMvc.perform(get("/api/blueprints"))
+        mockMvc.perform(get("/api/blueprints").accept(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$[0].id").value(1))
                 .andExpect(jsonPath("$[0].name").value("Test Blueprint"));
@@ -60,7 +62,9 @@ public class BlueprintControllerTest {
         when(blueprintService.create(any(BlueprintDto.class))).thenReturn(created);
 
         mockMvc.perform(post("/api/blueprints")
+                .with(csrf())
                 .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON)
                 .content(objectMapper.writeValueAsString(input)))
                 .andExpect(status().isCreated())
                 .andExpect(jsonPath("$.id").value(1))
@@ -74,7 +78,9 @@ public class BlueprintControllerTest {
         input.setName("");  // Invalid: name is required
 
         mockMvc.perform(post("/api/blueprints")
+                .with(csrf())
                 .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON)
                 .content(objectMapper.writeValueAsString(input)))
                 .andExpect(status().isBadRequest());
     }
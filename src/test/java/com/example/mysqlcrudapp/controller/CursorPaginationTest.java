@@ -0,0 +1,119 @@
+package com.example.mysqlcrudapp.controller;
+
+import com.example.mysqlcrudapp.dto.CursorPage;
+import com.example.mysqlcrudapp.entity.Blueprint;
+import com.example.mysqlcrudapp.entity.BlueprintVersion;
+import com.example.mysqlcrudapp.entity.Field;
+import com.example.mysqlcrudapp.entity.Item;
+import com.example.mysqlcrudapp.entity.ItemLink;
+import com.example.mysqlcrudapp.repository.TestFixtures;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Walking the paginated list endpoints with their cursors, and the unbounded {@code all=true} lists kept
+ * for older clients
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@WithMockUser
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class CursorPaginationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private TestFixtures testFixtures;
+
+    private Blueprint blueprint;
+    private BlueprintVersion version;
+    private Field field;
+    private List<Item> items;
+    private ItemLink link;
+
+    @BeforeAll
+    public void createData() {
+        blueprint = testFixtures.blueprint("Pagination blueprint");
+        version = testFixtures.version(blueprint);
+        field = testFixtures.field("paginationParent", "Parent", "link");
+        items = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            items.add(testFixtures.item(version, "{}"));
+        }
+        link = testFixtures.link(field, items.get(0), items.get(1));
+    }
+
+    @Test
+    public void cursor_WalksEveryRowOnceAndEndsWithoutNext() throws Exception {
+        String url = "/api/items/version/" + version.getId() + "?size=2";
+
+        JsonNode first = fetch(url);
+        assertEquals(Arrays.asList(items.get(0).getId(), items.get(1).getId()), ids(first.get("items")));
+        assertEquals(items.get(1).getId(), first.get("next").asLong());
+
+        JsonNode last = fetch(url + "&after=" + first.get("next").asLong());
+        assertEquals(Arrays.asList(items.get(2).getId()), ids(last.get("items")));
+        assertTrue(last.get("next").isNull());
+    }
+
+    @Test
+    public void size_IsClamped() throws Exception {
+        assertEquals(CursorPage.DEFAULT_SIZE, fetch("/api/items?size=0").get("size").asInt());
+        assertEquals(CursorPage.MAX_SIZE, fetch("/api/items?size=100000").get("size").asInt());
+    }
+
+    @Test
+    public void allItems_AreAPlainList() throws Exception {
+        List<Long> expected = Arrays.asList(items.get(0).getId(), items.get(1).getId(), items.get(2).getId());
+
+        assertTrue(ids(fetch("/api/items?all=true")).containsAll(expected));
+        assertEquals(expected, ids(fetch("/api/items/blueprint/" + blueprint.getId() + "?all=true")));
+        assertEquals(expected, ids(fetch("/api/items/version/" + version.getId() + "?all=true")));
+    }
+
+    @Test
+    public void allLinksFieldsAndVersions_ArePlainLists() throws Exception {
+        assertTrue(ids(fetch("/api/item-links?all=true")).contains(link.getId()));
+        assertTrue(ids(fetch("/api/fields?all=true")).contains(field.getId()));
+        assertTrue(ids(fetch("/api/blueprint-versions?all=true")).contains(version.getId()));
+    }
+
+    private JsonNode fetch(String url) throws Exception {
+        String body = mockMvc.perform(get(url).accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body);
+    }
+
+    /**
+     * Ids of a JSON array, failing if the response is a page rather than a list
+     */
+    private static List<Long> ids(JsonNode rows) {
+        assertTrue(rows.isArray(), rows.toString());
+        List<Long> ids = new ArrayList<>();
+        rows.forEach(row -> ids.add(row.get("id").asLong()));
+        return ids;
+    }
+}
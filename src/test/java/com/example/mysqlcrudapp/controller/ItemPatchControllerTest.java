@@ -0,0 +1,258 @@
+package com.example.mysqlcrudapp.controller;
+
+import com.example.mysqlcrudapp.entity.BlueprintVersion;
+import com.example.mysqlcrudapp.entity.Field;
+import com.example.mysqlcrudapp.entity.Item;
+import com.example.mysqlcrudapp.persistence.H2JsonFunctions;
+import com.example.mysqlcrudapp.persistence.QueryCounter;
+import com.example.mysqlcrudapp.repository.TestFixtures;
+import com.example.mysqlcrudapp.service.ItemPatchService;
+import com.example.mysqlcrudapp.service.ItemValidationService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.reset;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * PATCH /api/items/{id} on both paths: patches translated to one SQL update, which runs on H2 through
+ * {@link H2JsonFunctions}, and JSON Patches applied in Java. Items belong to a version whose "quantity" field
+ * allows at most 10.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@WithMockUser
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class ItemPatchControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TestFixtures testFixtures;
+
+    @SpyBean
+    private ItemValidationService itemValidationService;
+
+    private BlueprintVersion version;
+
+    @BeforeAll
+    public void createVersion() {
+        H2JsonFunctions.register(jdbcTemplate);
+
+        version = testFixtures.version(testFixtures.blueprint("Patch blueprint"));
+        Field quantity = testFixtures.field("quantity", "Quantity", "number", field -> field.setMaxNumber(10.0));
+        testFixtures.versionField(version, quantity, 1);
+    }
+
+    @AfterEach
+    public void resetSpy() {
+        reset(itemValidationService);
+    }
+
+    @Test
+    public void jsonPatch_AppliesAddReplaceAndRemoveInOneUpdate() throws Exception {
+        Item item = createItem("{\"title\": \"a\", \"quantity\": 1, \"old\": true}");
+
+        QueryCounter.Scope statements;
+        try (QueryCounter.Scope scope = QueryCounter.open("patch")) {
+            perform(jsonPatch(item, "["
+                    + "{\"op\": \"add\", \"path\": \"/tags\", \"value\": [\"x\"]},"
+                    + "{\"op\": \"replace\", \"path\": \"/quantity\", \"value\": 2},"
+                    + "{\"op\": \"remove\", \"path\": \"/old\"}]"))
+                    .andExpect(status().isOk())
+                    .andExpect(header().string(HttpHeaders.ETAG, "\"1\""))
+                    .andExpect(jsonPath("$.rowVersion").value(1));
+            statements = scope;
+        }
+
+        assertTrue(statements.getShapes().containsKey("UPDATE item SET data_json = "
+                + "JSON_REMOVE(JSON_REPLACE(JSON_SET(data_json, ?, CAST(? AS JSON)), ?, CAST(? AS JSON)), ?), "
+                + "row_version = row_version + ? WHERE id = ? AND JSON_CONTAINS_PATH(data_json, ?, ?, ?)"),
+                statements.describe());
+        assertFalse(statements.describe().contains("update item set blueprint_id"), statements.describe());
+
+        assertData(item, "{\"title\": \"a\", \"quantity\": 2, \"tags\": [\"x\"]}", 1);
+    }
+
+    @Test
+    public void jsonPatch_ReplacingAMissingKeyFallsBackToJavaAndFails() throws Exception {
+        Item item = createItem("{\"quantity\": 1}");
+
+        perform(jsonPatch(item, "[{\"op\": \"add\", \"path\": \"/title\", \"value\": \"a\"},"
+                + "{\"op\": \"replace\", \"path\": \"/missing\", \"value\": 2}]"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Patch operation 1 failed: No value at /missing"));
+
+        assertData(item, "{\"quantity\": 1}", 0);
+    }
+
+    @Test
+    public void jsonPatch_RemovingAMissingKeyFallsBackToJavaAndFails() throws Exception {
+        Item item = createItem("{\"quantity\": 1}");
+
+        perform(jsonPatch(item, "[{\"op\": \"remove\", \"path\": \"/missing\"}]"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Patch operation 0 failed: No value at /missing"));
+
+        assertData(item, "{\"quantity\": 1}", 0);
+    }
+
+    @Test
+    public void jsonPatch_AppliesOtherOperationsInJava() throws Exception {
+        Item item = createItem("{\"quantity\": 1, \"a\": {\"b\": 1}}");
+
+        perform(jsonPatch(item, "[{\"op\": \"test\", \"path\": \"/quantity\", \"value\": 1},"
+                + "{\"op\": \"replace\", \"path\": \"/quantity\", \"value\": 2},"
+                + "{\"op\": \"move\", \"from\": \"/a/b\", \"path\": \"/c\"}]"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1\""));
+
+        assertData(item, "{\"quantity\": 2, \"a\": {}, \"c\": 1}", 1);
+    }
+
+    @Test
+    public void mergePatch_MergesIntoTheData() throws Exception {
+        Item item = createItem("{\"title\": \"a\", \"quantity\": 1, \"old\": true}");
+
+        perform(mergePatch(item, "{\"quantity\": 3, \"old\": null, \"tags\": [\"y\"]}"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1\""));
+
+        assertData(item, "{\"title\": \"a\", \"quantity\": 3, \"tags\": [\"y\"]}", 1);
+    }
+
+    @Test
+    public void ifMatch_AppliesThePatchWhenTheVersionMatches() throws Exception {
+        Item item = createItem("{\"quantity\": 1}");
+
+        perform(mergePatch(item, "{\"quantity\": 2}").header(HttpHeaders.IF_MATCH, "\"0\""))
+                .andExpect(status().isOk());
+        perform(jsonPatch(item, "[{\"op\": \"replace\", \"path\": \"/quantity\", \"value\": 3}]")
+                .header(HttpHeaders.IF_MATCH, "\"1\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"2\""));
+
+        assertData(item, "{\"quantity\": 3}", 2);
+    }
+
+    @Test
+    public void ifMatch_RejectsAStaleVersionOnEveryPath() throws Exception {
+        Item item = createItem("{\"quantity\": 1}");
+
+        perform(mergePatch(item, "{\"quantity\": 2}").header(HttpHeaders.IF_MATCH, "\"5\""))
+                .andExpect(status().isPreconditionFailed());
+        perform(jsonPatch(item, "[{\"op\": \"replace\", \"path\": \"/quantity\", \"value\": 2}]")
+                .header(HttpHeaders.IF_MATCH, "\"5\""))
+                .andExpect(status().isPreconditionFailed());
+        perform(jsonPatch(item, "[{\"op\": \"test\", \"path\": \"/quantity\", \"value\": 1}]")
+                .header(HttpHeaders.IF_MATCH, "W/\"5\""))
+                .andExpect(status().isPreconditionFailed());
+
+        assertData(item, "{\"quantity\": 1}", 0);
+    }
+
+    @Test
+    public void jsonPatch_InJavaConflictsWithAWriteSinceItWasRead() throws Exception {
+        Item item = createItem("{\"quantity\": 1}");
+        // Another writer commits between the patch reading the item and saving it
+        doAnswer(invocation -> {
+            CompletableFuture.runAsync(() -> jdbcTemplate.update(
+                    "UPDATE item SET row_version = row_version + 1 WHERE id = ?", item.getId())).get();
+            return invocation.callRealMethod();
+        }).when(itemValidationService).validateOrThrow(eq(version.getId()), anyString());
+
+        perform(jsonPatch(item, "[{\"op\": \"test\", \"path\": \"/quantity\", \"value\": 1},"
+                + "{\"op\": \"replace\", \"path\": \"/quantity\", \"value\": 2}]"))
+                .andExpect(status().isConflict());
+
+        assertData(item, "{\"quantity\": 1}", 1);
+    }
+
+    @Test
+    public void invalidResult_RollsBackTheSqlUpdate() throws Exception {
+        Item item = createItem("{\"quantity\": 1}");
+
+        perform(jsonPatch(item, "[{\"op\": \"replace\", \"path\": \"/quantity\", \"value\": 99}]"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Item data is invalid"))
+                .andExpect(jsonPath("$.errors[0].message").value("must be at most 10.0"));
+        assertData(item, "{\"quantity\": 1}", 0);
+
+        perform(mergePatch(item, "{\"quantity\": \"many\"}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errors[0].message").value("must be a number"));
+        assertData(item, "{\"quantity\": 1}", 0);
+    }
+
+    @Test
+    public void invalidResult_IsNotSavedFromJava() throws Exception {
+        Item item = createItem("{\"quantity\": 1}");
+
+        perform(jsonPatch(item, "[{\"op\": \"test\", \"path\": \"/quantity\", \"value\": 1},"
+                + "{\"op\": \"replace\", \"path\": \"/quantity\", \"value\": 11}]"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errors[0].message").value("must be at most 10.0"));
+
+        assertData(item, "{\"quantity\": 1}", 0);
+    }
+
+    private Item createItem(String dataJson) {
+        return testFixtures.item(version, dataJson);
+    }
+
+    private MockHttpServletRequestBuilder jsonPatch(Item item, String patch) {
+        return patch("/api/items/" + item.getId())
+                .contentType(ItemPatchService.JSON_PATCH_JSON)
+                .content(patch);
+    }
+
+    private MockHttpServletRequestBuilder mergePatch(Item item, String patch) {
+        return patch("/api/items/" + item.getId())
+                .contentType(ItemPatchService.MERGE_PATCH_JSON)
+                .content(patch);
+    }
+
+    private ResultActions perform(MockHttpServletRequestBuilder request) throws Exception {
+        return mockMvc.perform(request.with(csrf()).accept(MediaType.APPLICATION_JSON));
+    }
+
+    private void assertData(Item item, String expectedJson, long expectedRowVersion) throws Exception {
+        Map<String, Object> row = jdbcTemplate.queryForMap("SELECT data_json, row_version FROM item WHERE id = ?", item.getId());
+        assertEquals(objectMapper.readTree(expectedJson), objectMapper.readTree((String) row.get("data_json")));
+        assertEquals(expectedRowVersion, ((Number) row.get("row_version")).longValue());
+    }
+}
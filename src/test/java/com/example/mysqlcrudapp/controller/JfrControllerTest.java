@@ -0,0 +1,48 @@
+package com.example.mysqlcrudapp.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Flight recordings write files on the server, so only administrators may control them
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+public class JfrControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    @WithMockUser
+    public void users_AreRefused() throws Exception {
+        mockMvc.perform(get("/api/admin/jfr").accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(post("/api/admin/jfr/start").with(csrf()))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(post("/api/admin/jfr/dump").with(csrf()))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    @WithMockUser(roles = {"USER", "ADMIN"})
+    public void administrators_SeeTheStatus() throws Exception {
+        mockMvc.perform(get("/api/admin/jfr").accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.running").value(false));
+        mockMvc.perform(post("/api/admin/jfr/dump").with(csrf()).accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("No flight recording is running"));
+    }
+}
@@ -0,0 +1,141 @@
+package com.example.mysqlcrudapp.controller;
+
+import com.example.mysqlcrudapp.entity.Blueprint;
+import com.example.mysqlcrudapp.entity.BlueprintVersion;
+import com.example.mysqlcrudapp.entity.Field;
+import com.example.mysqlcrudapp.entity.Item;
+import com.example.mysqlcrudapp.persistence.QueryBudget;
+import com.example.mysqlcrudapp.repository.TestFixtures;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Pins the number of SQL statements each list endpoint issues, whatever the page size.
+ * A lazy association touched while building the response shows up here as one extra statement per row;
+ * the query budget fails such a request even where no exact count is asserted.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@WithMockUser
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@QueryBudget(max = 2)
+public class ListQueryCountTest {
+    private static final int ITEM_COUNT = 20;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private TestFixtures testFixtures;
+
+    private Statistics statistics;
+    private Blueprint blueprint;
+    private BlueprintVersion version;
+    private List<Item> items;
+
+    @BeforeAll
+    public void createData() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        blueprint = testFixtures.blueprint("Query count blueprint");
+        version = testFixtures.version(blueprint);
+        Field field = testFixtures.field("parent", "Parent", "link");
+
+        items = new ArrayList<>();
+        for (int i = 0; i < ITEM_COUNT; i++) {
+            items.add(testFixtures.item(version, "{}"));
+        }
+        // Chain the items so every one but the ends has an outgoing and an incoming link
+        for (int i = 0; i + 1 < ITEM_COUNT; i++) {
+            testFixtures.link(field, items.get(i), items.get(i + 1));
+        }
+    }
+
+    @Test
+    public void itemPage_LoadsLinkIdsInOneStatement() throws Exception {
+        perform("/api/items?size=" + ITEM_COUNT + "&after=" + (items.get(0).getId() - 1))
+                .andExpect(jsonPath("$.items.length()").value(ITEM_COUNT))
+                .andExpect(jsonPath("$.items[1].outgoingLinkIds.length()").value(1))
+                .andExpect(jsonPath("$.items[1].incomingLinkIds.length()").value(1));
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    public void itemPageByBlueprint_LoadsLinkIdsInOneStatement() throws Exception {
+        perform("/api/items/blueprint/" + blueprint.getId())
+                .andExpect(jsonPath("$.items.length()").value(ITEM_COUNT));
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    public void allItemsOfVersion_LoadsLinkIdsInOneStatement() throws Exception {
+        perform("/api/items/version/" + version.getId() + "?all=true")
+                .andExpect(jsonPath("$.length()").value(ITEM_COUNT));
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    public void blueprintList_StaysWithinTheBudget() throws Exception {
+        perform("/api/blueprints")
+                .andExpect(jsonPath("$[?(@.id == " + blueprint.getId() + ")].itemCount").value(ITEM_COUNT));
+    }
+
+    @Test
+    public void itemLinksFromItem_StayWithinTheBudget() throws Exception {
+        perform("/api/item-links/from/" + items.get(0).getId())
+                .andExpect(jsonPath("$.length()").value(1));
+    }
+
+    @Test
+    public void itemLinkPage_UsesOneStatement() throws Exception {
+        perform("/api/item-links");
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    public void fieldPage_UsesOneStatement() throws Exception {
+        perform("/api/fields");
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    public void versionPage_UsesOneStatement() throws Exception {
+        perform("/api/blueprint-versions");
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    public void versionsOfBlueprint_UseOneStatement() throws Exception {
+        perform("/api/blueprints/" + blueprint.getId() + "/versions")
+                .andExpect(jsonPath("$[0].blueprintId").value(blueprint.getId()));
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    private ResultActions perform(String url) throws Exception {
+        statistics.clear();
+        return mockMvc.perform(get(url).accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+    }
+}
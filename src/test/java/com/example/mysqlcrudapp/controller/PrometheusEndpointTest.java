@@ -0,0 +1,80 @@
+package com.example.mysqlcrudapp.controller;
+
+import com.example.mysqlcrudapp.repository.BlueprintRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.metrics.AutoConfigureMetrics;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.startsWith;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * The Prometheus endpoint is scraped with HTTP Basic credentials, and requests are tagged with their URI template
+ * rather than the concrete path, so the number of series stays bounded.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureMetrics
+public class PrometheusEndpointTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private BlueprintRepository blueprintRepository;
+
+    @Test
+    public void scrape_ShouldExposeTemplatedRequestAndRepositoryMetrics() throws Exception {
+        Long id = blueprintRepository.findAll().get(0).getId();
+        mockMvc.perform(get("/api/blueprints/{id}", id).with(user("user")).accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/blueprints/{id}", Long.MAX_VALUE).with(user("user")).accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotFound());
+
+        String scrape = mockMvc.perform(get("/actuator/prometheus").with(user("scraper")))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        assertThat(scrape)
+                .contains("http_server_requests_seconds_bucket{")
+                .contains("uri=\"/api/blueprints/{id}\"")
+                .doesNotContain("uri=\"/api/blueprints/" + id + "\"")
+                .doesNotContain("uri=\"/api/blueprints/" + Long.MAX_VALUE + "\"")
+                .contains("spring_data_repository_invocations_seconds_bucket{")
+                .contains("repository=\"BlueprintRepository\"")
+                .contains("hibernate_query_executions_total")
+                .contains("hibernate_second_level_cache_requests_total")
+                .contains("hikaricp_connections_active")
+                .contains("jvm_memory_used_bytes")
+                .contains("jvm_gc_pause_seconds")
+                .contains("cache_gets_total{", "cache=\"user.names\"")
+                .contains("user_activity_pending");
+    }
+
+    @Test
+    public void scrape_ShouldAskAnonymousClientsForBasicCredentials() throws Exception {
+        mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isUnauthorized())
+                .andExpect(header().string(HttpHeaders.WWW_AUTHENTICATE, startsWith("Basic")));
+        mockMvc.perform(get("/actuator/prometheus").with(httpBasic("nobody", "wrong")))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    public void metricsEndpoint_ShouldRequireLogin() throws Exception {
+        mockMvc.perform(get("/actuator/metrics").accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().is3xxRedirection());
+        mockMvc.perform(get("/actuator/health").accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.mysqlcrudapp.dto;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Page sizes, cursors and the {@code size + 1} look-ahead row
+ */
+public class CursorPageTest {
+
+    @Test
+    public void clampSize_DefaultsMissingOrNonPositiveSizesAndCapsLargeOnes() {
+        assertEquals(CursorPage.DEFAULT_SIZE, CursorPage.clampSize(null));
+        assertEquals(CursorPage.DEFAULT_SIZE, CursorPage.clampSize(0));
+        assertEquals(CursorPage.DEFAULT_SIZE, CursorPage.clampSize(-5));
+        assertEquals(1, CursorPage.clampSize(1));
+        assertEquals(CursorPage.MAX_SIZE, CursorPage.clampSize(CursorPage.MAX_SIZE));
+        assertEquals(CursorPage.MAX_SIZE, CursorPage.clampSize(CursorPage.MAX_SIZE + 1));
+    }
+
+    @Test
+    public void startAfter_BeginsAtTheStartWithoutACursor() {
+        assertEquals(0L, CursorPage.startAfter(null));
+        assertEquals(42L, CursorPage.startAfter(42L));
+    }
+
+    @Test
+    public void lookAheadRow_IsDroppedAndTheLastReturnedIdIsTheCursor() {
+        CursorPage<String> page = page(Arrays.asList(3L, 7L, 9L), 2);
+
+        assertEquals(Arrays.asList("#3", "#7"), page.getItems());
+        assertEquals(7L, page.getNext());
+        assertEquals(2, page.getSize());
+    }
+
+    @Test
+    public void lastPage_HasNoCursor() {
+        assertNull(page(Arrays.asList(3L, 7L), 2).getNext());
+        assertNull(page(Collections.singletonList(3L), 2).getNext());
+
+        CursorPage<String> empty = page(Collections.emptyList(), 2);
+        assertEquals(Collections.emptyList(), empty.getItems());
+        assertNull(empty.getNext());
+    }
+
+    private static CursorPage<String> page(List<Long> ids, int size) {
+        return CursorPage.of(ids, size, Function.identity(), id -> "#" + id);
+    }
+}
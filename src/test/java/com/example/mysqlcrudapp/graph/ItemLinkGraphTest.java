@@ -0,0 +1,280 @@
+package com.example.mysqlcrudapp.graph;
+
+import com.example.mysqlcrudapp.graph.ItemLinkGraph.Direction;
+import com.example.mysqlcrudapp.graph.ItemLinkGraph.Link;
+import com.example.mysqlcrudapp.graph.ItemLinkGraph.Neighborhood;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Traversals over the snapshot and the overlay of an {@link ItemLinkGraph}, and writes made while the snapshot
+ * is loaded or compacted
+ */
+public class ItemLinkGraphTest {
+    private static final long PARENT = 1;
+    private static final long RELATED = 2;
+
+    @Test
+    public void csrPartition_GroupsLinksBySource() {
+        long[] sources = {5, 1, 5, 3, 1, 0};
+        long[] targets = {6, 2, 7, 4, 3, 0};
+        long[] links = {10, 11, 12, 13, 14, 15};
+
+        // The last entry is beyond the count and ignored
+        CsrPartition partition = CsrPartition.build(sources, targets, links, 5);
+
+        assertEquals(3, partition.nodeCount());
+        assertEquals(5, partition.linkCount());
+        assertEquals(Arrays.asList("11>2", "14>3"), linksOf(partition, 1));
+        assertEquals(Arrays.asList("10>6", "12>7"), linksOf(partition, 5));
+        assertEquals(Arrays.asList(), linksOf(partition, 0));
+        assertEquals(Arrays.asList(), linksOf(partition, 4));
+        List<String> all = new ArrayList<>();
+        partition.forEachLink((linkId, source, target) -> all.add(linkId + ":" + source + ">" + target));
+        assertEquals(Arrays.asList("11:1>2", "14:1>3", "13:3>4", "10:5>6", "12:5>7"), all);
+    }
+
+    @Test
+    public void neighborhood_FollowsDirectionDepthAndField() {
+        //  1 -> 2 -> 3 -> 4, 5 -> 2 and 2 -> 6 through the RELATED field
+        ItemLinkGraph graph = loaded(
+                new Link(12, 1, 2, PARENT), new Link(23, 2, 3, PARENT), new Link(34, 3, 4, PARENT),
+                new Link(52, 5, 2, PARENT), new Link(26, 2, 6, RELATED));
+
+        assertEquals(depths(1, 0, 2, 1, 3, 2, 6, 2), graph.neighborhood(1, 2, Direction.OUT, null, 100).getDepths());
+        assertEquals(depths(1, 0, 2, 1, 3, 2), graph.neighborhood(1, 2, Direction.OUT, PARENT, 100).getDepths());
+        assertEquals(depths(3, 0, 2, 1, 1, 2, 5, 2), graph.neighborhood(3, 5, Direction.IN, null, 100).getDepths());
+        assertEquals(depths(5, 0, 2, 1, 1, 2, 3, 2, 6, 2, 4, 3),
+                graph.neighborhood(5, 3, Direction.BOTH, null, 100).getDepths());
+        assertEquals(depths(4, 0), graph.neighborhood(4, 3, Direction.OUT, null, 100).getDepths());
+
+        Neighborhood followed = graph.neighborhood(1, 2, Direction.OUT, PARENT, 100);
+        assertEquals(Arrays.asList(new Link(12, 1, 2, PARENT), new Link(23, 2, 3, PARENT)), followed.getLinks());
+        assertFalse(followed.isTruncated());
+
+        Neighborhood limited = graph.neighborhood(5, 3, Direction.BOTH, null, 3);
+        assertEquals(3, limited.getDepths().size());
+        assertTrue(limited.isTruncated());
+
+        assertEquals(6, graph.component(4, null, 100).getDepths().size());
+        assertEquals(5, graph.component(4, PARENT, 100).getDepths().size());
+    }
+
+    @Test
+    public void neighborhood_ListsLinksBetweenReachedItems() {
+        // A diamond: both routes are listed although item 4 is only reached once
+        ItemLinkGraph graph = loaded(
+                new Link(12, 1, 2, PARENT), new Link(13, 1, 3, PARENT),
+                new Link(24, 2, 4, PARENT), new Link(34, 3, 4, PARENT));
+
+        Neighborhood neighborhood = graph.neighborhood(1, 2, Direction.OUT, null, 100);
+
+        assertEquals(depths(1, 0, 2, 1, 3, 1, 4, 2), neighborhood.getDepths());
+        assertEquals(Arrays.asList(12L, 13L, 24L, 34L), linkIds(neighborhood.getLinks()));
+    }
+
+    @Test
+    public void shortestPath_TakesTheFewestLinksInTheAllowedDirection() {
+        ItemLinkGraph graph = loaded(
+                new Link(12, 1, 2, PARENT), new Link(23, 2, 3, PARENT), new Link(34, 3, 4, PARENT),
+                new Link(45, 4, 5, PARENT), new Link(15, 1, 5, RELATED), new Link(64, 6, 4, PARENT));
+
+        assertEquals(Arrays.asList(15L), linkIds(graph.shortestPath(1, 5, Direction.OUT, null, 10, 100)));
+        assertEquals(Arrays.asList(12L, 23L, 34L, 45L), linkIds(graph.shortestPath(1, 5, Direction.OUT, PARENT, 10, 100)));
+        assertNull(graph.shortestPath(1, 5, Direction.OUT, PARENT, 3, 100));
+        assertNull(graph.shortestPath(5, 1, Direction.OUT, null, 10, 100));
+        assertEquals(Arrays.asList(15L), linkIds(graph.shortestPath(5, 1, Direction.IN, null, 10, 100)));
+        // Against the direction of link 64
+        assertNull(graph.shortestPath(1, 6, Direction.OUT, null, 10, 100));
+        assertEquals(Arrays.asList(15L, 45L, 64L), linkIds(graph.shortestPath(1, 6, Direction.BOTH, null, 10, 100)));
+        assertEquals(Arrays.asList(), graph.shortestPath(3, 3, Direction.OUT, null, 0, 1));
+        // Gives up once too many items were visited
+        assertNull(graph.shortestPath(1, 5, Direction.OUT, PARENT, 10, 3));
+    }
+
+    @Test
+    public void overlay_AddsReplacesAndHidesSnapshotLinks() {
+        ItemLinkGraph graph = loaded(new Link(12, 1, 2, PARENT), new Link(23, 2, 3, PARENT), new Link(34, 3, 4, PARENT));
+
+        // Re-point link 23 at item 5, add 56 and drop 34 together with item 4
+        graph.put(23, 2, 5, PARENT);
+        graph.put(56, 5, 6, RELATED);
+        graph.removeItem(4);
+        graph.put(47, 4, 7, PARENT);
+
+        assertEquals(depths(1, 0, 2, 1, 5, 2, 6, 3), graph.neighborhood(1, 5, Direction.OUT, null, 100).getDepths());
+        assertEquals(depths(3, 0), graph.neighborhood(3, 5, Direction.BOTH, null, 100).getDepths());
+        // Links added after an item was removed are visible again
+        assertEquals(depths(4, 0, 7, 1), graph.neighborhood(4, 5, Direction.BOTH, null, 100).getDepths());
+
+        graph.remove(12);
+        graph.remove(56);
+        assertEquals(depths(2, 0, 5, 1), graph.neighborhood(2, 5, Direction.BOTH, null, 100).getDepths());
+        // The re-pointed link 23 and link 47
+        assertEquals(2, graph.getStatistics().get("overlayLinks"));
+    }
+
+    @Test
+    public void load_KeepsWritesMadeDuringTheScan() {
+        ItemLinkGraph graph = new ItemLinkGraph();
+        // Writes before the load go straight to the overlay
+        graph.put(99, 9, 10, PARENT);
+
+        graph.load(sink -> {
+            sink.add(12, 1, 2, PARENT);
+            sink.add(23, 2, 3, PARENT);
+            CompletableFuture.runAsync(() -> {
+                graph.put(12, 1, 4, PARENT);
+                graph.remove(23);
+                graph.put(45, 4, 5, PARENT);
+                graph.removeItem(6);
+            }).join();
+            // Read before the changes above were committed
+            sink.add(34, 3, 4, PARENT);
+            sink.add(67, 6, 7, PARENT);
+        });
+        graph.load(sink -> sink.add(88, 8, 8, PARENT));
+
+        assertTrue(graph.isLoaded());
+        Map<Long, Link> expected = model(new Link(99, 9, 10, PARENT), new Link(12, 1, 4, PARENT),
+                new Link(45, 4, 5, PARENT), new Link(34, 3, 4, PARENT));
+        assertMatches(expected, graph, 11);
+    }
+
+    @Test
+    public void compact_FoldsTheOverlayIntoTheSnapshot() {
+        ItemLinkGraph graph = loaded();
+        Map<Long, Link> expected = new HashMap<>();
+        for (long id = 0; id < 1200; id++) {
+            Link link = new Link(id, id % 50, (id * 7) % 50, id % 3 == 0 ? RELATED : PARENT);
+            graph.put(link.getId(), link.getFromItemId(), link.getToItemId(), link.getFieldId());
+            expected.put(id, link);
+        }
+        for (long id = 0; id < 1200; id += 5) {
+            graph.remove(id);
+            expected.remove(id);
+        }
+        graph.removeItem(7);
+        expected.values().removeIf(link -> link.getFromItemId() == 7 || link.getToItemId() == 7);
+
+        assertTrue(graph.compact());
+
+        assertEquals(0, graph.getStatistics().get("overlayLinks"));
+        assertEquals(0, graph.getStatistics().get("hiddenLinks"));
+        assertEquals(expected.size(), graph.getStatistics().get("snapshotLinks"));
+        assertMatches(expected, graph, 50);
+        // Too few changes since
+        graph.remove(1);
+        assertFalse(graph.compact());
+    }
+
+    @Test
+    public void compact_ReplaysWritesMadeWhileItBuilds() throws Exception {
+        ItemLinkGraph graph = loaded();
+        Map<Long, Link> expected = new HashMap<>();
+        Random random = new Random(42);
+        int items = 200;
+
+        CompletableFuture<Void> writer = CompletableFuture.runAsync(() -> {
+            for (int i = 0; i < 30_000; i++) {
+                int choice = random.nextInt(20);
+                long id = random.nextInt(4000);
+                if (choice == 0) {
+                    long item = random.nextInt(items);
+                    graph.removeItem(item);
+                    expected.values().removeIf(link -> link.getFromItemId() == item || link.getToItemId() == item);
+                } else if (choice < 6) {
+                    graph.remove(id);
+                    expected.remove(id);
+                } else {
+                    Link link = new Link(id, random.nextInt(items), random.nextInt(items), random.nextBoolean() ? PARENT : RELATED);
+                    graph.put(link.getId(), link.getFromItemId(), link.getToItemId(), link.getFieldId());
+                    expected.put(id, link);
+                }
+            }
+        });
+        int compactions = 0;
+        while (!writer.isDone()) {
+            if (graph.compact()) {
+                compactions++;
+            }
+        }
+        writer.get();
+        if (graph.compact()) {
+            compactions++;
+        }
+
+        assertTrue(compactions > 0);
+        assertMatches(expected, graph, items);
+    }
+
+    /**
+     * Checks every item's links in both directions against the expected links
+     */
+    private static void assertMatches(Map<Long, Link> expected, ItemLinkGraph graph, int items) {
+        for (long item = 0; item < items; item++) {
+            long node = item;
+            Set<Link> out = expected.values().stream().filter(link -> link.getFromItemId() == node).collect(Collectors.toSet());
+            Set<Link> in = expected.values().stream().filter(link -> link.getToItemId() == node).collect(Collectors.toSet());
+            assertEquals(out, new HashSet<>(graph.neighborhood(item, 1, Direction.OUT, null, Integer.MAX_VALUE).getLinks()),
+                    "links from " + item);
+            assertEquals(in, new HashSet<>(graph.neighborhood(item, 1, Direction.IN, null, Integer.MAX_VALUE).getLinks()),
+                    "links to " + item);
+        }
+    }
+
+    private static ItemLinkGraph loaded(Link... links) {
+        ItemLinkGraph graph = new ItemLinkGraph();
+        graph.load(sink -> {
+            for (Link link : links) {
+                sink.add(link.getId(), link.getFromItemId(), link.getToItemId(), link.getFieldId());
+            }
+        });
+        return graph;
+    }
+
+    private static Map<Long, Link> model(Link... links) {
+        Map<Long, Link> model = new HashMap<>();
+        for (Link link : links) {
+            model.put(link.getId(), link);
+        }
+        return model;
+    }
+
+    /**
+     * Item ids and depths, in the order they are reached
+     */
+    private static Map<Long, Integer> depths(long... itemsAndDepths) {
+        Map<Long, Integer> depths = new LinkedHashMap<>();
+        for (int i = 0; i < itemsAndDepths.length; i += 2) {
+            depths.put(itemsAndDepths[i], (int) itemsAndDepths[i + 1]);
+        }
+        return depths;
+    }
+
+    private static List<Long> linkIds(List<Link> links) {
+        return links.stream().map(Link::getId).collect(Collectors.toList());
+    }
+
+    private static List<String> linksOf(CsrPartition partition, long node) {
+        List<String> links = new ArrayList<>();
+        partition.forEachLink(node, (linkId, neighbor) -> links.add(linkId + ">" + neighbor));
+        return links;
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.mysqlcrudapp.persistence;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * The MySQL JSON functions that item patches run in SQL, as H2 aliases, so that tests exercise the SQL path.
+ * <p>
+ * Only the top-level key paths the application binds, {@code $."key"}, are understood. Documents are text,
+ * as the test database declares json columns as text.
+ */
+public final class H2JsonFunctions {
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private H2JsonFunctions() {
+    }
+
+    /**
+     * Creates the aliases in the database behind the template, once per database
+     */
+    public static void register(JdbcTemplate jdbcTemplate) {
+        alias(jdbcTemplate, "JSON_SET", "jsonSet");
+        alias(jdbcTemplate, "JSON_REPLACE", "jsonReplace");
+        alias(jdbcTemplate, "JSON_REMOVE", "jsonRemove");
+        alias(jdbcTemplate, "JSON_CONTAINS_PATH", "jsonContainsPath");
+        alias(jdbcTemplate, "JSON_MERGE_PATCH", "jsonMergePatch");
+    }
+
+    public static String jsonSet(String document, String path, String value) {
+        ObjectNode object = object(document);
+        object.set(key(path), read(value));
+        return object.toString();
+    }
+
+    public static String jsonReplace(String document, String path, String value) {
+        ObjectNode object = object(document);
+        String key = key(path);
+        if (object.has(key)) {
+            object.set(key, read(value));
+        }
+        return object.toString();
+    }
+
+    public static String jsonRemove(String document, String path) {
+        ObjectNode object = object(document);
+        object.remove(key(path));
+        return object.toString();
+    }
+
+    public static boolean jsonContainsPath(String document, String mode, String... paths) {
+        ObjectNode object = object(document);
+        boolean all = "all".equalsIgnoreCase(mode);
+        for (String path : paths) {
+            boolean present = object.has(key(path));
+            if (present != all) {
+                return present;
+            }
+        }
+        return all;
+    }
+
+    public static String jsonMergePatch(String document, String patch) {
+        return merge(read(document), read(patch)).toString();
+    }
+
+    private static JsonNode merge(JsonNode target, JsonNode patch) {
+        if (!patch.isObject()) {
+            return patch;
+        }
+        ObjectNode result = target.isObject() ? (ObjectNode) target : MAPPER.createObjectNode();
+        Iterator<Map.Entry<String, JsonNode>> fields = patch.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            if (field.getValue().isNull()) {
+                result.remove(field.getKey());
+            } else {
+                JsonNode existing = result.get(field.getKey());
+                result.set(field.getKey(), merge(existing != null ? existing : MAPPER.nullNode(), field.getValue()));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * The key of a path made by {@code JsonPathSql.boundJsonPath}
+     */
+    private static String key(String path) {
+        if (!path.startsWith("$.\"") || !path.endsWith("\"")) {
+            throw new IllegalArgumentException("Only top-level key paths are supported: " + path);
+        }
+        StringBuilder key = new StringBuilder();
+        for (int i = 3; i < path.length() - 1; i++) {
+            char c = path.charAt(i);
+            key.append(c == '\\' ? path.charAt(++i) : c);
+        }
+        return key.toString();
+    }
+
+    private static ObjectNode object(String document) {
+        JsonNode node = read(document);
+        if (!node.isObject()) {
+            throw new IllegalArgumentException("Not a JSON object: " + document);
+        }
+        return (ObjectNode) node;
+    }
+
+    private static JsonNode read(String json) {
+        try {
+            return MAPPER.readTree(json);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Invalid JSON: " + json, e);
+        }
+    }
+
+    private static void alias(JdbcTemplate jdbcTemplate, String function, String method) {
+        jdbcTemplate.execute("CREATE ALIAS IF NOT EXISTS " + function + " FOR \""
+                + H2JsonFunctions.class.getName() + "." + method + "\"");
+    }
+}
@@ -0,0 +1,196 @@
+package com.example.mysqlcrudapp.persistence;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.SQLTransactionRollbackException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Ids drawn from several {@link IdBlockAllocator}s sharing one segment, as application nodes sharing one database do
+ */
+@SpringBootTest
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class IdBlockAllocatorTest {
+    private static final String ENTITY_TABLE = "id_block_test";
+    private static final long EXISTING_MAX_ID = 500;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeAll
+    public void createEntityTable() {
+        jdbcTemplate.execute("CREATE TABLE " + ENTITY_TABLE + " (id BIGINT NOT NULL PRIMARY KEY)");
+        jdbcTemplate.update("INSERT INTO " + ENTITY_TABLE + " (id) VALUES (3), (" + EXISTING_MAX_ID + "), (42)");
+    }
+
+    @Test
+    public void firstBlock_StartsAfterTheHighestExistingId() {
+        IdBlockAllocator first = allocator("seeded", 10);
+
+        assertEquals(EXISTING_MAX_ID + 1, first.next());
+        assertEquals(EXISTING_MAX_ID + 2, first.next());
+        // Well over a quarter of the block is left, so no second block is reserved yet
+        assertEquals(EXISTING_MAX_ID + 11, nextVal("seeded"));
+
+        // The seed is only taken once; later instances continue from the allocation table
+        IdBlockAllocator second = allocator("seeded", 10);
+        jdbcTemplate.update("INSERT INTO " + ENTITY_TABLE + " (id) VALUES (10000)");
+        try {
+            assertEquals(EXISTING_MAX_ID + 11, second.next());
+        } finally {
+            jdbcTemplate.update("DELETE FROM " + ENTITY_TABLE + " WHERE id = 10000");
+        }
+    }
+
+    @Test
+    public void firstBlock_OfAnEmptyTableStartsAtOne() {
+        jdbcTemplate.execute("CREATE TABLE id_block_empty (item_id BIGINT NOT NULL PRIMARY KEY)");
+
+        IdBlockAllocator allocator = new IdBlockAllocator(dataSource, "id_block_empty", "id_block_empty", "item_id", 5);
+
+        assertEquals(1, allocator.next());
+    }
+
+    @Test
+    public void reservation_RetriesWhileTheSegmentRowStaysLocked() throws Exception {
+        IdBlockAllocator allocator = allocator("locked", 10);
+        allocator.next();
+        long lockTimeoutMillis;
+        try (Connection holder = dataSource.getConnection()) {
+            lockTimeoutMillis = jdbcTemplate.queryForObject("SELECT LOCK_TIMEOUT()", Long.class);
+            holder.setAutoCommit(false);
+            try (Statement statement = holder.createStatement()) {
+                // Another node reserving a large block, holding the row past one lock timeout
+                statement.executeUpdate("UPDATE " + IdBlockAllocator.TABLE_NAME
+                        + " SET next_val = next_val + 1000 WHERE segment_name = 'id_block_test_locked'");
+            }
+            CompletableFuture<Long> reservation = CompletableFuture.supplyAsync(allocator::reserveBlock);
+            Thread.sleep(lockTimeoutMillis * 3 / 2);
+            holder.commit();
+            holder.setAutoCommit(true);
+
+            assertEquals(EXISTING_MAX_ID + 11 + 1000, reservation.get(10, TimeUnit.SECONDS));
+        }
+        assertEquals(EXISTING_MAX_ID + 21 + 1000, nextVal("locked"));
+    }
+
+    @Test
+    public void lockConflicts_AreTimeoutsAndDeadlocks() {
+        assertTrue(IdBlockAllocator.isLockConflict(new SQLTransactionRollbackException("Deadlock", "40001", 1213)));
+        assertTrue(IdBlockAllocator.isLockConflict(new SQLTimeoutException("Timeout trying to lock table", "HYT00", 50200)));
+        assertTrue(IdBlockAllocator.isLockConflict(new SQLException("Lock wait timeout exceeded", "HY000", 1205)));
+        assertTrue(IdBlockAllocator.isLockConflict(new SQLException("Deadlock found when trying to get lock", "40001", 1213)));
+        assertFalse(IdBlockAllocator.isLockConflict(new SQLException("Table 'id_allocation' doesn't exist", "42S02", 1146)));
+        assertFalse(IdBlockAllocator.isLockConflict(new SQLException("Communications link failure", "08S01", 0)));
+    }
+
+    @Test
+    public void blockSize_MustBePositive() {
+        assertThrows(IllegalArgumentException.class, () -> allocator("invalid", 0));
+    }
+
+    @Test
+    public void concurrentAllocators_NeverShareAnIdOrSkipOneWithinABlock() throws Exception {
+        int blockSize = 50;
+        int threads = 8;
+        int idsPerThread = 501;
+        IdBlockAllocator[] allocators = {allocator("shared", blockSize), allocator("shared", blockSize)};
+        List<List<Long>> drawn = new ArrayList<>();
+        for (int i = 0; i < allocators.length; i++) {
+            drawn.add(new ArrayList<>());
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<CompletableFuture<List<Long>>> results = new ArrayList<>();
+        try {
+            for (int t = 0; t < threads; t++) {
+                IdBlockAllocator allocator = allocators[t % allocators.length];
+                results.add(CompletableFuture.supplyAsync(() -> {
+                    List<Long> ids = new ArrayList<>(idsPerThread);
+                    try {
+                        // Both allocators seed the segment at the same time
+                        start.await();
+                    } catch (InterruptedException e) {
+                        throw new IllegalStateException(e);
+                    }
+                    for (int i = 0; i < idsPerThread; i++) {
+                        ids.add(allocator.next());
+                    }
+                    return ids;
+                }, executor));
+            }
+            start.countDown();
+            for (int t = 0; t < threads; t++) {
+                drawn.get(t % allocators.length).addAll(results.get(t).get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        Set<Long> unique = new HashSet<>();
+        drawn.forEach(unique::addAll);
+        assertEquals(threads * idsPerThread, unique.size());
+
+        // Blocks start at the seed and follow each other; each belongs to one allocator, which hands out its ids
+        // in order from the start of the block, so every block is a full run except each allocator's current one
+        long seed = EXISTING_MAX_ID + 1;
+        for (List<Long> ids : drawn) {
+            Map<Long, List<Long>> byBlock = new TreeMap<>();
+            for (long id : ids) {
+                assertTrue(id >= seed, "id " + id + " is below the seed");
+                byBlock.computeIfAbsent((id - seed) / blockSize, block -> new ArrayList<>()).add(id);
+            }
+            int partial = 0;
+            for (Map.Entry<Long, List<Long>> block : byBlock.entrySet()) {
+                List<Long> blockIds = block.getValue();
+                blockIds.sort(Long::compare);
+                long first = seed + block.getKey() * blockSize;
+                for (int i = 0; i < blockIds.size(); i++) {
+                    assertEquals(first + i, blockIds.get(i), "gap in the block starting at " + first);
+                }
+                if (blockIds.size() < blockSize) {
+                    partial++;
+                }
+            }
+            assertTrue(partial <= 1, partial + " partly used blocks");
+        }
+    }
+
+    private IdBlockAllocator allocator(String segment, int blockSize) {
+        return new IdBlockAllocator(dataSource, "id_block_test_" + segment, ENTITY_TABLE, "id", blockSize);
+    }
+
+    private long nextVal(String segment) {
+        return jdbcTemplate.queryForObject("SELECT next_val FROM " + IdBlockAllocator.TABLE_NAME + " WHERE segment_name = ?",
+                Long.class, "id_block_test_" + segment);
+    }
+}
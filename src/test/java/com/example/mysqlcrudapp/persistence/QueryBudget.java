@@ -0,0 +1,24 @@
+package com.example.mysqlcrudapp.persistence;
+
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Fails a test when any request it performs issues more than {@link #max()} SQL statements.
+ * On a class it applies to every test method that does not declare its own budget.
+ * <p>
+ * Requests are seen through {@code QueryBudgetFilter}, so the filter must be part of the MockMvc setup,
+ * as it is with {@code @AutoConfigureMockMvc}. Statements the test runs itself outside requests are not counted.
+ */
+@Target({ElementType.TYPE, ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+@Inherited
+@ExtendWith(QueryBudgetExtension.class)
+public @interface QueryBudget {
+    int max();
+}
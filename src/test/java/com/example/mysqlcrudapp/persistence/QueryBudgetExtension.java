@@ -0,0 +1,46 @@
+package com.example.mysqlcrudapp.persistence;
+
+import org.junit.jupiter.api.extension.AfterEachCallback;
+import org.junit.jupiter.api.extension.BeforeEachCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Checks the requests of a test against its {@link QueryBudget}
+ */
+public class QueryBudgetExtension implements BeforeEachCallback, AfterEachCallback {
+    private static final ExtensionContext.Namespace NAMESPACE = ExtensionContext.Namespace.create(QueryBudgetExtension.class);
+
+    @Override
+    public void beforeEach(ExtensionContext context) {
+        context.getStore(NAMESPACE).put(QueryCounter.Scope.class, QueryCounter.open(context.getDisplayName()));
+    }
+
+    @Override
+    public void afterEach(ExtensionContext context) {
+        QueryCounter.Scope scope = context.getStore(NAMESPACE).remove(QueryCounter.Scope.class, QueryCounter.Scope.class);
+        scope.close();
+        int max = budget(context);
+        List<String> failures = new ArrayList<>();
+        for (QueryCounter.Scope request : scope.getChildren()) {
+            if (request.getCount() > max) {
+                failures.add(request.getName() + " issued " + request.getCount() + " SQL statements:" + request.describe());
+            }
+        }
+        if (!failures.isEmpty()) {
+            throw new AssertionError("Over the query budget of " + max + " statements per request\n"
+                    + String.join("\n", failures));
+        }
+    }
+
+    private static int budget(ExtensionContext context) {
+        QueryBudget budget = AnnotatedElementUtils.findMergedAnnotation(context.getRequiredTestMethod(), QueryBudget.class);
+        if (budget == null) {
+            budget = AnnotatedElementUtils.findMergedAnnotation(context.getRequiredTestClass(), QueryBudget.class);
+        }
+        return budget.max();
+    }
+}
@@ -0,0 +1,137 @@
+package com.example.mysqlcrudapp.persistence;
+
+import com.example.mysqlcrudapp.config.QueryBudgetFilter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.system.CapturedOutput;
+import org.springframework.boot.test.system.OutputCaptureExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * {@link QueryBudgetExtension} and {@code QueryBudgetFilter} against statements run through the real
+ * counting DataSource. The extension is driven by hand here, so that a test going over budget can be observed
+ * rather than failing this class.
+ */
+@SpringBootTest
+@ExtendWith(OutputCaptureExtension.class)
+public class QueryBudgetExtensionTest {
+    private static final String STATEMENT = "SELECT COUNT(*) FROM users WHERE user_id = ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    public void extension_FailsATestWithARequestOverBudget() throws Exception {
+        QueryBudgetExtension extension = new QueryBudgetExtension();
+        ExtensionContext context = context("twoStatements");
+
+        extension.beforeEach(context);
+        request("GET /over-budget", 3);
+        request("GET /within-budget", 2);
+        AssertionError error = assertThrows(AssertionError.class, () -> extension.afterEach(context));
+
+        assertTrue(error.getMessage().startsWith("Over the query budget of 2 statements per request"), error.getMessage());
+        assertTrue(error.getMessage().contains("GET /over-budget issued 3 SQL statements:"), error.getMessage());
+        assertTrue(error.getMessage().contains("3 x SELECT COUNT(*) FROM users WHERE user_id = ?"), error.getMessage());
+        assertFalse(error.getMessage().contains("GET /within-budget"), error.getMessage());
+    }
+
+    @Test
+    public void extension_PassesATestWithinBudget() throws Exception {
+        QueryBudgetExtension extension = new QueryBudgetExtension();
+        ExtensionContext context = context("twoStatements");
+
+        extension.beforeEach(context);
+        request("GET /within-budget", 2);
+        // Statements outside requests are the test's own and do not count
+        jdbcTemplate.queryForObject(STATEMENT, Integer.class, 1);
+        jdbcTemplate.queryForObject(STATEMENT, Integer.class, 2);
+        jdbcTemplate.queryForObject(STATEMENT, Integer.class, 3);
+        assertDoesNotThrow(() -> extension.afterEach(context));
+    }
+
+    @Test
+    public void filter_WarnsWithTheShapesOfARequestOverBudget(CapturedOutput output) throws Exception {
+        QueryBudgetFilter filter = new QueryBudgetFilter(2, 3);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/n-plus-one");
+
+        filter.doFilter(request, new MockHttpServletResponse(), (req, res) -> {
+            for (int id = 0; id < 4; id++) {
+                jdbcTemplate.queryForObject(STATEMENT, Integer.class, id);
+            }
+        });
+
+        assertTrue(output.getOut().contains("GET /api/n-plus-one ran the same statement 4 times, likely an N+1: " + STATEMENT),
+                output.getOut());
+        assertTrue(output.getOut().contains("GET /api/n-plus-one issued 4 SQL statements, over the budget of 2:\n  4 x " + STATEMENT), output.getOut());
+    }
+
+    @Test
+    public void filter_StaysQuietWithinBudget(CapturedOutput output) throws Exception {
+        QueryBudgetFilter filter = new QueryBudgetFilter(2, 3);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/quiet");
+
+        filter.doFilter(request, new MockHttpServletResponse(),
+                (req, res) -> jdbcTemplate.queryForObject(STATEMENT, Integer.class, 1));
+
+        assertFalse(output.getOut().contains("/api/quiet"), output.getOut());
+    }
+
+    @Test
+    public void shape_FoldsLiteralsAndParameterLists() {
+        assertEquals("SELECT * FROM item WHERE id IN (?...) AND name = ? AND n > ?",
+                QueryCounter.shape("SELECT *\n FROM item WHERE id IN (?, ?, ?) AND name = 'it''s' AND n > 42"));
+    }
+
+    /**
+     * Runs {@code statements} statements inside a request scope, as QueryBudgetFilter does for MockMvc requests
+     */
+    private void request(String name, int statements) {
+        try (QueryCounter.Scope ignored = QueryCounter.open(name)) {
+            for (int i = 0; i < statements; i++) {
+                jdbcTemplate.queryForObject(STATEMENT, Integer.class, i);
+            }
+        }
+    }
+
+    @QueryBudget(max = 2)
+    void twoStatements() {
+    }
+
+    private ExtensionContext context(String budgetMethod) throws NoSuchMethodException {
+        Map<Object, Object> values = new HashMap<>();
+        ExtensionContext.Store store = mock(ExtensionContext.Store.class);
+        doAnswer(invocation -> values.put(invocation.getArgument(0), invocation.getArgument(1)))
+                .when(store).put(any(), any());
+        when(store.remove(any(), eq(QueryCounter.Scope.class)))
+                .thenAnswer(invocation -> values.remove(invocation.getArgument(0)));
+
+        Method method = QueryBudgetExtensionTest.class.getDeclaredMethod(budgetMethod);
+        ExtensionContext context = mock(ExtensionContext.class);
+        when(context.getStore(any())).thenReturn(store);
+        when(context.getDisplayName()).thenReturn(budgetMethod);
+        when(context.getRequiredTestMethod()).thenReturn(method);
+        when(context.getRequiredTestClass()).thenAnswer(invocation -> QueryBudgetExtensionTest.class);
+        return context;
+    }
+}
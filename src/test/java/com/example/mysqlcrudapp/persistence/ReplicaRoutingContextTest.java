@@ -0,0 +1,132 @@
+package com.example.mysqlcrudapp.persistence;
+
+import com.example.mysqlcrudapp.dto.BlueprintSummaryDto;
+import com.example.mysqlcrudapp.entity.Blueprint;
+import com.example.mysqlcrudapp.repository.BlueprintRepository;
+import com.example.mysqlcrudapp.service.BlueprintService;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Routing through the application's own wiring: Spring Data repositories and the JPA transaction manager over the
+ * lazy connection proxy. The replica is a copy of the primary taken before the last blueprint was created, so
+ * whatever is read from it lags behind.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:routing-primary;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1;"
+                + "INIT=CREATE DOMAIN IF NOT EXISTS json AS TEXT",
+        "app.replicas.urls=" + ReplicaRoutingContextTest.REPLICA_URL,
+        "app.replicas.health-check-interval-ms=0",
+        "app.replicas.read-your-writes-ms=0",
+        "app.search.directory=target/search-index-routing"
+})
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class ReplicaRoutingContextTest {
+    static final String REPLICA_URL = "jdbc:h2:mem:routing-replica;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+
+    @Autowired
+    private BlueprintRepository blueprintRepository;
+
+    @Autowired
+    private BlueprintService blueprintService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Long replicated;
+    private Long primaryOnly;
+
+    @BeforeAll
+    public void createReplica() {
+        replicated = blueprint("Replicated").getId();
+        JdbcTemplate replica = new JdbcTemplate(new DriverManagerDataSource(REPLICA_URL, "sa", ""));
+        for (String statement : jdbcTemplate.queryForList("SCRIPT", String.class)) {
+            if (!statement.startsWith("--")) {
+                replica.execute(statement);
+            }
+        }
+        primaryOnly = blueprint("Primary only").getId();
+    }
+
+    @Test
+    public void readOnlyTransactions_ReadFromTheReplica() {
+        assertTrue(transactionManager instanceof JpaTransactionManager);
+        assertTrue(((JpaTransactionManager) transactionManager).getJpaDialect() instanceof ReplicaAwareJpaDialect);
+        // Saving put the blueprints in the second-level cache
+        entityManagerFactory.getCache().evictAll();
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        TransactionTemplate readWrite = new TransactionTemplate(transactionManager);
+
+        // Repository reads run in read-only transactions of their own
+        assertTrue(blueprintRepository.findById(replicated).isPresent());
+        assertFalse(blueprintRepository.findById(primaryOnly).isPresent());
+        boolean readOnlySeesIt = readOnly.execute(status -> blueprintRepository.findById(primaryOnly).isPresent());
+        assertFalse(readOnlySeesIt);
+        boolean readWriteSeesIt = readWrite.execute(status -> blueprintRepository.findById(primaryOnly).isPresent());
+        assertTrue(readWriteSeesIt);
+    }
+
+    @Test
+    public void readFromPrimary_CoversTransactionsBegunInsideAndOutside() {
+        assertTrue(ReplicaRoutingDataSource.readFromPrimary(() -> blueprintRepository.findById(primaryOnly)).isPresent());
+
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        // Begun before the scope, but without a statement run yet
+        boolean seen = readOnly.execute(status -> ReplicaRoutingDataSource.readFromPrimary(
+                () -> blueprintRepository.findById(primaryOnly)).isPresent());
+        assertTrue(seen);
+        assertFalse(ReplicaRoutingDataSource.isReadingFromPrimary());
+    }
+
+    @Test
+    public void secondLevelCache_IsOnlyFilledFromThePrimary() {
+        entityManagerFactory.getCache().evictAll();
+
+        blueprintRepository.findById(replicated);
+        assertFalse(entityManagerFactory.getCache().contains(Blueprint.class, replicated));
+
+        ReplicaRoutingDataSource.readFromPrimary(() -> blueprintRepository.findById(replicated));
+        assertTrue(entityManagerFactory.getCache().contains(Blueprint.class, replicated));
+        // Cached entries are still read by transactions on the replica
+        assertEquals("Replicated", blueprintRepository.findById(replicated).get().getName());
+    }
+
+    @Test
+    public void blueprintListing_IsLoadedFromThePrimary() {
+        blueprintService.invalidateSummaries();
+
+        assertTrue(blueprintService.findSummaries().stream()
+                .map(BlueprintSummaryDto::getName)
+                .collect(Collectors.toList())
+                .contains("Primary only"));
+    }
+
+    private Blueprint blueprint(String name) {
+        Blueprint blueprint = new Blueprint();
+        blueprint.setName(name);
+        return blueprintRepository.save(blueprint);
+    }
+}
@@ -0,0 +1,175 @@
+package com.example.mysqlcrudapp.persistence;
+
+import com.example.mysqlcrudapp.persistence.ReplicaRoutingDataSource.Selection;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Routing between three separate in-memory databases, each of which knows its own name: a primary and two
+ * replicas, the second of which can be taken down.
+ */
+public class ReplicaRoutingDataSourceTest {
+    private static final AtomicInteger DATABASES = new AtomicInteger();
+
+    private DataSource primary;
+    private HikariDataSource replica1;
+    private SwitchableDataSource replica2;
+    private ReplicaRoutingDataSource routing;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate readOnly;
+    private TransactionTemplate readWrite;
+    private String user;
+
+    @BeforeEach
+    public void createDatabases() {
+        primary = database("primary");
+        replica1 = pool(database("replica-1"));
+        replica2 = new SwitchableDataSource(pool(database("replica-2")));
+    }
+
+    @AfterEach
+    public void close() {
+        routing.close();
+    }
+
+    @Test
+    public void readOnlyTransactions_ShouldAlternateBetweenReplicas() {
+        route(Selection.ROUND_ROBIN, Duration.ZERO);
+
+        assertEquals(Arrays.asList("replica-1", "replica-2", "replica-1", "replica-2"),
+                Arrays.asList(read(), read(), read(), read()));
+        assertEquals("primary", readWrite.execute(status -> origin()));
+        assertEquals("primary", origin(), "Statements outside a transaction may write");
+    }
+
+    @Test
+    public void leastLoaded_ShouldPickTheReplicaWithFewerConnectionsInUse() throws SQLException {
+        route(Selection.LEAST_LOADED, Duration.ZERO);
+
+        try (Connection busy = replica1.getConnection()) {
+            assertEquals(Arrays.asList("replica-2", "replica-2", "replica-2"), Arrays.asList(read(), read(), read()));
+        }
+    }
+
+    @Test
+    public void unavailableReplica_ShouldBeSkippedUntilItAnswersAgain() {
+        route(Selection.ROUND_ROBIN, Duration.ZERO);
+        replica2.down = true;
+
+        assertEquals(Arrays.asList("replica-1", "replica-1", "replica-1"), Arrays.asList(read(), read(), read()));
+        assertFalse(routing.isHealthy("replica-2"));
+
+        replica2.down = false;
+        routing.checkHealth();
+        assertTrue(routing.isHealthy("replica-2"));
+        assertEquals(2, Arrays.asList(read(), read(), read(), read()).stream().distinct().count());
+    }
+
+    @Test
+    public void noHealthyReplica_ShouldReadFromThePrimary() {
+        route(Selection.ROUND_ROBIN, Duration.ZERO);
+        replica1.close();
+        replica2.down = true;
+
+        assertEquals("primary", read());
+        assertEquals("primary", read());
+    }
+
+    @Test
+    public void readYourWrites_ShouldSendTheWritersReadsToThePrimary() {
+        route(Selection.ROUND_ROBIN, Duration.ofMinutes(1));
+
+        user = "alice";
+        readWrite.execute(status -> jdbcTemplate.update("UPDATE origin SET name = name"));
+        assertEquals(Arrays.asList("primary", "primary"), Arrays.asList(read(), read()));
+
+        user = "bob";
+        assertTrue(read().startsWith("replica"));
+        readWrite.execute(status -> {
+            jdbcTemplate.update("UPDATE origin SET name = name");
+            status.setRollbackOnly();
+            return null;
+        });
+        assertTrue(read().startsWith("replica"), "A rolled back transaction wrote nothing");
+    }
+
+    private void route(Selection selection, Duration readYourWritesWindow) {
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        replicas.put("replica-1", replica1);
+        replicas.put("replica-2", replica2);
+        routing = new ReplicaRoutingDataSource(primary, replicas, selection, Duration.ZERO, readYourWritesWindow, () -> user);
+        DataSource dataSource = new LazyConnectionDataSourceProxy(routing);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        readWrite = new TransactionTemplate(transactionManager);
+    }
+
+    private String read() {
+        return readOnly.execute(status -> origin());
+    }
+
+    private String origin() {
+        return jdbcTemplate.queryForObject("SELECT name FROM origin", String.class);
+    }
+
+    private static DataSource database(String name) {
+        DataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:routing" + DATABASES.incrementAndGet() + ";DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE origin (name VARCHAR(20))");
+        jdbcTemplate.update("INSERT INTO origin (name) VALUES (?)", name);
+        return dataSource;
+    }
+
+    private static HikariDataSource pool(DataSource database) {
+        HikariDataSource pool = new HikariDataSource();
+        pool.setDataSource(database);
+        pool.setMaximumPoolSize(2);
+        return pool;
+    }
+
+    private static class SwitchableDataSource extends DelegatingDataSource implements Closeable {
+        private volatile boolean down;
+
+        SwitchableDataSource(DataSource target) {
+            super(target);
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            if (down) {
+                throw new SQLException("Replica is down");
+            }
+            return super.getConnection();
+        }
+
+        @Override
+        public void close() {
+            ((HikariDataSource) getTargetDataSource()).close();
+        }
+    }
+}
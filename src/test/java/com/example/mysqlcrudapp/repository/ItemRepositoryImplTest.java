@@ -0,0 +1,90 @@
+package com.example.mysqlcrudapp.repository;
+
+import com.example.mysqlcrudapp.entity.Item;
+import com.example.mysqlcrudapp.util.JsonPathSql;
+import com.example.mysqlcrudapp.util.JsonPathSql.ValueType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Answers;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * The native SQL of field value lookups. MySQL only uses a generated column's index when the query compares
+ * the column itself or the exact expression it was defined with, so both forms are checked as text.
+ */
+public class ItemRepositoryImplTest {
+    private EntityManager entityManager;
+    private Query query;
+    private ItemRepositoryImpl itemRepository;
+
+    @BeforeEach
+    public void setUp() {
+        entityManager = mock(EntityManager.class);
+        query = mock(Query.class, Answers.RETURNS_SELF);
+        when(entityManager.createNativeQuery(anyString(), eq(Item.class))).thenReturn(query);
+        itemRepository = new ItemRepositoryImpl();
+        ReflectionTestUtils.setField(itemRepository, "entityManager", entityManager);
+    }
+
+    @Test
+    public void indexedNumber_ComparesTheGeneratedColumn() {
+        itemRepository.findByFieldValue(3L, "price", ValueType.NUMBER, 9.5, true, 100L, 21);
+
+        assertEquals("SELECT i.* FROM item i WHERE i.blueprint_id = :blueprintId AND jf_price = :value"
+                + " AND i.id > :afterId ORDER BY i.id", sql());
+        verify(query).setParameter("blueprintId", 3L);
+        verify(query).setParameter("value", 9.5);
+        verify(query).setParameter("afterId", 100L);
+        verify(query).setMaxResults(21);
+    }
+
+    @Test
+    public void unindexedDate_ComparesTheColumnDefinitionExpression() {
+        LocalDate due = LocalDate.of(2024, 2, 29);
+
+        itemRepository.findByFieldValue(3L, "due", ValueType.DATE, due, false, 0L, 11);
+
+        String sql = sql();
+        assertEquals("SELECT i.* FROM item i WHERE i.blueprint_id = :blueprintId AND "
+                + JsonPathSql.valueExpression("due", ValueType.DATE) + " = :value AND i.id > :afterId ORDER BY i.id", sql);
+        assertFalse(sql.contains("jf_due"));
+        verify(query).setParameter("value", due);
+        verify(query, never()).setParameter(eq("fullValue"), any());
+    }
+
+    @Test
+    public void string_ComparesThePrefixAndRechecksTheFullText() {
+        String longValue = "x".repeat(JsonPathSql.MAX_STRING_LENGTH + 10);
+
+        itemRepository.findByFieldValue(3L, "sku", ValueType.STRING, longValue, true, 0L, 11);
+
+        assertEquals("SELECT i.* FROM item i WHERE i.blueprint_id = :blueprintId AND jf_sku = :value AND "
+                + "JSON_UNQUOTE(JSON_EXTRACT(data_json, '$.\"sku\"')) = :fullValue AND i.id > :afterId ORDER BY i.id",
+                sql());
+        verify(query).setParameter("value", longValue.substring(0, JsonPathSql.MAX_STRING_LENGTH));
+        verify(query).setParameter("fullValue", longValue);
+        verify(query).setMaxResults(anyInt());
+    }
+
+    private String sql() {
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        verify(entityManager).createNativeQuery(sql.capture(), eq(Item.class));
+        return sql.getValue();
+    }
+}
@@ -0,0 +1,170 @@
+package com.example.mysqlcrudapp.repository;
+
+import com.example.mysqlcrudapp.entity.Blueprint;
+import com.example.mysqlcrudapp.entity.BlueprintVersion;
+import com.example.mysqlcrudapp.entity.BlueprintVersionField;
+import com.example.mysqlcrudapp.entity.Field;
+import com.example.mysqlcrudapp.persistence.CacheRegions;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManagerFactory;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Blueprint metadata comes from the second-level and query caches once read: repeated reads, each in a
+ * session of its own, issue no SQL at all, and writes make the cached queries run again.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@WithMockUser
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class SecondLevelCacheTest {
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private BlueprintRepository blueprintRepository;
+
+    @Autowired
+    private BlueprintVersionRepository blueprintVersionRepository;
+
+    @Autowired
+    private BlueprintVersionFieldRepository blueprintVersionFieldRepository;
+
+    @Autowired
+    private FieldRepository fieldRepository;
+
+    @Autowired
+    private TestFixtures testFixtures;
+
+    private Statistics statistics;
+    private TransactionTemplate transactionTemplate;
+    private Blueprint blueprint;
+    private BlueprintVersion version;
+    private Field field;
+
+    @BeforeAll
+    public void createData() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        transactionTemplate = new TransactionTemplate(transactionManager);
+
+        blueprint = testFixtures.blueprint("Cached blueprint");
+        version = testFixtures.version(blueprint, version -> version.setActive(true));
+        field = testFixtures.field("cached_title", "Title", "string");
+
+        addField(0);
+    }
+
+    @BeforeEach
+    public void startCold() {
+        entityManagerFactory.unwrap(SessionFactory.class).getCache().evictAll();
+    }
+
+    @Test
+    public void entityReads_HitTheCacheAfterTheFirst() {
+        blueprintRepository.findById(blueprint.getId());
+        fieldRepository.findById(field.getId());
+
+        statistics.clear();
+        assertEquals("Cached blueprint", blueprintRepository.findById(blueprint.getId()).get().getName());
+        assertEquals("cached_title", fieldRepository.findById(field.getId()).get().getKey());
+        assertEquals(0, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    public void activeVersion_IsServedFromTheQueryCache() {
+        blueprintVersionRepository.findActiveVersion(blueprint.getId());
+
+        statistics.clear();
+        assertEquals(version.getId(), blueprintVersionRepository.findActiveVersion(blueprint.getId()).get().getId());
+        assertEquals(0, statistics.getPrepareStatementCount());
+        assertEquals(1, statistics.getQueryRegionStatistics(CacheRegions.ACTIVE_VERSION_QUERY).getHitCount());
+    }
+
+    @Test
+    public void versionFieldsAndTheirCollections_AreServedFromTheCache() {
+        readVersionFieldsAndKeys();
+
+        statistics.clear();
+        readVersionFieldsAndKeys();
+        assertEquals(0, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    public void addingAVersionField_InvalidatesTheCachedQuery() {
+        int before = blueprintVersionFieldRepository.findByBlueprintVersionIdOrderByDisplayOrder(version.getId()).size();
+        BlueprintVersionField added = addField(before);
+
+        statistics.clear();
+        assertEquals(before + 1, blueprintVersionFieldRepository.findByBlueprintVersionIdOrderByDisplayOrder(version.getId()).size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+        blueprintVersionFieldRepository.delete(added);
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    public void adminEndpoint_ReportsRegions() throws Exception {
+        blueprintRepository.findById(blueprint.getId());
+        blueprintRepository.findById(blueprint.getId());
+
+        mockMvc.perform(get("/api/admin/cache").accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[?(@.region == 'blueprint')].size").value(1))
+                .andExpect(jsonPath("$[?(@.region == 'blueprint')].maxSize").value(10000));
+        assertTrue(statistics.getDomainDataRegionStatistics(CacheRegions.BLUEPRINT).getHitCount() > 0);
+    }
+
+    @Test
+    public void evictAll_IsOnlyForAdministrators() throws Exception {
+        blueprintRepository.findById(blueprint.getId());
+
+        mockMvc.perform(delete("/api/admin/cache").with(csrf()))
+                .andExpect(status().isForbidden());
+        assertTrue(entityManagerFactory.getCache().contains(Blueprint.class, blueprint.getId()));
+
+        mockMvc.perform(delete("/api/admin/cache").with(csrf()).with(user("admin").roles("USER", "ADMIN")))
+                .andExpect(status().isNoContent());
+        assertFalse(entityManagerFactory.getCache().contains(Blueprint.class, blueprint.getId()));
+    }
+
+    private void readVersionFieldsAndKeys() {
+        transactionTemplate.executeWithoutResult(status -> {
+            for (BlueprintVersionField versionField : blueprintVersionFieldRepository.findByBlueprintVersionIdOrderByDisplayOrder(version.getId())) {
+                versionField.getField().getKey();
+            }
+            blueprintVersionRepository.findById(version.getId()).get().getFields().size();
+        });
+    }
+
+    private BlueprintVersionField addField(int displayOrder) {
+        return testFixtures.versionField(version, field, displayOrder);
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.mysqlcrudapp.repository;
+
+import com.example.mysqlcrudapp.entity.Blueprint;
+import com.example.mysqlcrudapp.entity.BlueprintVersion;
+import com.example.mysqlcrudapp.entity.BlueprintVersionField;
+import com.example.mysqlcrudapp.entity.Field;
+import com.example.mysqlcrudapp.entity.Item;
+import com.example.mysqlcrudapp.entity.ItemLink;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Saves the blueprint, version, field, item and link rows tests build their data from, with the defaults
+ * the tests do not care about filled in. Part of every test application context through component scanning.
+ */
+@Component
+@RequiredArgsConstructor
+public class TestFixtures {
+    private final BlueprintRepository blueprintRepository;
+    private final BlueprintVersionRepository blueprintVersionRepository;
+    private final FieldRepository fieldRepository;
+    private final BlueprintVersionFieldRepository blueprintVersionFieldRepository;
+    private final ItemRepository itemRepository;
+    private final ItemLinkRepository itemLinkRepository;
+
+    public Blueprint blueprint(String name) {
+        Blueprint blueprint = new Blueprint();
+        blueprint.setName(name);
+        blueprint.setVersions(new ArrayList<>());
+        return blueprintRepository.save(blueprint);
+    }
+
+    /**
+     * Version 1 of a blueprint, not active
+     */
+    public BlueprintVersion version(Blueprint blueprint) {
+        return version(blueprint, version -> {
+        });
+    }
+
+    public BlueprintVersion version(Blueprint blueprint, Consumer<BlueprintVersion> settings) {
+        BlueprintVersion version = new BlueprintVersion();
+        version.setBlueprint(blueprint);
+        version.setVersionNumber(1);
+        version.setName("Version 1");
+        settings.accept(version);
+        return blueprintVersionRepository.save(version);
+    }
+
+    public Field field(String key, String label, String type) {
+        return field(key, label, type, field -> {
+        });
+    }
+
+    public Field field(String key, String label, String type, Consumer<Field> settings) {
+        Field field = new Field();
+        field.setKey(key);
+        field.setLabel(label);
+        field.setType(type);
+        settings.accept(field);
+        return fieldRepository.save(field);
+    }
+
+    /**
+     * Adds a field to a version as an optional field
+     */
+    public BlueprintVersionField versionField(BlueprintVersion version, Field field, int displayOrder) {
+        return blueprintVersionFieldRepository.save(BlueprintVersionField.builder()
+                .blueprintVersion(version)
+                .field(field)
+                .displayOrder(displayOrder)
+                .required(false)
+                .build());
+    }
+
+    public Item item(BlueprintVersion version, String dataJson) {
+        Item item = new Item();
+        item.setBlueprint(version.getBlueprint());
+        item.setVersion(version);
+        item.setDataJson(dataJson);
+        return itemRepository.save(item);
+    }
+
+    public ItemLink link(Field field, Item from, Item to) {
+        ItemLink link = new ItemLink();
+        link.setFromItem(from);
+        link.setToItem(to);
+        link.setField(field);
+        return itemLinkRepository.save(link);
+    }
+}
@@ -0,0 +1,201 @@
+package com.example.mysqlcrudapp.search;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * BM25 ranking, and results that stay the same as changes move from the buffer into segments, through merges,
+ * reopening and rebuilds
+ */
+public class ItemSearchIndexTest {
+    private static final List<String> EVERY_TERM = Arrays.asList("apple", "pie", "banana", "old", "new", "fresh", "crust");
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void search_RanksRareTermsFrequentTermsAndShortItemsFirst() throws IOException {
+        ItemSearchIndex index = new ItemSearchIndex(directory);
+        index.index(1, terms("apple apple pie"));
+        index.index(2, terms("apple pie crust with a long recipe"));
+        index.index(3, terms("banana"));
+        index.index(4, terms("pie"));
+
+        // More occurrences in a shorter item rank higher
+        assertEquals(Arrays.asList(1L, 2L), ids(index.search(terms("apple"), 0, 10)));
+        // Equal scores are ordered by id
+        assertEquals(Arrays.asList(4L, 1L, 2L), ids(index.search(terms("pie"), 0, 10)));
+        // The rarer term outweighs the more common one
+        assertEquals(Arrays.asList(3L, 1L, 2L), ids(index.search(terms("banana apple"), 0, 10)));
+        // Repeating a query term does not count it twice
+        assertEquals(index.search(terms("banana apple"), 0, 10), index.search(terms("banana apple apple"), 0, 10));
+
+        ItemSearchIndex.Result page = index.search(terms("apple pie banana"), 1, 2);
+        assertEquals(4, page.getTotal());
+        assertEquals(2, page.getHits().size());
+        assertEquals(0, index.search(terms("missing"), 0, 10).getTotal());
+    }
+
+    @Test
+    public void search_MatchesTheBm25Formula() throws IOException {
+        ItemSearchIndex index = new ItemSearchIndex(directory);
+        index.index(1, terms("apple apple pie"));
+        index.index(2, terms("pie crust"));
+        index.index(3, terms("banana"));
+
+        // 3 items of average length 2; "apple" is in one of them, twice, in an item of length 3
+        double idf = Math.log(1 + (3 - 1 + 0.5) / (1 + 0.5));
+        double expected = idf * 2 * 2.2 / (2 + 1.2 * (1 - 0.75 + 0.75 * 3 / 2.0));
+        assertEquals(expected, index.search(terms("apple"), 0, 10).getHits().get(0).getScore(), 1e-12);
+    }
+
+    @Test
+    public void flushAndMerge_KeepResultsAndDropSupersededCopies() throws IOException {
+        ItemSearchIndex index = new ItemSearchIndex(directory);
+        index.index(1, terms("apple pie"));
+        index.index(2, terms("old banana"));
+        index.index(3, terms("apple crust"));
+        assertTrue(index.flush());
+        assertFalse(index.flush());
+
+        index.index(2, terms("new banana"));
+        index.delete(1);
+        index.index(4, terms("fresh apple"));
+        List<ItemSearchIndex.Result> buffered = searchEveryTerm(index);
+        assertTrue(index.flush());
+
+        assertEquals(2, index.getStatistics().get("segments"));
+        assertEquals(0, index.getStatistics().get("bufferedItems"));
+        assertEquals(buffered, searchEveryTerm(index));
+        assertEquals(0, index.search(terms("old"), 0, 10).getTotal());
+        assertEquals(Arrays.asList(3L, 4L), ids(index.search(terms("apple"), 0, 10)));
+
+        // Tombstones and superseded copies survive a restart until merged away
+        assertEquals(buffered, searchEveryTerm(new ItemSearchIndex(directory)));
+
+        assertFalse(index.merge(2));
+        assertTrue(index.merge(1));
+        assertEquals(1, index.getStatistics().get("segments"));
+        assertEquals(3, index.getStatistics().get("items"));
+        assertEquals(buffered, searchEveryTerm(index));
+        assertEquals(1, segmentFiles().size());
+        assertEquals(buffered, searchEveryTerm(new ItemSearchIndex(directory)));
+    }
+
+    @Test
+    public void merge_KeepsBufferedChangesOnTop() throws IOException {
+        ItemSearchIndex index = new ItemSearchIndex(directory);
+        index.index(1, terms("old"));
+        index.flush();
+        index.index(2, terms("apple"));
+        index.flush();
+        index.index(1, terms("new"));
+        index.delete(2);
+
+        assertTrue(index.merge(1));
+
+        assertEquals(0, index.search(terms("old apple"), 0, 10).getTotal());
+        assertEquals(Arrays.asList(1L), ids(index.search(terms("new"), 0, 10)));
+        index.flush();
+        assertEquals(0, new ItemSearchIndex(directory).search(terms("old apple"), 0, 10).getTotal());
+    }
+
+    @Test
+    public void rebuild_KeepsChangesMadeDuringTheScan() throws Exception {
+        ItemSearchIndex index = new ItemSearchIndex(directory);
+        for (long id = 1; id <= 4; id++) {
+            index.index(id, terms("apple old"));
+        }
+        index.flush();
+
+        long count = index.rebuild(sink -> {
+            // The scan reads item 1 and 3 before they change and never sees item 5, which is created after it started
+            sink.add(1, terms("apple old"));
+            sink.add(2, terms("apple pie"));
+            CompletableFuture.runAsync(() -> {
+                index.index(1, terms("apple new"));
+                index.delete(3);
+                index.index(5, terms("fresh banana"));
+                try {
+                    // Maintenance waits for the rebuild
+                    assertFalse(index.flush());
+                    assertFalse(index.merge(0));
+                } catch (IOException e) {
+                    throw new IllegalStateException(e);
+                }
+                // Searches keep being answered from the old index, with the changes on top
+                assertEquals(Arrays.asList(2L, 4L), ids(index.search(terms("old"), 0, 10)));
+            }).join();
+            sink.add(3, terms("apple old"));
+        }, 2);
+
+        assertEquals(3, count);
+        // Item 4 was not in the scan, item 3 was deleted and item 1 changed during it
+        assertEquals(Arrays.asList(1L, 2L, 5L), ids(index.search(EVERY_TERM, 0, 10)).stream().sorted().collect(Collectors.toList()));
+        assertEquals(0, index.search(terms("old"), 0, 10).getTotal());
+        assertEquals(2, index.getStatistics().get("segments"));
+        assertEquals(2, segmentFiles().size());
+
+        // Same scores as an index built from scratch with the final content
+        ItemSearchIndex expected = new ItemSearchIndex(Files.createDirectory(directory.resolve("expected")));
+        expected.index(1, terms("apple new"));
+        expected.index(2, terms("apple pie"));
+        expected.index(5, terms("fresh banana"));
+        List<ItemSearchIndex.Result> results = searchEveryTerm(expected);
+        assertEquals(results, searchEveryTerm(index));
+
+        index.flush();
+        assertEquals(results, searchEveryTerm(new ItemSearchIndex(directory)));
+    }
+
+    @Test
+    public void open_DeletesFilesLeftByAnUnfinishedRebuild() throws IOException {
+        ItemSearchIndex index = new ItemSearchIndex(directory);
+        index.index(1, terms("apple"));
+        index.flush();
+        Files.write(directory.resolve("rebuild-0000000009.idx"), new byte[]{1, 2, 3});
+        Files.write(directory.resolve("segment-0000000010.idx.tmp"), new byte[]{1, 2, 3});
+
+        ItemSearchIndex reopened = new ItemSearchIndex(directory);
+
+        assertEquals(Arrays.asList(1L), ids(reopened.search(terms("apple"), 0, 10)));
+        assertEquals(1, segmentFiles().size());
+        assertFalse(Files.exists(directory.resolve("rebuild-0000000009.idx")));
+        assertFalse(Files.exists(directory.resolve("segment-0000000010.idx.tmp")));
+    }
+
+    private List<ItemSearchIndex.Result> searchEveryTerm(ItemSearchIndex index) {
+        List<ItemSearchIndex.Result> results = EVERY_TERM.stream()
+                .map(term -> index.search(terms(term), 0, 10))
+                .collect(Collectors.toList());
+        results.add(index.search(EVERY_TERM, 0, 10));
+        return results;
+    }
+
+    private List<Path> segmentFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().startsWith("segment-")).collect(Collectors.toList());
+        }
+    }
+
+    private static List<String> terms(String text) {
+        return Arrays.asList(text.split(" "));
+    }
+
+    private static List<Long> ids(ItemSearchIndex.Result result) {
+        return result.getHits().stream().map(ItemSearchIndex.Hit::getItemId).collect(Collectors.toList());
+    }
+}
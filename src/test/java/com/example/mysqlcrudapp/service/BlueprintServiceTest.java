@@ -0,0 +1,102 @@
+package com.example.mysqlcrudapp.service;
+
+import com.example.mysqlcrudapp.dto.BlueprintItemCountDto;
+import com.example.mysqlcrudapp.dto.BlueprintSummaryDto;
+import com.example.mysqlcrudapp.repository.BlueprintRepository;
+import com.example.mysqlcrudapp.repository.ItemRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * The blueprint listing and its item counts, cached apart and invalidated by different writes
+ */
+public class BlueprintServiceTest {
+    private BlueprintRepository blueprintRepository;
+    private ItemRepository itemRepository;
+    private BlueprintService blueprintService;
+
+    @BeforeEach
+    public void setUp() {
+        blueprintRepository = mock(BlueprintRepository.class);
+        itemRepository = mock(ItemRepository.class);
+        blueprintService = new BlueprintService(blueprintRepository, itemRepository, null, null, null);
+    }
+
+    @Test
+    public void findSummaries_FillsInItemCountsAndKeepsBothUntilInvalidated() {
+        when(blueprintRepository.findSummaries()).thenReturn(Arrays.asList(summary(1L, "One"), summary(2L, "Two")));
+        when(itemRepository.countByBlueprint()).thenReturn(Collections.singletonList(new BlueprintItemCountDto(2L, 5)));
+
+        assertEquals(Arrays.asList("One:0", "Two:5"), describe(blueprintService.findSummaries()));
+        assertEquals(Arrays.asList("One:0", "Two:5"), describe(blueprintService.findSummaries()));
+
+        verify(blueprintRepository, times(1)).findSummaries();
+        verify(itemRepository, times(1)).countByBlueprint();
+    }
+
+    @Test
+    public void itemWrites_ReloadOnlyTheItemCounts() {
+        when(blueprintRepository.findSummaries()).thenReturn(Collections.singletonList(summary(1L, "One")));
+        when(itemRepository.countByBlueprint())
+                .thenReturn(Collections.singletonList(new BlueprintItemCountDto(1L, 1)))
+                .thenReturn(Collections.singletonList(new BlueprintItemCountDto(1L, 2)));
+        blueprintService.findSummaries();
+
+        blueprintService.invalidateItemCounts();
+
+        assertEquals(Collections.singletonList("One:2"), describe(blueprintService.findSummaries()));
+        verify(blueprintRepository, times(1)).findSummaries();
+        verify(itemRepository, times(2)).countByBlueprint();
+
+        blueprintService.invalidateSummaries();
+        blueprintService.findSummaries();
+        verify(blueprintRepository, times(2)).findSummaries();
+        verify(itemRepository, times(2)).countByBlueprint();
+    }
+
+    @Test
+    public void loadOverlappingAWrite_IsReturnedButNotKept() {
+        // The write commits while the listing is being read, so the rows read may predate it
+        when(blueprintRepository.findSummaries())
+                .thenAnswer(invocation -> {
+                    blueprintService.invalidateSummaries();
+                    return Collections.singletonList(summary(1L, "Before"));
+                })
+                .thenReturn(Collections.singletonList(summary(1L, "After")));
+        when(itemRepository.countByBlueprint())
+                .thenAnswer(invocation -> {
+                    blueprintService.invalidateItemCounts();
+                    return Collections.singletonList(new BlueprintItemCountDto(1L, 1));
+                })
+                .thenReturn(Collections.singletonList(new BlueprintItemCountDto(1L, 2)));
+
+        assertEquals(Collections.singletonList("Before:1"), describe(blueprintService.findSummaries()));
+        assertEquals(Collections.singletonList("After:2"), describe(blueprintService.findSummaries()));
+        assertEquals(Collections.singletonList("After:2"), describe(blueprintService.findSummaries()));
+
+        verify(blueprintRepository, times(2)).findSummaries();
+        verify(itemRepository, times(2)).countByBlueprint();
+    }
+
+    private static BlueprintSummaryDto summary(Long id, String name) {
+        BlueprintSummaryDto summary = new BlueprintSummaryDto();
+        summary.setId(id);
+        summary.setName(name);
+        return summary;
+    }
+
+    private static List<String> describe(List<BlueprintSummaryDto> summaries) {
+        return summaries.stream().map(summary -> summary.getName() + ":" + summary.getItemCount()).collect(Collectors.toList());
+    }
+}
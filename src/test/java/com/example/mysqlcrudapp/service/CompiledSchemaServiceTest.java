@@ -0,0 +1,147 @@
+package com.example.mysqlcrudapp.service;
+
+import com.example.mysqlcrudapp.entity.BlueprintVersion;
+import com.example.mysqlcrudapp.entity.Field;
+import com.example.mysqlcrudapp.exception.ResourceNotFoundException;
+import com.example.mysqlcrudapp.repository.BlueprintVersionFieldRepository;
+import com.example.mysqlcrudapp.repository.BlueprintVersionRepository;
+import com.example.mysqlcrudapp.repository.FieldRepository;
+import com.example.mysqlcrudapp.repository.TestFixtures;
+import com.example.mysqlcrudapp.schema.CompiledSchema;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * When a compiled schema is served from the cache and when it is compiled again: after a committed write to
+ * one of its fields, its version or its version fields, or once the cache is full
+ */
+@SpringBootTest
+public class CompiledSchemaServiceTest {
+
+    @Autowired
+    private CompiledSchemaService compiledSchemaService;
+
+    @Autowired
+    private BlueprintVersionRepository blueprintVersionRepository;
+
+    @Autowired
+    private BlueprintVersionFieldRepository blueprintVersionFieldRepository;
+
+    @Autowired
+    private FieldRepository fieldRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private TestFixtures testFixtures;
+
+    private BlueprintVersion version;
+    private Field field;
+
+    @BeforeEach
+    public void createVersion() {
+        version = testFixtures.version(testFixtures.blueprint("Schema blueprint"));
+        field = testFixtures.field("schemaTitle", "Title", "text");
+        testFixtures.versionField(version, field, 0);
+    }
+
+    @Test
+    public void unchangedSchema_IsServedFromTheCache() {
+        CompiledSchema schema = compiledSchemaService.get(version.getId());
+
+        assertSame(schema, compiledSchemaService.get(version.getId()));
+        assertEquals(1, schema.getFields().size());
+    }
+
+    @Test
+    public void fieldWrite_RecompilesOnlyVersionsUsingTheField() {
+        BlueprintVersion other = testFixtures.version(testFixtures.blueprint("Other schema blueprint"));
+        CompiledSchema schema = compiledSchemaService.get(version.getId());
+        CompiledSchema otherSchema = compiledSchemaService.get(other.getId());
+
+        field.setLabel("Heading");
+        fieldRepository.save(field);
+
+        assertNotSame(schema, compiledSchemaService.get(version.getId()));
+        assertSame(otherSchema, compiledSchemaService.get(other.getId()));
+    }
+
+    @Test
+    public void versionWrite_RecompilesTheVersion() {
+        CompiledSchema schema = compiledSchemaService.get(version.getId());
+        assertFalse(schema.isActive());
+
+        version.setActive(true);
+        blueprintVersionRepository.save(version);
+
+        assertTrue(compiledSchemaService.get(version.getId()).isActive());
+    }
+
+    @Test
+    public void versionFieldWrite_RecompilesTheVersion() {
+        CompiledSchema schema = compiledSchemaService.get(version.getId());
+
+        testFixtures.versionField(version, testFixtures.field("schemaBody", "Body", "text"), 1);
+
+        CompiledSchema recompiled = compiledSchemaService.get(version.getId());
+        assertNotSame(schema, recompiled);
+        assertEquals(2, recompiled.getFields().size());
+    }
+
+    @Test
+    public void missingVersion_IsNotFound() {
+        assertFalse(compiledSchemaService.find(Long.MAX_VALUE).isPresent());
+        assertThrows(ResourceNotFoundException.class, () -> compiledSchemaService.get(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void fullCache_EvictsSchemas() throws InterruptedException {
+        CompiledSchemaService small = service(1);
+        BlueprintVersion other = testFixtures.version(testFixtures.blueprint("Evicted schema blueprint"));
+
+        small.get(version.getId());
+        small.get(other.getId());
+
+        // Caffeine evicts in the background
+        long deadline = System.currentTimeMillis() + 5000;
+        while ((Long) small.getCacheStatistics().get("evictions") == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Map<String, Object> statistics = small.getCacheStatistics();
+        assertEquals(1L, statistics.get("evictions"));
+        assertEquals(1L, statistics.get("size"));
+    }
+
+    @Test
+    public void warmUp_CompilesEveryActiveVersion() {
+        version.setActive(true);
+        blueprintVersionRepository.save(version);
+        long activeVersions = blueprintVersionRepository.findByActiveTrue().size();
+        CompiledSchemaService warmed = service(1000);
+
+        warmed.warmUp();
+
+        assertEquals(activeVersions, warmed.getCacheStatistics().get("size"));
+        assertEquals(activeVersions, warmed.getCacheStatistics().get("misses"));
+        warmed.get(version.getId());
+        assertEquals(1L, warmed.getCacheStatistics().get("hits"));
+        assertEquals(activeVersions, warmed.getCacheStatistics().get("misses"));
+    }
+
+    private CompiledSchemaService service(long maxSize) {
+        return new CompiledSchemaService(blueprintVersionRepository, blueprintVersionFieldRepository, objectMapper, maxSize);
+    }
+}
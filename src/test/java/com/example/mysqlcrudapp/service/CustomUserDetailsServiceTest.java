@@ -0,0 +1,100 @@
+package com.example.mysqlcrudapp.service;
+
+import com.example.mysqlcrudapp.entity.User;
+import com.example.mysqlcrudapp.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.util.SerializationUtils;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * The principal built at login: roles, with the admin role on top of the user role for administrators, and
+ * the id and name kept for recording authors
+ */
+public class CustomUserDetailsServiceTest {
+    private UserRepository userRepository;
+    private CustomUserDetailsService userDetailsService;
+
+    @BeforeEach
+    public void setUp() {
+        userRepository = mock(UserRepository.class);
+        when(userRepository.findByLogin(anyString())).thenReturn(Optional.empty());
+        userDetailsService = new CustomUserDetailsService(userRepository);
+    }
+
+    @Test
+    public void administrator_GetsTheAdminRole() {
+        when(userRepository.findByLogin("root")).thenReturn(Optional.of(user(CustomUserDetailsService.ADMIN_USER_TYPE)));
+
+        assertEquals(new HashSet<>(Arrays.asList("ROLE_USER", "ROLE_ADMIN")),
+                roles(userDetailsService.loadUserByUsername("root")));
+    }
+
+    @Test
+    public void otherUsers_OnlyGetTheUserRole() {
+        when(userRepository.findByLogin("root")).thenReturn(Optional.of(user(2)));
+        assertEquals(Collections.singleton("ROLE_USER"), roles(userDetailsService.loadUserByUsername("root")));
+
+        when(userRepository.findByLogin("root")).thenReturn(Optional.of(user(null)));
+        assertEquals(Collections.singleton("ROLE_USER"), roles(userDetailsService.loadUserByUsername("root")));
+    }
+
+    @Test
+    public void principal_CarriesTheIdAndFullName() {
+        when(userRepository.findByLogin("root")).thenReturn(Optional.of(user(2)));
+
+        UserPrincipal principal = (UserPrincipal) userDetailsService.loadUserByUsername("root");
+
+        assertEquals(5L, principal.getId());
+        assertEquals("Root User", principal.getFullName());
+        assertEquals("root", principal.getUsername());
+        assertEquals("hash", principal.getPassword());
+    }
+
+    @Test
+    public void principal_SurvivesSessionSerialization() {
+        when(userRepository.findByLogin("root")).thenReturn(Optional.of(user(CustomUserDetailsService.ADMIN_USER_TYPE)));
+        UserPrincipal principal = (UserPrincipal) userDetailsService.loadUserByUsername("root");
+
+        UserPrincipal restored = (UserPrincipal) SerializationUtils.deserialize(SerializationUtils.serialize(principal));
+
+        assertEquals(principal, restored);
+        assertEquals(5L, restored.getId());
+        assertEquals("Root User", restored.getFullName());
+        assertEquals(roles(principal), roles(restored));
+    }
+
+    @Test
+    public void unknownLogin_IsRejected() {
+        assertThrows(UsernameNotFoundException.class, () -> userDetailsService.loadUserByUsername("nobody"));
+    }
+
+    private static Set<String> roles(UserDetails userDetails) {
+        return userDetails.getAuthorities().stream().map(GrantedAuthority::getAuthority).collect(Collectors.toSet());
+    }
+
+    private static User user(Integer userType) {
+        User user = new User();
+        user.setId(5L);
+        user.setLogin("root");
+        user.setPasswordHash("hash");
+        user.setFullName("Root User");
+        user.setUserType(userType);
+        return user;
+    }
+}
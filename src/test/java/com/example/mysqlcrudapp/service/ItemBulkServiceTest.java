@@ -0,0 +1,176 @@
+package com.example.mysqlcrudapp.service;
+
+import com.example.mysqlcrudapp.entity.Blueprint;
+import com.example.mysqlcrudapp.entity.BlueprintVersion;
+import com.example.mysqlcrudapp.entity.Item;
+import com.example.mysqlcrudapp.repository.BlueprintVersionRepository;
+import com.example.mysqlcrudapp.repository.ItemRepository;
+import com.example.mysqlcrudapp.repository.TestFixtures;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.AdditionalAnswers.delegatesTo;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Per-row results of bulk requests: rows failing on their own, whole chunks rolled back, and a body that
+ * turns malformed halfway
+ */
+@SpringBootTest
+public class ItemBulkServiceTest {
+
+    @Autowired
+    private ItemBulkService itemBulkService;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private BlueprintVersionRepository blueprintVersionRepository;
+
+    @Autowired
+    private AuthenticationService authenticationService;
+
+    @Autowired
+    private ItemValidationService itemValidationService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private TestFixtures testFixtures;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private Blueprint blueprint;
+    private BlueprintVersion version;
+
+    @BeforeEach
+    public void createBlueprint() {
+        blueprint = testFixtures.blueprint("Bulk blueprint");
+        version = testFixtures.version(blueprint, version -> version.setActive(true));
+    }
+
+    @Test
+    public void updateOfAMissingId_FailsOnlyThatRow() throws IOException {
+        Item existing = testFixtures.item(version, "{}");
+
+        JsonNode results = process(itemBulkService, "["
+                + "{\"id\":" + existing.getId() + ",\"versionId\":" + version.getId() + ",\"dataJson\":\"{\\\"a\\\":1}\"},"
+                + "{\"id\":" + Long.MAX_VALUE + ",\"versionId\":" + version.getId() + "},"
+                + "{\"blueprintId\":" + blueprint.getId() + "}]");
+
+        assertEquals(3, results.size());
+        assertResult(results.get(0), 0, "updated");
+        assertResult(results.get(1), 1, "error");
+        assertEquals("Item not found with id: " + Long.MAX_VALUE, results.get(1).get("error").asText());
+        assertResult(results.get(2), 2, "created");
+        assertEquals("{\"a\":1}", itemRepository.findById(existing.getId()).get().getDataJson());
+        assertFalse(itemRepository.existsById(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void failedChunk_ReportsEveryRowAndKeepsOwnErrors() throws IOException {
+        ApplicationEventPublisher failingPublisher = mock(ApplicationEventPublisher.class);
+        doThrow(new IllegalStateException("listener failed")).when(failingPublisher).publishEvent(any(Object.class));
+        long itemsBefore = itemRepository.count();
+
+        JsonNode results = process(service(blueprintVersionRepository, failingPublisher), "["
+                + "{\"blueprintId\":" + blueprint.getId() + "},"
+                + "{\"versionId\":" + Long.MAX_VALUE + "},"
+                + "{\"blueprintId\":" + blueprint.getId() + "}]");
+
+        assertEquals(3, results.size());
+        assertResult(results.get(0), 0, "error");
+        assertEquals("Chunk failed: listener failed", results.get(0).get("error").asText());
+        assertEquals("Version not found with id: " + Long.MAX_VALUE, results.get(1).get("error").asText());
+        assertEquals("Chunk failed: listener failed", results.get(2).get("error").asText());
+        // The whole chunk was rolled back
+        assertEquals(itemsBefore, itemRepository.count());
+    }
+
+    @Test
+    public void malformedJsonMidStream_KeepsEarlierRowsAndStops() throws IOException {
+        long itemsBefore = itemRepository.count();
+
+        JsonNode results = process(itemBulkService, "["
+                + "{\"blueprintId\":" + blueprint.getId() + "},"
+                + "{\"blueprintId\":" + blueprint.getId() + "},"
+                + "{\"blueprintId\": oops},"
+                + "{\"blueprintId\":" + blueprint.getId() + "}]");
+
+        assertEquals(3, results.size());
+        assertResult(results.get(0), 0, "created");
+        assertResult(results.get(1), 1, "created");
+        assertResult(results.get(2), 2, "error");
+        assertTrue(results.get(2).get("error").asText().startsWith("Malformed JSON: "));
+        assertEquals(itemsBefore + 2, itemRepository.count());
+    }
+
+    @Test
+    public void versionLookups_AreReusedAcrossChunks() throws IOException {
+        BlueprintVersionRepository versions = mock(BlueprintVersionRepository.class, delegatesTo(blueprintVersionRepository));
+        List<String> rows = new ArrayList<>();
+        for (int i = 0; i <= ItemBulkService.CHUNK_SIZE; i++) {
+            rows.add(i % 2 == 0
+                    ? "{\"versionId\":" + version.getId() + "}"
+                    : "{\"blueprintId\":" + blueprint.getId() + "}");
+        }
+
+        JsonNode results = process(service(versions, eventPublisher), "[" + String.join(",", rows) + "]");
+
+        assertEquals(ItemBulkService.CHUNK_SIZE + 1, results.size());
+        results.forEach(result -> assertEquals("created", result.get("status").asText()));
+        verify(versions, times(1)).findAllById(any());
+        verify(versions, times(1)).findActiveVersion(anyLong());
+    }
+
+    private ItemBulkService service(BlueprintVersionRepository versions, ApplicationEventPublisher publisher) {
+        ItemBulkService service = new ItemBulkService(itemRepository, versions, authenticationService,
+                itemValidationService, objectMapper, transactionManager, publisher);
+        ReflectionTestUtils.setField(service, "entityManager", entityManager);
+        return service;
+    }
+
+    private JsonNode process(ItemBulkService service, String body) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        service.process(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), out);
+        return objectMapper.readTree(out.toByteArray());
+    }
+
+    private static void assertResult(JsonNode result, int index, String status) {
+        assertEquals(index, result.get("index").asInt());
+        assertEquals(status, result.get("status").asText(), result.toString());
+    }
+}
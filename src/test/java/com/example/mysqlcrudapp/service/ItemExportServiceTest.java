@@ -0,0 +1,162 @@
+package com.example.mysqlcrudapp.service;
+
+import com.example.mysqlcrudapp.entity.Blueprint;
+import com.example.mysqlcrudapp.entity.BlueprintVersion;
+import com.example.mysqlcrudapp.entity.Item;
+import com.example.mysqlcrudapp.entity.User;
+import com.example.mysqlcrudapp.repository.BlueprintVersionRepository;
+import com.example.mysqlcrudapp.repository.ItemRepository;
+import com.example.mysqlcrudapp.repository.UserRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.persistence.EntityManager;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Exports must not query anything while their cursor is open, as MySQL refuses other statements on a
+ * connection that is streaming a result. The user repository here fails like MySQL would.
+ */
+public class ItemExportServiceTest {
+    private static final long VERSION_ID = 7L;
+
+    private final AtomicBoolean cursorOpen = new AtomicBoolean();
+    private final AtomicInteger userQueries = new AtomicInteger();
+    private final List<Item> items = new ArrayList<>();
+    private UserDirectoryService userDirectoryService;
+    private ItemExportService itemExportService;
+
+    @BeforeEach
+    public void setUp() {
+        UserRepository userRepository = mock(UserRepository.class);
+        Map<Long, User> users = Arrays.asList(user(1L, "alice", "Alice Export"), user(2L, "bob", null)).stream()
+                .collect(Collectors.toMap(User::getId, user -> user));
+        when(userRepository.findById(anyLong())).thenAnswer(invocation -> {
+            userQuery();
+            return Optional.ofNullable(users.get(invocation.<Long>getArgument(0)));
+        });
+        when(userRepository.findAllById(any())).thenAnswer(invocation -> {
+            userQuery();
+            return StreamSupport.stream(invocation.<Iterable<Long>>getArgument(0).spliterator(), false)
+                    .map(users::get)
+                    .filter(user -> user != null)
+                    .collect(Collectors.toList());
+        });
+        userDirectoryService = new UserDirectoryService(userRepository, 100, 300);
+
+        for (Long author : Arrays.asList(1L, 2L, null, 3L)) {
+            items.add(item(items.size() + 1L, author));
+        }
+        ItemRepository itemRepository = mock(ItemRepository.class);
+        when(itemRepository.findCreatorIdsByVersionId(VERSION_ID)).thenReturn(Arrays.asList(1L, 2L, 3L));
+        when(itemRepository.streamByVersionId(VERSION_ID)).thenAnswer(invocation -> {
+            cursorOpen.set(true);
+            return items.stream().onClose(() -> cursorOpen.set(false));
+        });
+
+        itemExportService = new ItemExportService(itemRepository, mock(BlueprintVersionRepository.class),
+                mock(CompiledSchemaService.class), userDirectoryService, new ObjectMapper());
+        ReflectionTestUtils.setField(itemExportService, "entityManager", mock(EntityManager.class));
+    }
+
+    @Test
+    public void export_ResolvesAuthorsBeforeOpeningTheCursor() throws Exception {
+        String ndjson = export();
+
+        assertEquals(1, userQueries.get());
+        assertFalse(cursorOpen.get());
+        String[] lines = ndjson.split("\n");
+        assertEquals(items.size(), lines.length);
+        assertEquals("Alice Export", createdBy(lines[0]));
+        assertEquals("bob", createdBy(lines[1]));
+        assertEquals(UserDirectoryService.SYSTEM_NAME, createdBy(lines[2]));
+        assertEquals("user #3", createdBy(lines[3]));
+    }
+
+    @Test
+    public void export_ShowsAuthorsAddedAfterResolvingByIdWithoutQuerying() throws Exception {
+        items.add(item(5L, 2L));
+        items.add(item(6L, 4L));
+
+        String[] lines = export().split("\n");
+
+        assertEquals(1, userQueries.get());
+        assertEquals("bob", createdBy(lines[4]));
+        assertEquals("user #4", createdBy(lines[5]));
+    }
+
+    @Test
+    public void displayNames_LoadsOnlyUncachedUsersInOneQuery() {
+        assertEquals("Alice Export", userDirectoryService.displayName(1L));
+        assertEquals(1, userQueries.get());
+
+        Map<Long, String> names = userDirectoryService.displayNames(Arrays.asList(1L, 2L, 3L, null));
+
+        assertEquals(2, userQueries.get());
+        assertEquals("Alice Export", names.get(1L));
+        assertEquals("bob", names.get(2L));
+        assertEquals("user #3", names.get(3L));
+        assertNull(names.get(null));
+        assertEquals(3, names.size());
+    }
+
+    private String export() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        itemExportService.exportVersion(VERSION_ID, ItemExportService.Format.NDJSON, out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    private void userQuery() {
+        if (cursorOpen.get()) {
+            throw new IllegalStateException("Streaming result set is still active");
+        }
+        userQueries.incrementAndGet();
+    }
+
+    private static String createdBy(String line) throws Exception {
+        return new ObjectMapper().readTree(line).get("createdBy").asText();
+    }
+
+    private static User user(Long id, String login, String fullName) {
+        User user = new User();
+        user.setId(id);
+        user.setLogin(login);
+        user.setFullName(fullName);
+        return user;
+    }
+
+    private static Item item(Long id, Long createdById) {
+        Blueprint blueprint = new Blueprint();
+        blueprint.setId(3L);
+        BlueprintVersion version = new BlueprintVersion();
+        version.setId(VERSION_ID);
+        Item item = new Item();
+        item.setId(id);
+        item.setBlueprint(blueprint);
+        item.setVersion(version);
+        item.setCurrentState("active");
+        item.setDataJson("{}");
+        item.setCreatedById(createdById);
+        return item;
+    }
+}
@@ -0,0 +1,209 @@
+package com.example.mysqlcrudapp.service;
+
+import com.example.mysqlcrudapp.entity.Field;
+import com.example.mysqlcrudapp.repository.FieldRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * The index states as the DDL runs, against a template that keeps the item table's generated columns and
+ * indexes in memory and answers the information_schema lookups from them
+ */
+public class ItemFieldIndexServiceTest {
+    private static final Pattern ADD_COLUMN = Pattern.compile("ADD COLUMN (\\w+) (\\w+)");
+    private static final Pattern ADD_INDEX = Pattern.compile("ADD INDEX (\\w+) \\(blueprint_id, (\\w+)\\)");
+    private static final Pattern DROP_COLUMN = Pattern.compile("DROP COLUMN (\\w+)");
+
+    private final Map<String, String> columns = new ConcurrentHashMap<>();
+    private final Map<String, String> indexes = new ConcurrentHashMap<>();
+    private final List<String> statements = Collections.synchronizedList(new ArrayList<>());
+    private final List<Field> indexedFields = new ArrayList<>();
+    private JdbcTemplate jdbcTemplate;
+    private FieldRepository fieldRepository;
+    private ItemFieldIndexService itemFieldIndexService;
+
+    @BeforeEach
+    public void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        when(jdbcTemplate.queryForList(contains("information_schema.COLUMNS"), eq(String.class), anyString()))
+                .thenAnswer(invocation -> found(columns.get(invocation.<String>getArgument(2))));
+        when(jdbcTemplate.queryForList(contains("information_schema.STATISTICS"), eq(String.class), anyString()))
+                .thenAnswer(invocation -> found(indexes.containsKey(invocation.<String>getArgument(2))
+                        ? invocation.<String>getArgument(2) : null));
+        doAnswer(invocation -> {
+            run(invocation.getArgument(0));
+            return null;
+        }).when(jdbcTemplate).execute(anyString());
+
+        fieldRepository = mock(FieldRepository.class);
+        when(fieldRepository.findByIndexedTrue()).thenAnswer(invocation -> new ArrayList<>(indexedFields));
+        when(fieldRepository.findFirstByKeyAndIndexedTrue(any())).thenAnswer(invocation -> indexedFields.stream()
+                .filter(field -> field.getKey().equals(invocation.getArgument(0)))
+                .findFirst());
+        itemFieldIndexService = new ItemFieldIndexService(jdbcTemplate, fieldRepository);
+        // Loaded before any field is indexed, so no rebuild runs in the background of the other tests
+        itemFieldIndexService.getStates();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        itemFieldIndexService.shutdown();
+    }
+
+    @Test
+    public void indexedField_GetsColumnThenIndexAndBecomesReady() {
+        indexedFields.add(field("price", "number"));
+
+        itemFieldIndexService.reconcile("price");
+
+        assertEquals("double", columns.get("jf_price"));
+        assertEquals("jf_price", indexes.get("idx_item_jf_price"));
+        assertEquals(2, statements.size());
+        assertTrue(statements.get(1).endsWith("ALGORITHM=INPLACE, LOCK=NONE"));
+        assertTrue(itemFieldIndexService.isReady("price"));
+    }
+
+    @Test
+    public void columnLeftWithoutItsIndex_OnlyGetsTheIndex() {
+        indexedFields.add(field("price", "number"));
+        columns.put("jf_price", "double");
+
+        itemFieldIndexService.reconcile("price");
+
+        assertEquals(1, statements.size());
+        assertTrue(statements.get(0).startsWith("ALTER TABLE item ADD INDEX idx_item_jf_price"));
+        assertTrue(itemFieldIndexService.isReady("price"));
+    }
+
+    @Test
+    public void startup_OnlyTrustsColumnsWithTheirIndexAndRebuildsTheRest() {
+        indexedFields.addAll(Arrays.asList(field("price", "number"), field("sku", "string"), field("due", "date")));
+        columns.put("jf_price", "double");
+        indexes.put("idx_item_jf_price", "jf_price");
+        // Stopped between the two statements
+        columns.put("jf_sku", "varchar");
+        itemFieldIndexService.shutdown();
+        itemFieldIndexService = new ItemFieldIndexService(jdbcTemplate, fieldRepository);
+
+        assertTrue(itemFieldIndexService.isReady("price"));
+
+        verify(jdbcTemplate, timeout(5000)).execute(contains("ADD INDEX idx_item_jf_sku"));
+        verify(jdbcTemplate, timeout(5000)).execute(contains("ADD INDEX idx_item_jf_due"));
+        waitUntilReady("sku");
+        waitUntilReady("due");
+        // The complete index is left alone, and the column left without its index is kept
+        assertFalse(statements.stream().anyMatch(sql -> sql.contains("jf_price")));
+        assertFalse(statements.stream().anyMatch(sql -> sql.contains("ADD COLUMN jf_sku")));
+        assertEquals("date", columns.get("jf_due"));
+    }
+
+    @Test
+    public void noIndexedField_DropsTheColumn() {
+        columns.put("jf_price", "double");
+        indexes.put("idx_item_jf_price", "jf_price");
+
+        itemFieldIndexService.reconcile("price");
+
+        assertTrue(columns.isEmpty());
+        assertTrue(indexes.isEmpty());
+        assertNull(itemFieldIndexService.getStates().get("price"));
+    }
+
+    @Test
+    public void typeChange_RecreatesTheColumn() {
+        indexedFields.add(field("price", "number"));
+        columns.put("jf_price", "varchar");
+        indexes.put("idx_item_jf_price", "jf_price");
+
+        itemFieldIndexService.reconcile("price");
+
+        assertTrue(statements.get(0).contains("DROP COLUMN jf_price"));
+        assertEquals("double", columns.get("jf_price"));
+        assertTrue(itemFieldIndexService.isReady("price"));
+    }
+
+    @Test
+    public void failedIndexBuild_IsReportedAndNotReady() {
+        indexedFields.add(field("price", "number"));
+        doAnswer(invocation -> {
+            throw new IllegalStateException("Duplicate key name");
+        }).when(jdbcTemplate).execute(contains("ADD INDEX"));
+
+        itemFieldIndexService.reconcile("price");
+
+        assertEquals(ItemFieldIndexService.FAILED, itemFieldIndexService.getStates().get("price"));
+        assertFalse(itemFieldIndexService.isReady("price"));
+
+        // A later reconcile finds the column and retries only the index
+        doAnswer(invocation -> {
+            run(invocation.getArgument(0));
+            return null;
+        }).when(jdbcTemplate).execute(anyString());
+        statements.clear();
+        itemFieldIndexService.reconcile("price");
+        assertEquals(1, statements.size());
+        assertTrue(itemFieldIndexService.isReady("price"));
+    }
+
+    private void run(String sql) {
+        statements.add(sql);
+        Matcher matcher = ADD_COLUMN.matcher(sql);
+        if (matcher.find()) {
+            columns.put(matcher.group(1), matcher.group(2).toLowerCase());
+        }
+        matcher = ADD_INDEX.matcher(sql);
+        if (matcher.find()) {
+            indexes.put(matcher.group(1), matcher.group(2));
+        }
+        matcher = DROP_COLUMN.matcher(sql);
+        if (matcher.find()) {
+            columns.remove(matcher.group(1));
+            indexes.values().remove(matcher.group(1));
+        }
+    }
+
+    private void waitUntilReady(String key) {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!itemFieldIndexService.isReady(key) && System.currentTimeMillis() < deadline) {
+            Thread.onSpinWait();
+        }
+        assertTrue(itemFieldIndexService.isReady(key), key + " is " + itemFieldIndexService.getStates().get(key));
+    }
+
+    private static List<String> found(String value) {
+        return value == null ? Collections.emptyList() : Collections.singletonList(value);
+    }
+
+    private static Field field(String key, String type) {
+        Field field = new Field();
+        field.setKey(key);
+        field.setType(type);
+        field.setIndexed(true);
+        return field;
+    }
+}
@@ -0,0 +1,183 @@
+package com.example.mysqlcrudapp.service;
+
+import com.example.mysqlcrudapp.entity.BlueprintVersion;
+import com.example.mysqlcrudapp.entity.Field;
+import com.example.mysqlcrudapp.entity.Item;
+import com.example.mysqlcrudapp.entity.ItemLinkClosure;
+import com.example.mysqlcrudapp.repository.ItemLinkClosureRepository;
+import com.example.mysqlcrudapp.repository.TestFixtures;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Path counts of the reachability index of acyclic link fields, on a diamond {@code a -> b -> d, a -> c -> d}
+ * where two routes lead from {@code a} to {@code d}
+ */
+@SpringBootTest
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class ItemLinkClosureServiceTest {
+    private static final AtomicInteger FIELD_KEYS = new AtomicInteger();
+
+    @Autowired
+    private ItemLinkClosureService closureService;
+
+    @Autowired
+    private FieldService fieldService;
+
+    @Autowired
+    private ItemLinkClosureRepository closureRepository;
+
+    @Autowired
+    private TestFixtures testFixtures;
+
+    private Item a;
+    private Item b;
+    private Item c;
+    private Item d;
+
+    @BeforeAll
+    public void createItems() {
+        BlueprintVersion version = testFixtures.version(testFixtures.blueprint("Closure blueprint"));
+
+        List<Item> items = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            items.add(testFixtures.item(version, "{}"));
+        }
+        a = items.get(0);
+        b = items.get(1);
+        c = items.get(2);
+        d = items.get(3);
+    }
+
+    @Test
+    public void addLink_CountsEveryRouteOfADiamond() {
+        Long fieldId = createField(true).getId();
+        addDiamond(fieldId);
+
+        assertEquals(1, pathCount(fieldId, a, b));
+        assertEquals(1, pathCount(fieldId, a, c));
+        assertEquals(2, pathCount(fieldId, a, d));
+        assertEquals(1, pathCount(fieldId, b, d));
+        assertEquals(1, pathCount(fieldId, c, d));
+        assertEquals(0, pathCount(fieldId, b, c));
+        assertEquals(ids(b, c, d), closureService.findDescendantIds(fieldId, a.getId()));
+        assertEquals(ids(a, b, c), closureService.findAncestorIds(fieldId, d.getId()));
+    }
+
+    @Test
+    public void removeLink_KeepsAPairUntilItsLastRouteIsGone() {
+        Long fieldId = createField(true).getId();
+        addDiamond(fieldId);
+
+        closureService.removeLink(fieldId, b.getId(), d.getId());
+        assertEquals(1, pathCount(fieldId, a, d));
+        assertEquals(0, pathCount(fieldId, b, d));
+        assertEquals(1, pathCount(fieldId, a, b));
+        assertEquals(1, pathCount(fieldId, c, d));
+
+        closureService.removeLink(fieldId, c.getId(), d.getId());
+        assertEquals(0, pathCount(fieldId, a, d));
+        assertEquals(0, pathCount(fieldId, c, d));
+        assertEquals(ids(b, c), closureService.findDescendantIds(fieldId, a.getId()));
+        assertEquals(Collections.emptyList(), closureService.findAncestorIds(fieldId, d.getId()));
+    }
+
+    @Test
+    public void addLink_RejectsALinkThatClosesACycle() {
+        Long fieldId = createField(true).getId();
+        addDiamond(fieldId);
+
+        assertThrows(IllegalArgumentException.class, () -> closureService.addLink(fieldId, d.getId(), a.getId()));
+        assertThrows(IllegalArgumentException.class, () -> closureService.addLink(fieldId, b.getId(), a.getId()));
+        assertThrows(IllegalArgumentException.class, () -> closureService.addLink(fieldId, c.getId(), c.getId()));
+        assertEquals(Collections.emptyList(), closureService.findDescendantIds(fieldId, d.getId()));
+        assertEquals(2, pathCount(fieldId, a, d));
+    }
+
+    @Test
+    public void addLink_IgnoresFieldsThatAreNotAcyclic() {
+        Long fieldId = createField(false).getId();
+        closureService.addLink(fieldId, a.getId(), b.getId());
+        closureService.addLink(fieldId, b.getId(), a.getId());
+
+        assertEquals(0, pathCount(fieldId, a, b));
+    }
+
+    @Test
+    public void build_IndexesExistingLinksLikeAddingThemOneByOne() {
+        Field field = createField(false);
+        link(field, a, b);
+        link(field, a, c);
+        link(field, b, d);
+        link(field, c, d);
+
+        closureService.build(field.getId());
+
+        assertEquals(1, pathCount(field.getId(), a, b));
+        assertEquals(2, pathCount(field.getId(), a, d));
+        assertEquals(1, pathCount(field.getId(), c, d));
+        assertEquals(5, closureRepository.findAll().stream().filter(row -> row.getFieldId().equals(field.getId())).count());
+    }
+
+    @Test
+    public void build_RejectsLinksThatAlreadyContainACycle() {
+        Field field = createField(false);
+        link(field, a, b);
+        link(field, b, c);
+        link(field, c, a);
+        link(field, c, d);
+
+        assertThrows(IllegalArgumentException.class, () -> closureService.build(field.getId()));
+        assertEquals(0, pathCount(field.getId(), a, b));
+    }
+
+    @Test
+    public void deletingAField_DropsItsIndex() {
+        Long fieldId = createField(true).getId();
+        closureService.addLink(fieldId, a.getId(), b.getId());
+
+        fieldService.deleteById(fieldId);
+
+        assertEquals(0, pathCount(fieldId, a, b));
+    }
+
+    private void addDiamond(Long fieldId) {
+        closureService.addLink(fieldId, a.getId(), b.getId());
+        closureService.addLink(fieldId, a.getId(), c.getId());
+        closureService.addLink(fieldId, b.getId(), d.getId());
+        closureService.addLink(fieldId, c.getId(), d.getId());
+    }
+
+    private Field createField(boolean acyclic) {
+        return testFixtures.field("closure_" + FIELD_KEYS.incrementAndGet(), "Closure", "link",
+                field -> field.setAcyclic(acyclic));
+    }
+
+    private void link(Field field, Item from, Item to) {
+        testFixtures.link(field, from, to);
+    }
+
+    private long pathCount(Long fieldId, Item ancestor, Item descendant) {
+        return closureRepository.findById(new ItemLinkClosure.Key(fieldId, ancestor.getId(), descendant.getId()))
+                .map(ItemLinkClosure::getPathCount)
+                .orElse(0L);
+    }
+
+    private static List<Long> ids(Item... items) {
+        List<Long> ids = new ArrayList<>();
+        Arrays.stream(items).forEach(item -> ids.add(item.getId()));
+        return ids;
+    }
+}
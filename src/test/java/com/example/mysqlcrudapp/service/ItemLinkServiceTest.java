@@ -0,0 +1,84 @@
+package com.example.mysqlcrudapp.service;
+
+import com.example.mysqlcrudapp.entity.Field;
+import com.example.mysqlcrudapp.entity.Item;
+import com.example.mysqlcrudapp.entity.ItemLink;
+import com.example.mysqlcrudapp.repository.FieldRepository;
+import com.example.mysqlcrudapp.repository.ItemLinkClosureRepository;
+import com.example.mysqlcrudapp.repository.ItemLinkRepository;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Moving a link between two acyclic fields locks both fields, lowest id first, before either link is touched:
+ * a move the other way round locks them in the same order, so the two cannot deadlock
+ */
+public class ItemLinkServiceTest {
+
+    @Test
+    public void update_LocksBothFieldsBeforeTouchingEitherLink() {
+        ItemLinkRepository itemLinkRepository = mock(ItemLinkRepository.class);
+        ItemLinkClosureService closureService = mock(ItemLinkClosureService.class);
+        ItemLinkService itemLinkService = new ItemLinkService(itemLinkRepository, closureService, mock(ApplicationEventPublisher.class));
+        when(itemLinkRepository.findById(1L)).thenReturn(Optional.of(link(9L, 100L, 101L)));
+        when(itemLinkRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        itemLinkService.update(1L, link(4L, 100L, 102L));
+
+        InOrder calls = inOrder(closureService);
+        calls.verify(closureService).lockFields(Arrays.asList(9L, 4L));
+        calls.verify(closureService).removeLink(9L, 100L, 101L);
+        calls.verify(closureService).addLink(4L, 100L, 102L);
+    }
+
+    @Test
+    public void lockFields_LocksAcyclicFieldsInAscendingIdOrder() {
+        FieldRepository fieldRepository = mock(FieldRepository.class);
+        when(fieldRepository.findById(anyLong())).thenAnswer(invocation -> Optional.of(field(invocation.getArgument(0))));
+        when(fieldRepository.findById(7L)).thenReturn(Optional.of(new Field()));
+        when(fieldRepository.findByIdForUpdate(anyLong())).thenAnswer(invocation -> Optional.of(field(invocation.getArgument(0))));
+        ItemLinkClosureService closureService = new ItemLinkClosureService(mock(ItemLinkClosureRepository.class),
+                mock(ItemLinkRepository.class), fieldRepository);
+
+        closureService.lockFields(Arrays.asList(9L, 7L, 4L, 9L));
+
+        InOrder locks = inOrder(fieldRepository);
+        locks.verify(fieldRepository).findByIdForUpdate(4L);
+        locks.verify(fieldRepository).findByIdForUpdate(9L);
+        verify(fieldRepository, never()).findByIdForUpdate(7L);
+    }
+
+    private static ItemLink link(Long fieldId, Long fromItemId, Long toItemId) {
+        ItemLink link = new ItemLink();
+        link.setField(field(fieldId));
+        link.setFromItem(item(fromItemId));
+        link.setToItem(item(toItemId));
+        return link;
+    }
+
+    private static Field field(Long id) {
+        Field field = new Field();
+        field.setId(id);
+        field.setKey("parent" + id);
+        field.setAcyclic(true);
+        return field;
+    }
+
+    private static Item item(Long id) {
+        Item item = new Item();
+        item.setId(id);
+        return item;
+    }
+}
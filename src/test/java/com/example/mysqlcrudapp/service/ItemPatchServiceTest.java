@@ -0,0 +1,85 @@
+package com.example.mysqlcrudapp.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Translation of JSON Patches to SQL; patches that cannot be translated are applied in Java instead
+ */
+public class ItemPatchServiceTest {
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ItemPatchService itemPatchService = new ItemPatchService(null, null, objectMapper, null);
+
+    @Test
+    public void toSql_NestsOneCallPerOperation() throws Exception {
+        ItemPatchService.SqlPatch sql = itemPatchService.toSql(patch("["
+                + "{\"op\": \"add\", \"path\": \"/tags\", \"value\": [\"a\", \"b\"]},"
+                + "{\"op\": \"replace\", \"path\": \"/quantity\", \"value\": 2},"
+                + "{\"op\": \"remove\", \"path\": \"/old\"}]"));
+
+        assertNotNull(sql);
+        assertEquals("JSON_REMOVE(JSON_REPLACE(JSON_SET(data_json, :path0, CAST(:value0 AS JSON)), "
+                + ":path1, CAST(:value1 AS JSON)), :path2)", sql.expression);
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("path0", "$.\"tags\"");
+        parameters.put("value0", "[\"a\",\"b\"]");
+        parameters.put("path1", "$.\"quantity\"");
+        parameters.put("value1", "2");
+        parameters.put("path2", "$.\"old\"");
+        assertEquals(parameters, sql.parameters);
+        // Replacing or removing an absent key must fail, so those keys must exist for the update to match
+        assertEquals(Arrays.asList("$.\"quantity\"", "$.\"old\""), sql.requiredPaths);
+    }
+
+    @Test
+    public void toSql_BindsKeysAndValuesRatherThanSplicingThem() throws Exception {
+        ItemPatchService.SqlPatch sql = itemPatchService.toSql(patch(
+                "[{\"op\": \"add\", \"path\": \"/it's \\\"quoted\\\" a~1b\", \"value\": \"x') OR 1=1 --\"}]"));
+
+        assertNotNull(sql);
+        assertEquals("JSON_SET(data_json, :path0, CAST(:value0 AS JSON))", sql.expression);
+        assertEquals("$.\"it's \\\"quoted\\\" a/b\"", sql.parameters.get("path0"));
+        assertEquals("\"x') OR 1=1 --\"", sql.parameters.get("value0"));
+        assertEquals(Collections.emptyList(), sql.requiredPaths);
+    }
+
+    @Test
+    public void toSql_LeavesOtherPatchesToJava() throws Exception {
+        // Nested path
+        assertNull(itemPatchService.toSql(patch("[{\"op\": \"add\", \"path\": \"/a/b\", \"value\": 1}]")));
+        // The whole document
+        assertNull(itemPatchService.toSql(patch("[{\"op\": \"replace\", \"path\": \"\", \"value\": {}}]")));
+        // The same key twice
+        assertNull(itemPatchService.toSql(patch("[{\"op\": \"add\", \"path\": \"/a\", \"value\": 1},"
+                + "{\"op\": \"remove\", \"path\": \"/a\"}]")));
+        // Operations without a SQL counterpart
+        assertNull(itemPatchService.toSql(patch("[{\"op\": \"test\", \"path\": \"/a\", \"value\": 1}]")));
+        assertNull(itemPatchService.toSql(patch("[{\"op\": \"move\", \"from\": \"/a\", \"path\": \"/b\"}]")));
+        assertNull(itemPatchService.toSql(patch("[{\"op\": \"copy\", \"from\": \"/a\", \"path\": \"/b\"}]")));
+        // Malformed operations, which the Java path reports
+        assertNull(itemPatchService.toSql(patch("[{\"op\": \"add\", \"path\": \"/a\"}]")));
+        assertNull(itemPatchService.toSql(patch("[{\"op\": \"add\", \"path\": \"a\", \"value\": 1}]")));
+        assertNull(itemPatchService.toSql(patch("[{\"op\": \"add\", \"value\": 1}]")));
+        // Empty and overly long patches
+        assertNull(itemPatchService.toSql(patch("[]")));
+        StringBuilder longPatch = new StringBuilder("[");
+        for (int i = 0; i < 33; i++) {
+            longPatch.append(i > 0 ? "," : "").append("{\"op\": \"add\", \"path\": \"/k").append(i).append("\", \"value\": 1}");
+        }
+        assertNull(itemPatchService.toSql(patch(longPatch.append("]").toString())));
+    }
+
+    private JsonNode patch(String json) throws Exception {
+        return objectMapper.readTree(json);
+    }
+}
@@ -0,0 +1,276 @@
+package com.example.mysqlcrudapp.service;
+
+import com.example.mysqlcrudapp.dto.CursorPage;
+import com.example.mysqlcrudapp.dto.ItemQueryDto;
+import com.example.mysqlcrudapp.dto.ItemQueryFilterDto;
+import com.example.mysqlcrudapp.dto.ItemQuerySortDto;
+import com.example.mysqlcrudapp.service.ItemQueryCompiler.CompiledItemQuery;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * SQL and bind parameters compiled for each filter operator, key validation and plan cache sharing
+ */
+public class ItemQueryCompilerTest {
+    private static final String SELECT = "SELECT i.id, i.blueprint_id, i.version_id, i.current_state, i.data_json AS item_data, "
+            + "i.created_by_id, i.created_at FROM item i WHERE i.blueprint_id = ?";
+    private static final String ORDER = " ORDER BY i.id ASC LIMIT ? OFFSET ?";
+    private static final String TEXT_A = "JSON_UNQUOTE(JSON_EXTRACT(data_json, '$.\"a\"'))";
+    private static final String STRING_A = "LEFT(" + TEXT_A + ", 255)";
+    private static final String NUMBER_A = "JSON_VALUE(data_json, '$.\"a\"' RETURNING DOUBLE NULL ON ERROR)";
+
+    private final ItemQueryCompiler compiler = new ItemQueryCompiler();
+
+    @Test
+    public void compile_WithoutFilter() {
+        ItemQueryDto query = query(null);
+        query.setVersionId(2L);
+        query.setLimit(10);
+        query.setOffset(20);
+
+        assertCompiled(query, "SELECT i.id, i.blueprint_id, i.version_id, i.current_state, i.data_json AS item_data, "
+                        + "i.created_by_id, i.created_at FROM item i WHERE i.blueprint_id = ? AND i.version_id = ?" + ORDER,
+                1L, 2L, 10, 20);
+    }
+
+    @Test
+    public void compile_ClampsLimitAndOffset() {
+        ItemQueryDto query = query(null);
+        query.setLimit(CursorPage.MAX_SIZE + 1);
+        query.setOffset(-5);
+
+        assertCompiled(query, SELECT + ORDER, 1L, CursorPage.MAX_SIZE, 0);
+    }
+
+    @Test
+    public void eq_ComparesNumbersAsDoubles() {
+        assertCompiled(query(eq("a", 5)), SELECT + " AND " + NUMBER_A + " = ?" + ORDER,
+                1L, 5.0, CursorPage.DEFAULT_SIZE, 0);
+    }
+
+    @Test
+    public void eq_ComparesStringsByIndexedPrefixAndFullText() {
+        String longValue = String.join("", Collections.nCopies(300, "x"));
+
+        assertCompiled(query(eq("a", longValue)), SELECT + " AND (" + STRING_A + " = ? AND " + TEXT_A + " = ?)" + ORDER,
+                1L, longValue.substring(0, 255), longValue, CursorPage.DEFAULT_SIZE, 0);
+    }
+
+    @Test
+    public void eq_ComparesBooleansAsText() {
+        assertCompiled(query(eq("a", true)), SELECT + " AND (" + STRING_A + " = ? AND " + TEXT_A + " = ?)" + ORDER,
+                1L, "true", "true", CursorPage.DEFAULT_SIZE, 0);
+    }
+
+    @Test
+    public void in_PadsValuesToAPowerOfTwo() {
+        ItemQueryFilterDto in = filter("in", "a");
+        in.setValues(Arrays.asList(1, 2, 3));
+
+        assertCompiled(query(in), SELECT + " AND " + NUMBER_A + " IN (?, ?, ?, ?)" + ORDER,
+                1L, 1.0, 2.0, 3.0, 3.0, CursorPage.DEFAULT_SIZE, 0);
+    }
+
+    @Test
+    public void in_BindsStringPrefixesThenFullTexts() {
+        ItemQueryFilterDto in = filter("in", "a");
+        in.setValues(Arrays.asList("x", "y"));
+
+        assertCompiled(query(in), SELECT + " AND (" + STRING_A + " IN (?, ?) AND " + TEXT_A + " IN (?, ?))" + ORDER,
+                1L, "x", "y", "x", "y", CursorPage.DEFAULT_SIZE, 0);
+    }
+
+    @Test
+    public void range_NumericBounds() {
+        ItemQueryFilterDto range = filter("range", "a");
+        range.setGte(1);
+        range.setLt(10.5);
+
+        assertCompiled(query(range), SELECT + " AND (" + NUMBER_A + " >= ? AND " + NUMBER_A + " < ?)" + ORDER,
+                1L, 1.0, 10.5, CursorPage.DEFAULT_SIZE, 0);
+    }
+
+    @Test
+    public void range_StringBoundsAddAnInclusivePrefixComparison() {
+        ItemQueryFilterDto range = filter("range", "a");
+        range.setGt("b");
+        range.setLte("m");
+
+        assertCompiled(query(range), SELECT + " AND (" + STRING_A + " >= ? AND " + TEXT_A + " > ? AND "
+                        + STRING_A + " <= ? AND " + TEXT_A + " <= ?)" + ORDER,
+                1L, "b", "b", "m", "m", CursorPage.DEFAULT_SIZE, 0);
+    }
+
+    @Test
+    public void exists_SplicesTheValidatedPath() {
+        assertCompiled(query(filter("exists", "a")),
+                SELECT + " AND JSON_CONTAINS_PATH(data_json, 'one', '$.\"a\"')" + ORDER,
+                1L, CursorPage.DEFAULT_SIZE, 0);
+    }
+
+    @Test
+    public void junctions_NestAndKeepParameterOrder() {
+        ItemQueryFilterDto not = filter("not", null);
+        not.setFilters(Collections.singletonList(eq("a", 2)));
+        ItemQueryFilterDto or = filter("or", null);
+        or.setFilters(Arrays.asList(eq("a", 1), not, filter("and", null)));
+
+        assertCompiled(query(or), SELECT + " AND (" + NUMBER_A + " = ? OR NOT (" + NUMBER_A + " = ?) OR TRUE)" + ORDER,
+                1L, 1.0, 2.0, CursorPage.DEFAULT_SIZE, 0);
+        assertCompiled(query(filter("or", null)), SELECT + " AND FALSE" + ORDER, 1L, CursorPage.DEFAULT_SIZE, 0);
+    }
+
+    @Test
+    public void sortAndProjection() {
+        ItemQuerySortDto byNumber = new ItemQuerySortDto();
+        byNumber.setField("a");
+        byNumber.setType("number");
+        byNumber.setDirection("desc");
+        ItemQuerySortDto byDate = new ItemQuerySortDto();
+        byDate.setField("d");
+        byDate.setType("date");
+        ItemQueryDto query = query(null);
+        query.setSort(Arrays.asList(byNumber, byDate));
+        query.setProjection(Arrays.asList("a", "b", "a"));
+
+        assertCompiled(query, "SELECT i.id, i.blueprint_id, i.version_id, i.current_state, "
+                        + "JSON_OBJECT('a', JSON_EXTRACT(data_json, '$.\"a\"'), 'b', JSON_EXTRACT(data_json, '$.\"b\"')) AS item_data, "
+                        + "i.created_by_id, i.created_at FROM item i WHERE i.blueprint_id = ? ORDER BY "
+                        + NUMBER_A + " DESC, JSON_VALUE(data_json, '$.\"d\"' RETURNING DATE NULL ON ERROR) ASC, "
+                        + "i.id ASC LIMIT ? OFFSET ?",
+                1L, CursorPage.DEFAULT_SIZE, 0);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"", "a-b", "a.b", "a b", "a'b", "a\"b", "é",
+            "a123456789012345678901234567890123456789012345678"})
+    public void unsafeKeys_AreRejectedEverywhere(String key) {
+        assertThrows(IllegalArgumentException.class, () -> compiler.compile(query(eq(key, 1))));
+        assertThrows(IllegalArgumentException.class, () -> compiler.compile(query(filter("exists", key))));
+
+        ItemQueryDto projected = query(null);
+        projected.setProjection(Collections.singletonList(key));
+        assertThrows(IllegalArgumentException.class, () -> compiler.compile(projected));
+
+        ItemQuerySortDto sort = new ItemQuerySortDto();
+        sort.setField(key);
+        ItemQueryDto sorted = query(null);
+        sorted.setSort(Collections.singletonList(sort));
+        assertThrows(IllegalArgumentException.class, () -> compiler.compile(sorted));
+    }
+
+    @Test
+    public void longestSafeKey_IsAccepted() {
+        String key = String.join("", Collections.nCopies(48, "k"));
+
+        compiler.compile(query(filter("exists", key)));
+    }
+
+    @Test
+    public void malformedFilters_AreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> compiler.compile(new ItemQueryDto()));
+        assertThrows(IllegalArgumentException.class, () -> compiler.compile(query(filter("like", "a"))));
+        assertThrows(IllegalArgumentException.class, () -> compiler.compile(query(filter("not", null))));
+        assertThrows(IllegalArgumentException.class, () -> compiler.compile(query(filter("range", "a"))));
+        assertThrows(IllegalArgumentException.class, () -> compiler.compile(query(eq("a", Collections.emptyList()))));
+
+        ItemQueryFilterDto mixed = filter("in", "a");
+        mixed.setValues(Arrays.asList(1, "1"));
+        assertThrows(IllegalArgumentException.class, () -> compiler.compile(query(mixed)));
+
+        ItemQueryFilterDto deep = eq("a", 1);
+        for (int i = 0; i < 16; i++) {
+            ItemQueryFilterDto not = filter("not", null);
+            not.setFilters(Collections.singletonList(deep));
+            deep = not;
+        }
+        ItemQueryFilterDto tooDeep = deep;
+        assertThrows(IllegalArgumentException.class, () -> compiler.compile(query(tooDeep)));
+    }
+
+    @Test
+    public void planCache_SharesOneEntryPerShape() {
+        ItemQueryFilterDto firstIn = filter("in", "b");
+        firstIn.setValues(Arrays.asList("x", "y", "z"));
+        ItemQueryFilterDto secondIn = filter("in", "b");
+        secondIn.setValues(Arrays.asList("p", "q", "r", "s"));
+
+        CompiledItemQuery first = compiler.compile(query(and(eq("a", 1), firstIn)));
+        CompiledItemQuery second = compiler.compile(query(and(eq("a", 2.5), secondIn)));
+
+        // Only the values differ, and both IN lists pad to four slots
+        assertSame(first.getSql(), second.getSql());
+        assertEquals(1L, compiler.getCacheStatistics().get("size"));
+        assertEquals(1L, compiler.getCacheStatistics().get("hits"));
+        assertEquals(1L, compiler.getCacheStatistics().get("misses"));
+        assertArrayEquals(new Object[]{1L, 2.5, "p", "q", "r", "s", "p", "q", "r", "s", CursorPage.DEFAULT_SIZE, 0},
+                second.getParameters());
+    }
+
+    @Test
+    public void planCache_SeparatesShapes() {
+        compiler.compile(query(eq("a", 1)));
+        // Another value type, key or operator changes the SQL
+        compiler.compile(query(eq("a", "1")));
+        compiler.compile(query(eq("b", 1)));
+        compiler.compile(query(filter("exists", "a")));
+        // Five values pad to eight slots rather than four
+        ItemQueryFilterDto in = filter("in", "a");
+        in.setValues(Arrays.asList(1, 2, 3, 4, 5));
+        compiler.compile(query(in));
+
+        assertEquals(5L, compiler.getCacheStatistics().get("size"));
+        assertEquals(0L, compiler.getCacheStatistics().get("hits"));
+    }
+
+    @Test
+    public void planCache_IsBounded() {
+        for (int i = 0; i < ItemQueryCompiler.PLAN_CACHE_SIZE + 10; i++) {
+            compiler.compile(query(filter("exists", "k" + i)));
+        }
+
+        assertEquals((long) ItemQueryCompiler.PLAN_CACHE_SIZE, compiler.getCacheStatistics().get("size"));
+    }
+
+    private void assertCompiled(ItemQueryDto query, String sql, Object... parameters) {
+        CompiledItemQuery compiled = compiler.compile(query);
+        assertEquals(sql, compiled.getSql());
+        assertArrayEquals(parameters, compiled.getParameters());
+    }
+
+    private static ItemQueryDto query(ItemQueryFilterDto filter) {
+        ItemQueryDto query = new ItemQueryDto();
+        query.setBlueprintId(1L);
+        query.setFilter(filter);
+        return query;
+    }
+
+    private static ItemQueryFilterDto filter(String op, String field) {
+        ItemQueryFilterDto filter = new ItemQueryFilterDto();
+        filter.setOp(op);
+        filter.setField(field);
+        return filter;
+    }
+
+    private static ItemQueryFilterDto eq(String field, Object value) {
+        ItemQueryFilterDto filter = filter("eq", field);
+        filter.setValue(value);
+        return filter;
+    }
+
+    private static ItemQueryFilterDto and(ItemQueryFilterDto... filters) {
+        ItemQueryFilterDto filter = filter("and", null);
+        filter.setFilters(List.of(filters));
+        return filter;
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.mysqlcrudapp.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Recordings written to a temporary directory with the JDK's lighter "default" settings
+ */
+public class JfrRecordingServiceTest {
+    @TempDir
+    Path directory;
+
+    private JfrRecordingService service;
+
+    @AfterEach
+    public void tearDown() {
+        if (service != null) {
+            service.close();
+        }
+    }
+
+    @Test
+    public void dumpsAndStop_KeepOnlyTheNewestFiles() throws Exception {
+        service = service(2);
+        Files.createDirectories(directory);
+        Path unrelated = Files.createFile(directory.resolve("notes.txt"));
+        service.start();
+
+        List<Path> written = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            written.add(service.dump());
+        }
+        written.add(service.stop());
+
+        assertEquals(written.subList(2, 4), recordings());
+        assertTrue(Files.size(written.get(3)) > 0);
+        assertTrue(Files.exists(unrelated));
+        assertEquals(4, written.stream().distinct().count());
+    }
+
+    @Test
+    public void status_FollowsTheRecording() {
+        service = service(10);
+        assertEquals(false, service.getStatus().get("running"));
+
+        service.start();
+        assertEquals(true, service.getStatus().get("running"));
+        assertTrue(service.getStatus().containsKey("startTime"));
+        assertThrows(IllegalArgumentException.class, service::start);
+
+        service.stop();
+        assertEquals(false, service.getStatus().get("running"));
+        assertFalse(service.getStatus().containsKey("startTime"));
+    }
+
+    @Test
+    public void dumpAndStop_NeedARunningRecording() {
+        service = service(10);
+
+        assertThrows(IllegalArgumentException.class, service::dump);
+        assertThrows(IllegalArgumentException.class, service::stop);
+    }
+
+    @Test
+    public void maxFiles_MustBePositive() {
+        assertThrows(IllegalArgumentException.class, () -> service(0));
+    }
+
+    private JfrRecordingService service(int maxFiles) {
+        return new JfrRecordingService(directory.toString(), "default", 16, false, maxFiles);
+    }
+
+    private List<Path> recordings() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(".jfr"))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.example.mysqlcrudapp.service;
+
+import com.example.mysqlcrudapp.entity.User;
+import com.example.mysqlcrudapp.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.spy;
+
+/**
+ * Buffered last_login writes against the users table: which users a full buffer drops, how a failed batch
+ * is merged back, and that a write never moves a stored time backwards.
+ * <p>
+ * Each test builds its own service over the application's JdbcTemplate, apart from the scheduled bean.
+ */
+@SpringBootTest
+public class UserActivityServiceTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private final List<User> users = new ArrayList<>();
+
+    @BeforeEach
+    public void createUsers() {
+        for (String login : new String[]{"activity-a", "activity-b", "activity-c", "activity-d"}) {
+            User user = new User();
+            user.setLogin(login);
+            user.setPasswordHash("hash");
+            users.add(userRepository.save(user));
+        }
+    }
+
+    @AfterEach
+    public void deleteUsers() {
+        userRepository.deleteAll(users);
+    }
+
+    @Test
+    public void fullBuffer_DropsTheUserPendingLongest() {
+        UserActivityService activity = new UserActivityService(jdbcTemplate, 2, 10);
+
+        activity.record(id(0));
+        activity.record(id(1));
+        // Active again, so no longer the longest pending
+        activity.record(id(0));
+        activity.record(id(2));
+
+        assertEquals(2, activity.flush());
+        assertNotNull(lastLogin(0));
+        assertNull(lastLogin(1));
+        assertNotNull(lastLogin(2));
+        assertEquals(1L, activity.getStatistics().get("dropped"));
+    }
+
+    @Test
+    public void failedBatch_GoesBackInFrontAndNewerTimesWin() {
+        JdbcTemplate failingOnce = spy(jdbcTemplate);
+        UserActivityService activity = new UserActivityService(failingOnce, 3, 10);
+        LocalDateTime[] retriedAfter = new LocalDateTime[1];
+        doAnswer(invocation -> {
+            // Recorded while the batch is being written
+            retriedAfter[0] = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+            activity.record(id(1));
+            activity.record(id(2));
+            throw new DataAccessResourceFailureException("Connection refused");
+        }).doCallRealMethod().when(failingOnce).batchUpdate(anyString(), anyCollection(), anyInt(), any());
+        activity.record(id(0));
+        activity.record(id(1));
+
+        assertEquals(0, activity.flush());
+        assertEquals(3, activity.getStatistics().get("pending"));
+        assertEquals(1L, activity.getStatistics().get("failedFlushes"));
+
+        // The merged order is a, b, c: the failed a is the longest pending and goes first
+        activity.record(id(3));
+        assertEquals(3, activity.flush());
+        assertNull(lastLogin(0));
+        assertFalse(lastLogin(1).isBefore(retriedAfter[0]));
+        assertNotNull(lastLogin(2));
+        assertNotNull(lastLogin(3));
+    }
+
+    @Test
+    public void write_NeverMovesLastLoginBackwards() {
+        UserActivityService activity = new UserActivityService(jdbcTemplate, 10, 10);
+        LocalDateTime later = LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.SECONDS);
+        LocalDateTime earlier = LocalDateTime.now().minusDays(1).truncatedTo(ChronoUnit.SECONDS);
+        setLastLogin(0, later);
+        setLastLogin(1, earlier);
+        LocalDateTime recordedAfter = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+
+        activity.record(id(0));
+        activity.record(id(1));
+        activity.flush();
+
+        assertEquals(later, lastLogin(0));
+        assertFalse(lastLogin(1).isBefore(recordedAfter));
+    }
+
+    private Long id(int user) {
+        return users.get(user).getId();
+    }
+
+    private void setLastLogin(int user, LocalDateTime time) {
+        jdbcTemplate.update("UPDATE users SET last_login = ? WHERE user_id = ?", Timestamp.valueOf(time), id(user));
+    }
+
+    private LocalDateTime lastLogin(int user) {
+        Timestamp time = jdbcTemplate.queryForObject("SELECT last_login FROM users WHERE user_id = ?", Timestamp.class, id(user));
+        return time == null ? null : time.toLocalDateTime();
+    }
+}
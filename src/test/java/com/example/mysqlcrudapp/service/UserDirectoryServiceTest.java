@@ -0,0 +1,131 @@
+package com.example.mysqlcrudapp.service;
+
+import com.example.mysqlcrudapp.entity.User;
+import com.example.mysqlcrudapp.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * When names and ids are served from the cache and when the users table is asked again: after the TTL, or
+ * right away once a user is evicted
+ */
+public class UserDirectoryServiceTest {
+    private final Map<Long, User> users = new HashMap<>();
+    private UserRepository userRepository;
+
+    @BeforeEach
+    public void setUp() {
+        userRepository = mock(UserRepository.class);
+        when(userRepository.findById(anyLong())).thenAnswer(invocation -> Optional.ofNullable(users.get(invocation.<Long>getArgument(0))));
+        when(userRepository.findAllById(any())).thenAnswer(invocation -> {
+            List<User> found = new ArrayList<>();
+            invocation.<Iterable<Long>>getArgument(0).forEach(id -> Optional.ofNullable(users.get(id)).ifPresent(found::add));
+            return found;
+        });
+        when(userRepository.findByLogin(anyString())).thenAnswer(invocation -> users.values().stream()
+                .filter(user -> user.getLogin().equals(invocation.getArgument(0)))
+                .findFirst());
+        users.put(1L, user(1L, "ada", "Ada Lovelace"));
+        users.put(2L, user(2L, "grace", null));
+    }
+
+    @Test
+    public void displayName_IsLoadedOnceWithinTheTtl() {
+        UserDirectoryService directory = new UserDirectoryService(userRepository, 100, 300);
+
+        assertEquals("Ada Lovelace", directory.displayName(1L));
+        users.get(1L).setFullName("Ada King");
+        assertEquals("Ada Lovelace", directory.displayName(1L));
+
+        verify(userRepository, times(1)).findById(1L);
+    }
+
+    @Test
+    public void expiredName_IsLoadedAgain() {
+        UserDirectoryService directory = new UserDirectoryService(userRepository, 100, 0);
+
+        assertEquals("Ada Lovelace", directory.displayName(1L));
+        users.get(1L).setFullName("Ada King");
+        assertEquals("Ada King", directory.displayName(1L));
+
+        verify(userRepository, times(2)).findById(1L);
+    }
+
+    @Test
+    public void evict_DropsTheNameAndTheLogins() {
+        UserDirectoryService directory = new UserDirectoryService(userRepository, 100, 300);
+        assertEquals("Ada Lovelace", directory.displayName(1L));
+        assertNull(directory.findIdByLogin("countess"));
+
+        User ada = users.get(1L);
+        ada.setFullName("Ada King");
+        ada.setLogin("countess");
+        directory.evict(1L, "ada", "countess");
+
+        assertEquals("Ada King", directory.displayName(1L));
+        assertEquals(1L, directory.findIdByLogin("countess"));
+        assertNull(directory.findIdByLogin("ada"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void displayNames_LoadsOnlyUncachedUsersInOneQuery() {
+        UserDirectoryService directory = new UserDirectoryService(userRepository, 100, 300);
+        directory.displayName(1L);
+
+        Map<Long, String> names = directory.displayNames(Arrays.asList(1L, 2L, 3L, null));
+
+        Map<Long, String> expected = new HashMap<>();
+        expected.put(1L, "Ada Lovelace");
+        expected.put(2L, "grace");
+        expected.put(3L, UserDirectoryService.unknownName(3L));
+        assertEquals(expected, names);
+        ArgumentCaptor<Iterable<Long>> loaded = ArgumentCaptor.forClass(Iterable.class);
+        verify(userRepository).findAllById(loaded.capture());
+        Set<Long> loadedIds = new HashSet<>();
+        loaded.getValue().forEach(loadedIds::add);
+        assertEquals(new HashSet<>(Arrays.asList(2L, 3L)), loadedIds);
+    }
+
+    @Test
+    public void nullId_IsTheSystemWithoutAQuery() {
+        UserDirectoryService directory = new UserDirectoryService(userRepository, 100, 300);
+
+        assertEquals(UserDirectoryService.SYSTEM_NAME, directory.displayName((Long) null));
+        assertEquals(Collections.emptyMap(), directory.displayNames(Collections.singletonList(null)));
+        assertNull(directory.findIdByLogin(null));
+
+        verify(userRepository, never()).findById(any());
+        verify(userRepository, never()).findByLogin(any());
+    }
+
+    private static User user(Long id, String login, String fullName) {
+        User user = new User();
+        user.setId(id);
+        user.setLogin(login);
+        user.setFullName(fullName);
+        return user;
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.mysqlcrudapp.timing;
+
+import com.example.mysqlcrudapp.timing.RequestTimings.Phase;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The header and log formats, which dashboards and browser tools parse, and the per-request reset
+ */
+public class RequestTimingsTest {
+    private static final String TOTAL = "total;dur=\\d+\\.\\d{2}";
+
+    @AfterEach
+    public void tearDown() {
+        RequestTimings.stop();
+    }
+
+    @Test
+    public void header_ListsRecordedPhasesInOrderWithCountsThenTotal() {
+        RequestTimings.start();
+        RequestTimings.add(Phase.SERIALIZATION, 410_000);
+        RequestTimings.add(Phase.DB, 3_000_000);
+        RequestTimings.add(Phase.DB, 120_000);
+
+        String header = RequestTimings.serverTimingHeader();
+
+        assertTrue(header.matches("db;dur=3\\.12;desc=\"Database \\(2\\)\", json;dur=0\\.41;desc=\"Serialization \\(1\\)\", "
+                + TOTAL), header);
+    }
+
+    @Test
+    public void millis_AreTruncatedToTwoZeroPaddedDecimals() {
+        RequestTimings.start();
+        RequestTimings.add(Phase.MAPPING, 1_059_999);
+        RequestTimings.add(Phase.VIEW, 2_000_000_000L);
+
+        String header = RequestTimings.serverTimingHeader();
+
+        assertTrue(header.startsWith("map;dur=1.05;desc=\"Mapping (1)\", view;dur=2000.00;desc=\"View rendering (1)\", "),
+                header);
+    }
+
+    @Test
+    public void logFields_IncludeEveryPhase() {
+        RequestTimings.start();
+        RequestTimings.add(Phase.DB, 5_000_000);
+
+        String fields = RequestTimings.logFields();
+
+        assertTrue(fields.matches("total_ms=\\d+\\.\\d{2} db_ms=5\\.00 db_count=1 map_ms=0\\.00 map_count=0"
+                + " json_ms=0\\.00 json_count=0 view_ms=0\\.00 view_count=0"), fields);
+    }
+
+    @Test
+    public void outsideARequest_NothingIsRecorded() {
+        RequestTimings.stop();
+        RequestTimings.add(Phase.DB, 5_000_000);
+
+        assertFalse(RequestTimings.isActive());
+        assertEquals(0, RequestTimings.count(Phase.DB));
+        assertEquals(0, RequestTimings.totalNanos());
+        assertEquals("total;dur=0.00", RequestTimings.serverTimingHeader());
+    }
+
+    @Test
+    public void start_DiscardsThePreviousRequest() {
+        RequestTimings.start();
+        RequestTimings.add(Phase.DB, 5_000_000);
+        RequestTimings.stop();
+
+        RequestTimings.start();
+
+        assertTrue(RequestTimings.isActive());
+        assertEquals(0, RequestTimings.nanos(Phase.DB));
+        assertEquals(0, RequestTimings.count(Phase.DB));
+        assertTrue(RequestTimings.serverTimingHeader().matches(TOTAL));
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.mysqlcrudapp.timing;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.MockHttpOutputMessage;
+
+import java.io.IOException;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Small responses are buffered so the header includes serialization; larger ones are streamed past the cap
+ * and leave serialization to the access log
+ */
+public class TimedJackson2HttpMessageConverterTest {
+    private final TimedJackson2HttpMessageConverter converter =
+            new TimedJackson2HttpMessageConverter(new ObjectMapper(), 64);
+
+    @AfterEach
+    public void tearDown() {
+        RequestTimings.stop();
+    }
+
+    @Test
+    public void smallResponse_HeaderIncludesSerializationAndLengthIsSet() throws IOException {
+        RequestTimings.start();
+        MockHttpOutputMessage message = new MockHttpOutputMessage();
+
+        converter.write(Collections.singletonMap("name", "small"), MediaType.APPLICATION_JSON, message);
+
+        assertEquals("{\"name\":\"small\"}", message.getBodyAsString());
+        assertEquals(16, message.getHeaders().getContentLength());
+        assertTrue(message.getHeaders().getFirst(ServerTimingFilter.SERVER_TIMING).startsWith("json;dur="));
+        assertEquals(1, RequestTimings.count(RequestTimings.Phase.SERIALIZATION));
+    }
+
+    @Test
+    public void responseOverTheCap_IsStreamedWithTheHeaderSentBeforeSerialization() throws IOException {
+        RequestTimings.start();
+        MockHttpOutputMessage message = new MockHttpOutputMessage();
+        String large = "x".repeat(1000);
+
+        converter.write(Collections.singletonMap("name", large), MediaType.APPLICATION_JSON, message);
+
+        assertEquals("{\"name\":\"" + large + "\"}", message.getBodyAsString());
+        assertEquals(-1, message.getHeaders().getContentLength());
+        String header = message.getHeaders().getFirst(ServerTimingFilter.SERVER_TIMING);
+        assertTrue(header.startsWith("total;dur="), header);
+        assertFalse(header.contains("json"));
+        // Still recorded for the access log
+        assertEquals(1, RequestTimings.count(RequestTimings.Phase.SERIALIZATION));
+    }
+
+    @Test
+    public void outsideARequest_WritesWithoutTiming() throws IOException {
+        MockHttpOutputMessage message = new MockHttpOutputMessage();
+
+        converter.write(Collections.singletonMap("name", "small"), MediaType.APPLICATION_JSON, message);
+
+        assertEquals("{\"name\":\"small\"}", message.getBodyAsString());
+        assertNull(message.getHeaders().getFirst(ServerTimingFilter.SERVER_TIMING));
+    }
+}
@@ -0,0 +1,277 @@
+package com.example.mysqlcrudapp.validation;
+
+import com.example.mysqlcrudapp.dto.ItemValidationErrorDto;
+import com.example.mysqlcrudapp.entity.BlueprintVersion;
+import com.example.mysqlcrudapp.entity.BlueprintVersionField;
+import com.example.mysqlcrudapp.entity.Field;
+import com.example.mysqlcrudapp.schema.CompiledSchema;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * {@link FieldRule} checks through {@link ItemDataValidator}, one table per field kind. Each row is the JSON value
+ * of the field "v" and the messages it must produce.
+ */
+public class ItemDataValidatorTest {
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final String DATE_ERROR = "must be a date (yyyy-MM-dd)";
+
+    @ParameterizedTest(name = "{0} -> {1}")
+    @MethodSource
+    public void numbers(String value, List<String> errors) {
+        Field field = field("v", "number", "{\"max\": 10}", null);
+        // The column takes precedence over the "min" setting
+        field.setMinNumber(1.0);
+
+        assertErrors(validator(field), value, errors);
+    }
+
+    static Stream<Arguments> numbers() {
+        return Stream.of(
+                row("1"),
+                row("10.0"),
+                row("5e-1", "must be at least 1.0"),
+                row("11", "must be at most 10.0"),
+                row("-1e3", "must be at least 1.0"),
+                row("\"5\"", "must be a number"),
+                row("true", "must be a number"),
+                row("[5]", "must be a number"),
+                row("{\"a\": 5}", "must be a number"),
+                row("null"));
+    }
+
+    @ParameterizedTest(name = "{0} -> {1}")
+    @MethodSource
+    public void strings(String value, List<String> errors) {
+        Field field = field("v", "string", "{\"minLength\": 2, \"maxLength\": 4, \"pattern\": \"[a-z]+\"}", null);
+
+        assertErrors(validator(field), value, errors);
+    }
+
+    static Stream<Arguments> strings() {
+        return Stream.of(
+                row("\"ab\""),
+                row("\"abcd\""),
+                row("\"a\"", "must be at least 2 characters"),
+                row("\"abcde\"", "must be at most 4 characters"),
+                row("\"AB\"", "must match [a-z]+"),
+                // The pattern must match the whole value
+                row("\"ab1\"", "must match [a-z]+"),
+                row("\"A\"", "must be at least 2 characters", "must match [a-z]+"),
+                row("12", "must be a string"),
+                row("false", "must be a string"),
+                row("[\"ab\"]", "must be a string"));
+    }
+
+    @ParameterizedTest(name = "{0} -> {1}")
+    @MethodSource
+    public void booleans(String value, List<String> errors) {
+        assertErrors(validator(field("v", "boolean", null, null)), value, errors);
+    }
+
+    static Stream<Arguments> booleans() {
+        return Stream.of(
+                row("true"),
+                row("false"),
+                row("\"true\"", "must be true or false"),
+                row("1", "must be true or false"),
+                row("{}", "must be a boolean"));
+    }
+
+    @ParameterizedTest(name = "{0} -> {1}")
+    @MethodSource
+    public void dates(String value, List<String> errors) {
+        assertErrors(validator(field("v", "date", null, null)), value, errors);
+    }
+
+    static Stream<Arguments> dates() {
+        return Stream.of(
+                row("\"2024-02-29\""),
+                row("\"2024-01-02T03:04\""),
+                row("\"2024-01-02T03:04:05.123\""),
+                row("\"2023-02-29\"", DATE_ERROR),
+                row("\"2024-1-2\"", DATE_ERROR),
+                row("\"02/01/2024\"", DATE_ERROR),
+                row("\"2024-01-02 03:04\"", DATE_ERROR),
+                row("\"2024-01-02T25:00\"", DATE_ERROR),
+                row("\"2024-01-02T03:04:05Z\"", DATE_ERROR),
+                row("20240102", DATE_ERROR),
+                row("[\"2024-01-02\"]", "must be a date"));
+    }
+
+    @ParameterizedTest(name = "{0} -> {1}")
+    @MethodSource
+    public void arrays(String value, List<String> errors) {
+        Field field = field("v", "array", "{\"minItems\": 1, \"maxItems\": 3}", "[1, \"b\"]");
+
+        assertErrors(validator(field), value, errors);
+    }
+
+    static Stream<Arguments> arrays() {
+        return Stream.of(
+                row("[1]"),
+                row("[1.0, \"b\", 10E-1]"),
+                row("[\"1\"]"),
+                row("[]", "must have at least 1 items"),
+                row("[1, 1, 1, 1]", "must have at most 3 items"),
+                row("[2, \"c\"]", "item 2 is not one of the allowed options", "item c is not one of the allowed options"),
+                // Nested elements count but are not compared with the options
+                row("[{\"x\": 2}, [2]]"),
+                row("[2, 1, 1, 1]", "item 2 is not one of the allowed options", "must have at most 3 items"),
+                row("\"b\"", "must be an array"),
+                row("{\"b\": [1]}", "must be an array"));
+    }
+
+    @ParameterizedTest(name = "{0} -> {1}")
+    @MethodSource
+    public void objects(String value, List<String> errors) {
+        assertErrors(validator(field("v", "object", null, null)), value, errors);
+    }
+
+    static Stream<Arguments> objects() {
+        return Stream.of(
+                row("{}"),
+                row("{\"a\": [1, {\"b\": 2}]}"),
+                row("[{\"a\": 1}]", "must be an object"),
+                row("1", "must be an object"));
+    }
+
+    @ParameterizedTest(name = "{0} -> {1}")
+    @MethodSource
+    public void numericOptions(String value, List<String> errors) {
+        assertErrors(validator(field("v", "number", null, "[1, 2.50]")), value, errors);
+    }
+
+    static Stream<Arguments> numericOptions() {
+        return Stream.of(
+                row("1"),
+                row("1.0"),
+                row("1.000"),
+                row("1e0"),
+                row("2.5"),
+                row("2.50"),
+                row("3", "is not one of the allowed options"),
+                row("1.01", "is not one of the allowed options"),
+                // A number field still demands a number, even one that would match
+                row("\"1\"", "must be a number"));
+    }
+
+    @ParameterizedTest(name = "{0} -> {1}")
+    @MethodSource
+    public void textOptions(String value, List<String> errors) {
+        // Option values given as object keys are text
+        assertErrors(validator(field("v", "select", null, "{\"1\": \"One\", \"x\": \"Ex\"}")), value, errors);
+    }
+
+    static Stream<Arguments> textOptions() {
+        return Stream.of(
+                row("\"1\""),
+                row("\"x\""),
+                row("\"1.0\"", "is not one of the allowed options"),
+                row("\"X\"", "is not one of the allowed options"));
+    }
+
+    @Test
+    public void wrongTypedNestedValues_AreSkippedWithoutLosingThePlace() {
+        Field maxTwo = field("s", "string", "{\"maxLength\": 2}", null);
+        ItemDataValidator validator = validator(Arrays.asList("r"),
+                field("n", "number", null, null), field("a", "array", null, null),
+                field("o", "object", null, null), field("d", "date", null, null), maxTwo,
+                field("r", "number", null, null));
+
+        List<ItemValidationErrorDto> errors = validator.validate("{"
+                + "\"n\": {\"deep\": [1, {\"s\": \"abc\"}], \"r\": null},"
+                + "\"a\": {\"k\": [1, 2], \"s\": [\"abc\"]},"
+                + "\"o\": [{\"z\": 1}, [\"abc\"]],"
+                + "\"d\": [{\"d\": \"2024-01-02\"}],"
+                + "\"unknown\": {\"s\": {\"s\": \"abc\"}},"
+                + "\"s\": \"abc\","
+                + "\"r\": 1}");
+
+        assertEquals(Arrays.asList(
+                "n: must be a number",
+                "a: must be an array",
+                "o: must be an object",
+                "d: must be a date",
+                "s: must be at most 2 characters"), describe(errors));
+    }
+
+    @Test
+    public void requiredFields_MustBePresentAndNotNull() {
+        // Required on the version field, or through the field's validation settings
+        ItemDataValidator validator = validator(Arrays.asList("r"), field("r", "string", null, null),
+                field("q", "string", "{\"required\": true}", null), field("o", "string", null, null));
+
+        assertEquals(Arrays.asList("r: is required", "q: is required"), describe(validator.validate(null)));
+        assertEquals(Arrays.asList("r: is required", "q: is required"), describe(validator.validate("  ")));
+        assertEquals(Arrays.asList("q: is required"), describe(validator.validate("{\"r\": \"a\", \"q\": null}")));
+        assertEquals(Collections.emptyList(), describe(validator.validate("{\"r\": \"a\", \"q\": \"b\"}")));
+    }
+
+    @Test
+    public void malformedPayloads_AreReportedAsAWhole() {
+        ItemDataValidator validator = validator(field("v", "string", null, null));
+
+        assertEquals(Arrays.asList("null: Item data must be a JSON object"), describe(validator.validate("[1]")));
+        assertEquals(Arrays.asList("null: Unexpected content after the item data object"),
+                describe(validator.validate("{\"v\": \"a\"} {}")));
+        List<String> malformed = describe(validator.validate("{\"v\": \"a\""));
+        assertEquals(1, malformed.size());
+        assertTrue(malformed.get(0).startsWith("null: Malformed JSON: "), malformed.get(0));
+    }
+
+    private static void assertErrors(ItemDataValidator validator, String value, List<String> errors) {
+        List<String> expected = errors.stream().map(message -> "v: " + message).collect(Collectors.toList());
+        assertEquals(expected, describe(validator.validate("{\"v\": " + value + "}")));
+    }
+
+    private static Arguments row(String value, String... errors) {
+        return Arguments.of(value, Arrays.asList(errors));
+    }
+
+    private static List<String> describe(List<ItemValidationErrorDto> errors) {
+        return errors.stream().map(error -> error.getField() + ": " + error.getMessage()).collect(Collectors.toList());
+    }
+
+    private static Field field(String key, String type, String validationJson, String optionsJson) {
+        Field field = new Field();
+        field.setId((long) key.hashCode());
+        field.setKey(key);
+        field.setType(type);
+        field.setValidationJson(validationJson);
+        field.setOptionsJson(optionsJson);
+        return field;
+    }
+
+    private static ItemDataValidator validator(Field... fields) {
+        return validator(Collections.emptyList(), fields);
+    }
+
+    private static ItemDataValidator validator(List<String> requiredKeys, Field... fields) {
+        BlueprintVersion version = new BlueprintVersion();
+        version.setId(1L);
+        List<BlueprintVersionField> versionFields = new ArrayList<>();
+        for (Field field : fields) {
+            versionFields.add(BlueprintVersionField.builder()
+                    .blueprintVersion(version)
+                    .field(field)
+                    .displayOrder(versionFields.size())
+                    .required(requiredKeys.contains(field.getKey()))
+                    .build());
+        }
+        return CompiledSchema.compile(version, versionFields, OBJECT_MAPPER).getValidator();
+    }
+}